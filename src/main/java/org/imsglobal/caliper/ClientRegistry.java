@@ -0,0 +1,139 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import org.imsglobal.caliper.bulkhead.Bulkhead;
+import org.imsglobal.caliper.clients.CaliperClient;
+import org.imsglobal.caliper.clients.CaliperPayloadClient;
+import org.imsglobal.caliper.config.DataFormat;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the Clients registered with a Sensor and their bulkheads.  The Sensor
+ * swaps in a new snapshot on every change, so sends iterate a snapshot without locking or copying.
+ * The snapshot also groups the Clients by the DataFormat of the payloads they accept, so that a
+ * send need not regroup them.
+ */
+final class ClientRegistry {
+    static final ClientRegistry EMPTY = new ClientRegistry(ImmutableMap.<String, CaliperClient>of(),
+        ImmutableMap.<String, Bulkhead>of());
+
+    private final ImmutableMap<String, CaliperClient> clients;
+    private final ImmutableMap<String, Bulkhead> bulkheads;
+    private final ImmutableMap<DataFormat, ImmutableList<CaliperPayloadClient>> payloadClients;
+    private final ImmutableList<CaliperClient> envelopeClients;
+
+    /**
+     * Constructor
+     * @param clients
+     * @param bulkheads
+     */
+    private ClientRegistry(ImmutableMap<String, CaliperClient> clients, ImmutableMap<String, Bulkhead> bulkheads) {
+        this.clients = clients;
+        this.bulkheads = bulkheads;
+
+        Map<DataFormat, ImmutableList.Builder<CaliperPayloadClient>> groups = new EnumMap<>(DataFormat.class);
+        ImmutableList.Builder<CaliperClient> others = ImmutableList.builder();
+        for (CaliperClient client: clients.values()) {
+            if (client instanceof CaliperPayloadClient && ((CaliperPayloadClient) client).acceptsSharedPayloads()) {
+                CaliperPayloadClient payloadClient = (CaliperPayloadClient) client;
+                ImmutableList.Builder<CaliperPayloadClient> group = groups.get(payloadClient.getDataFormat());
+                if (group == null) {
+                    group = ImmutableList.builder();
+                    groups.put(payloadClient.getDataFormat(), group);
+                }
+                group.add(payloadClient);
+            } else {
+                others.add(client);
+            }
+        }
+        Map<DataFormat, ImmutableList<CaliperPayloadClient>> built = new EnumMap<>(DataFormat.class);
+        for (Map.Entry<DataFormat, ImmutableList.Builder<CaliperPayloadClient>> group: groups.entrySet()) {
+            built.put(group.getKey(), group.getValue().build());
+        }
+        this.payloadClients = Maps.immutableEnumMap(built);
+        this.envelopeClients = others.build();
+    }
+
+    /**
+     * @return registered Clients, in registration order.
+     */
+    ImmutableMap<String, CaliperClient> getClients() {
+        return clients;
+    }
+
+    /**
+     * @return registered Clients that accept serialized Envelopes, grouped by DataFormat.
+     */
+    ImmutableMap<DataFormat, ImmutableList<CaliperPayloadClient>> getPayloadClients() {
+        return payloadClients;
+    }
+
+    /**
+     * @return registered Clients that must be handed the Envelope itself, since they serialize
+     * each Envelope for their own endpoint.
+     */
+    ImmutableList<CaliperClient> getEnvelopeClients() {
+        return envelopeClients;
+    }
+
+    /**
+     * @param id
+     * @return the Client's bulkhead, or null if not registered.
+     */
+    Bulkhead getBulkhead(String id) {
+        return bulkheads.get(id);
+    }
+
+    /**
+     * Copy this snapshot, adding or replacing a Client.  A replaced Client keeps its position.
+     * @param client
+     * @param bulkhead
+     * @return new snapshot
+     */
+    ClientRegistry with(CaliperClient client, Bulkhead bulkhead) {
+        Map<String, CaliperClient> clients = new LinkedHashMap<>(this.clients);
+        Map<String, Bulkhead> bulkheads = new LinkedHashMap<>(this.bulkheads);
+        clients.put(client.getId(), client);
+        bulkheads.put(client.getId(), bulkhead);
+        return new ClientRegistry(ImmutableMap.copyOf(clients), ImmutableMap.copyOf(bulkheads));
+    }
+
+    /**
+     * Copy this snapshot, removing a Client.
+     * @param id
+     * @return new snapshot, or this one if the Client is not registered
+     */
+    ClientRegistry without(String id) {
+        if (!clients.containsKey(id)) {
+            return this;
+        }
+        Map<String, CaliperClient> clients = new LinkedHashMap<>(this.clients);
+        Map<String, Bulkhead> bulkheads = new LinkedHashMap<>(this.bulkheads);
+        clients.remove(id);
+        bulkheads.remove(id);
+        return new ClientRegistry(ImmutableMap.copyOf(clients), ImmutableMap.copyOf(bulkheads));
+    }
+}
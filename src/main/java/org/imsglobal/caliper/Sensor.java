@@ -19,31 +19,59 @@
 package org.imsglobal.caliper;
 
 import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Maps;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.imsglobal.caliper.bulkhead.Bulkhead;
+import org.imsglobal.caliper.bulkhead.BulkheadOptions;
 import org.imsglobal.caliper.clients.CaliperClient;
+import org.imsglobal.caliper.clients.CaliperPayloadClient;
+import org.imsglobal.caliper.clients.FanOutResult;
+import org.imsglobal.caliper.clients.FlushResult;
+import org.imsglobal.caliper.clients.SendResult;
+import org.imsglobal.caliper.clients.SerializedEnvelope;
+import org.imsglobal.caliper.config.DataFormat;
+import org.imsglobal.caliper.config.Timeout;
+import org.imsglobal.caliper.databind.CaliperSerializer;
 import org.imsglobal.caliper.statistics.Statistics;
 import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
-import java.util.HashMap;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 /**
  * Concrete implementation of the Caliper Sensor interface.  Caliper Events and Entity describes
  * are sent via an Envelope.  Serialization and transmission of the Envelope is delegated to
  * one or more registered Clients which in turn delegate serialization and transmission to
  * an associated Requestor.  The delegation chain is thus Sensor to Client to Requestor.
+ * Closing the Sensor unregisters and closes every Client, flushing them within a shared deadline.
  */
-public class Sensor {
+public class Sensor implements AutoCloseable {
     private String id;
-    private Map<String, CaliperClient> clients = new HashMap<>();
+    private final AtomicReference<ClientRegistry> registry = new AtomicReference<>(ClientRegistry.EMPTY);
+    private final CaliperSerializer serializer;
+
+    private static final Logger log = LoggerFactory.getLogger(Sensor.class);
 
     /**
      * Constructor. Scope is private to force use of the static factory method for instantiating a Sensor.
+     * Obtaining the shared serializer here warms it before the first send.
      */
     private Sensor(String id) {
         this.id = id;
+        this.serializer = CaliperSerializer.getInstance();
     }
 
     /**
@@ -55,20 +83,56 @@ public class Sensor {
     }
 
     /**
-     * Register a Sensor client.
+     * Get the shared serializer.
+     * @return serializer
+     */
+    public CaliperSerializer getSerializer() {
+        return serializer;
+    }
+
+    /**
+     * Register a Sensor client with a default bulkhead.
      * @param client the client object
      */
     public void registerClient(CaliperClient client) {
-        clients.put(client.getId(), client);
+        registerClient(client, BulkheadOptions.builder().build());
     }
 
     /**
-     * Unregister a Sensor client.
+     * Register a Sensor client.  Blocking sends to all Clients run on the client's own bulkhead
+     * so that a stalled Client cannot delay the others.  Registering a Client under the id of an
+     * existing one hands off atomically: new sends go to the replacement while the existing
+     * Client's bulkhead drains.
+     * @param client the client object
+     * @param options the client's bulkhead settings
+     */
+    public void registerClient(final CaliperClient client, BulkheadOptions options) {
+        final Bulkhead bulkhead = Bulkhead.create(client.getId(), options);
+        Bulkhead previous = registry.getAndUpdate(current -> current.with(client, bulkhead))
+            .getBulkhead(client.getId());
+        if (previous != null) {
+            previous.drain();
+        }
+    }
+
+    /**
+     * Unregister a Sensor client.  Sends already dispatched to it still complete.
      * @param key
      * @return
      */
     public void unregisterClient(String key) {
-        clients.remove(key);
+        drainClient(key);
+    }
+
+    /**
+     * Unregister a Sensor client, then wait for the sends already dispatched to it.  The returned
+     * future completes once the Client is idle, after which it may safely be closed.
+     * @param key
+     * @return future that completes when the Client has drained
+     */
+    public CompletableFuture<Void> drainClient(final String key) {
+        Bulkhead bulkhead = registry.getAndUpdate(current -> current.without(key)).getBulkhead(key);
+        return (bulkhead != null) ? bulkhead.drain() : CompletableFuture.<Void>completedFuture(null);
     }
 
     /**
@@ -77,15 +141,15 @@ public class Sensor {
      * @return
      */
     public CaliperClient getClient(String key) {
-        return clients.get(key);
+        return registry.get().getClients().get(key);
     }
 
     /**
-     * Retrieve Map of clients.
+     * Retrieve an immutable snapshot of the registered clients.
      * @return clients
      */
     public Map<String, CaliperClient> getClients() {
-        return clients;
+        return registry.get().getClients();
     }
 
     /**
@@ -102,37 +166,294 @@ public class Sensor {
 
     /**
      * Delegate serialization and transmission of the Envelope to a particular registered Client.
+     * A Client that is being drained is no longer registered.
      * @param envelope
      */
     public void send(CaliperClient client, Envelope envelope) {
-        if (clients.containsKey(client.getId())) {
+        Bulkhead bulkhead = registry.get().getBulkhead(client.getId());
+        CompletableFuture<Void> sent = (bulkhead == null) ? null : bulkhead.track(() -> {
             client.send(envelope);
+            return CompletableFuture.<Void>completedFuture(null);
+        });
+        if (sent == null || sent.isCompletedExceptionally()) {
+            throw new IllegalArgumentException(client.getId() + " is not a registered Client.");
+        }
+    }
+
+    /**
+     * Delegate transmission of the Envelope to all registered Clients in parallel, each on its own
+     * bulkhead, and wait for every Client to finish or exhaust its timeout.  Clients able to send
+     * serialized Envelopes are grouped by DataFormat and the Envelope is serialized once per group;
+     * every Client in the group posts the same bytes.  Other Clients serialize for themselves.
+     * A failing Client does not prevent delivery to the others.  The Clients are those registered
+     * when the send starts; concurrent registration changes apply to later sends.
+     * @param envelope
+     * @return the outcome for each Client
+     */
+    public FanOutResult send(final Envelope envelope) {
+        ClientRegistry current = registry.get();
+        if (current.getClients().size() > 0) {
+            final long start = System.currentTimeMillis();
+            Map<CaliperClient, CompletableFuture<SendResult>> futures = new LinkedHashMap<>();
+            for (Map.Entry<DataFormat, ImmutableList<CaliperPayloadClient>> group: current.getPayloadClients().entrySet()) {
+                final SerializedEnvelope serialized = serialize(envelope, group.getKey(), group.getValue());
+                for (final CaliperPayloadClient client: group.getValue()) {
+                    futures.put(client, dispatch(current, client, () -> {
+                        if (serialized != null) {
+                            client.send(serialized);
+                        } else {
+                            client.send(envelope);
+                        }
+                    }));
+                }
+            }
+            for (final CaliperClient client: current.getEnvelopeClients()) {
+                futures.put(client, dispatch(current, client, () -> client.send(envelope)));
+            }
+
+            Map<String, SendResult> results = new LinkedHashMap<>();
+            for (Map.Entry<CaliperClient, CompletableFuture<SendResult>> entry: futures.entrySet()) {
+                String id = entry.getKey().getId();
+                results.put(id, await(current.getBulkhead(id), entry.getValue(), start));
+            }
+            return FanOutResult.create(results);
+        } else {
+            throw new IllegalStateException("No Clients have been registered.");
+        }
+    }
+
+    /**
+     * Delegate asynchronous transmission of the Envelope to a particular registered Client.  If the
+     * Client is being drained, the send is not started and the future fails with a
+     * RejectedExecutionException.
+     * @param client
+     * @param envelope
+     * @return future send result
+     */
+    public CompletableFuture<SendResult> sendAsync(CaliperClient client, Envelope envelope) {
+        Bulkhead bulkhead = registry.get().getBulkhead(client.getId());
+        if (bulkhead != null) {
+            return bulkhead.track(() -> client.sendAsync(envelope));
         } else {
             throw new IllegalArgumentException(client.getId() + " is not a registered Client.");
         }
     }
 
     /**
-     * Delegate serialization and transmission of the Envelope to all registered Clients.
+     * Delegate asynchronous transmission of the Envelope to all registered Clients.  The returned
+     * future completes once every Client has reported a result.
+     * @param envelope
+     * @return future list of send results, one per Client
+     */
+    public CompletableFuture<List<SendResult>> sendAsync(Envelope envelope) {
+        ClientRegistry current = registry.get();
+        if (current.getClients().size() > 0) {
+            final List<CompletableFuture<SendResult>> futures = new ArrayList<>(current.getClients().size());
+            for (Map.Entry<DataFormat, ImmutableList<CaliperPayloadClient>> group: current.getPayloadClients().entrySet()) {
+                SerializedEnvelope serialized = serialize(envelope, group.getKey(), group.getValue());
+                for (CaliperPayloadClient client: group.getValue()) {
+                    futures.add(track(current.getBulkhead(client.getId()),
+                        () -> serialized != null ? client.sendAsync(serialized) : client.sendAsync(envelope)));
+                }
+            }
+            for (CaliperClient client: current.getEnvelopeClients()) {
+                futures.add(track(current.getBulkhead(client.getId()), () -> client.sendAsync(envelope)));
+            }
+
+            return CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()]))
+                .thenApply(ignored -> {
+                    List<SendResult> results = new ArrayList<>(futures.size());
+                    for (CompletableFuture<SendResult> future: futures) {
+                        results.add(future.join());
+                    }
+                    return results;
+                });
+        } else {
+            throw new IllegalStateException("No Clients have been registered.");
+        }
+    }
+
+    /**
+     * Offer the Envelope to a particular registered Client without blocking.
+     * @param client
      * @param envelope
+     * @return false if the Client is at capacity
      */
-    public void send(Envelope envelope) {
+    public boolean offer(CaliperClient client, Envelope envelope) {
+        if (registry.get().getClients().containsKey(client.getId())) {
+            return client.offer(envelope);
+        } else {
+            throw new IllegalArgumentException(client.getId() + " is not a registered Client.");
+        }
+    }
+
+    /**
+     * Offer the Envelope to all registered Clients without blocking.  Clients with spare capacity
+     * accept the Envelope even if another Client is full, so only the Clients returned should be
+     * offered it again, with offer(CaliperClient, Envelope).
+     * @param envelope
+     * @return the Clients that were at capacity; empty if every Client accepted the Envelope
+     */
+    public List<CaliperClient> offer(Envelope envelope) {
+        Map<String, CaliperClient> clients = registry.get().getClients();
         if (clients.size() > 0) {
-            for(CaliperClient client: clients.values()){
-                client.send(envelope);
+            List<CaliperClient> refused = new ArrayList<>(0);
+            for (CaliperClient client: clients.values()) {
+                if (!client.offer(envelope)) {
+                    refused.add(client);
+                }
             }
+            return refused;
         } else {
             throw new IllegalStateException("No Clients have been registered.");
         }
     }
 
+    /**
+     * Run a blocking send on the Client's bulkhead.
+     * @param registry
+     * @param client
+     * @param send
+     * @return future result; never completes exceptionally
+     */
+    private CompletableFuture<SendResult> dispatch(ClientRegistry registry, final CaliperClient client,
+                                                   final Runnable send) {
+        final String id = client.getId();
+        return registry.getBulkhead(id).submit(() -> {
+            long start = System.currentTimeMillis();
+            try {
+                send.run();
+                return SendResult.success(id, 0, System.currentTimeMillis() - start);
+            } catch (RuntimeException e) {
+                return SendResult.failure(id, 0, System.currentTimeMillis() - start, e);
+            }
+        }).exceptionally(e -> SendResult.failure(id, 0, 0L, e));
+    }
+
+    /**
+     * Start a non-blocking send counted by the Client's bulkhead.  A send refused because the Client
+     * is being drained reports a failure, as a dispatch refused by a full bulkhead does.
+     * @param bulkhead
+     * @param send
+     * @return future send result
+     */
+    private static CompletableFuture<SendResult> track(final Bulkhead bulkhead,
+                                                       Supplier<CompletableFuture<SendResult>> send) {
+        return bulkhead.track(send).exceptionally(e -> SendResult.failure(bulkhead.getName(), 0, 0L, e));
+    }
+
+    /**
+     * Wait for a dispatched send until the Client's timeout, measured from the start of the
+     * fan-out, has elapsed.  A send that times out keeps running on its bulkhead.
+     * @param bulkhead
+     * @param future
+     * @param start
+     * @return result
+     */
+    private SendResult await(Bulkhead bulkhead, CompletableFuture<SendResult> future, long start) {
+        String id = bulkhead.getName();
+        long timeout = bulkhead.getOptions().getTimeout();
+        try {
+            return future.get(Math.max(0L, start + timeout - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return SendResult.failure(id, 0, System.currentTimeMillis() - start,
+                new TimeoutException(id + " did not complete within " + timeout + "ms."));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return SendResult.failure(id, 0, System.currentTimeMillis() - start, e);
+        } catch (ExecutionException e) {
+            return SendResult.failure(id, 0, System.currentTimeMillis() - start, e.getCause());
+        }
+    }
+
+    /**
+     * Serialize the Envelope once for a group of Clients.  A lone Client is left to serialize for
+     * itself, since it may stream the Envelope, as is a group the Envelope could not be serialized
+     * for, so that each Client reports the failure as it would for its own serialization.
+     * @param envelope
+     * @param format
+     * @param group
+     * @return serialized envelope, or null if each Client should serialize the Envelope itself
+     */
+    private SerializedEnvelope serialize(Envelope envelope, DataFormat format, List<CaliperPayloadClient> group) {
+        if (group.size() < 2) {
+            return null;
+        }
+        try {
+            return SerializedEnvelope.create(envelope, format, serializer);
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Unable to serialize envelope as " + format, e);
+            return null;
+        }
+    }
+
+    /**
+     * Flush every registered Client within a shared deadline.  Clients keep sending while
+     * others are waited for, so a slow Client only shortens the time left for the rest.
+     * @param timeout
+     * @return combined outcome for all Clients
+     */
+    public FlushResult flush(Duration timeout) {
+        long deadline = System.currentTimeMillis() + timeout.toMillis();
+        FlushResult result = FlushResult.EMPTY;
+        for (CaliperClient client: registry.get().getClients().values()) {
+            result = result.plus(client.flush(remaining(deadline)));
+        }
+        return result;
+    }
+
+    /**
+     * Unregister every Client, wait for the blocking sends already dispatched to their bulkheads,
+     * then close them within a shared deadline.  Events a Client could not deliver in time are
+     * spooled by it if it has a spool and otherwise dropped.
+     * @param timeout
+     * @return combined outcome for all Clients
+     */
+    public FlushResult close(Duration timeout) {
+        long deadline = System.currentTimeMillis() + timeout.toMillis();
+        ClientRegistry closing = registry.getAndSet(ClientRegistry.EMPTY);
+        for (String key: closing.getClients().keySet()) {
+            try {
+                closing.getBulkhead(key).drain().get(remaining(deadline).toMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException | ExecutionException e) {
+                log.warn("Client " + key + " did not drain before the shutdown deadline");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        FlushResult result = FlushResult.EMPTY;
+        for (CaliperClient client: closing.getClients().values()) {
+            result = result.plus(client.close(remaining(deadline)));
+        }
+        log.info("Sensor " + id + " closed: " + result);
+        return result;
+    }
+
+    /**
+     * Close, allowing the default shutdown timeout to flush.
+     */
+    @Override
+    public void close() {
+        close(Duration.ofMillis(Timeout.SHUTDOWN_TIMEOUT.value()));
+    }
+
+    /**
+     * Time left until a deadline.
+     * @param deadline
+     * @return remaining time, never negative
+     */
+    private static Duration remaining(long deadline) {
+        return Duration.ofMillis(Math.max(0L, deadline - System.currentTimeMillis()));
+    }
+
     /**
      * Returns a map where the keys are the identifying objects and the values are the corresponding statistics
-     * for that key's Client.
+     * for that key's Client, as registered at the time of the call.
      * @return a map
      */
     public Map<String, Statistics> getStatistics() {
-        return Maps.transformValues(clients, new Function<CaliperClient, Statistics>() {
+        return Maps.transformValues(registry.get().getClients(), new Function<CaliperClient, Statistics>() {
             @Nullable
             @Override
             public Statistics apply(@Nullable CaliperClient client) {
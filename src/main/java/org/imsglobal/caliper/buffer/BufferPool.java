@@ -0,0 +1,233 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.buffer;
+
+import org.imsglobal.caliper.statistics.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Striped, size-classed pool of byte arrays for serialization output.  Arrays come in power-of-two
+ * size classes from MIN_SIZE to MAX_SIZE; larger requests are allocated and discarded as usual.
+ * Each thread maps to one of several stripes to keep contention low, and each stripe retains at
+ * most RETAINED_BYTES per size class, so the pool's footprint is bounded.
+ *
+ * With leak detection enabled, every loan is tracked with its allocation site, and a buffer that
+ * is garbage collected without having been released is logged and counted as a leak.  Detection
+ * is enabled when debug logging is on for this class or the system property
+ * org.imsglobal.caliper.buffer.leakDetection is true.  Hits, misses and leaks are recorded in the
+ * pool's statistics.
+ */
+public class BufferPool {
+    private final Stripe[] stripes;
+    private final boolean leakDetection;
+    private final Statistics statistics = new Statistics();
+    private final ReferenceQueue<PooledBuffer> collected = new ReferenceQueue<>();
+    private final Set<LeakRef> outstanding = ConcurrentHashMap.newKeySet();
+
+    public static final int MIN_SIZE = 1024;
+    public static final int MAX_SIZE = 256 * 1024;
+    public static final int RETAINED_BYTES = 512 * 1024;
+
+    private static final int MIN_SHIFT = Integer.numberOfTrailingZeros(MIN_SIZE);
+    private static final int SIZE_CLASSES = Integer.numberOfTrailingZeros(MAX_SIZE) - MIN_SHIFT + 1;
+
+    public static final String LEAK_DETECTION_PROPERTY = "org.imsglobal.caliper.buffer.leakDetection";
+
+    private static final Logger log = LoggerFactory.getLogger(BufferPool.class);
+
+    /**
+     * Per-stripe free lists, one per size class.
+     */
+    private static class Stripe {
+        @SuppressWarnings("unchecked")
+        private final ArrayBlockingQueue<byte[]>[] free = new ArrayBlockingQueue[SIZE_CLASSES];
+
+        private Stripe() {
+            for (int i = 0; i < SIZE_CLASSES; i++) {
+                free[i] = new ArrayBlockingQueue<>(Math.max(1, RETAINED_BYTES / (MIN_SIZE << i)));
+            }
+        }
+    }
+
+    /**
+     * Tracks a loan so that a buffer collected without release can be reported.
+     */
+    static class LeakRef extends WeakReference<PooledBuffer> {
+        private final Throwable site;
+
+        private LeakRef(PooledBuffer referent, ReferenceQueue<PooledBuffer> queue, Throwable site) {
+            super(referent, queue);
+            this.site = site;
+        }
+    }
+
+    /**
+     * Holder for the lazily created shared pool.
+     */
+    private static class Holder {
+        private static final BufferPool INSTANCE = new BufferPool(Runtime.getRuntime().availableProcessors(),
+            log.isDebugEnabled() || Boolean.getBoolean(LEAK_DETECTION_PROPERTY));
+    }
+
+    /**
+     * Constructor.  Scope is private to force use of the static factory methods.
+     * @param stripeCount
+     * @param leakDetection
+     */
+    private BufferPool(int stripeCount, boolean leakDetection) {
+        checkArgument(stripeCount > 0, "stripeCount must be positive");
+
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.leakDetection = leakDetection;
+    }
+
+    /**
+     * Get the shared pool.
+     * @return pool
+     */
+    public static BufferPool getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Create a private pool.
+     * @param stripeCount
+     * @param leakDetection
+     * @return pool
+     */
+    public static BufferPool create(int stripeCount, boolean leakDetection) {
+        return new BufferPool(stripeCount, leakDetection);
+    }
+
+    /**
+     * Get hit, miss and leak counts.
+     * @return statistics
+     */
+    public Statistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Is leak detection enabled?
+     * @return leak detection
+     */
+    public boolean isLeakDetection() {
+        return leakDetection;
+    }
+
+    /**
+     * Borrow an array of at least minSize bytes.  The caller owns it until it is handed back via
+     * recycle, normally through PooledBuffer.release().
+     * @param minSize
+     * @return array
+     */
+    byte[] allocate(int minSize) {
+        int sizeClass = sizeClass(minSize);
+        if (sizeClass < 0) {
+            statistics.updateBufferMisses(1);
+            return new byte[minSize];
+        }
+        byte[] array = stripe().free[sizeClass].poll();
+        if (array != null) {
+            statistics.updateBufferHits(1);
+            return array;
+        }
+        statistics.updateBufferMisses(1);
+        return new byte[MIN_SIZE << sizeClass];
+    }
+
+    /**
+     * Hand back an array obtained from allocate.  Arrays that are not of a pooled size, or whose
+     * free list is full, are left to the garbage collector.
+     * @param array
+     * @param leak
+     */
+    void recycle(byte[] array, LeakRef leak) {
+        if (leak != null) {
+            outstanding.remove(leak);
+            leak.clear();
+        }
+        int sizeClass = sizeClass(array.length);
+        if (sizeClass >= 0 && (MIN_SIZE << sizeClass) == array.length) {
+            stripe().free[sizeClass].offer(array);
+        }
+    }
+
+    /**
+     * Lend out filled bytes as a PooledBuffer, tracking the loan if leak detection is enabled.
+     * @param array
+     * @param length
+     * @return buffer
+     */
+    PooledBuffer lend(byte[] array, int length) {
+        PooledBuffer buffer = new PooledBuffer(this, array, length);
+        if (leakDetection) {
+            reportLeaks();
+            LeakRef ref = new LeakRef(buffer, collected, new Throwable("PooledBuffer allocation site"));
+            outstanding.add(ref);
+            buffer.track(ref);
+        }
+        return buffer;
+    }
+
+    /**
+     * Log and count loans that were collected without being released.  Runs on every tracked
+     * loan; may also be called directly, e.g. from tests or a shutdown hook.
+     */
+    public void reportLeaks() {
+        LeakRef ref;
+        while ((ref = (LeakRef) collected.poll()) != null) {
+            if (outstanding.remove(ref)) {
+                statistics.updateBufferLeaks(1);
+                log.warn("PooledBuffer was garbage collected without release(); allocated at:", ref.site);
+            }
+        }
+    }
+
+    private Stripe stripe() {
+        return stripes[(int) (Thread.currentThread().getId() % stripes.length)];
+    }
+
+    /**
+     * Map a size to its size class.
+     * @param size
+     * @return size class, or -1 if larger than MAX_SIZE
+     */
+    private static int sizeClass(int size) {
+        if (size > MAX_SIZE) {
+            return -1;
+        }
+        if (size <= MIN_SIZE) {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros(size - 1) - MIN_SHIFT;
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.buffer;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A byte array on loan from a BufferPool.  The array may be longer than the valid data; only the
+ * first getLength() bytes are meaningful.  The holder must call release() exactly once when the
+ * bytes are no longer needed, after which the array must not be touched.
+ */
+public final class PooledBuffer {
+    private final BufferPool pool;
+    private final byte[] array;
+    private final int length;
+    private final AtomicBoolean released = new AtomicBoolean();
+    private BufferPool.LeakRef leak;
+
+    /**
+     * Constructor
+     * @param pool the owning pool, or null if the array is not pooled
+     * @param array
+     * @param length
+     */
+    PooledBuffer(BufferPool pool, byte[] array, int length) {
+        this.pool = pool;
+        this.array = array;
+        this.length = length;
+    }
+
+    /**
+     * Attach the pool's leak tracking record.
+     * @param leak
+     */
+    void track(BufferPool.LeakRef leak) {
+        this.leak = leak;
+    }
+
+    /**
+     * Wrap an array that is not owned by any pool.  Release is a no-op.
+     * @param bytes
+     * @return buffer
+     */
+    public static PooledBuffer wrap(byte[] bytes) {
+        return new PooledBuffer(null, bytes, bytes.length);
+    }
+
+    /**
+     * @return the backing array.
+     */
+    public byte[] array() {
+        return array;
+    }
+
+    /**
+     * @return the number of valid bytes.
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Copy the valid bytes into an array of exactly the right size, or return the backing array if
+     * it is already exact.
+     * @return bytes
+     */
+    public byte[] toByteArray() {
+        return (array.length == length) ? array : Arrays.copyOf(array, length);
+    }
+
+    /**
+     * @return true if release() has been called.
+     */
+    public boolean isReleased() {
+        return released.get();
+    }
+
+    /**
+     * Return the array to its pool.  Subsequent calls are ignored.
+     */
+    public void release() {
+        if (released.compareAndSet(false, true) && pool != null) {
+            pool.recycle(array, leak);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.buffer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Growable output stream backed by arrays borrowed from a BufferPool.  When the current array
+ * fills, a larger one is borrowed, the bytes are copied across and the smaller one is returned.
+ * Once writing is complete, toBuffer() transfers the array to the caller as a PooledBuffer; if
+ * the stream is discarded instead, discard() returns the array to the pool.
+ */
+public class PooledOutputStream extends OutputStream {
+    private final BufferPool pool;
+    private byte[] array;
+    private int count = 0;
+
+    /**
+     * Constructor
+     * @param pool
+     * @param initialSize
+     */
+    public PooledOutputStream(BufferPool pool, int initialSize) {
+        this.pool = pool;
+        this.array = pool.allocate(initialSize);
+    }
+
+    /**
+     * Constructor using the shared pool.
+     * @param initialSize
+     */
+    public PooledOutputStream(int initialSize) {
+        this(BufferPool.getInstance(), initialSize);
+    }
+
+    @Override
+    public void write(int b) {
+        ensureCapacity(count + 1);
+        array[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        ensureCapacity(count + len);
+        System.arraycopy(b, off, array, count, len);
+        count += len;
+    }
+
+    /**
+     * Copy the written bytes to another stream.
+     * @param out
+     * @throws IOException
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        checkOpen();
+        out.write(array, 0, count);
+    }
+
+    /**
+     * @return the number of bytes written.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Discard the written bytes, keeping the current array.
+     */
+    public void reset() {
+        count = 0;
+    }
+
+    private void ensureCapacity(int required) {
+        checkOpen();
+        if (required <= array.length) {
+            return;
+        }
+        byte[] larger = pool.allocate(Math.max(required, array.length << 1));
+        System.arraycopy(array, 0, larger, 0, count);
+        pool.recycle(array, null);
+        array = larger;
+    }
+
+    private void checkOpen() {
+        if (array == null) {
+            throw new IllegalStateException("Buffer already transferred or discarded.");
+        }
+    }
+
+    /**
+     * Transfer the written bytes to the caller.  The stream cannot be used afterwards.
+     * @return buffer
+     */
+    public PooledBuffer toBuffer() {
+        checkOpen();
+        PooledBuffer buffer = pool.lend(array, count);
+        array = null;
+        return buffer;
+    }
+
+    /**
+     * Return the array to the pool without transferring it.  Safe to call more than once.
+     */
+    public void discard() {
+        if (array != null) {
+            pool.recycle(array, null);
+            array = null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Ownership passes via toBuffer() or discard()
+    }
+}
@@ -0,0 +1,228 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.bulkhead;
+
+import org.imsglobal.caliper.concurrent.DispatchExecutors;
+import org.imsglobal.caliper.concurrent.ExecutorMode;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Isolates the sends of one Client on its own threads and bounded queue, so that a stalled Client
+ * can only exhaust its own capacity.  In PLATFORM mode sends run on a pool of daemon threads that
+ * time out when idle.  In VIRTUAL mode each send gets its own virtual thread; the same thread and
+ * queue limits are enforced with semaphores, so far larger limits become affordable.  The bulkhead
+ * also counts the Client's outstanding sends so that the Client can be drained before removal.
+ */
+public class Bulkhead {
+    private final String name;
+    private final BulkheadOptions options;
+    private final ExecutorMode mode;
+    private final ExecutorService executor;
+    private final Semaphore admitted;
+    private final Semaphore running;
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final CompletableFuture<Void> drained = new CompletableFuture<>();
+    private volatile boolean draining;
+
+    /**
+     * Constructor
+     * @param name
+     * @param options
+     */
+    private Bulkhead(String name, BulkheadOptions options) {
+        this.name = name;
+        this.options = options;
+        this.mode = options.getExecutorMode().resolve();
+        if (mode == ExecutorMode.VIRTUAL) {
+            this.executor = DispatchExecutors.newVirtualExecutor("caliper-bulkhead-" + name);
+            this.admitted = new Semaphore(options.getThreads() + options.getQueueSize());
+            this.running = new Semaphore(options.getThreads());
+        } else {
+            this.executor = DispatchExecutors.newPlatformExecutor("caliper-bulkhead-" + name,
+                options.getThreads(), options.getQueueSize());
+            this.admitted = null;
+            this.running = null;
+        }
+    }
+
+    /**
+     * Get the name, normally the Client id.
+     * @return name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get options.
+     * @return options
+     */
+    public BulkheadOptions getOptions() {
+        return options;
+    }
+
+    /**
+     * Get the executor mode in effect, with AUTO resolved.
+     * @return PLATFORM or VIRTUAL
+     */
+    public ExecutorMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Get the number of tasks waiting for a thread.
+     * @return queued
+     */
+    public int getQueued() {
+        if (mode == ExecutorMode.VIRTUAL) {
+            int admittedCount = options.getThreads() + options.getQueueSize() - admitted.availablePermits();
+            int runningCount = options.getThreads() - running.availablePermits();
+            return Math.max(0, admittedCount - runningCount);
+        }
+        return ((ThreadPoolExecutor) executor).getQueue().size();
+    }
+
+    /**
+     * Get the number of tracked sends that have not completed.
+     * @return outstanding
+     */
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    /**
+     * Start a send made outside the bulkhead's threads, e.g. a non-blocking send, and count it
+     * until it completes.  The send is counted before it starts, so that drain() cannot complete
+     * while it runs.  Once the bulkhead is draining the send is not started and the returned future
+     * fails with a RejectedExecutionException.
+     * @param send
+     * @param <T>
+     * @return the send's future
+     */
+    public <T> CompletableFuture<T> track(Supplier<CompletableFuture<T>> send) {
+        outstanding.incrementAndGet();
+        if (draining) {
+            release();
+            CompletableFuture<T> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(new RejectedExecutionException(name + " bulkhead is draining."));
+            return rejected;
+        }
+        CompletableFuture<T> future;
+        try {
+            future = send.get();
+        } catch (RuntimeException | Error e) {
+            release();
+            throw e;
+        }
+        future.whenComplete((result, error) -> release());
+        return future;
+    }
+
+    /**
+     * Stop counting a send, completing the drain once the last one is done.
+     */
+    private void release() {
+        if (outstanding.decrementAndGet() == 0 && draining) {
+            drained.complete(null);
+        }
+    }
+
+    /**
+     * Run a task on the bulkhead's threads.  If the queue is full, or the bulkhead has been shut
+     * down, the returned future fails with a RejectedExecutionException.
+     * @param task
+     * @param <T>
+     * @return future result
+     */
+    public <T> CompletableFuture<T> submit(final Supplier<T> task) {
+        if (mode == ExecutorMode.VIRTUAL) {
+            if (!admitted.tryAcquire()) {
+                return rejected(null);
+            }
+            try {
+                return track(() -> CompletableFuture.supplyAsync(() -> {
+                    running.acquireUninterruptibly();
+                    try {
+                        return task.get();
+                    } finally {
+                        running.release();
+                        admitted.release();
+                    }
+                }, executor));
+            } catch (RejectedExecutionException e) {
+                admitted.release();
+                return rejected(e);
+            }
+        }
+        try {
+            return track(() -> CompletableFuture.supplyAsync(task, executor));
+        } catch (RejectedExecutionException e) {
+            return rejected(e);
+        }
+    }
+
+    /**
+     * Build the future returned for a rejected task.
+     * @param cause
+     * @param <T>
+     * @return failed future
+     */
+    private <T> CompletableFuture<T> rejected(RejectedExecutionException cause) {
+        CompletableFuture<T> rejected = new CompletableFuture<>();
+        rejected.completeExceptionally(new RejectedExecutionException(name + " bulkhead is full.", cause));
+        return rejected;
+    }
+
+    /**
+     * Stop accepting tasks.  Tasks already queued still run.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Stop accepting tasks and wait for outstanding sends.
+     * @return future that completes once every tracked send has completed
+     */
+    public CompletableFuture<Void> drain() {
+        draining = true;
+        executor.shutdown();
+        if (outstanding.get() == 0) {
+            drained.complete(null);
+        }
+        return drained;
+    }
+
+    /**
+     * Factory method.
+     * @param name
+     * @param options
+     * @return bulkhead
+     */
+    public static Bulkhead create(String name, BulkheadOptions options) {
+        return new Bulkhead(name, options);
+    }
+}
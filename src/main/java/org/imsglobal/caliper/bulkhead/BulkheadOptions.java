@@ -0,0 +1,152 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.bulkhead;
+
+import org.imsglobal.caliper.concurrent.ExecutorMode;
+import org.imsglobal.caliper.validators.SensorValidator;
+
+/**
+ * Bulkhead options.
+ */
+public class BulkheadOptions {
+    private final int threads;
+    private final int queueSize;
+    private final long timeout;
+    private final ExecutorMode executorMode;
+
+    /**
+     * Default bulkhead settings.
+     */
+    public static final int THREADS = 1;
+    public static final int QUEUE_SIZE = 64;
+    public static final long TIMEOUT = 30000L;
+    public static final ExecutorMode EXECUTOR_MODE = ExecutorMode.PLATFORM;
+
+    /**
+     * Constructor
+     * @param builder
+     */
+    private BulkheadOptions(OptionsBuilder builder) {
+        this.threads = SensorValidator.chkPositiveIntValue(builder.threads, THREADS);
+        this.queueSize = SensorValidator.chkPositiveIntValue(builder.queueSize, QUEUE_SIZE);
+        this.timeout = (builder.timeout > 0L) ? builder.timeout : TIMEOUT;
+        this.executorMode = (builder.executorMode != null) ? builder.executorMode : EXECUTOR_MODE;
+    }
+
+    /**
+     * Get the maximum number of the Client's sends running at once.
+     * @return threads
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Get the maximum number of sends waiting for a thread.
+     * @return queue size
+     */
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    /**
+     * Get the time in milliseconds the Sensor waits for a send to complete.
+     * @return timeout
+     */
+    public long getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Get the threads used to run sends.  VIRTUAL requires JDK 21; AUTO falls back to PLATFORM.
+     * @return executor mode
+     */
+    public ExecutorMode getExecutorMode() {
+        return executorMode;
+    }
+
+    /**
+     * Builder class provides a fluid interface for setting options properties.
+     */
+    public static class OptionsBuilder {
+        private int threads = 0;
+        private int queueSize = 0;
+        private long timeout = 0L;
+        private ExecutorMode executorMode;
+
+        /**
+         * Constructor
+         */
+        public OptionsBuilder() {
+
+        }
+
+        /**
+         * @param threads
+         * @return builder
+         */
+        public OptionsBuilder threads(final int threads) {
+            this.threads = threads;
+            return this;
+        }
+
+        /**
+         * @param queueSize
+         * @return builder
+         */
+        public OptionsBuilder queueSize(final int queueSize) {
+            this.queueSize = queueSize;
+            return this;
+        }
+
+        /**
+         * @param timeout
+         * @return builder
+         */
+        public OptionsBuilder timeout(final long timeout) {
+            this.timeout = timeout;
+            return this;
+        }
+
+        /**
+         * @param executorMode
+         * @return builder
+         */
+        public OptionsBuilder executorMode(final ExecutorMode executorMode) {
+            this.executorMode = executorMode;
+            return this;
+        }
+
+        /**
+         * Client invokes build method in order to create an immutable object.
+         * @return a new instance of Options.
+         */
+        public BulkheadOptions build() {
+            return new BulkheadOptions(this);
+        }
+    }
+
+    /**
+     * Static Factory method.
+     * @return new builder instance
+     */
+    public static OptionsBuilder builder() {
+        return new OptionsBuilder();
+    }
+}
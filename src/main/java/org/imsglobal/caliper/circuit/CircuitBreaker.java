@@ -0,0 +1,321 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.circuit;
+
+import org.imsglobal.caliper.clients.CircuitBreakingClientOptions;
+import org.imsglobal.caliper.statistics.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Circuit breaker state machine.  The circuit opens after failureThreshold consecutive failures,
+ * or when at least minimumRequests outcomes have been recorded in the rolling window and the
+ * failure rate reaches errorRateThreshold.  After openDuration it admits up to halfOpenProbes probe
+ * sends; the circuit closes once all of them succeed and reopens on the first probe failure.  An
+ * outcome decides the half-open state only if it carries a probe permit of the current half-open
+ * period, so a late outcome of a send admitted earlier cannot close or reopen the circuit.
+ * Transitions are recorded in the statistics and published to registered listeners.
+ */
+public class CircuitBreaker {
+    private final String clientId;
+    private final int failureThreshold;
+    private final double errorRateThreshold;
+    private final int minimumRequests;
+    private final long openDuration;
+    private final int halfOpenProbes;
+    private final Statistics statistics;
+    private final List<CircuitListener> listeners = new CopyOnWriteArrayList<>();
+
+    // Rolling window of outcome counts, one slot per bucket
+    private final long bucketLength;
+    private final long[] bucketStarts = new long[BUCKETS];
+    private final int[] bucketSuccesses = new int[BUCKETS];
+    private final int[] bucketFailures = new int[BUCKETS];
+
+    private CircuitState state = CircuitState.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openedAt = 0L;
+    private int probesIssued = 0;
+    private int probesSucceeded = 0;
+    private long halfOpenPeriod = 0L;
+
+    private static final int BUCKETS = 10;
+
+    private static final Logger log = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    /**
+     * Constructor.  Scope is private to force use of the static factory method.
+     * @param clientId
+     * @param failureThreshold
+     * @param errorRateThreshold
+     * @param minimumRequests
+     * @param window
+     * @param openDuration
+     * @param halfOpenProbes
+     * @param statistics
+     */
+    private CircuitBreaker(String clientId, int failureThreshold, double errorRateThreshold, int minimumRequests,
+                           long window, long openDuration, int halfOpenProbes, Statistics statistics) {
+        checkArgument(failureThreshold > 0, "failureThreshold must be positive");
+        checkArgument(errorRateThreshold > 0.0 && errorRateThreshold <= 1.0, "errorRateThreshold must be in (0, 1]");
+        checkArgument(window >= BUCKETS, "window must be at least " + BUCKETS + " ms");
+        checkArgument(halfOpenProbes > 0, "halfOpenProbes must be positive");
+
+        this.clientId = clientId;
+        this.failureThreshold = failureThreshold;
+        this.errorRateThreshold = errorRateThreshold;
+        this.minimumRequests = minimumRequests;
+        this.bucketLength = window / BUCKETS;
+        this.openDuration = openDuration;
+        this.halfOpenProbes = halfOpenProbes;
+        this.statistics = statistics;
+    }
+
+    /**
+     * Register a listener for state transitions.
+     * @param listener
+     */
+    public void addListener(CircuitListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Get the current state, moving from OPEN to HALF_OPEN if the open duration has elapsed.
+     * @return state
+     */
+    public CircuitState getState() {
+        CircuitTransition transition;
+        CircuitState current;
+        synchronized (this) {
+            transition = expireOpen(System.currentTimeMillis());
+            current = state;
+        }
+        publish(transition);
+        return current;
+    }
+
+    /**
+     * Ask permission to send.  Always granted while CLOSED; granted to at most halfOpenProbes
+     * callers while HALF_OPEN; refused while OPEN.  A granted caller must report the outcome
+     * with the permit via onSuccess, onFailure or onIgnored.
+     * @return permit, or null if the send may not proceed
+     */
+    public CircuitPermit tryAcquire() {
+        CircuitTransition transition;
+        CircuitPermit permit;
+        synchronized (this) {
+            transition = expireOpen(System.currentTimeMillis());
+            switch (state) {
+                case CLOSED:
+                    permit = CircuitPermit.CLOSED;
+                    break;
+                case HALF_OPEN:
+                    permit = (probesIssued < halfOpenProbes) ? new CircuitPermit(halfOpenPeriod) : null;
+                    if (permit != null) {
+                        probesIssued++;
+                    }
+                    break;
+                case OPEN:
+                default:
+                    permit = null;
+                    break;
+            }
+        }
+        publish(transition);
+        if (permit == null) {
+            statistics.updateShortCircuited(1);
+        }
+        return permit;
+    }
+
+    /**
+     * Report a successful send.
+     * @param permit the permit the send was granted
+     */
+    public void onSuccess(CircuitPermit permit) {
+        CircuitTransition transition = null;
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            record(now, false);
+            consecutiveFailures = 0;
+            if (isCurrentProbe(permit) && ++probesSucceeded >= halfOpenProbes) {
+                transition = transition(CircuitState.CLOSED, now);
+            }
+        }
+        publish(transition);
+    }
+
+    /**
+     * Report a failed send.
+     * @param permit the permit the send was granted
+     */
+    public void onFailure(CircuitPermit permit) {
+        CircuitTransition transition = null;
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            record(now, true);
+            consecutiveFailures++;
+            if (isCurrentProbe(permit)
+                    || (state == CircuitState.CLOSED && (consecutiveFailures >= failureThreshold || errorRateExceeded(now)))) {
+                transition = transition(CircuitState.OPEN, now);
+            }
+        }
+        publish(transition);
+    }
+
+    /**
+     * Report a granted send that never reached the endpoint, for example because the client
+     * refused it locally.  The outcome is not counted, and a half-open probe slot is returned.
+     * @param permit the permit the send was granted
+     */
+    public synchronized void onIgnored(CircuitPermit permit) {
+        if (isCurrentProbe(permit) && probesIssued > 0) {
+            probesIssued--;
+        }
+    }
+
+    /**
+     * Was the permit issued as a probe of the half-open period in progress?  Caller must hold the
+     * lock.
+     * @param permit
+     * @return true if the outcome decides the half-open state
+     */
+    private boolean isCurrentProbe(CircuitPermit permit) {
+        return state == CircuitState.HALF_OPEN && permit.isProbeOf(halfOpenPeriod);
+    }
+
+    /**
+     * Move OPEN to HALF_OPEN once the open duration has elapsed.  Caller must hold the lock.
+     * @param now
+     * @return transition, or null
+     */
+    private CircuitTransition expireOpen(long now) {
+        if (state == CircuitState.OPEN && now - openedAt >= openDuration) {
+            return transition(CircuitState.HALF_OPEN, now);
+        }
+        return null;
+    }
+
+    /**
+     * Change state and reset the counters the new state relies on.  Caller must hold the lock.
+     * @param to
+     * @param now
+     * @return transition
+     */
+    private CircuitTransition transition(CircuitState to, long now) {
+        CircuitTransition transition = new CircuitTransition(clientId, state, to, now);
+        state = to;
+        switch (to) {
+            case OPEN:
+                openedAt = now;
+                statistics.updateCircuitOpened(1);
+                break;
+            case HALF_OPEN:
+                halfOpenPeriod++;
+                probesIssued = 0;
+                probesSucceeded = 0;
+                statistics.updateCircuitHalfOpened(1);
+                break;
+            case CLOSED:
+            default:
+                consecutiveFailures = 0;
+                for (int i = 0; i < BUCKETS; i++) {
+                    bucketStarts[i] = 0L;
+                }
+                statistics.updateCircuitClosed(1);
+                break;
+        }
+        return transition;
+    }
+
+    /**
+     * Record an outcome in the rolling window.  Caller must hold the lock.
+     * @param now
+     * @param failure
+     */
+    private void record(long now, boolean failure) {
+        long start = now - (now % bucketLength);
+        int index = (int) ((now / bucketLength) % BUCKETS);
+        if (bucketStarts[index] != start) {
+            bucketStarts[index] = start;
+            bucketSuccesses[index] = 0;
+            bucketFailures[index] = 0;
+        }
+        if (failure) {
+            bucketFailures[index]++;
+        } else {
+            bucketSuccesses[index]++;
+        }
+    }
+
+    /**
+     * Evaluate the failure rate over the rolling window.  Caller must hold the lock.
+     * @param now
+     * @return true if the circuit should open
+     */
+    private boolean errorRateExceeded(long now) {
+        long horizon = now - bucketLength * BUCKETS;
+        int successes = 0;
+        int failures = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (bucketStarts[i] > horizon) {
+                successes += bucketSuccesses[i];
+                failures += bucketFailures[i];
+            }
+        }
+        int total = successes + failures;
+        return total >= minimumRequests && total > 0 && (double) failures / total >= errorRateThreshold;
+    }
+
+    /**
+     * Notify listeners outside the lock.
+     * @param transition
+     */
+    private void publish(CircuitTransition transition) {
+        if (transition == null) {
+            return;
+        }
+        log.info("Circuit for client " + clientId + " " + transition.getFrom() + " -> " + transition.getTo());
+        for (CircuitListener listener : listeners) {
+            try {
+                listener.onTransition(transition);
+            } catch (RuntimeException e) {
+                log.warn("Circuit listener failed", e);
+            }
+        }
+    }
+
+    /**
+     * Factory method for a circuit breaker guarding a client.
+     * @param clientId
+     * @param options
+     * @param statistics
+     * @return circuit breaker
+     */
+    public static CircuitBreaker create(String clientId, CircuitBreakingClientOptions options, Statistics statistics) {
+        return new CircuitBreaker(clientId, options.getFailureThreshold(), options.getErrorRateThreshold(),
+            options.getMinimumRequests(), options.getWindow(), options.getOpenDuration(), options.getHalfOpenProbes(),
+            statistics);
+    }
+}
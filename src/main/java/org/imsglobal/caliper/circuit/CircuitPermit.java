@@ -0,0 +1,53 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.circuit;
+
+/**
+ * Permission granted by a circuit breaker for one send, to be handed back with its outcome.  A
+ * permit issued as a half-open probe remembers which half-open period it belongs to, so that only
+ * the outcomes of that period's probes decide whether the circuit closes or reopens.
+ */
+public final class CircuitPermit {
+    static final CircuitPermit CLOSED = new CircuitPermit(-1L);
+
+    private final long halfOpenPeriod;
+
+    /**
+     * Constructor
+     * @param halfOpenPeriod the half-open period of a probe, or -1 for a send admitted while closed
+     */
+    CircuitPermit(long halfOpenPeriod) {
+        this.halfOpenPeriod = halfOpenPeriod;
+    }
+
+    /**
+     * @return true if the permit was issued as a half-open probe.
+     */
+    public boolean isProbe() {
+        return halfOpenPeriod >= 0L;
+    }
+
+    /**
+     * @param period
+     * @return true if the permit is a probe of the given half-open period.
+     */
+    boolean isProbeOf(long period) {
+        return halfOpenPeriod == period;
+    }
+}
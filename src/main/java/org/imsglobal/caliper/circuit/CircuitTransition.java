@@ -0,0 +1,82 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.circuit;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Immutable record of a circuit breaker changing state.
+ */
+public class CircuitTransition {
+    private final String clientId;
+    private final CircuitState from;
+    private final CircuitState to;
+    private final long timestamp;
+
+    /**
+     * Constructor
+     * @param clientId
+     * @param from
+     * @param to
+     * @param timestamp
+     */
+    public CircuitTransition(String clientId, CircuitState from, CircuitState to, long timestamp) {
+        this.clientId = clientId;
+        this.from = from;
+        this.to = to;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * @return the identifier of the guarded client.
+     */
+    @Nonnull
+    public String getClientId() {
+        return clientId;
+    }
+
+    /**
+     * @return the previous state.
+     */
+    @Nonnull
+    public CircuitState getFrom() {
+        return from;
+    }
+
+    /**
+     * @return the new state.
+     */
+    @Nonnull
+    public CircuitState getTo() {
+        return to;
+    }
+
+    /**
+     * @return the time of the transition in epoch milliseconds.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "CircuitTransition{clientId=" + clientId + ", from=" + from + ", to=" + to
+            + ", timestamp=" + timestamp + "}";
+    }
+}
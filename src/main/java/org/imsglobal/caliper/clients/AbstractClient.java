@@ -18,18 +18,26 @@
 
 package org.imsglobal.caliper.clients;
 
-import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
-import com.fasterxml.jackson.databind.util.ISO8601DateFormat;
-import com.fasterxml.jackson.datatype.joda.JodaModule;
 import org.imsglobal.caliper.Envelope;
-import org.imsglobal.caliper.databind.JxnCoercibleSimpleModule;
+import org.imsglobal.caliper.codec.EncodedPayload;
+import org.imsglobal.caliper.codec.EncodingOutputStream;
+import org.imsglobal.caliper.config.DataFormat;
+import org.imsglobal.caliper.databind.CaliperSerializer;
+import org.imsglobal.caliper.spool.EnvelopeSpool;
 import org.imsglobal.caliper.statistics.Statistics;
+import org.imsglobal.caliper.thinning.DescribedEntityCache;
+import org.imsglobal.caliper.thinning.PayloadDescriptions;
 import org.imsglobal.caliper.validators.SensorValidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 /**
  * This class provides a skeletal implementation of the Sensor Client interface
@@ -39,6 +47,11 @@ public abstract class AbstractClient implements CaliperClient {
     private String id;
     private HttpClientOptions options;
     private Statistics statistics;
+    private final CaliperSerializer serializer;
+    private final DescribedEntityCache describedEntities;
+    private final SendTracker tracker = new SendTracker();
+
+    private static final Logger log = LoggerFactory.getLogger(AbstractClient.class);
 
     /**
      * Constructor
@@ -51,6 +64,9 @@ public abstract class AbstractClient implements CaliperClient {
         this.id = id;
         this.options = options;
         this.statistics = new Statistics();
+        this.serializer = CaliperSerializer.getInstance();
+        this.describedEntities = (options.getDescribedEntities() != null)
+            ? DescribedEntityCache.create(options.getDescribedEntities(), statistics) : null;
     }
 
     /**
@@ -79,6 +95,40 @@ public abstract class AbstractClient implements CaliperClient {
         return this.statistics;
     }
 
+    /**
+     * Get the data format Envelopes are serialized in.
+     * @return data format
+     */
+    @Override
+    public DataFormat getDataFormat() {
+        return options.getDataFormat();
+    }
+
+    /**
+     * Get the shared serializer.
+     * @return serializer
+     */
+    protected CaliperSerializer getSerializer() {
+        return serializer;
+    }
+
+    /**
+     * Get the entities remembered as described to the endpoint.
+     * @return cache, or null if every entity is described in full
+     */
+    public DescribedEntityCache getDescribedEntities() {
+        return describedEntities;
+    }
+
+    /**
+     * Can this client send an Envelope the Sensor serialized for other Clients too?  Not when it
+     * thins the entities its own endpoint has already been described.
+     * @return true if shared payloads are accepted
+     */
+    public boolean acceptsSharedPayloads() {
+        return describedEntities == null;
+    }
+
     /**
      * Serialize Caliper envelope.
      * @param envelope
@@ -86,25 +136,182 @@ public abstract class AbstractClient implements CaliperClient {
      * @throws JsonProcessingException
      */
     protected String serializeEnvelope(Envelope envelope) throws JsonProcessingException {
-        // Create mapper and serialize the envelope
-        SimpleFilterProvider provider = new SimpleFilterProvider()
-            .setFailOnUnknownId(true);
+        return serializer.serializeToString(envelope, getDataFormat());
+    }
 
-        ObjectMapper mapper = new ObjectMapper()
-            .setDateFormat(new ISO8601DateFormat())
-            .setSerializationInclusion(JsonInclude.Include.NON_EMPTY)
-            .setFilterProvider(provider)
-            .registerModules(new JodaModule(), new JxnCoercibleSimpleModule());
+    /**
+     * Serialize Caliper envelope to UTF-8 encoded bytes.
+     * @param envelope
+     * @return bytes
+     * @throws JsonProcessingException
+     */
+    protected byte[] serializeEnvelopeToBytes(Envelope envelope) throws JsonProcessingException {
+        return serializer.serialize(envelope, getDataFormat());
+    }
 
-        return mapper.writeValueAsString(envelope);
+    /**
+     * Serialize the envelope, streaming it into the configured Content-Encoding once it reaches
+     * the compression threshold.  The entities the payload describes are remembered in the
+     * described entity cache, if any, once the endpoint accepts it.
+     * @param envelope
+     * @return payload
+     * @throws IOException
+     */
+    protected EncodedPayload encode(Envelope envelope) throws IOException {
+        HttpClientOptions options = this.getOptions();
+        EncodingOutputStream out = new EncodingOutputStream(options.getContentEncoding(),
+            options.getCompressionThreshold());
+        PayloadDescriptions described = (describedEntities != null) ? describedEntities.newPayload() : null;
+        try {
+            getSerializer().serialize(envelope, getDataFormat(), described, out);
+            out.close();
+        } catch (IOException | RuntimeException e) {
+            out.discard();
+            throw e;
+        }
+        return (described != null) ? out.toPayload().whenAccepted(described::commit) : out.toPayload();
     }
 
+    /**
+     * Apply the configured Content-Encoding to an already serialized envelope.
+     * @param raw
+     * @return payload
+     * @throws IOException
+     */
+    protected EncodedPayload encode(byte[] raw) throws IOException {
+        HttpClientOptions options = this.getOptions();
+        return EncodedPayload.encode(raw, options.getContentEncoding(), options.getCompressionThreshold());
+    }
+
+    /**
+     * Apply the configured Content-Encoding to an envelope serialized by the Sensor.  The shared
+     * bytes are sent as-is when no encoding applies; otherwise the encoded copy is pooled.
+     * @param envelope
+     * @return payload
+     * @throws IOException
+     */
+    protected EncodedPayload encode(SerializedEnvelope envelope) throws IOException {
+        if (envelope.getDataFormat() != getDataFormat()) {
+            throw new IllegalArgumentException("Envelope serialized as " + envelope.getDataFormat()
+                + " but " + getId() + " sends " + getDataFormat());
+        }
+        return encode(envelope.bytes());
+    }
+
+    /**
+     * Append a payload to the configured spool, if any.  The spool holds unencoded payloads so
+     * that replay applies the client's current Content-Encoding.
+     * @param payload
+     * @return true if spooled
+     */
+    protected boolean spool(EncodedPayload payload) {
+        EnvelopeSpool spool = getOptions().getSpool();
+        if (spool == null) {
+            return false;
+        }
+        try {
+            if (spool.append(payload.decode())) {
+                getStatistics().updateSpilled(1);
+                return true;
+            }
+        } catch (IOException e) {
+            log.warn("Unable to decode payload for spooling", e);
+        }
+        return false;
+    }
+
+    /**
+     * Append an envelope to the configured spool, if any.
+     * @param envelope
+     * @return true if spooled
+     */
+    protected boolean spool(Envelope envelope) {
+        EnvelopeSpool spool = getOptions().getSpool();
+        if (spool != null && spool.append(envelope, getDataFormat())) {
+            getStatistics().updateSpilled(1);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Track a send so that flush and close can wait for it and count its events.
+     * @param envelope the envelope, or null for a payload replayed from the spool
+     * @param send
+     * @return the send's future
+     */
+    protected CompletableFuture<SendResult> track(@Nullable Envelope envelope,
+                                                  Supplier<CompletableFuture<SendResult>> send) {
+        int events = (envelope != null) ? envelope.getData().size() : 0;
+        return tracker.track(events, send);
+    }
+
+    /**
+     * Wait until the timeout for the tracked sends to complete.
+     * @param timeout
+     * @return what became of the events outstanding
+     */
+    @Override
+    public FlushResult flush(Duration timeout) {
+        FlushResult start = tracker.totals();
+        tracker.awaitIdle(System.currentTimeMillis() + timeout.toMillis());
+        return tracker.totals().since(start);
+    }
+
+    /**
+     * Flush until the timeout, then shut down.  Sends still in flight are aborted and, if a spool is
+     * configured, spooled; any whose outcome is not reported shortly afterwards count as dropped.
+     * @param timeout
+     * @return what became of the events outstanding
+     */
+    @Override
+    public FlushResult close(Duration timeout) {
+        FlushResult start = tracker.totals();
+        tracker.awaitIdle(System.currentTimeMillis() + timeout.toMillis());
+        shutdown();
+        tracker.awaitIdle(System.currentTimeMillis() + SendTracker.ABORT_TIMEOUT);
+        FlushResult result = tracker.totals().since(start).abandon();
+        if (!result.isComplete()) {
+            log.warn("Client " + id + " closed with undelivered events: " + result);
+        }
+        return result;
+    }
+
+    /**
+     * Release the connections and other resources held by the client.
+     */
+    protected abstract void shutdown();
+
     /**
      * Send Envelope to a target endpoint
      * @param envelope
      */
     public abstract void send(Envelope envelope);
 
+    /**
+     * Send Envelope to a target endpoint without blocking the caller.
+     * @param envelope
+     * @return future send result
+     */
+    public abstract CompletableFuture<SendResult> sendAsync(Envelope envelope);
+
+    /**
+     * Accept an Envelope for transmission without blocking.
+     * @param envelope
+     * @return false if the client is at capacity
+     */
+    public abstract boolean offer(Envelope envelope);
+
+    /**
+     * Record raw versus on-the-wire sizes of a payload.  Called once per payload, however many
+     * attempts were made to send it.
+     * @param payload
+     */
+    protected void updateStatistics(EncodedPayload payload) {
+        statistics.updateRawBytes(payload.getRawLength());
+        statistics.updateCompressedBytes(payload.getLength());
+    }
+
     /**
      * Update statistics
      * @param status
@@ -0,0 +1,403 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.clients;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingOutputStream;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.imsglobal.caliper.CaliperSendable;
+import org.imsglobal.caliper.Envelope;
+import org.imsglobal.caliper.config.DataFormat;
+import org.imsglobal.caliper.databind.CaliperSerializer;
+import org.imsglobal.caliper.statistics.Statistics;
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decorates a Client by accumulating individual Caliper events and entity describes into batches.
+ * A batch is wrapped in a single Envelope and handed to the delegate's sendAsync as soon as it
+ * reaches maxEvents items, maxBytes of serialized data or has lingered for the configured time.
+ * The decorator shares the delegate's identifier and statistics.  Flushing or closing the client
+ * sends the open batch at once rather than waiting for it to linger.
+ *
+ * Batch size in bytes is estimated rather than measured item by item: the first item of a batch is
+ * measured in the delegate's DataFormat and, when the delegate accepts serialized Envelopes, the
+ * estimate is corrected from each batch payload, which is serialized once and handed over as is.
+ */
+public class BatchingClient implements CaliperClient {
+    private final CaliperClient delegate;
+    private final BatchingClientOptions options;
+    private final CaliperSerializer serializer;
+    private final DataFormat format;
+    private final ScheduledExecutorService scheduler;
+    private final Object lock = new Object();
+    private final SendTracker tracker = new SendTracker();
+    private Batch batch;
+    private volatile long itemBytes;
+
+    private static final Logger log = LoggerFactory.getLogger(BatchingClient.class);
+
+    /**
+     * An open batch and the future completed once its Envelope has been sent.
+     */
+    private static class Batch {
+        private final List<CaliperSendable> items = new ArrayList<>();
+        private final CompletableFuture<SendResult> future = new CompletableFuture<>();
+        private long bytes;
+        private ScheduledFuture<?> lingerTask;
+    }
+
+    /**
+     * Constructor.  Scope is private to force use of the static factory method.
+     * @param delegate
+     * @param options
+     */
+    private BatchingClient(CaliperClient delegate, BatchingClientOptions options) {
+        this.delegate = delegate;
+        this.options = options;
+        this.serializer = CaliperSerializer.getInstance();
+        this.format = delegate.getDataFormat();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("caliper-batch-" + delegate.getId() + "-%d")
+            .setDaemon(true)
+            .build());
+    }
+
+    /**
+     * Get identifier of the delegate.
+     * @return id
+     */
+    @Nonnull
+    public String getId() {
+        return delegate.getId();
+    }
+
+    /**
+     * Get the data format of the delegate.
+     * @return data format
+     */
+    @Override
+    public DataFormat getDataFormat() {
+        return delegate.getDataFormat();
+    }
+
+    /**
+     * Retrieve batching options.
+     * @return options
+     */
+    public BatchingClientOptions getOptions() {
+        return options;
+    }
+
+    /**
+     * Get the delegate's statistics, to which batch statistics are also recorded.
+     * @return statistics
+     */
+    @Nonnull
+    public Statistics getStatistics() {
+        return delegate.getStatistics();
+    }
+
+    /**
+     * Get the decorated client.
+     * @return delegate
+     */
+    public CaliperClient getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Add an item to the open batch, flushing as thresholds are reached.
+     * @param item
+     * @return future result of the Envelope that will carry the item
+     */
+    public CompletableFuture<SendResult> add(CaliperSendable item) {
+        final long size = (options.getMaxBytes() > 0) ? estimate(item) : 0L;
+        Batch overflow = null;
+        Batch full = null;
+        CompletableFuture<SendResult> future;
+
+        synchronized (lock) {
+            if (batch != null && options.getMaxBytes() > 0 && batch.bytes + size > options.getMaxBytes()) {
+                overflow = detach();
+            }
+            if (batch == null) {
+                batch = open();
+            }
+
+            batch.items.add(item);
+            batch.bytes += size;
+            future = batch.future;
+
+            if (batch.items.size() >= options.getMaxEvents()
+                || (options.getMaxBytes() > 0 && batch.bytes >= options.getMaxBytes())) {
+                full = detach();
+            }
+        }
+
+        dispatch(overflow);
+        dispatch(full);
+
+        return future;
+    }
+
+    /**
+     * Send the open batch immediately, regardless of thresholds.
+     * @return future result of the flushed Envelope; completed with no status if the batch was empty
+     */
+    public CompletableFuture<SendResult> flush() {
+        Batch pending;
+        synchronized (lock) {
+            pending = detach();
+        }
+        if (pending == null) {
+            return CompletableFuture.completedFuture(SendResult.success(getId(), 0, 0L));
+        }
+
+        dispatch(pending);
+        return pending.future;
+    }
+
+    /**
+     * Send the open batch, then wait until the timeout for every dispatched batch to be sent and
+     * for the delegate's own in-flight sends.
+     * @param timeout
+     * @return what became of the events batched
+     */
+    @Override
+    public FlushResult flush(Duration timeout) {
+        long deadline = System.currentTimeMillis() + timeout.toMillis();
+        FlushResult start = tracker.totals();
+        flush();
+        tracker.awaitIdle(deadline);
+        delegate.flush(SendTracker.remaining(deadline));
+        return tracker.totals().since(start);
+    }
+
+    /**
+     * Send the open batch, stop the linger timer and close the delegate.  Batches the delegate
+     * has not sent by the timeout are spooled or dropped by the delegate.
+     * @param timeout
+     * @return what became of the events batched
+     */
+    @Override
+    public FlushResult close(Duration timeout) {
+        long deadline = System.currentTimeMillis() + timeout.toMillis();
+        FlushResult start = tracker.totals();
+        flush();
+        tracker.awaitIdle(deadline);
+        scheduler.shutdownNow();
+        delegate.close(SendTracker.remaining(deadline));
+        tracker.awaitIdle(System.currentTimeMillis() + SendTracker.ABORT_TIMEOUT);
+        return tracker.totals().since(start).abandon();
+    }
+
+    /**
+     * Add the Envelope's data to the open batch.  The Envelope itself is discarded.
+     * @param envelope
+     */
+    @Override
+    public void send(Envelope envelope) {
+        for (CaliperSendable item: envelope.getData()) {
+            add(item);
+        }
+    }
+
+    /**
+     * Add the Envelope's data to the open batch.
+     * @param envelope
+     * @return future that completes when every batch carrying the Envelope's data has been sent
+     */
+    @Override
+    public CompletableFuture<SendResult> sendAsync(Envelope envelope) {
+        final List<CompletableFuture<SendResult>> futures = new ArrayList<>(1);
+        for (CaliperSendable item: envelope.getData()) {
+            CompletableFuture<SendResult> future = add(item);
+            if (futures.isEmpty() || futures.get(futures.size() - 1) != future) {
+                futures.add(future);
+            }
+        }
+        if (futures.isEmpty()) {
+            return CompletableFuture.completedFuture(SendResult.success(getId(), 0, 0L));
+        } else if (futures.size() == 1) {
+            return futures.get(0);
+        }
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()]))
+            .thenApply(ignored -> {
+                SendResult last = null;
+                for (CompletableFuture<SendResult> future: futures) {
+                    last = future.join();
+                    if (!last.isSuccessful()) {
+                        break;
+                    }
+                }
+                return last;
+            });
+    }
+
+    /**
+     * Add the Envelope's data to the open batch.  Batching never refuses items.
+     * @param envelope
+     * @return true
+     */
+    @Override
+    public boolean offer(Envelope envelope) {
+        send(envelope);
+        return true;
+    }
+
+    /**
+     * Open a new batch and schedule its linger flush.  Caller must hold the lock.
+     * @return batch
+     */
+    private Batch open() {
+        final Batch opened = new Batch();
+        opened.lingerTask = scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                Batch expired = null;
+                synchronized (lock) {
+                    if (batch == opened) {
+                        expired = detach();
+                    }
+                }
+                dispatch(expired);
+            }
+        }, options.getLinger(), TimeUnit.MILLISECONDS);
+
+        return opened;
+    }
+
+    /**
+     * Detach the open batch, if any.  Caller must hold the lock.
+     * @return detached batch or null
+     */
+    private Batch detach() {
+        Batch detached = batch;
+        batch = null;
+        if (detached != null) {
+            detached.lingerTask.cancel(false);
+        }
+        return detached;
+    }
+
+    /**
+     * Wrap the batch in an Envelope, record batch statistics and hand it to the delegate.
+     * @param detached
+     */
+    private void dispatch(final Batch detached) {
+        if (detached == null) {
+            return;
+        }
+
+        double fillRatio = (double) detached.items.size() / options.getMaxEvents();
+        if (options.getMaxBytes() > 0) {
+            fillRatio = Math.max(fillRatio, (double) detached.bytes / options.getMaxBytes());
+        }
+        getStatistics().updateBatchSize(detached.items.size());
+        getStatistics().updateBatchFillRatio(Math.min(fillRatio, 1.0));
+
+        Envelope envelope = new Envelope(options.getSensorId(), DateTime.now(), options.getDataVersion(),
+            detached.items);
+
+        tracker.track(detached.items.size(), () -> detached.future);
+
+        CompletableFuture<SendResult> sent;
+        try {
+            sent = deliver(envelope, detached.items.size());
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Batch dispatch failed for client " + getId(), e);
+            detached.future.complete(SendResult.failure(getId(), 0, 0L, e));
+            return;
+        }
+
+        sent.whenComplete((result, error) -> {
+            if (error != null) {
+                detached.future.complete(SendResult.failure(getId(), 0, 0L, error));
+            } else {
+                detached.future.complete(result);
+            }
+        });
+    }
+
+    /**
+     * Hand a batch Envelope to the delegate.  A delegate that accepts serialized Envelopes is sent
+     * the batch payload, from which the per-item estimate is updated; otherwise the estimate is
+     * discarded so that the next batch measures its first item again.
+     * @param envelope
+     * @param items
+     * @return future send result
+     * @throws JsonProcessingException
+     */
+    private CompletableFuture<SendResult> deliver(Envelope envelope, int items) throws JsonProcessingException {
+        if (options.getMaxBytes() > 0 && delegate instanceof CaliperPayloadClient
+            && ((CaliperPayloadClient) delegate).acceptsSharedPayloads()) {
+            SerializedEnvelope serialized = SerializedEnvelope.create(envelope, format, serializer);
+            itemBytes = Math.max(1L, serialized.size() / items);
+            return ((CaliperPayloadClient) delegate).sendAsync(serialized);
+        }
+        itemBytes = 0L;
+        return delegate.sendAsync(envelope);
+    }
+
+    /**
+     * Estimate the serialized size of an item, measuring it in the delegate's DataFormat when no
+     * estimate is at hand.
+     * @param item
+     * @return size in bytes
+     */
+    private long estimate(CaliperSendable item) {
+        long estimate = itemBytes;
+        if (estimate > 0L) {
+            return estimate;
+        }
+        CountingOutputStream out = new CountingOutputStream(ByteStreams.nullOutputStream());
+        try {
+            serializer.serialize(item, format, out);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Unable to serialize " + item.getClass().getSimpleName(), e);
+        }
+        itemBytes = out.getCount();
+        return out.getCount();
+    }
+
+    /**
+     * Factory method for decorating a client with batching.
+     * @param delegate
+     * @param options
+     * @return BatchingClient
+     */
+    public static BatchingClient create(CaliperClient delegate, BatchingClientOptions options) {
+        return new BatchingClient(delegate, options);
+    }
+}
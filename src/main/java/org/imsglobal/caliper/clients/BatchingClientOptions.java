@@ -0,0 +1,176 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.clients;
+
+import org.imsglobal.caliper.config.Config;
+import org.imsglobal.caliper.validators.SensorValidator;
+
+/**
+ * Batching client options.  A batch is flushed as a single Envelope as soon as any one of the
+ * maxEvents, maxBytes or linger thresholds is reached.
+ */
+public class BatchingClientOptions implements CaliperClientOptions {
+    private final String sensorId;
+    private final String dataVersion;
+    private final int maxEvents;
+    private final int maxBytes;
+    private final long linger;
+
+    /**
+     * Default batch thresholds.  A maxBytes value of zero disables size tracking, which
+     * otherwise requires each item to be serialized on entry in order to measure it.
+     */
+    public static final int MAX_EVENTS = 100;
+    public static final int MAX_BYTES = 0;
+    public static final long LINGER = 500L;
+
+    /**
+     * Constructor
+     * @param builder
+     */
+    private BatchingClientOptions(OptionsBuilder builder) {
+
+        SensorValidator.chkSensorId(builder.sensorId);
+
+        this.sensorId = builder.sensorId;
+        this.dataVersion = SensorValidator.chkStrValue(builder.dataVersion, Config.DATA_VERSION);
+        this.maxEvents = SensorValidator.chkPositiveIntValue(builder.maxEvents, MAX_EVENTS);
+        this.maxBytes = SensorValidator.chkPositiveIntValue(builder.maxBytes, MAX_BYTES);
+        this.linger = (builder.linger > 0L) ? builder.linger : LINGER;
+    }
+
+    /**
+     * Get the Sensor identifier written to each batch Envelope.
+     * @return sensor id
+     */
+    public String getSensorId() {
+        return sensorId;
+    }
+
+    /**
+     * Get the data version written to each batch Envelope.
+     * @return data version
+     */
+    public String getDataVersion() {
+        return dataVersion;
+    }
+
+    /**
+     * Get the maximum number of items per Envelope.
+     * @return max events
+     */
+    public int getMaxEvents() {
+        return maxEvents;
+    }
+
+    /**
+     * Get the maximum serialized size of the items in an Envelope; zero if unbounded.
+     * @return max bytes
+     */
+    public int getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Get the maximum time in milliseconds an item waits for its batch to fill.
+     * @return linger
+     */
+    public long getLinger() {
+        return linger;
+    }
+
+    /**
+     * Builder class provides a fluid interface for setting options properties.
+     */
+    public static class OptionsBuilder {
+        private String sensorId;
+        private String dataVersion;
+        private int maxEvents = 0;
+        private int maxBytes = 0;
+        private long linger = 0L;
+
+        /**
+         * Constructor
+         */
+        public OptionsBuilder() {
+
+        }
+
+        /**
+         * @param sensorId
+         * @return builder
+         */
+        public OptionsBuilder sensorId(final String sensorId) {
+            this.sensorId = sensorId;
+            return this;
+        }
+
+        /**
+         * @param dataVersion
+         * @return builder
+         */
+        public OptionsBuilder dataVersion(final String dataVersion) {
+            this.dataVersion = dataVersion;
+            return this;
+        }
+
+        /**
+         * @param maxEvents
+         * @return builder
+         */
+        public OptionsBuilder maxEvents(final int maxEvents) {
+            this.maxEvents = maxEvents;
+            return this;
+        }
+
+        /**
+         * @param maxBytes
+         * @return builder
+         */
+        public OptionsBuilder maxBytes(final int maxBytes) {
+            this.maxBytes = maxBytes;
+            return this;
+        }
+
+        /**
+         * @param linger
+         * @return builder
+         */
+        public OptionsBuilder linger(final long linger) {
+            this.linger = linger;
+            return this;
+        }
+
+        /**
+         * Client invokes build method in order to create an immutable object.
+         * @return a new instance of Options.
+         */
+        public BatchingClientOptions build() {
+            return new BatchingClientOptions(this);
+        }
+    }
+
+    /**
+     * Static Factory method.
+     * @return new builder instance
+     */
+    public static OptionsBuilder builder() {
+        return new OptionsBuilder();
+    }
+}
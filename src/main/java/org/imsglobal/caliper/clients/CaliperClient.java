@@ -19,9 +19,15 @@
 package org.imsglobal.caliper.clients;
 
 import org.imsglobal.caliper.Envelope;
+import org.imsglobal.caliper.config.Config;
+import org.imsglobal.caliper.config.DataFormat;
+import org.imsglobal.caliper.config.Timeout;
 import org.imsglobal.caliper.statistics.Statistics;
 
-public interface CaliperClient {
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+public interface CaliperClient extends AutoCloseable {
 
     /**
      * Retrieve the client identifier
@@ -41,9 +47,61 @@ public interface CaliperClient {
      */
     Statistics getStatistics();
 
+    /**
+     * Get the data format Envelopes are serialized in for this client's endpoint, and so in its spool.
+     * @return data format
+     */
+    default DataFormat getDataFormat() {
+        return Config.DATA_FORMAT;
+    }
+
     /**
      * Send an envelope to target endpoint(s).
      * @param envelope
      */
     void send(Envelope envelope);
+
+    /**
+     * Send an envelope to target endpoint(s) without blocking the calling thread.  The returned
+     * future always completes normally; failures are reported via the SendResult.
+     * @param envelope
+     * @return future send result
+     */
+    CompletableFuture<SendResult> sendAsync(Envelope envelope);
+
+    /**
+     * Accept an envelope for transmission only if that can be done without blocking.
+     * @param envelope
+     * @return false if the client is at capacity and the envelope was not accepted
+     */
+    boolean offer(Envelope envelope);
+
+    /**
+     * Wait until the timeout for queued, batched and in-flight sends to complete.  Sends made while
+     * flushing are waited for too.
+     * @param timeout
+     * @return what became of the events outstanding
+     */
+    default FlushResult flush(Duration timeout) {
+        return FlushResult.EMPTY;
+    }
+
+    /**
+     * Flush until the timeout, then release the client's resources.  Events that could not be
+     * delivered in time are spooled if a spool is configured and otherwise dropped.  The client
+     * cannot be used once closed.
+     * @param timeout
+     * @return what became of the events outstanding
+     */
+    default FlushResult close(Duration timeout) {
+        return flush(timeout);
+    }
+
+    /**
+     * Close, allowing the default shutdown timeout to flush.
+     */
+    @Override
+    default void close() {
+        close(Duration.ofMillis(Timeout.SHUTDOWN_TIMEOUT.value()));
+    }
 }
@@ -0,0 +1,65 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.clients;
+
+import org.imsglobal.caliper.config.DataFormat;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A client able to transmit an Envelope that has already been serialized, e.g., one replayed
+ * from a spool or shared with other Clients by the Sensor.
+ */
+public interface CaliperPayloadClient extends CaliperClient {
+
+    /**
+     * Get the data format this client serializes Envelopes in.  A SerializedEnvelope passed to
+     * this client must be in the same format.
+     * @return data format
+     */
+    DataFormat getDataFormat();
+
+    /**
+     * Can this client send an Envelope the Sensor serialized for other Clients too?
+     * @return true if shared payloads are accepted
+     */
+    default boolean acceptsSharedPayloads() {
+        return true;
+    }
+
+    /**
+     * Send an Envelope that has already been serialized.
+     * @param envelope
+     */
+    void send(SerializedEnvelope envelope);
+
+    /**
+     * Send an Envelope that has already been serialized without blocking the calling thread.
+     * @param envelope
+     * @return future send result
+     */
+    CompletableFuture<SendResult> sendAsync(SerializedEnvelope envelope);
+
+    /**
+     * Send a serialized Envelope without blocking the calling thread.
+     * @param payload
+     * @return future send result
+     */
+    CompletableFuture<SendResult> sendPayloadAsync(byte[] payload);
+}
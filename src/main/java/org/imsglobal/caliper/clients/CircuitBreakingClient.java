@@ -0,0 +1,304 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.clients;
+
+import org.imsglobal.caliper.Envelope;
+import org.imsglobal.caliper.config.DataFormat;
+import org.imsglobal.caliper.circuit.CircuitBreaker;
+import org.imsglobal.caliper.circuit.CircuitPermit;
+import org.imsglobal.caliper.circuit.CircuitState;
+import org.imsglobal.caliper.spool.EnvelopeSpool;
+import org.imsglobal.caliper.spool.SpoolDrainer;
+import org.imsglobal.caliper.statistics.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Decorates a Client with a circuit breaker.  While the circuit is open, Envelopes are diverted
+ * to the configured spool or refused immediately, so callers no longer wait out socket timeouts
+ * against a degraded endpoint.  Diverted Envelopes are replayed through the delegate by the spool's
+ * SpoolDrainer.  Only transient failures (no response, 408, 429 and 5xx) count
+ * against the circuit.  Transitions are recorded in the delegate's statistics and published to
+ * the configured listener.
+ */
+public class CircuitBreakingClient implements CaliperClient {
+    private final CaliperClient delegate;
+    private final CircuitBreakingClientOptions options;
+    private final CircuitBreaker breaker;
+    private final SpoolDrainer replayer;
+
+    private static final Logger log = LoggerFactory.getLogger(CircuitBreakingClient.class);
+
+    /**
+     * Constructor.  Scope is private to force use of the static factory method.
+     * @param delegate
+     * @param options
+     */
+    private CircuitBreakingClient(CaliperClient delegate, CircuitBreakingClientOptions options) {
+        this.delegate = delegate;
+        this.options = options;
+        this.breaker = CircuitBreaker.create(delegate.getId(), options, delegate.getStatistics());
+        if (options.getListener() != null) {
+            this.breaker.addListener(options.getListener());
+        }
+        this.replayer = (options.getSpool() != null) ? SpoolDrainer.attachDelegate(options.getSpool(), delegate) : null;
+    }
+
+    /**
+     * Get identifier of the delegate.
+     * @return id
+     */
+    @Nonnull
+    public String getId() {
+        return delegate.getId();
+    }
+
+    /**
+     * Get the data format of the delegate.
+     * @return data format
+     */
+    @Override
+    public DataFormat getDataFormat() {
+        return delegate.getDataFormat();
+    }
+
+    /**
+     * Retrieve circuit breaker options.
+     * @return options
+     */
+    public CircuitBreakingClientOptions getOptions() {
+        return options;
+    }
+
+    /**
+     * Get the delegate's statistics, to which circuit statistics are also recorded.
+     * @return statistics
+     */
+    @Nonnull
+    public Statistics getStatistics() {
+        return delegate.getStatistics();
+    }
+
+    /**
+     * Get the decorated client.
+     * @return delegate
+     */
+    public CaliperClient getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Get the drainer this client attached to its spool.
+     * @return drainer, or null if no spool is configured or the spool already had a drainer
+     */
+    public SpoolDrainer getDrainer() {
+        return replayer;
+    }
+
+    /**
+     * Get the circuit breaker.
+     * @return breaker
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return breaker;
+    }
+
+    /**
+     * Get the circuit state.
+     * @return state
+     */
+    public CircuitState getState() {
+        return breaker.getState();
+    }
+
+    /**
+     * Send the Envelope and wait for the outcome.  The delegate's non-blocking send is used so
+     * that every outcome, including I/O errors, is visible to the circuit breaker.  As with the
+     * HTTP clients, a spooled Envelope is logged, as is a failure without a response; only a
+     * failure status throws.
+     * @param envelope
+     */
+    @Override
+    public void send(Envelope envelope) {
+        SendResult result = sendAsync(envelope).join();
+        if (result.isSuccessful()) {
+            return;
+        }
+
+        if (result.isSpooled()) {
+            log.warn("Send failed for client " + getId() + "; status code=" + result.getStatusCode()
+                + "; envelope spooled");
+        } else if (result.getStatusCode() == 0) {
+            log.warn("Send failed for client " + getId() + "; " + result, result.getError());
+        } else {
+            throw new RuntimeException("WARN: send failed for client " + getId() + "; " + result, result.getError());
+        }
+    }
+
+    /**
+     * Send the Envelope if the circuit permits, otherwise divert or refuse it.
+     * @param envelope
+     * @return future send result
+     */
+    @Override
+    public CompletableFuture<SendResult> sendAsync(Envelope envelope) {
+        CircuitPermit permit = breaker.tryAcquire();
+        if (permit == null) {
+            return CompletableFuture.completedFuture(shortCircuit(envelope));
+        }
+
+        return dispatch(envelope, permit);
+    }
+
+    /**
+     * Send the Envelope if the circuit permits, otherwise divert it.
+     * @param envelope
+     * @return false if the circuit is open and the Envelope could not be diverted
+     */
+    @Override
+    public boolean offer(Envelope envelope) {
+        CircuitPermit permit = breaker.tryAcquire();
+        if (permit == null) {
+            return shortCircuit(envelope).isSpooled();
+        }
+
+        dispatch(envelope, permit);
+        return true;
+    }
+
+    /**
+     * Flush the delegate.
+     * @param timeout
+     * @return what became of the delegate's outstanding events
+     */
+    @Override
+    public FlushResult flush(Duration timeout) {
+        return delegate.flush(timeout);
+    }
+
+    /**
+     * Stop replaying the spool, if this client attached its drainer, and close the delegate.
+     * @param timeout
+     * @return what became of the delegate's outstanding events
+     */
+    @Override
+    public FlushResult close(Duration timeout) {
+        if (replayer != null) {
+            replayer.stop();
+        }
+        return delegate.close(timeout);
+    }
+
+    /**
+     * Hand the Envelope to the delegate once the circuit breaker has granted a permit, and report
+     * the outcome back to it.
+     * @param envelope
+     * @param permit
+     * @return future send result
+     */
+    private CompletableFuture<SendResult> dispatch(Envelope envelope, final CircuitPermit permit) {
+        CompletableFuture<SendResult> sent;
+        try {
+            sent = delegate.sendAsync(envelope);
+        } catch (RuntimeException e) {
+            breaker.onFailure(permit);
+            return CompletableFuture.completedFuture(SendResult.failure(getId(), 0, 0L, e));
+        }
+
+        return sent.handle((result, error) -> {
+            SendResult outcome = (error != null) ? SendResult.failure(getId(), 0, 0L, error) : result;
+            record(outcome, permit);
+            return outcome;
+        });
+    }
+
+    /**
+     * Report an outcome to the circuit breaker.  Local rejections and serialization failures in the
+     * delegate say nothing about the endpoint and are ignored.
+     * @param result
+     * @param permit
+     */
+    private void record(SendResult result, CircuitPermit permit) {
+        if (result.isLocal()) {
+            breaker.onIgnored(permit);
+        } else if (result.isSuccessful() || !result.isRetryable()) {
+            breaker.onSuccess(permit);
+        } else {
+            breaker.onFailure(permit);
+        }
+    }
+
+    /**
+     * Divert a refused Envelope to the spool, if any.
+     * @param envelope
+     * @return failure result describing what happened to the Envelope
+     */
+    private SendResult shortCircuit(Envelope envelope) {
+        EnvelopeSpool spool = options.getSpool();
+        if (spool != null && spool.append(envelope, delegate.getDataFormat())) {
+            getStatistics().updateSpilled(1);
+            return SendResult.failure(getId(), 0, 0L,
+                new CircuitOpenException("Circuit open for client " + getId() + "; envelope spooled.", true))
+                .asSpooled();
+        }
+        return SendResult.failure(getId(), 0, 0L,
+            new CircuitOpenException("Circuit open for client " + getId() + "; envelope refused.", false));
+    }
+
+    /**
+     * Signals that a send was refused because the circuit is open.
+     */
+    public static class CircuitOpenException extends RejectedExecutionException {
+        private static final long serialVersionUID = -2745318841627213468L;
+
+        private final boolean spooled;
+
+        /**
+         * Constructor
+         * @param message
+         * @param spooled
+         */
+        CircuitOpenException(String message, boolean spooled) {
+            super(message);
+            this.spooled = spooled;
+        }
+
+        /**
+         * @return true if the Envelope was diverted to the spool.
+         */
+        public boolean isSpooled() {
+            return spooled;
+        }
+    }
+
+    /**
+     * Factory method for decorating a client with a circuit breaker.
+     * @param delegate
+     * @param options
+     * @return CircuitBreakingClient
+     */
+    public static CircuitBreakingClient create(CaliperClient delegate, CircuitBreakingClientOptions options) {
+        return new CircuitBreakingClient(delegate, options);
+    }
+}
@@ -0,0 +1,240 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.clients;
+
+import org.imsglobal.caliper.circuit.CircuitListener;
+import org.imsglobal.caliper.spool.EnvelopeSpool;
+import org.imsglobal.caliper.validators.SensorValidator;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Circuit breaking client options.
+ */
+public class CircuitBreakingClientOptions implements CaliperClientOptions {
+    private final int failureThreshold;
+    private final double errorRateThreshold;
+    private final int minimumRequests;
+    private final long window;
+    private final long openDuration;
+    private final int halfOpenProbes;
+    private final EnvelopeSpool spool;
+    private final CircuitListener listener;
+
+    /**
+     * Default circuit breaker settings.
+     */
+    public static final int FAILURE_THRESHOLD = 5;
+    public static final double ERROR_RATE_THRESHOLD = 0.5;
+    public static final int MINIMUM_REQUESTS = 20;
+    public static final long WINDOW = 10000L;
+    public static final long OPEN_DURATION = 30000L;
+    public static final int HALF_OPEN_PROBES = 3;
+
+    /**
+     * Constructor
+     * @param builder
+     */
+    private CircuitBreakingClientOptions(OptionsBuilder builder) {
+        this.failureThreshold = SensorValidator.chkPositiveIntValue(builder.failureThreshold, FAILURE_THRESHOLD);
+        this.errorRateThreshold = (builder.errorRateThreshold > 0.0) ? builder.errorRateThreshold : ERROR_RATE_THRESHOLD;
+        this.minimumRequests = SensorValidator.chkPositiveIntValue(builder.minimumRequests, MINIMUM_REQUESTS);
+        this.window = (builder.window > 0L) ? builder.window : WINDOW;
+        this.openDuration = (builder.openDuration > 0L) ? builder.openDuration : OPEN_DURATION;
+        this.halfOpenProbes = SensorValidator.chkPositiveIntValue(builder.halfOpenProbes, HALF_OPEN_PROBES);
+        this.spool = builder.spool;
+        this.listener = builder.listener;
+
+        checkArgument(errorRateThreshold <= 1.0, "The error rate threshold must not exceed 1.0.");
+    }
+
+    /**
+     * Get the number of consecutive failures that opens the circuit.
+     * @return failure threshold
+     */
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    /**
+     * Get the failure rate within the rolling window that opens the circuit.
+     * @return error rate threshold
+     */
+    public double getErrorRateThreshold() {
+        return errorRateThreshold;
+    }
+
+    /**
+     * Get the number of outcomes required in the rolling window before the failure rate is evaluated.
+     * @return minimum requests
+     */
+    public int getMinimumRequests() {
+        return minimumRequests;
+    }
+
+    /**
+     * Get the length of the rolling window in milliseconds.
+     * @return window
+     */
+    public long getWindow() {
+        return window;
+    }
+
+    /**
+     * Get the time in milliseconds the circuit stays open before admitting probes.
+     * @return open duration
+     */
+    public long getOpenDuration() {
+        return openDuration;
+    }
+
+    /**
+     * Get the number of probe sends admitted while half-open.
+     * @return half-open probes
+     */
+    public int getHalfOpenProbes() {
+        return halfOpenProbes;
+    }
+
+    /**
+     * Get the spool that receives Envelopes while the circuit is open, if any.  Unless the spool
+     * already has a drainer, the CircuitBreakingClient attaches one that replays through the delegate.
+     * @return spool
+     */
+    public EnvelopeSpool getSpool() {
+        return spool;
+    }
+
+    /**
+     * Get the listener notified of state transitions, if any.
+     * @return listener
+     */
+    public CircuitListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Builder class provides a fluid interface for setting options properties.
+     */
+    public static class OptionsBuilder {
+        private int failureThreshold = 0;
+        private double errorRateThreshold = 0.0;
+        private int minimumRequests = 0;
+        private long window = 0L;
+        private long openDuration = 0L;
+        private int halfOpenProbes = 0;
+        private EnvelopeSpool spool;
+        private CircuitListener listener;
+
+        /**
+         * Constructor
+         */
+        public OptionsBuilder() {
+
+        }
+
+        /**
+         * @param failureThreshold
+         * @return builder
+         */
+        public OptionsBuilder failureThreshold(final int failureThreshold) {
+            this.failureThreshold = failureThreshold;
+            return this;
+        }
+
+        /**
+         * @param errorRateThreshold
+         * @return builder
+         */
+        public OptionsBuilder errorRateThreshold(final double errorRateThreshold) {
+            this.errorRateThreshold = errorRateThreshold;
+            return this;
+        }
+
+        /**
+         * @param minimumRequests
+         * @return builder
+         */
+        public OptionsBuilder minimumRequests(final int minimumRequests) {
+            this.minimumRequests = minimumRequests;
+            return this;
+        }
+
+        /**
+         * @param window
+         * @return builder
+         */
+        public OptionsBuilder window(final long window) {
+            this.window = window;
+            return this;
+        }
+
+        /**
+         * @param openDuration
+         * @return builder
+         */
+        public OptionsBuilder openDuration(final long openDuration) {
+            this.openDuration = openDuration;
+            return this;
+        }
+
+        /**
+         * @param halfOpenProbes
+         * @return builder
+         */
+        public OptionsBuilder halfOpenProbes(final int halfOpenProbes) {
+            this.halfOpenProbes = halfOpenProbes;
+            return this;
+        }
+
+        /**
+         * @param spool
+         * @return builder
+         */
+        public OptionsBuilder spool(final EnvelopeSpool spool) {
+            this.spool = spool;
+            return this;
+        }
+
+        /**
+         * @param listener
+         * @return builder
+         */
+        public OptionsBuilder listener(final CircuitListener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        /**
+         * Client invokes build method in order to create an immutable object.
+         * @return a new instance of Options.
+         */
+        public CircuitBreakingClientOptions build() {
+            return new CircuitBreakingClientOptions(this);
+        }
+    }
+
+    /**
+     * Static Factory method.
+     * @return new builder instance
+     */
+    public static OptionsBuilder builder() {
+        return new OptionsBuilder();
+    }
+}
@@ -0,0 +1,181 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.clients;
+
+import com.google.common.io.CountingOutputStream;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.imsglobal.caliper.Envelope;
+import org.imsglobal.caliper.codec.PayloadCodec;
+import org.imsglobal.caliper.config.DataFormat;
+import org.imsglobal.caliper.databind.CaliperSerializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Request entity that serializes an Envelope straight onto the connection's output stream,
+ * optionally through a Content-Encoding, so that no copy of the payload is held in memory.
+ * Peak memory per send is therefore independent of the number of events in the Envelope.
+ *
+ * The body is always sent with chunked transfer encoding, since a Content-Length could only be
+ * known by serializing the Envelope an extra time.  Each write serializes the Envelope again, so
+ * a client that retries should post a serialized payload instead.
+ */
+public class EnvelopeEntity extends AbstractHttpEntity {
+    private final Envelope envelope;
+    private final CaliperSerializer serializer;
+    private final DataFormat format;
+    private final PayloadCodec codec;
+    private volatile long rawLength = 0L;
+    private volatile long encodedLength = 0L;
+
+    /**
+     * Constructor.  Scope is private to force use of the static factory method.
+     * @param envelope
+     * @param serializer
+     * @param format
+     * @param codec
+     */
+    private EnvelopeEntity(Envelope envelope, CaliperSerializer serializer, DataFormat format, PayloadCodec codec) {
+        this.envelope = envelope;
+        this.serializer = serializer;
+        this.format = format;
+        this.codec = codec;
+        setChunked(true);
+        if (codec != null) {
+            setContentEncoding(codec.getContentEncoding());
+        }
+    }
+
+    /**
+     * Get the Envelope this entity serializes.
+     * @return envelope
+     */
+    public Envelope getEnvelope() {
+        return envelope;
+    }
+
+    /**
+     * Get the serialized length of the Envelope written by the latest write.
+     * @return raw length
+     */
+    public long getRawLength() {
+        return rawLength;
+    }
+
+    /**
+     * Get the length of the body, after any Content-Encoding, written by the latest write.
+     * @return encoded length
+     */
+    public long getEncodedLength() {
+        return encodedLength;
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+
+    /**
+     * Get the body length, which is unknown until the body has been written.
+     * @return -1
+     */
+    @Override
+    public long getContentLength() {
+        return -1L;
+    }
+
+    /**
+     * Buffer the body for callers that pull content rather than have it written.  The streaming
+     * path is writeTo.
+     * @return content
+     * @throws IOException
+     */
+    @Override
+    public InputStream getContent() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeTo(out);
+        return new ByteArrayInputStream(out.toByteArray());
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        CountingOutputStream wire = new CountingOutputStream(new NonClosingOutputStream(out));
+        OutputStream target = (codec != null) ? codec.encode(wire) : wire;
+        CountingOutputStream raw = new CountingOutputStream(target);
+
+        serializer.serialize(envelope, format, raw);
+        raw.close();
+
+        rawLength = raw.getCount();
+        encodedLength = wire.getCount();
+    }
+
+    /**
+     * Shields the connection's stream from being closed when the encoder is finished.
+     */
+    private static class NonClosingOutputStream extends OutputStream {
+        private final OutputStream out;
+
+        private NonClosingOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+
+    /**
+     * Factory method.
+     * @param envelope
+     * @param serializer
+     * @param format
+     * @param codec the Content-Encoding to apply, or null
+     * @return entity
+     */
+    public static EnvelopeEntity create(Envelope envelope, CaliperSerializer serializer, DataFormat format,
+                                        PayloadCodec codec) {
+        return new EnvelopeEntity(envelope, serializer, format, codec);
+    }
+}
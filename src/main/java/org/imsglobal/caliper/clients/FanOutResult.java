@@ -0,0 +1,98 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.clients;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregate outcome of sending an Envelope to every registered Client, keyed by Client id.
+ */
+public class FanOutResult {
+    private final Map<String, SendResult> results;
+
+    /**
+     * Constructor
+     * @param results
+     */
+    private FanOutResult(Map<String, SendResult> results) {
+        this.results = Collections.unmodifiableMap(new LinkedHashMap<>(results));
+    }
+
+    /**
+     * Get the per-Client results.
+     * @return results keyed by Client id
+     */
+    public Map<String, SendResult> getResults() {
+        return results;
+    }
+
+    /**
+     * Get the result for one Client.
+     * @param clientId
+     * @return result, or null if the Client was not sent to
+     */
+    public SendResult getResult(String clientId) {
+        return results.get(clientId);
+    }
+
+    /**
+     * Get the results of the Clients that failed, timed out or were rejected.
+     * @return failures
+     */
+    public List<SendResult> getFailures() {
+        List<SendResult> failures = new ArrayList<>();
+        for (SendResult result : results.values()) {
+            if (!result.isSuccessful()) {
+                failures.add(result);
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Did every Client succeed?
+     * @return true if all sends succeeded
+     */
+    public boolean isSuccessful() {
+        for (SendResult result : results.values()) {
+            if (!result.isSuccessful()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "FanOutResult{" + results.values() + "}";
+    }
+
+    /**
+     * Factory method.
+     * @param results
+     * @return result
+     */
+    public static FanOutResult create(Map<String, SendResult> results) {
+        return new FanOutResult(results);
+    }
+}
@@ -0,0 +1,135 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.clients;
+
+/**
+ * Outcome of flushing or closing a Client: the number of events, counted as the items carried by
+ * each Envelope, that were delivered, spooled for later replay or dropped, and the number still
+ * pending when the deadline passed.
+ */
+public class FlushResult {
+    private final long flushed;
+    private final long spooled;
+    private final long dropped;
+    private final long pending;
+
+    /**
+     * Nothing to flush.
+     */
+    public static final FlushResult EMPTY = new FlushResult(0L, 0L, 0L, 0L);
+
+    /**
+     * Constructor
+     * @param flushed
+     * @param spooled
+     * @param dropped
+     * @param pending
+     */
+    private FlushResult(long flushed, long spooled, long dropped, long pending) {
+        this.flushed = flushed;
+        this.spooled = spooled;
+        this.dropped = dropped;
+        this.pending = pending;
+    }
+
+    /**
+     * Get the number of events delivered.
+     * @return flushed
+     */
+    public long getFlushed() {
+        return flushed;
+    }
+
+    /**
+     * Get the number of events appended to a spool.
+     * @return spooled
+     */
+    public long getSpooled() {
+        return spooled;
+    }
+
+    /**
+     * Get the number of events lost.
+     * @return dropped
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * Get the number of events still in flight or queued when the deadline passed.
+     * @return pending
+     */
+    public long getPending() {
+        return pending;
+    }
+
+    /**
+     * Did every event reach the endpoint?
+     * @return true if nothing was spooled, dropped or left pending
+     */
+    public boolean isComplete() {
+        return spooled == 0L && dropped == 0L && pending == 0L;
+    }
+
+    /**
+     * Combine the outcomes of several Clients.
+     * @param other
+     * @return sum
+     */
+    public FlushResult plus(FlushResult other) {
+        return new FlushResult(flushed + other.flushed, spooled + other.spooled, dropped + other.dropped,
+            pending + other.pending);
+    }
+
+    /**
+     * Count events still pending as dropped, as when their Client has been closed.
+     * @return result
+     */
+    public FlushResult abandon() {
+        return new FlushResult(flushed, spooled, dropped + pending, 0L);
+    }
+
+    /**
+     * Get the outcome since an earlier snapshot of cumulative counts.
+     * @param start
+     * @return difference, with this result's pending count
+     */
+    FlushResult since(FlushResult start) {
+        return new FlushResult(flushed - start.flushed, spooled - start.spooled, dropped - start.dropped, pending);
+    }
+
+    /**
+     * Static factory method.
+     * @param flushed
+     * @param spooled
+     * @param dropped
+     * @param pending
+     * @return flush result
+     */
+    public static FlushResult create(long flushed, long spooled, long dropped, long pending) {
+        return new FlushResult(flushed, spooled, dropped, pending);
+    }
+
+    @Override
+    public String toString() {
+        return "FlushResult{flushed=" + flushed + ", spooled=" + spooled + ", dropped=" + dropped
+            + ", pending=" + pending + "}";
+    }
+}
@@ -0,0 +1,369 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.clients;
+
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.async.methods.SimpleResponseConsumer;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.http.nio.AsyncRequestProducer;
+import org.apache.hc.core5.http.nio.DataStreamChannel;
+import org.apache.hc.core5.http.nio.support.BasicRequestProducer;
+import org.apache.hc.core5.http2.config.H2Config;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.util.Timeout;
+import org.imsglobal.caliper.Envelope;
+import org.imsglobal.caliper.codec.EncodedPayload;
+import org.imsglobal.caliper.limit.ConcurrencyLimiter;
+import org.imsglobal.caliper.limit.RateLimiter;
+import org.imsglobal.caliper.spool.SpoolDrainer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HTTP/2 client.  Envelope POSTs are multiplexed as concurrent streams over a single connection
+ * per route rather than each occupying a pooled HTTP/1.1 connection.  An https host negotiates
+ * HTTP/2 via ALPN, which requires a runtime with ALPN support; an http host speaks cleartext
+ * HTTP/2 (h2c) with prior knowledge.  The client is configured through HttpClientOptions:
+ * the limitAlgorithm, by default a fixed limit of maxInFlight, bounds the number of concurrent
+ * streams, rateLimit optionally bounds the rate of sends, and the number of open streams is recorded
+ * as Active Streams in the client's statistics.
+ */
+public class Http2Client extends AbstractClient implements CaliperPayloadClient {
+    private final CloseableHttpAsyncClient httpAsyncClient;
+    private final ContentType contentType;
+    private final SendPipeline pipeline;
+    private final AtomicInteger activeStreams = new AtomicInteger();
+    private final SpoolDrainer drainer;
+
+    private static final Logger log = LoggerFactory.getLogger(Http2Client.class);
+
+    /**
+     * Constructor.  Scope is private to force use of the static factory method.
+     * @param id
+     * @param options
+     */
+    private Http2Client(String id, HttpClientOptions options) {
+        super(id, options);
+        this.httpAsyncClient = HttpAsyncClients.customHttp2()
+            .setH2Config(H2Config.custom()
+                .setPushEnabled(false)
+                .build())
+            .setIOReactorConfig(IOReactorConfig.custom()
+                .setSoTimeout(Timeout.ofMilliseconds(options.getSocketTimeout()))
+                .build())
+            .setDefaultRequestConfig(RequestConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(options.getConnTimeout()))
+                .setResponseTimeout(Timeout.ofMilliseconds(options.getSocketTimeout()))
+                .build())
+            .build();
+        this.httpAsyncClient.start();
+        this.contentType = ContentType.parse(options.getContentType());
+        this.pipeline = SendPipeline.create(this, this::attempt, "streams open");
+        this.drainer = (options.getSpool() != null) ? SpoolDrainer.attach(options.getSpool(), this) : null;
+    }
+
+    /**
+     * Get the limiter bounding concurrent streams.
+     * @return limiter
+     */
+    public ConcurrencyLimiter getLimiter() {
+        return pipeline.getLimiter();
+    }
+
+    /**
+     * Get the limiter applying the configured rate limits, if any.
+     * @return rate limiter
+     */
+    public RateLimiter getRateLimiter() {
+        return pipeline.getRateLimiter();
+    }
+
+    /**
+     * Get the number of streams currently open.
+     * @return active streams
+     */
+    public int getActiveStreams() {
+        return activeStreams.get();
+    }
+
+    /**
+     * Get the drainer replaying this client's spool.
+     * @return drainer, or null if no spool is configured or another client's drainer replays it
+     */
+    public SpoolDrainer getDrainer() {
+        return drainer;
+    }
+
+    /**
+     * Release the connection and stop spool replay.
+     */
+    @Override
+    protected void shutdown() {
+        if (drainer != null) {
+            drainer.stop();
+        }
+        httpAsyncClient.close(CloseMode.GRACEFUL);
+    }
+
+    /**
+     * Post envelope and wait for the final attempt to complete.  If a spool is configured, an envelope the endpoint
+     * could not accept because of an I/O error or transient status is spooled for later replay.  As with
+     * HttpClient, only a failure status from the endpoint is thrown; other failures are logged.
+     * @param envelope
+     */
+    @Override
+    public void send(Envelope envelope) {
+        report(pipeline.send(envelope).join());
+    }
+
+    /**
+     * Post an envelope serialized by the Sensor and wait for the final attempt to complete.
+     * @param envelope
+     */
+    @Override
+    public void send(SerializedEnvelope envelope) {
+        report(pipeline.send(envelope).join());
+    }
+
+    /**
+     * Log a failed or spooled send, throwing if the endpoint responded with a failure status.
+     * @param result
+     */
+    private void report(SendResult result) {
+        if (result.isSuccessful()) {
+            return;
+        }
+
+        if (result.isSpooled()) {
+            log.warn("HTTP/2 POST failed; status code=" + result.getStatusCode() + "; envelope spooled");
+        } else if (result.getStatusCode() == 0) {
+            log.warn("HTTP/2 POST failed after " + result.getAttempts() + " attempt(s)", result.getError());
+        } else {
+            throw new RuntimeException("WARN: HTTP/2 POST failed; status code=" + result.getStatusCode());
+        }
+    }
+
+    /**
+     * Post envelope as a new stream without blocking the caller.  Once the concurrency limit is
+     * reached, further sends are rejected rather than queued; a send over the rate limit is
+     * deferred, or rejected if its tokens are not due within the limits' maxDelay.
+     * @param envelope
+     * @return future send result
+     */
+    @Override
+    public CompletableFuture<SendResult> sendAsync(Envelope envelope) {
+        return pipeline.sendAsync(envelope);
+    }
+
+    /**
+     * Post an envelope serialized by the Sensor as a new stream without blocking the caller.
+     * @param envelope
+     * @return future send result
+     */
+    @Override
+    public CompletableFuture<SendResult> sendAsync(SerializedEnvelope envelope) {
+        return pipeline.sendAsync(envelope);
+    }
+
+    /**
+     * Post envelope as a new stream if a stream slot is free.
+     * @param envelope
+     * @return false if the concurrency limit has been reached or the rate limit is exceeded
+     */
+    @Override
+    public boolean offer(Envelope envelope) {
+        return pipeline.offer(envelope);
+    }
+
+    /**
+     * Post a serialized envelope as a new stream.  Failures are not spooled, since the payload is
+     * typically being replayed from the spool.
+     * @param payload
+     * @return future send result
+     */
+    @Override
+    public CompletableFuture<SendResult> sendPayloadAsync(byte[] payload) {
+        return pipeline.sendPayloadAsync(payload);
+    }
+
+    /**
+     * Open a stream and post the payload once.
+     * @param payload
+     * @param start
+     * @return future result
+     */
+    private CompletableFuture<SendResult> attempt(EncodedPayload payload, final long start) {
+        final CompletableFuture<SendResult> future = new CompletableFuture<>();
+
+        AsyncRequestProducer request;
+        try {
+            request = createRequest(payload);
+        } catch (RuntimeException e) {
+            future.complete(SendResult.failure(getId(), 0, System.currentTimeMillis() - start, e));
+            return future;
+        }
+
+        getStatistics().updateActiveStreams(activeStreams.incrementAndGet());
+        httpAsyncClient.execute(request, SimpleResponseConsumer.create(), new FutureCallback<SimpleHttpResponse>() {
+            @Override
+            public void completed(SimpleHttpResponse response) {
+                activeStreams.decrementAndGet();
+                int statusCode = response.getCode();
+                long latency = System.currentTimeMillis() - start;
+
+                if (statusCode >= 200 && statusCode <= 202) {
+                    future.complete(SendResult.success(getId(), statusCode, latency));
+                } else {
+                    Header retryAfter = response.getFirstHeader("Retry-After");
+                    future.complete(SendResult.failure(getId(), statusCode, latency,
+                        new IOException("HTTP/2 POST failed; status code=" + statusCode),
+                        SendResult.parseRetryAfter(retryAfter != null ? retryAfter.getValue() : null)));
+                }
+            }
+
+            @Override
+            public void failed(Exception ex) {
+                activeStreams.decrementAndGet();
+                future.complete(SendResult.failure(getId(), 0, System.currentTimeMillis() - start, ex));
+            }
+
+            @Override
+            public void cancelled() {
+                activeStreams.decrementAndGet();
+                future.complete(SendResult.failure(getId(), 0, System.currentTimeMillis() - start,
+                    new IOException("HTTP/2 POST cancelled.")));
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * Prep the request.  The body is written
+     * straight from the payload's backing array rather than a copy of it.
+     * @param payload
+     * @return request
+     */
+    private AsyncRequestProducer createRequest(EncodedPayload payload) {
+        SimpleHttpRequest request = SimpleRequestBuilder.post(this.getOptions().getHost())
+            .setHeader("Authorization", this.getOptions().getApiKey())
+            .build();
+
+        return new BasicRequestProducer(request, new PayloadEntityProducer(payload, contentType));
+    }
+
+    /**
+     * Entity producer writing an EncodedPayload without copying it.  A new producer is created for
+     * each attempt, so each attempt writes the body from the start.
+     */
+    private static final class PayloadEntityProducer implements AsyncEntityProducer {
+        private final ByteBuffer body;
+        private final String contentType;
+        private final String contentEncoding;
+
+        /**
+         * Constructor
+         * @param payload
+         * @param contentType
+         */
+        private PayloadEntityProducer(EncodedPayload payload, ContentType contentType) {
+            this.body = ByteBuffer.wrap(payload.getArray(), 0, payload.getLength());
+            this.contentType = contentType.toString();
+            this.contentEncoding = payload.getContentEncoding();
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return false;
+        }
+
+        @Override
+        public long getContentLength() {
+            return body.limit();
+        }
+
+        @Override
+        public String getContentType() {
+            return contentType;
+        }
+
+        @Override
+        public String getContentEncoding() {
+            return contentEncoding;
+        }
+
+        @Override
+        public boolean isChunked() {
+            return false;
+        }
+
+        @Override
+        public Set<String> getTrailerNames() {
+            return null;
+        }
+
+        @Override
+        public int available() {
+            return body.remaining();
+        }
+
+        @Override
+        public void produce(DataStreamChannel channel) throws IOException {
+            if (body.hasRemaining()) {
+                channel.write(body);
+            }
+            if (!body.hasRemaining()) {
+                channel.endStream();
+            }
+        }
+
+        @Override
+        public void failed(Exception cause) {
+        }
+
+        @Override
+        public void releaseResources() {
+        }
+    }
+
+    /**
+     * Factory method for instantiating an Http2Client.
+     * @param id
+     * @param options
+     * @return Http2Client
+     */
+    public static Http2Client create(String id, HttpClientOptions options) {
+        return new Http2Client(id, options);
+    }
+}
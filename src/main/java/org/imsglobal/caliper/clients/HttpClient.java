@@ -18,114 +18,407 @@
 
 package org.imsglobal.caliper.clients;
 
-import org.apache.http.client.ClientProtocolException;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.entity.ContentType;
-import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
 import org.apache.http.util.EntityUtils;
 import org.imsglobal.caliper.Envelope;
+import org.imsglobal.caliper.codec.EncodedPayload;
+import org.imsglobal.caliper.limit.ConcurrencyLimiter;
+import org.imsglobal.caliper.limit.RateLimiter;
+import org.imsglobal.caliper.config.Timeout;
+import org.imsglobal.caliper.retry.Retrier;
+import org.imsglobal.caliper.retry.RetryPolicy;
+import org.imsglobal.caliper.spool.SpoolDrainer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Provisions the Sensor with an HttpClient that binds to one or more Requestors.
  */
-public class HttpClient extends AbstractClient {
-    private static CloseableHttpClient httpClient;
-    private static CloseableHttpResponse response = null;
+public class HttpClient extends AbstractClient implements CaliperPayloadClient {
+    private final HttpTransport transport;
+    private final RequestConfig requestConfig;
+    private final ContentType contentType;
+    private final SendPipeline pipeline;
+    private final SpoolDrainer drainer;
 
     private static final Logger log = LoggerFactory.getLogger(HttpClient.class);
 
     /**
      * Constructor.  The args options provides the host details to the HttpClient.  Scope is private
-     * to force use of the static factory method for instantiating an HttpClient.
+     * to force use of the static factory method for instantiating an HttpClient.  Each HttpClient
+     * owns its own connection pools, sized by the options.
      * @param id
      */
     private HttpClient(String id, HttpClientOptions options) {
         super(id, options);
-        initialize();
+        this.transport = HttpTransport.create(options, getStatistics());
+        this.requestConfig = RequestConfig.custom()
+            .setConnectTimeout(options.getConnTimeout())
+            .setConnectionRequestTimeout(Timeout.CONNECTION_REQUESTOR_TIMEOUT.value())
+            .setSocketTimeout(options.getSocketTimeout())
+            .build();
+        this.contentType = ContentType.parse(options.getContentType());
+        this.pipeline = SendPipeline.create(this, this::attempt, "sends in flight");
+        this.drainer = (options.getSpool() != null) ? SpoolDrainer.attach(options.getSpool(), this) : null;
     }
 
     /**
-     * Init method
+     * Init method.  Connection pools are now created per client, so there is nothing to initialize.
+     * @deprecated retained for source compatibility only
      */
-    public static synchronized void initialize() {
-        if (httpClient == null) {
-            httpClient = HttpClients.createDefault();
+    @Deprecated
+    public static void initialize() {
+
+    }
+
+    /**
+     * Get the transport runtime, which exposes connection pool statistics.
+     * @return transport
+     */
+    public HttpTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * Release the connection pools and stop spool replay.
+     */
+    @Override
+    protected void shutdown() {
+        if (drainer != null) {
+            drainer.stop();
         }
+        transport.close();
+    }
+
+    /**
+     * Get the number of sends awaiting a response.
+     * @return in-flight count
+     */
+    public int getInFlight() {
+        return pipeline.getLimiter().getInFlight();
+    }
+
+    /**
+     * Get the limiter bounding concurrent sends.
+     * @return limiter
+     */
+    public ConcurrencyLimiter getLimiter() {
+        return pipeline.getLimiter();
+    }
+
+    /**
+     * Get the limiter applying the configured rate limits, if any.
+     * @return rate limiter
+     */
+    public RateLimiter getRateLimiter() {
+        return pipeline.getRateLimiter();
     }
 
     /**
-     * Check initialized instance.
+     * Get the drainer replaying this client's spool.
+     * @return drainer, or null if no spool is configured or another client's drainer replays it
      */
-    private static void checkInitialized() {
-        if (httpClient == null) {
-            throw new IllegalStateException("HttpClient is not initialized.");
+    public SpoolDrainer getDrainer() {
+        return drainer;
+    }
+
+    /**
+     * Prep the post.  The entity's Content-Encoding, if any, is sent as a request header.
+     * @param entity
+     * @return post
+     */
+    private HttpPost createPost(HttpEntity entity) {
+        HttpPost post = new HttpPost(this.getOptions().getHost());
+        post.setConfig(requestConfig);
+        post.setHeader("Authorization", this.getOptions().getApiKey());
+        post.setHeader("Content-Type", this.getOptions().getContentType());
+        post.setEntity(entity);
+
+        return post;
+    }
+
+    /**
+     * Wrap a serialized payload.
+     * @param payload
+     * @return entity
+     */
+    private HttpEntity createEntity(EncodedPayload payload) {
+        ByteArrayEntity entity = new ByteArrayEntity(payload.getArray(), 0, payload.getLength(), contentType);
+        if (payload.isEncoded()) {
+            entity.setContentEncoding(payload.getContentEncoding());
         }
+
+        return entity;
+    }
+
+    /**
+     * Check for a successful HTTP response code.
+     * @param statusCode
+     * @return status
+     */
+    private static boolean isSuccess(int statusCode) {
+        return statusCode >= 200 && statusCode <= 202;
     }
 
     /**
-     * Post envelope.
+     * Post envelope.  Failed attempts are retried according to the configured RetryPolicy,
+     * reusing the payload serialized for the first attempt.  With streaming enabled and no
+     * RetryPolicy, the envelope is serialized straight onto the connection instead.  If a
+     * spool is configured, an envelope the endpoint could not accept because of an I/O error or
+     * transient status is spooled for later replay instead of being lost.
      * @param envelope
      * @return status
      */
     @Override
     public void send(Envelope envelope) {
-        boolean status = Boolean.FALSE;
+        if (log.isDebugEnabled()) {
+            log.debug("Entering send()...");
+        }
 
+        final EncodedPayload payload;
+        final HttpEntity entity;
         try {
-            if (log.isDebugEnabled()) {
-                log.debug("Entering send()...");
+            if (getOptions().isStreaming() && getOptions().getRetryPolicy() == RetryPolicy.NONE) {
+                payload = null;
+                entity = EnvelopeEntity.create(envelope, getSerializer(), getDataFormat(),
+                    getOptions().getContentEncoding());
+            } else {
+                payload = encode(envelope);
+                entity = createEntity(payload);
             }
+        } catch (IOException ioe) {
+            updateStatistics(Boolean.FALSE);
+            log.warn("Unable to serialize envelope", ioe);
+            return;
+        }
 
-            // Check if HttpClient is initialized.
-            checkInitialized();
+        send(entity, payload, envelope);
+    }
 
-            // Serialize the envelope
-            String json = this.serializeEnvelope(envelope);
+    /**
+     * Post an envelope serialized by the Sensor and wait for the final attempt to complete.  The
+     * shared bytes are posted as-is unless this client applies a Content-Encoding.
+     * @param envelope
+     */
+    @Override
+    public void send(SerializedEnvelope envelope) {
+        final EncodedPayload payload;
+        try {
+            payload = encode(envelope);
+        } catch (IOException ioe) {
+            updateStatistics(Boolean.FALSE);
+            log.warn("Unable to encode envelope", ioe);
+            return;
+        }
 
-            // Prep the post
-            HttpPost post = new HttpPost(super.getOptions().getHost());
-            post.setHeader("Authorization", this.getOptions().getApiKey());
-            post.setHeader("Content-Type", this.getOptions().getContentType());
-            post.setEntity(new StringEntity(json, ContentType.APPLICATION_JSON));
+        send(createEntity(payload), payload, envelope.getEnvelope());
+    }
 
-            // Execute POST
-            response = httpClient.execute(post);
+    /**
+     * Post the entity once the rate and concurrency limits allow, retrying according to the
+     * configured RetryPolicy, then spool or report the failure.  Releases the payload, if any, once
+     * done.
+     * @param entity
+     * @param payload the encoded payload, or null if the entity streams the envelope
+     * @param envelope
+     */
+    private void send(final HttpEntity entity, final EncodedPayload payload, final Envelope envelope) {
+        SendResult result = track(envelope,
+            () -> CompletableFuture.completedFuture(deliver(entity, payload, envelope))).join();
+        if (result.isSuccessful()) {
+            if (log.isDebugEnabled()) {
+                log.debug("Exiting send()...");
+            }
+            return;
+        }
 
-            // HTTP Response code
-            int statusCode = response.getStatusLine().getStatusCode();
-            if (statusCode < 200 || statusCode > 202) {
-                response.close();
+        if (result.isSpooled()) {
+            log.warn("HTTP POST failed; status code=" + result.getStatusCode() + "; envelope spooled");
+        } else if (result.getStatusCode() == 0) {
+            log.warn("HTTP POST failed after " + result.getAttempts() + " attempt(s)", result.getError());
+        } else {
+            throw new RuntimeException("WARN: HTTP POST failed; status code=" + result.getStatusCode());
+        }
+    }
 
-                // Update statistics
-                updateStatistics(Boolean.FALSE);
+    /**
+     * Make the blocking attempts for a send, then update statistics and spool on failure.
+     * @param entity
+     * @param payload
+     * @param envelope
+     * @return result, marked as spooled if the envelope was spooled
+     */
+    private SendResult deliver(final HttpEntity entity, EncodedPayload payload, Envelope envelope) {
+        RateLimiter rateLimiter = pipeline.getRateLimiter();
+        ConcurrencyLimiter limiter = pipeline.getLimiter();
+        if (rateLimiter != null) {
+            rateLimiter.acquire(envelope);
+        }
+        limiter.acquire();
+        final long start = System.currentTimeMillis();
+        SendResult result;
+        try {
+            result = Retrier.call(getOptions().getRetryPolicy(), () -> post(entity, start), getStatistics());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result = SendResult.failure(getId(), 0, System.currentTimeMillis() - start, e);
+        } catch (Exception e) {
+            result = SendResult.failure(getId(), 0, System.currentTimeMillis() - start, e);
+        }
+        limiter.release(result);
 
-                throw new RuntimeException("WARN: HTTP POST failed; status code=" + statusCode);
+        // Update statistics
+        updateStatistics(result.isSuccessful());
+        if (payload != null) {
+            updateStatistics(payload);
+        } else if (entity instanceof EnvelopeEntity) {
+            getStatistics().updateRawBytes(((EnvelopeEntity) entity).getRawLength());
+            getStatistics().updateCompressedBytes(((EnvelopeEntity) entity).getEncodedLength());
+        }
+        if (result.isSuccessful() && payload != null) {
+            payload.accepted();
+        }
+        boolean spooled = !result.isSuccessful() && result.isRetryable()
+            && (payload != null ? spool(payload) : spool(envelope));
+        if (payload != null) {
+            payload.release();
+        }
+        return spooled ? result.asSpooled() : result;
+    }
+
+    /**
+     * Make a single blocking attempt.  The response is local to this call and its entity is always
+     * consumed so the connection returns to the pool.
+     * @param entity
+     * @param start
+     * @return result
+     */
+    private SendResult post(HttpEntity entity, long start) {
+        try (CloseableHttpResponse response = transport.getHttpClient().execute(createPost(entity))) {
+            int statusCode = response.getStatusLine().getStatusCode();
+            if (log.isDebugEnabled()) {
+                log.debug(response.getStatusLine().toString());
+                log.debug(EntityUtils.toString(response.getEntity()));
             } else {
-                if (log.isDebugEnabled()) {
-                    log.debug(response.getStatusLine().toString());
-                    log.debug(EntityUtils.toString(response.getEntity()));
-                }
-                response.close();
-
-                // Update statistics
-                updateStatistics(Boolean.TRUE);
-
-                if (log.isDebugEnabled()) {
-                    log.debug("Exiting send()...");
-                }
+                EntityUtils.consume(response.getEntity());
             }
-        } catch (ClientProtocolException cpe) {
-            cpe.printStackTrace();
-        } catch (IOException ioe) {
-            ioe.printStackTrace();
+            return result(response, statusCode, start);
+        } catch (IOException | RuntimeException e) {
+            return SendResult.failure(getId(), 0, System.currentTimeMillis() - start, e);
+        }
+    }
+
+    /**
+     * Build the result of an attempt that received a response.
+     * @param response
+     * @param statusCode
+     * @param start
+     * @return result
+     */
+    private SendResult result(HttpResponse response, int statusCode, long start) {
+        long latency = System.currentTimeMillis() - start;
+        if (isSuccess(statusCode)) {
+            return SendResult.success(getId(), statusCode, latency);
         }
+        Header retryAfter = response.getFirstHeader("Retry-After");
+        return SendResult.failure(getId(), statusCode, latency,
+            new IOException("HTTP POST failed; status code=" + statusCode),
+            SendResult.parseRetryAfter(retryAfter != null ? retryAfter.getValue() : null));
+    }
+
+    /**
+     * Post envelope using the non-blocking engine.  The calling thread only serializes the
+     * envelope; the round trip completes on the engine's I/O dispatch threads.  Once the concurrency
+     * limit is reached, further sends are rejected rather than queued; a send over the rate limit
+     * is deferred, or rejected if its tokens are not due within the limits' maxDelay.
+     * @param envelope
+     * @return future send result
+     */
+    @Override
+    public CompletableFuture<SendResult> sendAsync(Envelope envelope) {
+        return pipeline.sendAsync(envelope);
+    }
+
+    /**
+     * Post an envelope serialized by the Sensor using the non-blocking engine.
+     * @param envelope
+     * @return future send result
+     */
+    @Override
+    public CompletableFuture<SendResult> sendAsync(SerializedEnvelope envelope) {
+        return pipeline.sendAsync(envelope);
+    }
+
+    /**
+     * Post envelope using the non-blocking engine if an in-flight slot is free.
+     * @param envelope
+     * @return false if the concurrency limit has been reached or the rate limit is exceeded
+     */
+    @Override
+    public boolean offer(Envelope envelope) {
+        return pipeline.offer(envelope);
+    }
+
+    /**
+     * Post a serialized envelope using the non-blocking engine.  Failures are not spooled,
+     * since the payload is typically being replayed from the spool.
+     * @param payload
+     * @return future send result
+     */
+    @Override
+    public CompletableFuture<SendResult> sendPayloadAsync(byte[] payload) {
+        return pipeline.sendPayloadAsync(payload);
+    }
+
+    /**
+     * Make a single non-blocking attempt.
+     * @param payload
+     * @param start
+     * @return future result
+     */
+    private CompletableFuture<SendResult> attempt(EncodedPayload payload, final long start) {
+        final CompletableFuture<SendResult> future = new CompletableFuture<>();
+
+        HttpPost post;
+        try {
+            post = createPost(createEntity(payload));
+        } catch (RuntimeException e) {
+            future.complete(SendResult.failure(getId(), 0, System.currentTimeMillis() - start, e));
+            return future;
+        }
+
+        transport.getHttpAsyncClient().execute(post, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse response) {
+                int statusCode = response.getStatusLine().getStatusCode();
+                EntityUtils.consumeQuietly(response.getEntity());
+                future.complete(result(response, statusCode, start));
+            }
+
+            @Override
+            public void failed(Exception ex) {
+                future.complete(SendResult.failure(getId(), 0, System.currentTimeMillis() - start, ex));
+            }
+
+            @Override
+            public void cancelled() {
+                future.complete(SendResult.failure(getId(), 0, System.currentTimeMillis() - start,
+                    new IOException("HTTP POST cancelled.")));
+            }
+        });
+
+        return future;
     }
 
     /**
@@ -136,4 +429,4 @@ public class HttpClient extends AbstractClient {
     public static HttpClient create(String id, HttpClientOptions options) {
         return new HttpClient(id, options);
     }
-}
\ No newline at end of file
+}
@@ -18,18 +18,44 @@
 
 package org.imsglobal.caliper.clients;
 
+import org.imsglobal.caliper.codec.PayloadCodec;
+import org.imsglobal.caliper.config.Config;
+import org.imsglobal.caliper.config.DataFormat;
 import org.imsglobal.caliper.config.Timeout;
+import org.imsglobal.caliper.limit.FixedLimit;
+import org.imsglobal.caliper.limit.LimitAlgorithm;
+import org.imsglobal.caliper.limit.RateLimiterOptions;
+import org.imsglobal.caliper.retry.RetryPolicy;
+import org.imsglobal.caliper.spool.EnvelopeSpool;
+import org.imsglobal.caliper.thinning.DescribedEntityCacheOptions;
 import org.imsglobal.caliper.validators.SensorValidator;
 
+import java.util.function.Supplier;
+
 /**
  * Caliper client options.  Review default constants and update placeholder entries (e.g., HTTP_HOST).
  */
 public class HttpClientOptions implements CaliperClientOptions {
     private final String apiKey;
     private final int connectionTimeout;
+    private final PayloadCodec contentEncoding;
+    private final int compressionThreshold;
     private final String contentType;
+    private final DataFormat dataFormat;
     private final String host;
+    private final int maxConnections;
+    private final int maxConnectionsPerRoute;
+    private final long keepAlive;
+    private final long idleTimeout;
+    private final int validateAfterInactivity;
+    private final int maxInFlight;
+    private final Supplier<LimitAlgorithm> limitAlgorithm;
+    private final RateLimiterOptions rateLimit;
+    private final DescribedEntityCacheOptions describedEntities;
+    private final RetryPolicy retryPolicy;
     private final int socketTimeout;
+    private final boolean streaming;
+    private final EnvelopeSpool spool;
 
     /**
      * Default timeout settings.
@@ -37,10 +63,35 @@ public class HttpClientOptions implements CaliperClientOptions {
     public static final int CONNECTION_TIMEOUT = Timeout.CONNECTION_TIMEOUT.value();
     public static final int SOCKET_TIMEOUT = Timeout.SOCKET_TIMEOUT.value();
 
+    /**
+     * Default connection pool settings.
+     */
+    public static final int MAX_CONNECTIONS = 200;
+    public static final int MAX_CONNECTIONS_PER_ROUTE = 100;
+    public static final long KEEP_ALIVE = 30000L;
+    public static final long IDLE_TIMEOUT = 30000L;
+    public static final int VALIDATE_AFTER_INACTIVITY = 2000;
+
+    /**
+     * Default minimum payload size in bytes at which a configured Content-Encoding is applied.
+     */
+    public static final int COMPRESSION_THRESHOLD = 1024;
+
+    /**
+     * Default maximum number of asynchronous sends awaiting a response.
+     */
+    public static final int MAX_IN_FLIGHT = 1024;
+
     /**
      * HTTP Request Header field values.  Update faux Host value.
+     * @deprecated the Content-Type follows the data format; see {@link DataFormat#getContentType()}.
      */
+    @Deprecated
     public static final String HTTP_CONTENT_TYPE = "application/json";
+
+    /**
+     * Default endpoint.  Update faux Host value.
+     */
     public static final String HTTP_HOST = "https://example.org";
 
     /**
@@ -53,9 +104,25 @@ public class HttpClientOptions implements CaliperClientOptions {
 
         this.apiKey = builder.apiKey;
         this.connectionTimeout = SensorValidator.chkIntValue(builder.connectionTimeout, CONNECTION_TIMEOUT);
-        this.contentType = SensorValidator.chkStrValue(builder.contentType, HTTP_CONTENT_TYPE);
+        this.contentEncoding = builder.contentEncoding;
+        this.compressionThreshold = SensorValidator.chkPositiveIntValue(builder.compressionThreshold, COMPRESSION_THRESHOLD);
+        this.dataFormat = (builder.dataFormat != null) ? builder.dataFormat : Config.DATA_FORMAT;
+        SensorValidator.chkDataFormat(dataFormat);
+        this.contentType = SensorValidator.chkStrValue(builder.contentType, dataFormat.getContentType());
         this.host = SensorValidator.chkStrValue(builder.host, HTTP_HOST);
+        this.maxConnections = SensorValidator.chkPositiveIntValue(builder.maxConnections, MAX_CONNECTIONS);
+        this.maxConnectionsPerRoute = SensorValidator.chkPositiveIntValue(builder.maxConnectionsPerRoute, MAX_CONNECTIONS_PER_ROUTE);
+        this.keepAlive = (builder.keepAlive > 0L) ? builder.keepAlive : KEEP_ALIVE;
+        this.idleTimeout = (builder.idleTimeout > 0L) ? builder.idleTimeout : IDLE_TIMEOUT;
+        this.validateAfterInactivity = SensorValidator.chkPositiveIntValue(builder.validateAfterInactivity, VALIDATE_AFTER_INACTIVITY);
+        this.maxInFlight = SensorValidator.chkPositiveIntValue(builder.maxInFlight, MAX_IN_FLIGHT);
+        this.limitAlgorithm = (builder.limitAlgorithm != null) ? builder.limitAlgorithm : () -> FixedLimit.of(maxInFlight);
+        this.rateLimit = builder.rateLimit;
+        this.describedEntities = builder.describedEntities;
+        this.retryPolicy = (builder.retryPolicy != null) ? builder.retryPolicy : RetryPolicy.NONE;
         this.socketTimeout = SensorValidator.chkIntValue(builder.socketTimeout, SOCKET_TIMEOUT);
+        this.streaming = builder.streaming;
+        this.spool = builder.spool;
     }
 
     /**
@@ -75,13 +142,37 @@ public class HttpClientOptions implements CaliperClientOptions {
     }
 
     /**
-     * Get the HTTP Content-Type value.
+     * Get the codec applied to request bodies, or null if bodies are sent unencoded.
+     * @return content encoding
+     */
+    public PayloadCodec getContentEncoding() {
+        return contentEncoding;
+    }
+
+    /**
+     * Get the minimum payload size in bytes at which the Content-Encoding is applied.
+     * @return compression threshold
+     */
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    /**
+     * Get the HTTP Content-Type value.  Defaults to the media type of the data format.
      * @return HTTP Content-Type value
      */
     public String getContentType() {
         return contentType;
     }
 
+    /**
+     * Get the data format Envelopes are serialized in.
+     * @return the dataFormat
+     */
+    public DataFormat getDataFormat() {
+        return dataFormat;
+    }
+
     /**
      *The REST API endpoint.
      * @return host
@@ -90,6 +181,95 @@ public class HttpClientOptions implements CaliperClientOptions {
         return host;
     }
 
+    /**
+     * Get the maximum number of pooled connections across all routes.
+     * @return max connections
+     */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * Get the maximum number of pooled connections to a single route.
+     * @return max connections per route
+     */
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    /**
+     * Get the maximum time in milliseconds an idle connection is kept for reuse when the server
+     * does not advertise a shorter Keep-Alive timeout.
+     * @return keep alive
+     */
+    public long getKeepAlive() {
+        return keepAlive;
+    }
+
+    /**
+     * Get the time in milliseconds after which idle pooled connections are evicted.
+     * @return idle timeout
+     */
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    /**
+     * Get the period of inactivity in milliseconds after which a pooled connection is validated
+     * before it is leased.
+     * @return validate after inactivity
+     */
+    public int getValidateAfterInactivity() {
+        return validateAfterInactivity;
+    }
+
+    /**
+     * Get the maximum number of asynchronous sends awaiting a response.
+     * @return max in-flight sends
+     */
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * Get the factory of the algorithm that sets the limit on concurrent sends.  Each client builds
+     * its own instance, since adaptive algorithms keep state.  Defaults to a fixed limit of
+     * maxInFlight; AimdLimit and GradientLimit adapt the limit to the round trip time observed.
+     * @return limit algorithm factory
+     */
+    public Supplier<LimitAlgorithm> getLimitAlgorithm() {
+        return limitAlgorithm;
+    }
+
+    /**
+     * Get the rate limits applied to sends, or null if sends are not rate limited.  A blocking
+     * send waits for tokens; a non-blocking send is deferred by up to the limits' maxDelay and
+     * otherwise rejected, so that a QueueingClient's OverflowPolicy takes effect.
+     * @return rate limits
+     */
+    public RateLimiterOptions getRateLimit() {
+        return rateLimit;
+    }
+
+    /**
+     * Get the bounds on the entities remembered as described to the endpoint, or null if every
+     * entity is described in full.  When set, a nested entity already sent unchanged is written as
+     * its IRI, and Envelopes are serialized by this client rather than shared by the Sensor.
+     * Streamed Envelopes are always described in full, since they may be written more than once.
+     * @return described entity cache options
+     */
+    public DescribedEntityCacheOptions getDescribedEntities() {
+        return describedEntities;
+    }
+
+    /**
+     * Get the policy for retrying failed sends.
+     * @return retry policy
+     */
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
     /**
      * Get the Socket timeout.
      * @return the Socket timeout
@@ -98,15 +278,48 @@ public class HttpClientOptions implements CaliperClientOptions {
         return socketTimeout;
     }
 
+    /**
+     * Do blocking sends serialize the Envelope straight onto the connection, with chunked transfer
+     * encoding?  Asynchronous sends, and blocking sends when a RetryPolicy is configured, always
+     * post a serialized payload.
+     * @return streaming
+     */
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    /**
+     * Get the spool that receives Envelopes the endpoint could not accept, if any.
+     * @return spool
+     */
+    public EnvelopeSpool getSpool() {
+        return spool;
+    }
+
     /**
      * Builder class provides a fluid interface for setting options properties.
      */
     public static class OptionsBuilder {
         private String apiKey;
         private int connectionTimeout = 0;
+        private PayloadCodec contentEncoding;
+        private int compressionThreshold = 0;
         private String contentType;
+        private DataFormat dataFormat;
         private String host;
+        private int maxConnections = 0;
+        private int maxConnectionsPerRoute = 0;
+        private long keepAlive = 0L;
+        private long idleTimeout = 0L;
+        private int validateAfterInactivity = 0;
+        private int maxInFlight = 0;
+        private Supplier<LimitAlgorithm> limitAlgorithm;
+        private RateLimiterOptions rateLimit;
+        private DescribedEntityCacheOptions describedEntities;
+        private RetryPolicy retryPolicy;
         private int socketTimeout = 0;
+        private boolean streaming = false;
+        private EnvelopeSpool spool;
 
         /**
          * Constructor
@@ -133,6 +346,24 @@ public class HttpClientOptions implements CaliperClientOptions {
             return this;
         }
 
+        /**
+         * @param contentEncoding
+         * @return builder
+         */
+        public OptionsBuilder contentEncoding(final PayloadCodec contentEncoding) {
+            this.contentEncoding = contentEncoding;
+            return this;
+        }
+
+        /**
+         * @param compressionThreshold
+         * @return builder
+         */
+        public OptionsBuilder compressionThreshold(final int compressionThreshold) {
+            this.compressionThreshold = compressionThreshold;
+            return this;
+        }
+
         /**
          * @param contentType
          * @return builder
@@ -142,6 +373,17 @@ public class HttpClientOptions implements CaliperClientOptions {
             return this;
         }
 
+        /**
+         * @param dataFormat
+         * @return builder
+         * @throws IllegalArgumentException if the format has no serializer
+         */
+        public OptionsBuilder dataFormat(final DataFormat dataFormat) {
+            SensorValidator.chkDataFormat(dataFormat);
+            this.dataFormat = dataFormat;
+            return this;
+        }
+
         /**
          * @param host
          * @return builder
@@ -151,6 +393,96 @@ public class HttpClientOptions implements CaliperClientOptions {
             return this;
         }
 
+        /**
+         * @param maxConnections
+         * @return builder
+         */
+        public OptionsBuilder maxConnections(final int maxConnections) {
+            this.maxConnections = maxConnections;
+            return this;
+        }
+
+        /**
+         * @param maxConnectionsPerRoute
+         * @return builder
+         */
+        public OptionsBuilder maxConnectionsPerRoute(final int maxConnectionsPerRoute) {
+            this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+            return this;
+        }
+
+        /**
+         * @param keepAlive
+         * @return builder
+         */
+        public OptionsBuilder keepAlive(final long keepAlive) {
+            this.keepAlive = keepAlive;
+            return this;
+        }
+
+        /**
+         * @param idleTimeout
+         * @return builder
+         */
+        public OptionsBuilder idleTimeout(final long idleTimeout) {
+            this.idleTimeout = idleTimeout;
+            return this;
+        }
+
+        /**
+         * @param validateAfterInactivity
+         * @return builder
+         */
+        public OptionsBuilder validateAfterInactivity(final int validateAfterInactivity) {
+            this.validateAfterInactivity = validateAfterInactivity;
+            return this;
+        }
+
+        /**
+         * @param maxInFlight
+         * @return builder
+         */
+        public OptionsBuilder maxInFlight(final int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /**
+         * @param limitAlgorithm factory called once per client, e.g. AimdLimit.builder()::build
+         * @return builder
+         */
+        public OptionsBuilder limitAlgorithm(final Supplier<LimitAlgorithm> limitAlgorithm) {
+            this.limitAlgorithm = limitAlgorithm;
+            return this;
+        }
+
+        /**
+         * @param rateLimit
+         * @return builder
+         */
+        public OptionsBuilder rateLimit(final RateLimiterOptions rateLimit) {
+            this.rateLimit = rateLimit;
+            return this;
+        }
+
+        /**
+         * @param describedEntities
+         * @return builder
+         */
+        public OptionsBuilder describedEntities(final DescribedEntityCacheOptions describedEntities) {
+            this.describedEntities = describedEntities;
+            return this;
+        }
+
+        /**
+         * @param retryPolicy
+         * @return builder
+         */
+        public OptionsBuilder retryPolicy(final RetryPolicy retryPolicy) {
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
         /**
          * @param socketTimeout
          * @return builder
@@ -160,6 +492,24 @@ public class HttpClientOptions implements CaliperClientOptions {
             return this;
         }
 
+        /**
+         * @param streaming
+         * @return builder
+         */
+        public OptionsBuilder streaming(final boolean streaming) {
+            this.streaming = streaming;
+            return this;
+        }
+
+        /**
+         * @param spool
+         * @return builder
+         */
+        public OptionsBuilder spool(final EnvelopeSpool spool) {
+            this.spool = spool;
+            return this;
+        }
+
         /**
          * Client invokes build method in order to create an immutable object.
          * @return a new instance of Options.
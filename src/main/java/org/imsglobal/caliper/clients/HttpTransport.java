@@ -0,0 +1,241 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.clients;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.http.HttpResponse;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+import org.imsglobal.caliper.statistics.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-client HTTP transport runtime.  Owns a blocking and a non-blocking engine, each backed by a
+ * connection pool sized from the client options.  The non-blocking engine is started on first use,
+ * so that a client that only sends blocking starts no I/O reactor, and its threads are daemons.  Pooled connections are kept alive for at most
+ * the configured keep-alive period, validated after a period of inactivity and evicted once idle.
+ * A shared housekeeping thread performs eviction and records pool lease/available/pending counts
+ * in the client's statistics.
+ */
+public class HttpTransport implements Closeable {
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final PoolingNHttpClientConnectionManager asyncConnectionManager;
+    private final CloseableHttpClient httpClient;
+    private final CloseableHttpAsyncClient httpAsyncClient;
+    private final ScheduledFuture<?> housekeeping;
+    private volatile boolean asyncStarted;
+    private boolean closed;
+    private final long idleTimeout;
+    private final Statistics statistics;
+
+    /**
+     * Upper bound in milliseconds between housekeeping runs.
+     */
+    private static final long HOUSEKEEPING_INTERVAL = 5000L;
+
+    private static final ScheduledExecutorService housekeeper = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setNameFormat("caliper-http-housekeeping-%d").setDaemon(true).build());
+
+    private static final Logger log = LoggerFactory.getLogger(HttpTransport.class);
+
+    /**
+     * Constructor.  Scope is private to force use of the static factory method.
+     * @param options
+     * @param statistics
+     */
+    private HttpTransport(HttpClientOptions options, Statistics statistics) {
+        this.idleTimeout = options.getIdleTimeout();
+        this.statistics = statistics;
+
+        ConnectionKeepAliveStrategy keepAliveStrategy = keepAliveStrategy(options.getKeepAlive());
+
+        this.connectionManager = new PoolingHttpClientConnectionManager();
+        this.connectionManager.setMaxTotal(options.getMaxConnections());
+        this.connectionManager.setDefaultMaxPerRoute(options.getMaxConnectionsPerRoute());
+        this.connectionManager.setValidateAfterInactivity(options.getValidateAfterInactivity());
+
+        this.httpClient = HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setKeepAliveStrategy(keepAliveStrategy)
+            .build();
+
+        try {
+            this.asyncConnectionManager = new PoolingNHttpClientConnectionManager(
+                new DefaultConnectingIOReactor(IOReactorConfig.custom()
+                    .setConnectTimeout(options.getConnTimeout())
+                    .setSoTimeout(options.getSocketTimeout())
+                    .build(), daemonThreads("caliper-http-dispatcher-%d")));
+        } catch (IOReactorException e) {
+            throw new IllegalStateException("Unable to start non-blocking HTTP engine.", e);
+        }
+        this.asyncConnectionManager.setMaxTotal(options.getMaxConnections());
+        this.asyncConnectionManager.setDefaultMaxPerRoute(options.getMaxConnectionsPerRoute());
+
+        this.httpAsyncClient = HttpAsyncClients.custom()
+            .setConnectionManager(asyncConnectionManager)
+            .setKeepAliveStrategy(keepAliveStrategy)
+            .setThreadFactory(daemonThreads("caliper-http-reactor-%d"))
+            .build();
+
+        long interval = Math.min(HOUSEKEEPING_INTERVAL, Math.max(idleTimeout / 2, 1L));
+        this.housekeeping = housekeeper.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                housekeep();
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param nameFormat
+     * @return factory of named daemon threads
+     */
+    private static ThreadFactory daemonThreads(String nameFormat) {
+        return new ThreadFactoryBuilder().setNameFormat(nameFormat).setDaemon(true).build();
+    }
+
+    /**
+     * Honor a server-advertised Keep-Alive timeout up to the configured maximum.
+     * @param keepAlive
+     * @return strategy
+     */
+    private static ConnectionKeepAliveStrategy keepAliveStrategy(final long keepAlive) {
+        return new ConnectionKeepAliveStrategy() {
+            @Override
+            public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+                long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                return (duration > 0) ? Math.min(duration, keepAlive) : keepAlive;
+            }
+        };
+    }
+
+    /**
+     * Get the blocking engine.
+     * @return http client
+     */
+    public CloseableHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    /**
+     * Get the non-blocking engine, starting it on first use.
+     * @return http async client
+     */
+    public CloseableHttpAsyncClient getHttpAsyncClient() {
+        if (!asyncStarted) {
+            synchronized (this) {
+                if (!asyncStarted && !closed) {
+                    httpAsyncClient.start();
+                    asyncStarted = true;
+                }
+            }
+        }
+        return httpAsyncClient;
+    }
+
+    /**
+     * @return true once the non-blocking engine has been started
+     */
+    boolean isAsyncStarted() {
+        return asyncStarted;
+    }
+
+    /**
+     * Get the blocking engine's pool totals.
+     * @return pool stats
+     */
+    public PoolStats getPoolStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    /**
+     * Get the non-blocking engine's pool totals.
+     * @return pool stats
+     */
+    public PoolStats getAsyncPoolStats() {
+        return asyncConnectionManager.getTotalStats();
+    }
+
+    /**
+     * Evict expired and idle connections, then record pool counts.
+     */
+    void housekeep() {
+        connectionManager.closeExpiredConnections();
+        connectionManager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+        asyncConnectionManager.closeExpiredConnections();
+        asyncConnectionManager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+
+        PoolStats blocking = getPoolStats();
+        PoolStats nonBlocking = getAsyncPoolStats();
+        statistics.updatePoolLeased(blocking.getLeased() + nonBlocking.getLeased());
+        statistics.updatePoolAvailable(blocking.getAvailable() + nonBlocking.getAvailable());
+        statistics.updatePoolPending(blocking.getPending() + nonBlocking.getPending());
+    }
+
+    /**
+     * Stop housekeeping and shut down both engines and their pools.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        housekeeping.cancel(false);
+        try {
+            httpClient.close();
+        } catch (IOException e) {
+            log.warn("Error closing HTTP engine", e);
+        }
+        try {
+            httpAsyncClient.close();
+        } catch (IOException e) {
+            log.warn("Error closing non-blocking HTTP engine", e);
+        }
+    }
+
+    /**
+     * Factory method.
+     * @param options
+     * @param statistics
+     * @return transport
+     */
+    public static HttpTransport create(HttpClientOptions options, Statistics statistics) {
+        return new HttpTransport(options, statistics);
+    }
+}
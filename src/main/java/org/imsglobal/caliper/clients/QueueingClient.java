@@ -0,0 +1,403 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.clients;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.imsglobal.caliper.Envelope;
+import org.imsglobal.caliper.config.DataFormat;
+import org.imsglobal.caliper.spool.SpoolDrainer;
+import org.imsglobal.caliper.statistics.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decorates a Client with a bounded send queue.  Callers enqueue Envelopes and return; a single
+ * drainer thread hands queued Envelopes to the delegate's sendAsync, keeping at most maxConcurrency
+ * of them outstanding.  When the queue is full the configured OverflowPolicy decides whether the
+ * caller blocks, an Envelope is dropped or the Envelope is spilled to disk.  Queue depth, drop and
+ * spill counts are recorded in the delegate's statistics.  Closing the client flushes the queue
+ * until the timeout, then spills whatever is still queued, or drops it if no spool is configured.
+ * Spilled Envelopes are replayed through the delegate by the spool's SpoolDrainer.
+ */
+public class QueueingClient implements CaliperClient {
+    private final CaliperClient delegate;
+    private final QueueingClientOptions options;
+    private final BlockingQueue<Pending> queue;
+    private final Semaphore permits;
+    private final Thread drainer;
+    private final SpoolDrainer replayer;
+    private final SendTracker tracker = new SendTracker();
+    private volatile boolean closed;
+
+    private static final Logger log = LoggerFactory.getLogger(QueueingClient.class);
+
+    /**
+     * A queued Envelope and the future completed once it has been sent or discarded.
+     */
+    private static class Pending {
+        private final Envelope envelope;
+        private final CompletableFuture<SendResult> future = new CompletableFuture<>();
+
+        private Pending(Envelope envelope) {
+            this.envelope = envelope;
+        }
+    }
+
+    /**
+     * Constructor.  Scope is private to force use of the static factory method.
+     * @param delegate
+     * @param options
+     */
+    private QueueingClient(CaliperClient delegate, QueueingClientOptions options) {
+        this.delegate = delegate;
+        this.options = options;
+        this.queue = new ArrayBlockingQueue<>(options.getCapacity());
+        this.permits = new Semaphore(options.getMaxConcurrency());
+        this.drainer = new ThreadFactoryBuilder()
+            .setNameFormat("caliper-queue-" + delegate.getId() + "-%d")
+            .setDaemon(true)
+            .build()
+            .newThread(new Runnable() {
+                @Override
+                public void run() {
+                    drain();
+                }
+            });
+        this.drainer.start();
+        this.replayer = (options.getSpool() != null) ? SpoolDrainer.attachDelegate(options.getSpool(), delegate) : null;
+    }
+
+    /**
+     * Get identifier of the delegate.
+     * @return id
+     */
+    @Nonnull
+    public String getId() {
+        return delegate.getId();
+    }
+
+    /**
+     * Get the data format of the delegate.
+     * @return data format
+     */
+    @Override
+    public DataFormat getDataFormat() {
+        return delegate.getDataFormat();
+    }
+
+    /**
+     * Retrieve queueing options.
+     * @return options
+     */
+    public QueueingClientOptions getOptions() {
+        return options;
+    }
+
+    /**
+     * Get the drainer this client attached to its spool.
+     * @return drainer, or null if no spool is configured or the spool already had a drainer
+     */
+    public SpoolDrainer getDrainer() {
+        return replayer;
+    }
+
+    /**
+     * Get the delegate's statistics, to which queue statistics are also recorded.
+     * @return statistics
+     */
+    @Nonnull
+    public Statistics getStatistics() {
+        return delegate.getStatistics();
+    }
+
+    /**
+     * Get the decorated client.
+     * @return delegate
+     */
+    public CaliperClient getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Get the number of queued Envelopes.
+     * @return depth
+     */
+    public int getDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Enqueue the Envelope, applying the overflow policy if the queue is full.
+     * @param envelope
+     */
+    @Override
+    public void send(Envelope envelope) {
+        enqueue(track(new Pending(envelope)));
+    }
+
+    /**
+     * Enqueue the Envelope, applying the overflow policy if the queue is full.
+     * @param envelope
+     * @return future that completes once the Envelope is sent, dropped or spilled
+     */
+    @Override
+    public CompletableFuture<SendResult> sendAsync(Envelope envelope) {
+        Pending pending = track(new Pending(envelope));
+        enqueue(pending);
+        return pending.future;
+    }
+
+    /**
+     * Enqueue the Envelope without blocking and without applying the overflow policy.
+     * @param envelope
+     * @return false if the queue is full or the client is closed
+     */
+    @Override
+    public boolean offer(Envelope envelope) {
+        Pending pending = new Pending(envelope);
+        if (closed || !queue.offer(pending)) {
+            return false;
+        }
+        if (closed && queue.remove(pending)) {
+            return false;
+        }
+        track(pending);
+        recordDepth();
+        return true;
+    }
+
+    /**
+     * Wait until the timeout for the queue to empty and the Envelopes taken from it to be sent,
+     * then for the delegate's own in-flight sends.
+     * @param timeout
+     * @return what became of the events queued or in flight
+     */
+    @Override
+    public FlushResult flush(Duration timeout) {
+        long deadline = System.currentTimeMillis() + timeout.toMillis();
+        FlushResult start = tracker.totals();
+        tracker.awaitIdle(deadline);
+        delegate.flush(SendTracker.remaining(deadline));
+        return tracker.totals().since(start);
+    }
+
+    /**
+     * Flush until the timeout, stop the drainer, spill or drop whatever is still queued, then close
+     * the delegate.
+     * @param timeout
+     * @return what became of the events queued or in flight
+     */
+    @Override
+    public FlushResult close(Duration timeout) {
+        long deadline = System.currentTimeMillis() + timeout.toMillis();
+        FlushResult start = tracker.totals();
+        tracker.awaitIdle(deadline);
+
+        closed = true;
+        drainer.interrupt();
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+            abandon(pending);
+        }
+        recordDepth();
+        if (replayer != null) {
+            replayer.stop();
+        }
+
+        delegate.close(SendTracker.remaining(deadline));
+        tracker.awaitIdle(System.currentTimeMillis() + SendTracker.ABORT_TIMEOUT);
+        return tracker.totals().since(start).abandon();
+    }
+
+    /**
+     * Count a queued Envelope's events until its future completes.
+     * @param pending
+     * @return pending
+     */
+    private Pending track(final Pending pending) {
+        tracker.track(pending.envelope.getData().size(), () -> pending.future);
+        return pending;
+    }
+
+    /**
+     * Apply the overflow policy.  An Envelope queued while close empties the queue, including one
+     * a blocked put inserts once close makes room, is abandoned here if close did not take it:
+     * close sets closed before draining, and an insert checks closed after, so the two cannot both
+     * miss it.
+     * @param pending
+     */
+    private void enqueue(Pending pending) {
+        if (closed) {
+            abandon(pending);
+            return;
+        }
+        try {
+            switch (options.getOverflowPolicy()) {
+                case BLOCK:
+                    queue.put(pending);
+                    break;
+                case BLOCK_WITH_TIMEOUT:
+                    if (!queue.offer(pending, options.getOfferTimeout(), TimeUnit.MILLISECONDS)) {
+                        drop(pending);
+                    }
+                    break;
+                case DROP_OLDEST:
+                    while (!queue.offer(pending)) {
+                        Pending oldest = queue.poll();
+                        if (oldest != null) {
+                            drop(oldest);
+                        }
+                    }
+                    break;
+                case SPILL_TO_DISK:
+                    if (!queue.offer(pending)) {
+                        spill(pending);
+                    }
+                    break;
+                case DROP_NEWEST:
+                default:
+                    if (!queue.offer(pending)) {
+                        drop(pending);
+                    }
+                    break;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            drop(pending);
+        }
+        if (closed && queue.remove(pending)) {
+            abandon(pending);
+        }
+        recordDepth();
+    }
+
+    /**
+     * Discard an Envelope.
+     * @param pending
+     */
+    private void drop(Pending pending) {
+        getStatistics().updateDropped(1);
+        pending.future.complete(SendResult.failure(getId(), 0, 0L,
+            new RejectedExecutionException("Send queue full; envelope dropped.")));
+    }
+
+    /**
+     * Hand an Envelope to the spool, dropping it if the spool refuses.
+     * @param pending
+     */
+    private void spill(Pending pending) {
+        if (options.getSpool().append(pending.envelope, delegate.getDataFormat())) {
+            getStatistics().updateSpilled(1);
+            pending.future.complete(SendResult.failure(getId(), 0, 0L,
+                new RejectedExecutionException("Send queue full; envelope spilled to disk.")).asSpooled());
+        } else {
+            drop(pending);
+        }
+    }
+
+    /**
+     * Dispose of an Envelope left behind by close, spilling it if a spool is configured.
+     * @param pending
+     */
+    private void abandon(Pending pending) {
+        if (options.getSpool() != null && options.getSpool().append(pending.envelope, delegate.getDataFormat())) {
+            getStatistics().updateSpilled(1);
+            pending.future.complete(SendResult.failure(getId(), 0, 0L,
+                new RejectedExecutionException("Client closed; envelope spilled to disk.")).asSpooled());
+        } else {
+            getStatistics().updateDropped(1);
+            pending.future.complete(SendResult.failure(getId(), 0, 0L,
+                new RejectedExecutionException("Client closed; envelope dropped.")));
+        }
+    }
+
+    /**
+     * Record the current queue depth.
+     */
+    private void recordDepth() {
+        getStatistics().updateQueueDepth(queue.size());
+    }
+
+    /**
+     * Drainer loop.  Waits for a concurrency permit before taking the next Envelope so that
+     * queued Envelopes remain visible to the overflow policy.
+     */
+    private void drain() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                permits.acquire();
+                final Pending pending;
+                try {
+                    pending = queue.take();
+                } catch (InterruptedException e) {
+                    permits.release();
+                    throw e;
+                }
+                recordDepth();
+                dispatch(pending);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Hand an Envelope to the delegate and release its permit on completion.
+     * @param pending
+     */
+    private void dispatch(final Pending pending) {
+        CompletableFuture<SendResult> sent;
+        try {
+            sent = delegate.sendAsync(pending.envelope);
+        } catch (RuntimeException e) {
+            log.warn("Queued send failed for client " + getId(), e);
+            permits.release();
+            pending.future.complete(SendResult.failure(getId(), 0, 0L, e));
+            return;
+        }
+
+        sent.whenComplete((result, error) -> {
+            permits.release();
+            if (error != null) {
+                pending.future.complete(SendResult.failure(getId(), 0, 0L, error));
+            } else {
+                pending.future.complete(result);
+            }
+        });
+    }
+
+    /**
+     * Factory method for decorating a client with a bounded send queue.
+     * @param delegate
+     * @param options
+     * @return QueueingClient
+     */
+    public static QueueingClient create(CaliperClient delegate, QueueingClientOptions options) {
+        return new QueueingClient(delegate, options);
+    }
+}
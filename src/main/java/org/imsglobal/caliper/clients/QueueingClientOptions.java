@@ -0,0 +1,179 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.clients;
+
+import org.imsglobal.caliper.config.OverflowPolicy;
+import org.imsglobal.caliper.spool.EnvelopeSpool;
+import org.imsglobal.caliper.validators.SensorValidator;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Queueing client options.
+ */
+public class QueueingClientOptions implements CaliperClientOptions {
+    private final int capacity;
+    private final int maxConcurrency;
+    private final OverflowPolicy overflowPolicy;
+    private final long offerTimeout;
+    private final EnvelopeSpool spool;
+
+    /**
+     * Default queue settings.
+     */
+    public static final int CAPACITY = 10000;
+    public static final int MAX_CONCURRENCY = 64;
+    public static final OverflowPolicy OVERFLOW_POLICY = OverflowPolicy.DROP_NEWEST;
+    public static final long OFFER_TIMEOUT = 1000L;
+
+    /**
+     * Constructor
+     * @param builder
+     */
+    private QueueingClientOptions(OptionsBuilder builder) {
+        this.capacity = SensorValidator.chkPositiveIntValue(builder.capacity, CAPACITY);
+        this.maxConcurrency = SensorValidator.chkPositiveIntValue(builder.maxConcurrency, MAX_CONCURRENCY);
+        this.overflowPolicy = (builder.overflowPolicy != null) ? builder.overflowPolicy : OVERFLOW_POLICY;
+        this.offerTimeout = (builder.offerTimeout > 0L) ? builder.offerTimeout : OFFER_TIMEOUT;
+        this.spool = builder.spool;
+
+        checkArgument(overflowPolicy != OverflowPolicy.SPILL_TO_DISK || spool != null,
+            "A spool must be specified when the overflow policy is SPILL_TO_DISK.");
+    }
+
+    /**
+     * Get the maximum number of queued Envelopes.
+     * @return capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Get the maximum number of dequeued Envelopes awaiting the delegate.
+     * @return max concurrency
+     */
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Get the behaviour applied when the queue is full.
+     * @return overflow policy
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * Get the time in milliseconds BLOCK_WITH_TIMEOUT waits for space.
+     * @return offer timeout
+     */
+    public long getOfferTimeout() {
+        return offerTimeout;
+    }
+
+    /**
+     * Get the spool used by SPILL_TO_DISK and by close.  Unless the spool already has a drainer,
+     * the QueueingClient attaches one that replays through the delegate.
+     * @return spool
+     */
+    public EnvelopeSpool getSpool() {
+        return spool;
+    }
+
+    /**
+     * Builder class provides a fluid interface for setting options properties.
+     */
+    public static class OptionsBuilder {
+        private int capacity = 0;
+        private int maxConcurrency = 0;
+        private OverflowPolicy overflowPolicy;
+        private long offerTimeout = 0L;
+        private EnvelopeSpool spool;
+
+        /**
+         * Constructor
+         */
+        public OptionsBuilder() {
+
+        }
+
+        /**
+         * @param capacity
+         * @return builder
+         */
+        public OptionsBuilder capacity(final int capacity) {
+            this.capacity = capacity;
+            return this;
+        }
+
+        /**
+         * @param maxConcurrency
+         * @return builder
+         */
+        public OptionsBuilder maxConcurrency(final int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+            return this;
+        }
+
+        /**
+         * @param overflowPolicy
+         * @return builder
+         */
+        public OptionsBuilder overflowPolicy(final OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+            return this;
+        }
+
+        /**
+         * @param offerTimeout
+         * @return builder
+         */
+        public OptionsBuilder offerTimeout(final long offerTimeout) {
+            this.offerTimeout = offerTimeout;
+            return this;
+        }
+
+        /**
+         * @param spool
+         * @return builder
+         */
+        public OptionsBuilder spool(final EnvelopeSpool spool) {
+            this.spool = spool;
+            return this;
+        }
+
+        /**
+         * Client invokes build method in order to create an immutable object.
+         * @return a new instance of Options.
+         */
+        public QueueingClientOptions build() {
+            return new QueueingClientOptions(this);
+        }
+    }
+
+    /**
+     * Static Factory method.
+     * @return new builder instance
+     */
+    public static OptionsBuilder builder() {
+        return new OptionsBuilder();
+    }
+}
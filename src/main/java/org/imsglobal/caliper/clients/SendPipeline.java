@@ -0,0 +1,265 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.imsglobal.caliper.clients;
+
+import org.imsglobal.caliper.Envelope;
+import org.imsglobal.caliper.codec.EncodedPayload;
+import org.imsglobal.caliper.limit.ConcurrencyLimiter;
+import org.imsglobal.caliper.limit.RateLimiter;
+import org.imsglobal.caliper.retry.Retrier;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * The non-blocking send path shared by the HTTP transports.  Applies the client's rate and
+ * concurrency limits, serializes the envelope, retries according to the configured RetryPolicy,
+ * then releases the in-flight permit, updates statistics and spools a retryable failure.  The
+ * transport supplies only a single attempt.
+ */
+final class SendPipeline {
+    private final AbstractClient client;
+    private final Attempt attempt;
+    private final String inFlight;
+    private final ConcurrencyLimiter limiter;
+    private final RateLimiter rateLimiter;
+
+    /**
+     * A single non-blocking attempt to post a payload.
+     */
+    interface Attempt {
+        /**
+         * @param payload
+         * @param start time the send started
+         * @return future result
+         */
+        CompletableFuture<SendResult> attempt(EncodedPayload payload, long start);
+    }
+
+    /**
+     * Produces the payload for a send; may fail to serialize or encode.
+     */
+    private interface Encoder {
+        EncodedPayload encode() throws IOException;
+    }
+
+    /**
+     * Constructor
+     * @param client
+     * @param attempt
+     * @param inFlight describes the sends in flight when rejecting, e.g. "sends in flight"
+     */
+    private SendPipeline(AbstractClient client, Attempt attempt, String inFlight) {
+        HttpClientOptions options = client.getOptions();
+        this.client = client;
+        this.attempt = attempt;
+        this.inFlight = inFlight;
+        this.limiter = ConcurrencyLimiter.create(options.getLimitAlgorithm().get(), client.getStatistics());
+        this.rateLimiter = (options.getRateLimit() != null)
+            ? RateLimiter.create(options.getRateLimit(), client.getStatistics()) : null;
+    }
+
+    /**
+     * Get the limiter bounding concurrent sends.
+     * @return limiter
+     */
+    ConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+
+    /**
+     * Get the limiter applying the configured rate limits, if any.
+     * @return rate limiter
+     */
+    RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * Wait until the rate and concurrency limits allow, then start the send.
+     * @param envelope
+     * @return future send result
+     */
+    CompletableFuture<SendResult> send(Envelope envelope) {
+        acquire(envelope);
+        return client.track(envelope, () -> execute(() -> client.encode(envelope), true));
+    }
+
+    /**
+     * Wait until the rate and concurrency limits allow, then start the send of an envelope the
+     * Sensor serialized.
+     * @param envelope
+     * @return future send result
+     */
+    CompletableFuture<SendResult> send(SerializedEnvelope envelope) {
+        acquire(envelope.getEnvelope());
+        return client.track(envelope.getEnvelope(), () -> execute(() -> client.encode(envelope), true));
+    }
+
+    /**
+     * Start the send if an in-flight permit is free, deferring it by up to the rate limits' maxDelay.
+     * @param envelope
+     * @return future send result
+     */
+    CompletableFuture<SendResult> sendAsync(Envelope envelope) {
+        if (!limiter.tryAcquire()) {
+            return rejected();
+        }
+        return client.track(envelope, () -> throttle(envelope, () -> execute(() -> client.encode(envelope), true)));
+    }
+
+    /**
+     * Start the send of an envelope the Sensor serialized if an in-flight permit is free.
+     * @param envelope
+     * @return future send result
+     */
+    CompletableFuture<SendResult> sendAsync(SerializedEnvelope envelope) {
+        if (!limiter.tryAcquire()) {
+            return rejected();
+        }
+        return client.track(envelope.getEnvelope(), () -> throttle(envelope.getEnvelope(),
+            () -> execute(() -> client.encode(envelope), true)));
+    }
+
+    /**
+     * Start the send if an in-flight permit is free and the rate limits allow it now.
+     * @param envelope
+     * @return false if the concurrency limit has been reached or the rate limit is exceeded
+     */
+    boolean offer(Envelope envelope) {
+        if (!limiter.tryAcquire()) {
+            return false;
+        }
+        if (rateLimiter != null && !rateLimiter.tryAcquire(envelope)) {
+            limiter.release();
+            return false;
+        }
+
+        client.track(envelope, () -> execute(() -> client.encode(envelope), true));
+        return true;
+    }
+
+    /**
+     * Start the send of a serialized envelope if an in-flight permit is free.  Failures are not
+     * spooled, since the payload is typically being replayed from the spool.
+     * @param payload
+     * @return future send result
+     */
+    CompletableFuture<SendResult> sendPayloadAsync(byte[] payload) {
+        if (!limiter.tryAcquire()) {
+            return rejected();
+        }
+        return client.track(null, () -> throttle(null, () -> execute(() -> client.encode(payload), false)));
+    }
+
+    /**
+     * Block until the rate and concurrency limits allow a send.
+     * @param envelope
+     */
+    private void acquire(Envelope envelope) {
+        if (rateLimiter != null) {
+            rateLimiter.acquire(envelope);
+        }
+        limiter.acquire();
+    }
+
+    /**
+     * Start a send once the rate limits allow, deferring it by up to the limits' maxDelay.  Caller
+     * must hold an in-flight permit, which is released if the send is rejected instead; a rejected
+     * envelope is spooled if a spool is configured.
+     * @param envelope the envelope, or null for a payload replayed from the spool
+     * @param send
+     * @return future send result
+     */
+    private CompletableFuture<SendResult> throttle(@Nullable Envelope envelope,
+                                                   Supplier<CompletableFuture<SendResult>> send) {
+        long delay = (rateLimiter != null) ? rateLimiter.reserve(envelope) : 0L;
+        if (delay == 0L) {
+            return send.get();
+        } else if (delay > 0L) {
+            return RateLimiter.schedule(send, delay);
+        }
+
+        limiter.release();
+        client.updateStatistics(Boolean.FALSE);
+        SendResult result = SendResult.failure(client.getId(), 0, 0L,
+            new RejectedExecutionException(client.getId() + " exceeded its rate limit."));
+        return CompletableFuture.completedFuture(
+            (envelope != null && client.spool(envelope)) ? result.asSpooled() : result);
+    }
+
+    /**
+     * Reject a send because the concurrency limit has been reached.
+     * @return completed future send result
+     */
+    private CompletableFuture<SendResult> rejected() {
+        client.updateStatistics(Boolean.FALSE);
+        return CompletableFuture.completedFuture(SendResult.failure(client.getId(), 0, 0L,
+            new RejectedExecutionException(client.getId() + " has " + limiter.getLimit() + " " + inFlight + ".")));
+    }
+
+    /**
+     * Encode the payload and post it, retrying according to the configured RetryPolicy.  Caller
+     * must hold an in-flight permit, which is released once the final attempt completes, or at once
+     * if the payload cannot be encoded.
+     * @param encoder
+     * @param spoolOnFailure
+     * @return future send result
+     */
+    private CompletableFuture<SendResult> execute(Encoder encoder, final boolean spoolOnFailure) {
+        final long start = System.currentTimeMillis();
+        final EncodedPayload payload;
+        try {
+            payload = encoder.encode();
+        } catch (IOException | RuntimeException e) {
+            limiter.release();
+            client.updateStatistics(Boolean.FALSE);
+            return CompletableFuture.completedFuture(
+                SendResult.failure(client.getId(), 0, System.currentTimeMillis() - start, e));
+        }
+
+        return Retrier.run(client.getOptions().getRetryPolicy(), () -> attempt.attempt(payload, start),
+            client.getStatistics())
+            .thenApply(result -> {
+                limiter.release(result);
+                client.updateStatistics(result.isSuccessful());
+                client.updateStatistics(payload);
+                if (result.isSuccessful()) {
+                    payload.accepted();
+                }
+                boolean spooled = !result.isSuccessful() && spoolOnFailure && result.isRetryable()
+                    && client.spool(payload);
+                payload.release();
+                return spooled ? result.asSpooled() : result;
+            });
+    }
+
+    /**
+     * Factory method.
+     * @param client
+     * @param attempt
+     * @param inFlight describes the sends in flight when rejecting, e.g. "sends in flight"
+     * @return pipeline
+     */
+    static SendPipeline create(AbstractClient client, Attempt attempt, String inFlight) {
+        return new SendPipeline(client, attempt, inFlight);
+    }
+}
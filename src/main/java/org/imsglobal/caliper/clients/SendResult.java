@@ -0,0 +1,263 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.clients;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.apache.http.client.utils.DateUtils;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Date;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Immutable outcome of a single Envelope transmission by a Client.
+ */
+public class SendResult {
+    private final String clientId;
+    private final boolean successful;
+    private final int statusCode;
+    private final long latency;
+    private final Throwable error;
+    private final long retryAfter;
+    private final int attempts;
+    private final boolean spooled;
+
+    /**
+     * Constructor.  Scope is private to force use of the static factory methods.
+     * @param clientId
+     * @param successful
+     * @param statusCode
+     * @param latency
+     * @param error
+     * @param retryAfter
+     * @param attempts
+     * @param spooled
+     */
+    private SendResult(String clientId, boolean successful, int statusCode, long latency, Throwable error,
+                       long retryAfter, int attempts, boolean spooled) {
+        this.clientId = clientId;
+        this.successful = successful;
+        this.statusCode = statusCode;
+        this.latency = latency;
+        this.error = error;
+        this.retryAfter = retryAfter;
+        this.attempts = attempts;
+        this.spooled = spooled;
+    }
+
+    /**
+     * Get the identifier of the Client that performed the send.
+     * @return client id
+     */
+    @Nonnull
+    public String getClientId() {
+        return clientId;
+    }
+
+    /**
+     * Was the Envelope accepted by the endpoint?
+     * @return successful
+     */
+    public boolean isSuccessful() {
+        return successful;
+    }
+
+    /**
+     * Get the HTTP status code; 0 if no response was received.
+     * @return status code
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Get the elapsed time in milliseconds between dispatch and completion.
+     * @return latency
+     */
+    public long getLatency() {
+        return latency;
+    }
+
+    /**
+     * Get the cause of failure, if any.
+     * @return error
+     */
+    @Nullable
+    public Throwable getError() {
+        return error;
+    }
+
+    /**
+     * Get the delay in milliseconds the endpoint asked for via Retry-After; -1 if none was given.
+     * @return retry after
+     */
+    public long getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * Get the number of attempts made, including retries.
+     * @return attempts
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * Copy this result with the number of attempts made.
+     * @param attempts
+     * @return SendResult
+     */
+    public SendResult withAttempts(int attempts) {
+        return new SendResult(clientId, successful, statusCode, latency, error, retryAfter, attempts, spooled);
+    }
+
+    /**
+     * Was the failed Envelope appended to a spool for later replay rather than lost?
+     * @return spooled
+     */
+    public boolean isSpooled() {
+        return spooled;
+    }
+
+    /**
+     * Copy this failed result, marking the Envelope as spooled.
+     * @return SendResult
+     */
+    public SendResult asSpooled() {
+        return new SendResult(clientId, successful, statusCode, latency, error, retryAfter, attempts, true);
+    }
+
+    /**
+     * Was the send refused by a local limit before reaching the endpoint: a full concurrency
+     * limiter, queue or bulkhead, the rate limit, or an open circuit?
+     * @return rejected
+     */
+    public boolean isRejected() {
+        return !successful && statusCode == 0 && causedBy(error, RejectedExecutionException.class);
+    }
+
+    /**
+     * Did the send fail without reaching the endpoint?  True when it was rejected locally, when the
+     * Envelope could not be serialized, when it was interrupted, or when it failed with no response
+     * for any reason other than I/O (e.g., an IllegalArgumentException or NullPointerException).
+     * Such a failure says nothing about the endpoint.
+     * @return local
+     */
+    public boolean isLocal() {
+        return isRejected() || (!successful && statusCode == 0 && (!causedBy(error, IOException.class)
+            || causedBy(error, JsonProcessingException.class) || causedBy(error, InterruptedException.class)));
+    }
+
+    /**
+     * Could a later attempt succeed?  True when the request failed on I/O with no response (e.g., a
+     * connect timeout or NoHttpResponseException) or the endpoint reported a transient condition
+     * (408, 429 or 5xx); false for local failures.
+     * @return retryable
+     */
+    public boolean isRetryable() {
+        return !successful && !isLocal() && isRetryable(statusCode);
+    }
+
+    /**
+     * Is the error, or any of its causes, of the given type?
+     * @param error
+     * @param type
+     * @return caused by
+     */
+    private static boolean causedBy(@Nullable Throwable error, Class<? extends Throwable> type) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (type.isInstance(cause)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Classify an HTTP status code; 0 denotes no response.
+     * @param statusCode
+     * @return retryable
+     */
+    public static boolean isRetryable(int statusCode) {
+        return statusCode == 0 || statusCode == 408 || statusCode == 429 || statusCode >= 500;
+    }
+
+    /**
+     * Parse a Retry-After header value, given either as delay-seconds or as an HTTP-date.
+     * @param value
+     * @return delay in milliseconds, or -1 if absent or malformed
+     */
+    public static long parseRetryAfter(@Nullable String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return -1L;
+        }
+        String trimmed = value.trim();
+        try {
+            return Math.max(0L, Long.parseLong(trimmed) * 1000L);
+        } catch (NumberFormatException e) {
+            Date date = DateUtils.parseDate(trimmed);
+            return (date != null) ? Math.max(0L, date.getTime() - System.currentTimeMillis()) : -1L;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SendResult{clientId=" + clientId + ", successful=" + successful + ", statusCode=" + statusCode
+            + ", latency=" + latency + ", attempts=" + attempts + (error != null ? ", error=" + error : "") + "}";
+    }
+
+    /**
+     * Factory method for a successful send.
+     * @param clientId
+     * @param statusCode
+     * @param latency
+     * @return SendResult
+     */
+    public static SendResult success(String clientId, int statusCode, long latency) {
+        return new SendResult(clientId, true, statusCode, latency, null, -1L, 1, false);
+    }
+
+    /**
+     * Factory method for a failed send.
+     * @param clientId
+     * @param statusCode
+     * @param latency
+     * @param error
+     * @return SendResult
+     */
+    public static SendResult failure(String clientId, int statusCode, long latency, Throwable error) {
+        return new SendResult(clientId, false, statusCode, latency, error, -1L, 1, false);
+    }
+
+    /**
+     * Factory method for a failed send that carried a Retry-After delay.
+     * @param clientId
+     * @param statusCode
+     * @param latency
+     * @param error
+     * @param retryAfter
+     * @return SendResult
+     */
+    public static SendResult failure(String clientId, int statusCode, long latency, Throwable error, long retryAfter) {
+        return new SendResult(clientId, false, statusCode, latency, error, retryAfter, 1, false);
+    }
+}
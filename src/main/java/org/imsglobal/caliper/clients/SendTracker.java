@@ -0,0 +1,131 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.clients;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Counts a Client's outstanding sends and tallies the events they carried by outcome, so that the
+ * Client can wait for its sends to complete and report what became of them.
+ */
+final class SendTracker {
+    /**
+     * How long close waits for sends aborted by a shutdown to report their outcome.
+     */
+    static final long ABORT_TIMEOUT = 1000L;
+
+    private int outstanding;
+    private long pendingEvents;
+    private long flushed;
+    private long spooled;
+    private long dropped;
+
+    /**
+     * Track a send from before it starts until its future completes.
+     * @param events number of events the send carries
+     * @param send
+     * @return the send's future
+     */
+    CompletableFuture<SendResult> track(final int events, Supplier<CompletableFuture<SendResult>> send) {
+        begin(events);
+        CompletableFuture<SendResult> future;
+        try {
+            future = send.get();
+        } catch (RuntimeException e) {
+            end(events, null);
+            throw e;
+        }
+        future.whenComplete((result, error) -> end(events, result));
+        return future;
+    }
+
+    /**
+     * Record the start of a send.
+     * @param events
+     */
+    synchronized void begin(int events) {
+        outstanding++;
+        pendingEvents += events;
+    }
+
+    /**
+     * Record the outcome of a send.  A send that failed without a result counts as dropped.
+     * @param events
+     * @param result
+     */
+    synchronized void end(int events, SendResult result) {
+        outstanding--;
+        pendingEvents -= events;
+        if (result != null && result.isSuccessful()) {
+            flushed += events;
+        } else if (result != null && result.isSpooled()) {
+            spooled += events;
+        } else {
+            dropped += events;
+        }
+        if (outstanding == 0) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Wait until no sends are outstanding.
+     * @param deadline System.currentTimeMillis() by which to give up
+     * @return true if idle
+     */
+    synchronized boolean awaitIdle(long deadline) {
+        long remaining;
+        while (outstanding > 0 && (remaining = deadline - System.currentTimeMillis()) > 0L) {
+            try {
+                wait(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return outstanding == 0;
+    }
+
+    /**
+     * Get the number of outstanding sends.
+     * @return outstanding
+     */
+    synchronized int getOutstanding() {
+        return outstanding;
+    }
+
+    /**
+     * Get cumulative counts, with the events currently outstanding as pending.
+     * @return totals
+     */
+    synchronized FlushResult totals() {
+        return FlushResult.create(flushed, spooled, dropped, pendingEvents);
+    }
+
+    /**
+     * Time left until a deadline.
+     * @param deadline System.currentTimeMillis() value
+     * @return remaining time, never negative
+     */
+    static Duration remaining(long deadline) {
+        return Duration.ofMillis(Math.max(0L, deadline - System.currentTimeMillis()));
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.clients;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.imsglobal.caliper.Envelope;
+import org.imsglobal.caliper.config.DataFormat;
+import org.imsglobal.caliper.databind.CaliperSerializer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An Envelope serialized once so that the same bytes can be handed to every Client sharing its
+ * DataFormat.  The bytes are never exposed for writing, so a single instance may be sent by
+ * several Clients concurrently.
+ */
+public final class SerializedEnvelope {
+    private final Envelope envelope;
+    private final DataFormat dataFormat;
+    private final byte[] bytes;
+
+    /**
+     * Constructor
+     * @param envelope
+     * @param dataFormat
+     * @param bytes
+     */
+    private SerializedEnvelope(Envelope envelope, DataFormat dataFormat, byte[] bytes) {
+        this.envelope = envelope;
+        this.dataFormat = dataFormat;
+        this.bytes = bytes;
+    }
+
+    /**
+     * Get the source Envelope.
+     * @return envelope
+     */
+    public Envelope getEnvelope() {
+        return envelope;
+    }
+
+    /**
+     * Get the data format the Envelope was serialized in.
+     * @return dataFormat
+     */
+    public DataFormat getDataFormat() {
+        return dataFormat;
+    }
+
+    /**
+     * @return the serialized length in bytes.
+     */
+    public int size() {
+        return bytes.length;
+    }
+
+    /**
+     * @return a read-only view of the serialized bytes.
+     */
+    public ByteBuffer asByteBuffer() {
+        return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+    }
+
+    /**
+     * Copy the serialized bytes to a stream.
+     * @param out
+     * @throws IOException
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(bytes);
+    }
+
+    /**
+     * Shared backing array.  Callers in this package must not modify it.
+     * @return bytes
+     */
+    byte[] bytes() {
+        return bytes;
+    }
+
+    /**
+     * Serialize an Envelope.
+     * @param envelope
+     * @param dataFormat
+     * @param serializer
+     * @return serialized envelope
+     * @throws JsonProcessingException
+     */
+    public static SerializedEnvelope create(Envelope envelope, DataFormat dataFormat, CaliperSerializer serializer)
+            throws JsonProcessingException {
+        return new SerializedEnvelope(envelope, dataFormat, serializer.serialize(envelope, dataFormat));
+    }
+}
@@ -0,0 +1,177 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.codec;
+
+import com.google.common.collect.ImmutableList;
+import org.imsglobal.caliper.actions.Action;
+import org.imsglobal.caliper.config.Config;
+import org.imsglobal.caliper.entities.EntityType;
+import org.imsglobal.caliper.entities.agent.Role;
+import org.imsglobal.caliper.events.EventType;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Adler32;
+
+/**
+ * Preset deflate dictionary built from the Caliper vocabulary: the Role, Action, EntityType and
+ * EventType values, common property names and the v1p1 context IRI, optionally extended with a
+ * corpus of deployment-specific strings such as IRI prefixes.  Deflate can refer back into the
+ * dictionary from the first byte, so even single-event envelopes compress well.
+ *
+ * Matches closer to the end of the dictionary are cheaper, so the most frequent strings are
+ * appended last.  Sender and receiver must use identical dictionaries; the dictionary id is part
+ * of the negotiated Content-Encoding.
+ */
+public final class CaliperDictionary {
+    private final byte[] bytes;
+    private final String id;
+
+    /**
+     * Deflate window size; dictionary bytes beyond this are never referenced.
+     */
+    public static final int MAX_SIZE = 32768;
+
+    /**
+     * Property names common to Caliper envelopes, events and entities.
+     */
+    private static final List<String> PROPERTIES = ImmutableList.of(
+        "academicSession", "assignee", "attempt", "count", "courseNumber", "dateToActivate",
+        "dateToShow", "dateToStartOn", "dateToSubmit", "description", "duration", "endedAtTime",
+        "extensions", "federatedSession", "isTimeDependent", "items", "keywords", "learningObjectives",
+        "maxAttempts", "maxScore", "maxSubmissions", "mediaType", "organization", "referrer",
+        "startedAtTime", "subOrganizationOf", "version", "dateModified", "dateCreated", "name",
+        "status", "roles", "member", "membership", "isPartOf", "session", "group", "edApp",
+        "generated", "target", "eventTime", "object", "action", "actor", "sendTime", "sensor",
+        "dataVersion", "data", "type", "id", "@context");
+
+    /**
+     * Constructor
+     * @param builder
+     */
+    private CaliperDictionary(Builder builder) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(MAX_SIZE);
+        for (Role role : Role.values()) {
+            append(out, quote(role.value()));
+        }
+        for (Action action : Action.values()) {
+            append(out, quote(action.value()));
+        }
+        for (EntityType type : EntityType.values()) {
+            append(out, quote(type.value()));
+        }
+        for (EventType type : EventType.values()) {
+            append(out, quote(type.value()));
+        }
+        for (String property : PROPERTIES) {
+            append(out, quote(property) + ":");
+        }
+        for (String entry : builder.corpus) {
+            append(out, quote(entry));
+        }
+        append(out, quote(Config.JSONLD_EXTERNAL_CALIPER_CONTEXT) + ",\"id\":\"urn:uuid:");
+
+        byte[] all = out.toByteArray();
+        this.bytes = (all.length > MAX_SIZE) ? Arrays.copyOfRange(all, all.length - MAX_SIZE, all.length) : all;
+
+        Adler32 checksum = new Adler32();
+        checksum.update(bytes);
+        this.id = String.format("%08x", checksum.getValue());
+    }
+
+    private static String quote(String value) {
+        return "\"" + value + "\"";
+    }
+
+    private static void append(ByteArrayOutputStream out, String value) {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.write(utf8, 0, utf8.length);
+    }
+
+    /**
+     * @return a copy of the dictionary bytes.
+     */
+    public byte[] getBytes() {
+        return bytes.clone();
+    }
+
+    /**
+     * @return the dictionary size in bytes.
+     */
+    public int size() {
+        return bytes.length;
+    }
+
+    /**
+     * @return the Adler-32 checksum of the dictionary as eight hex digits.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Shared read-only view used by the codec to avoid copying.
+     * @return dictionary bytes
+     */
+    byte[] bytes() {
+        return bytes;
+    }
+
+    /**
+     * Builder class provides a fluid interface for setting dictionary properties.
+     */
+    public static class Builder {
+        private List<String> corpus = ImmutableList.of();
+
+        /**
+         * Constructor
+         */
+        public Builder() {
+
+        }
+
+        /**
+         * Deployment-specific strings, most frequent last.
+         * @param corpus
+         * @return builder
+         */
+        public Builder corpus(final Iterable<String> corpus) {
+            this.corpus = ImmutableList.copyOf(corpus);
+            return this;
+        }
+
+        /**
+         * Client invokes build method in order to create an immutable object.
+         * @return a new instance of CaliperDictionary.
+         */
+        public CaliperDictionary build() {
+            return new CaliperDictionary(this);
+        }
+    }
+
+    /**
+     * Static Factory method.
+     * @return new builder instance
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Raw deflate codec primed with a {@link CaliperDictionary}.  The Content-Encoding token,
+ * x-caliper-deflate-&lt;dictionary id&gt;, lets a receiver select the matching dictionary and
+ * reject payloads encoded with one it does not hold.
+ */
+public final class DictionaryCodec implements PayloadCodec {
+    private final CaliperDictionary dictionary;
+    private final String contentEncoding;
+    private final int level;
+
+    public static final String CONTENT_ENCODING_PREFIX = "x-caliper-deflate-";
+
+    private static final int BUFFER_SIZE = 4096;
+
+    /**
+     * Constructor.  Scope is private to force use of the static factory methods.
+     * @param dictionary
+     * @param level
+     */
+    private DictionaryCodec(CaliperDictionary dictionary, int level) {
+        this.dictionary = dictionary;
+        this.contentEncoding = CONTENT_ENCODING_PREFIX + dictionary.getId();
+        this.level = level;
+    }
+
+    /**
+     * @return the preset dictionary.
+     */
+    public CaliperDictionary getDictionary() {
+        return dictionary;
+    }
+
+    @Override
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
+
+    @Override
+    public OutputStream encode(OutputStream out) throws IOException {
+        final Deflater deflater = new Deflater(level, true);
+        deflater.setDictionary(dictionary.bytes());
+        return new DeflaterOutputStream(out, deflater, BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    deflater.end();
+                }
+            }
+        };
+    }
+
+    @Override
+    public InputStream decode(InputStream in) throws IOException {
+        final Inflater inflater = new Inflater(true);
+        inflater.setDictionary(dictionary.bytes());
+        return new InflaterInputStream(in, inflater, BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    inflater.end();
+                }
+            }
+        };
+    }
+
+    /**
+     * Factory method.
+     * @param dictionary
+     * @return codec
+     */
+    public static DictionaryCodec create(CaliperDictionary dictionary) {
+        return new DictionaryCodec(dictionary, Deflater.BEST_COMPRESSION);
+    }
+
+    /**
+     * Factory method for a codec over the built-in Caliper vocabulary.
+     * @return codec
+     */
+    public static DictionaryCodec create() {
+        return create(CaliperDictionary.builder().build());
+    }
+}
@@ -0,0 +1,170 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.codec;
+
+import com.google.common.io.ByteStreams;
+import org.imsglobal.caliper.buffer.PooledBuffer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Serialized request body together with the codec, if any, that encoded it.  The body may live in
+ * a pooled array, so the holder must call release() once the request has completed.
+ */
+public final class EncodedPayload {
+    private final PooledBuffer body;
+    private final int rawLength;
+    private final PayloadCodec codec;
+    private final Runnable onAccepted;
+
+    /**
+     * Constructor
+     * @param body
+     * @param rawLength
+     * @param codec
+     */
+    EncodedPayload(PooledBuffer body, int rawLength, PayloadCodec codec) {
+        this(body, rawLength, codec, null);
+    }
+
+    /**
+     * Constructor
+     * @param body
+     * @param rawLength
+     * @param codec
+     * @param onAccepted
+     */
+    private EncodedPayload(PooledBuffer body, int rawLength, PayloadCodec codec, Runnable onAccepted) {
+        this.body = body;
+        this.rawLength = rawLength;
+        this.codec = codec;
+        this.onAccepted = onAccepted;
+    }
+
+    /**
+     * @return the bytes to send, copied if the backing array is longer than the body.
+     */
+    public byte[] getBody() {
+        return body.toByteArray();
+    }
+
+    /**
+     * @return the backing array, whose first getLength() bytes are the body.
+     */
+    public byte[] getArray() {
+        return body.array();
+    }
+
+    /**
+     * @return the length of the body.
+     */
+    public int getLength() {
+        return body.length();
+    }
+
+    /**
+     * @return the length of the payload before encoding.
+     */
+    public int getRawLength() {
+        return rawLength;
+    }
+
+    /**
+     * @return the Content-Encoding token, or null if the body is not encoded.
+     */
+    public String getContentEncoding() {
+        return (codec != null) ? codec.getContentEncoding() : null;
+    }
+
+    /**
+     * @return true if the body is encoded.
+     */
+    public boolean isEncoded() {
+        return codec != null;
+    }
+
+    /**
+     * Recover the unencoded payload.
+     * @return raw bytes
+     * @throws IOException
+     */
+    public byte[] decode() throws IOException {
+        if (codec == null) {
+            return getBody();
+        }
+        try (InputStream in = codec.decode(new ByteArrayInputStream(body.array(), 0, body.length()))) {
+            return ByteStreams.toByteArray(in);
+        }
+    }
+
+    /**
+     * Attach an action to run once the endpoint has accepted the payload.
+     * @param action
+     * @return a payload sharing this body
+     */
+    public EncodedPayload whenAccepted(Runnable action) {
+        return new EncodedPayload(body, rawLength, codec, action);
+    }
+
+    /**
+     * Run the action attached with whenAccepted(), if any.  Call when the endpoint has answered
+     * with a success status.
+     */
+    public void accepted() {
+        if (onAccepted != null) {
+            onAccepted.run();
+        }
+    }
+
+    /**
+     * Return a pooled body to its pool.  The payload must not be used afterwards.
+     */
+    public void release() {
+        body.release();
+    }
+
+    /**
+     * Wrap an unencoded payload.
+     * @param raw
+     * @return payload
+     */
+    public static EncodedPayload identity(byte[] raw) {
+        return new EncodedPayload(PooledBuffer.wrap(raw), raw.length, null);
+    }
+
+    /**
+     * Encode an already serialized payload if it reaches the threshold.
+     * @param raw
+     * @param codec
+     * @param threshold
+     * @return payload
+     * @throws IOException
+     */
+    public static EncodedPayload encode(byte[] raw, PayloadCodec codec, int threshold) throws IOException {
+        if (codec == null || raw.length < threshold) {
+            return identity(raw);
+        }
+        EncodingOutputStream out = new EncodingOutputStream(codec, threshold, raw.length);
+        out.write(raw);
+        out.close();
+        return out.toPayload();
+    }
+}
@@ -0,0 +1,143 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.codec;
+
+import org.imsglobal.caliper.buffer.BufferPool;
+import org.imsglobal.caliper.buffer.PooledOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream that buffers a payload as written and switches to the codec once the payload
+ * reaches the threshold.  A serializer can therefore stream straight into the compressor, while
+ * payloads too small to benefit are left unencoded.  Output is written into arrays borrowed from
+ * a BufferPool; the caller takes ownership via toPayload() or returns them via discard().
+ */
+public class EncodingOutputStream extends OutputStream {
+    private final PayloadCodec codec;
+    private final int threshold;
+    private final BufferPool pool;
+    private PooledOutputStream target;
+    private OutputStream out;
+    private int rawLength = 0;
+    private boolean encoding = false;
+    private boolean closed = false;
+
+    /**
+     * Constructor
+     * @param codec the codec, or null to never encode
+     * @param threshold minimum raw length in bytes at which the payload is encoded
+     * @param initialSize initial buffer capacity
+     * @param pool
+     */
+    public EncodingOutputStream(PayloadCodec codec, int threshold, int initialSize, BufferPool pool) {
+        this.codec = codec;
+        this.threshold = threshold;
+        this.pool = pool;
+        this.target = new PooledOutputStream(pool, initialSize);
+        this.out = target;
+    }
+
+    /**
+     * Constructor using the shared buffer pool.
+     * @param codec the codec, or null to never encode
+     * @param threshold minimum raw length in bytes at which the payload is encoded
+     * @param initialSize initial buffer capacity
+     */
+    public EncodingOutputStream(PayloadCodec codec, int threshold, int initialSize) {
+        this(codec, threshold, initialSize, BufferPool.getInstance());
+    }
+
+    /**
+     * Constructor
+     * @param codec the codec, or null to never encode
+     * @param threshold minimum raw length in bytes at which the payload is encoded
+     */
+    public EncodingOutputStream(PayloadCodec codec, int threshold) {
+        this(codec, threshold, 4096);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        switchIfNeeded(1);
+        out.write(b);
+        rawLength++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        switchIfNeeded(len);
+        out.write(b, off, len);
+        rawLength += len;
+    }
+
+    /**
+     * Start encoding once the pending write takes the payload to the threshold.
+     * @param len
+     * @throws IOException
+     */
+    private void switchIfNeeded(int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed.");
+        }
+        if (encoding || codec == null || rawLength + len < threshold) {
+            return;
+        }
+        PooledOutputStream head = target;
+        target = new PooledOutputStream(pool, Math.max(head.size() / 2, BufferPool.MIN_SIZE));
+        out = codec.encode(target);
+        head.writeTo(out);
+        head.discard();
+        encoding = true;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            out.close();
+        }
+    }
+
+    /**
+     * Get the payload written to this stream.  The stream must be closed.  The payload owns the
+     * pooled output and must be released by the caller.
+     * @return payload
+     */
+    public EncodedPayload toPayload() {
+        if (!closed) {
+            throw new IllegalStateException("Stream must be closed before reading the payload.");
+        }
+        return new EncodedPayload(target.toBuffer(), rawLength, encoding ? codec : null);
+    }
+
+    /**
+     * Abandon the output, returning pooled arrays.  Used when serialization fails.
+     */
+    public void discard() {
+        closed = true;
+        target.discard();
+    }
+}
@@ -0,0 +1,52 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Request body codec identified by an HTTP Content-Encoding token.
+ */
+public interface PayloadCodec {
+
+    /**
+     * Get the Content-Encoding token sent with encoded payloads.
+     * @return content encoding
+     */
+    String getContentEncoding();
+
+    /**
+     * Wrap a stream so that bytes written to the wrapper are encoded onto the target.  Closing the
+     * wrapper finishes the encoding and closes the target.
+     * @param out
+     * @return encoding stream
+     * @throws IOException
+     */
+    OutputStream encode(OutputStream out) throws IOException;
+
+    /**
+     * Wrap a stream so that bytes read from the wrapper are decoded from the source.
+     * @param in
+     * @return decoding stream
+     * @throws IOException
+     */
+    InputStream decode(InputStream in) throws IOException;
+}
@@ -0,0 +1,79 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Codecs for the registered HTTP content codings.
+ */
+public enum StandardCodec implements PayloadCodec {
+    GZIP("gzip") {
+        @Override
+        public OutputStream encode(OutputStream out) throws IOException {
+            return new GZIPOutputStream(out, BUFFER_SIZE);
+        }
+
+        @Override
+        public InputStream decode(InputStream in) throws IOException {
+            return new GZIPInputStream(in, BUFFER_SIZE);
+        }
+    },
+
+    /**
+     * HTTP "deflate" is the zlib format (RFC 1950), not a raw deflate stream.
+     */
+    DEFLATE("deflate") {
+        @Override
+        public OutputStream encode(OutputStream out) throws IOException {
+            return new DeflaterOutputStream(out);
+        }
+
+        @Override
+        public InputStream decode(InputStream in) throws IOException {
+            return new InflaterInputStream(in);
+        }
+    };
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final String contentEncoding;
+
+    /**
+     * Private constructor
+     * @param contentEncoding
+     */
+    StandardCodec(final String contentEncoding) {
+        this.contentEncoding = contentEncoding;
+    }
+
+    /**
+     * @return Content-Encoding token.
+     */
+    @Override
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.concurrent;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Factory for the executors that run blocking sends.
+ */
+public final class DispatchExecutors {
+
+    /**
+     * Idle time in milliseconds after which a pooled platform thread exits.
+     */
+    private static final long KEEP_ALIVE = 60000L;
+
+    /**
+     * Constructor
+     */
+    private DispatchExecutors() {
+
+    }
+
+    /**
+     * Does the running JDK support virtual threads?
+     * @return true on JDK 21 or later
+     */
+    public static boolean isVirtualThreadSupported() {
+        return VirtualThreads.isSupported();
+    }
+
+    /**
+     * Create a pool of daemon platform threads with a bounded queue.  Core threads time out when
+     * idle.  Tasks submitted while the queue is full are rejected.
+     * @param name thread name prefix
+     * @param threads
+     * @param queueSize
+     * @return executor
+     */
+    public static ThreadPoolExecutor newPlatformExecutor(String name, int threads, int queueSize) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<Runnable>(queueSize),
+            new ThreadFactoryBuilder()
+                .setNameFormat(name.replace("%", "%%") + "-%d")
+                .setDaemon(true)
+                .build());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Create an executor that runs each task on a new virtual thread.  The executor is unbounded;
+     * callers limit concurrency themselves.
+     * @param name thread name prefix
+     * @return executor
+     * @throws UnsupportedOperationException if the running JDK lacks virtual threads
+     */
+    public static ExecutorService newVirtualExecutor(String name) {
+        return VirtualThreads.newThreadPerTaskExecutor(name);
+    }
+}
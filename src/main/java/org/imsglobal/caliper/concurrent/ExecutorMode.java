@@ -0,0 +1,50 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.concurrent;
+
+/**
+ * Threads used to run blocking sends.
+ */
+public enum ExecutorMode {
+    /**
+     * Pooled platform threads.  Available on every supported JDK.
+     */
+    PLATFORM,
+
+    /**
+     * One virtual thread per send.  Requires JDK 21 or later.
+     */
+    VIRTUAL,
+
+    /**
+     * VIRTUAL if the running JDK supports virtual threads, otherwise PLATFORM.
+     */
+    AUTO;
+
+    /**
+     * Resolve AUTO against the running JDK.
+     * @return PLATFORM or VIRTUAL
+     */
+    public ExecutorMode resolve() {
+        if (this == AUTO) {
+            return VirtualThreads.isSupported() ? VIRTUAL : PLATFORM;
+        }
+        return this;
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.concurrent;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Virtual thread support.  This is the Java 8 version, used on JDKs without virtual threads; the
+ * multi-release jar carries a JDK 21 version under META-INF/versions/21.
+ */
+final class VirtualThreads {
+
+    /**
+     * Constructor
+     */
+    private VirtualThreads() {
+
+    }
+
+    /**
+     * Does the running JDK support virtual threads?
+     * @return false
+     */
+    static boolean isSupported() {
+        return false;
+    }
+
+    /**
+     * Create an executor that starts a new virtual thread for each task.
+     * @param name thread name prefix
+     * @return executor
+     */
+    static ExecutorService newThreadPerTaskExecutor(String name) {
+        throw new UnsupportedOperationException("Virtual threads require JDK 21 or later; running "
+            + System.getProperty("java.version") + ".");
+    }
+}
@@ -19,10 +19,60 @@
 package org.imsglobal.caliper.config;
 
 /**
- * Data interchange formats.
+ * Data interchange formats.  SMILE, CBOR and MESSAGEPACK are binary encodings of the Caliper
+ * JSON-LD data model, intended for hops between a Sensor and a relay that both understand them.
  */
 public enum DataFormat {
-    CALIPER_JSON,
-    CALIPER_JSONLD,
-    XAPI_JSON;
+    CALIPER_JSON("application/json", false),
+    CALIPER_JSONLD("application/json", false),
+    XAPI_JSON("application/json", false),
+    SMILE("application/x-jackson-smile", true),
+    CBOR("application/cbor", true),
+    MESSAGEPACK("application/msgpack", true);
+
+    private final String contentType;
+    private final boolean binary;
+
+    /**
+     * Private constructor
+     * @param contentType
+     * @param binary
+     */
+    private DataFormat(final String contentType, final boolean binary) {
+        this.contentType = contentType;
+        this.binary = binary;
+    }
+
+    /**
+     * Retrieve the media type of a payload in this format.
+     * @return content type
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Is this a binary encoding?
+     * @return binary
+     */
+    public boolean isBinary() {
+        return binary;
+    }
+
+    /**
+     * Find the binary format a Content-Type denotes, ignoring any parameters.
+     * @param contentType
+     * @return binary format, or CALIPER_JSONLD for any other content type
+     */
+    public static DataFormat forContentType(String contentType) {
+        if (contentType != null) {
+            String mediaType = contentType.split(";", 2)[0].trim();
+            for (DataFormat format : values()) {
+                if (format.binary && format.contentType.equalsIgnoreCase(mediaType)) {
+                    return format;
+                }
+            }
+        }
+        return CALIPER_JSONLD;
+    }
 }
\ No newline at end of file
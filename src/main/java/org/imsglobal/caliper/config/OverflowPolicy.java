@@ -0,0 +1,49 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.config;
+
+/**
+ * Behaviour of a bounded send queue when an Envelope arrives and the queue is full.
+ */
+public enum OverflowPolicy {
+    /**
+     * Block the caller until space is available.
+     */
+    BLOCK,
+
+    /**
+     * Block the caller for up to the configured offer timeout, then drop the new Envelope.
+     */
+    BLOCK_WITH_TIMEOUT,
+
+    /**
+     * Drop the new Envelope immediately.
+     */
+    DROP_NEWEST,
+
+    /**
+     * Evict the oldest queued Envelope to make room for the new one.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Append the new Envelope to the configured disk spool.
+     */
+    SPILL_TO_DISK;
+}
@@ -23,7 +23,8 @@ import com.fasterxml.jackson.annotation.JsonValue;
 public enum Timeout {
     CONNECTION_REQUESTOR_TIMEOUT(10000),
     CONNECTION_TIMEOUT(10000),
-    SOCKET_TIMEOUT(10000);
+    SOCKET_TIMEOUT(10000),
+    SHUTDOWN_TIMEOUT(30000);
 
     private final int value;
 
@@ -0,0 +1,362 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.databind;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.annotation.JsonAppend;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.databind.util.ISO8601DateFormat;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.joda.JodaModule;
+import org.imsglobal.caliper.Envelope;
+import org.imsglobal.caliper.config.DataFormat;
+import org.imsglobal.caliper.context.JsonldContext;
+import org.imsglobal.caliper.entities.AbstractEntity;
+import org.imsglobal.caliper.entities.agent.CourseOffering;
+import org.imsglobal.caliper.entities.agent.CourseSection;
+import org.imsglobal.caliper.entities.agent.Group;
+import org.imsglobal.caliper.entities.agent.Membership;
+import org.imsglobal.caliper.entities.agent.Organization;
+import org.imsglobal.caliper.entities.agent.Person;
+import org.imsglobal.caliper.entities.agent.SoftwareApplication;
+import org.imsglobal.caliper.entities.resource.Assessment;
+import org.imsglobal.caliper.entities.resource.AssessmentItem;
+import org.imsglobal.caliper.entities.resource.Attempt;
+import org.imsglobal.caliper.entities.resource.DigitalResource;
+import org.imsglobal.caliper.entities.resource.WebPage;
+import org.imsglobal.caliper.entities.session.LtiSession;
+import org.imsglobal.caliper.entities.session.Session;
+import org.imsglobal.caliper.events.AnnotationEvent;
+import org.imsglobal.caliper.events.AssessmentEvent;
+import org.imsglobal.caliper.events.AssessmentItemEvent;
+import org.imsglobal.caliper.events.AbstractEvent;
+import org.imsglobal.caliper.events.AssignableEvent;
+import org.imsglobal.caliper.events.Event;
+import org.imsglobal.caliper.events.ForumEvent;
+import org.imsglobal.caliper.events.GradeEvent;
+import org.imsglobal.caliper.events.MediaEvent;
+import org.imsglobal.caliper.events.MessageEvent;
+import org.imsglobal.caliper.events.NavigationEvent;
+import org.imsglobal.caliper.events.SessionEvent;
+import org.imsglobal.caliper.events.ThreadEvent;
+import org.imsglobal.caliper.events.ToolUseEvent;
+import org.imsglobal.caliper.events.ViewEvent;
+import org.imsglobal.caliper.thinning.PayloadDescriptions;
+import org.msgpack.jackson.dataformat.MessagePackFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Shared, thread-safe serialization engine.  A single preconfigured ObjectMapper is constructed once
+ * per JVM and ObjectWriters are prebuilt for each supported DataFormat so that Jackson's serializer
+ * cache survives across sends.  All Clients and Sensors delegate serialization to this instance.
+ * Binary DataFormats are written by mappers configured identically over the Smile, CBOR and
+ * MessagePack encodings.  CALIPER_JSON is a compact profile of CALIPER_JSONLD that writes @context once: on the envelope when all of its data
+ * shares a context, otherwise on each top-level event or entity, and never on nested ones.  It also
+ * writes each entity in full only the first time its id appears in the payload; later nested
+ * occurrences with identical content are written as the entity's IRI.
+ */
+public class CaliperSerializer {
+    private final ObjectMapper mapper;
+    private final Map<DataFormat, ObjectMapper> mappers;
+    private final Map<DataFormat, ObjectWriter> writers;
+    private final Map<DataFormat, ObjectWriter> envelopeWriters;
+
+    private static final Logger log = LoggerFactory.getLogger(CaliperSerializer.class);
+
+    /**
+     * Classes resolved against the serializer cache during warm up.
+     */
+    private static final Class<?>[] WARM_UP_CLASSES = {
+        Envelope.class,
+        AnnotationEvent.class, AssessmentEvent.class, AssessmentItemEvent.class, AssignableEvent.class,
+        Event.class, ForumEvent.class, GradeEvent.class, MediaEvent.class, MessageEvent.class,
+        NavigationEvent.class, SessionEvent.class, ThreadEvent.class, ToolUseEvent.class, ViewEvent.class,
+        CourseOffering.class, CourseSection.class, Group.class, Membership.class, Organization.class,
+        Person.class, SoftwareApplication.class, Assessment.class, AssessmentItem.class, Attempt.class,
+        DigitalResource.class, WebPage.class, LtiSession.class, Session.class
+    };
+
+    /**
+     * Constructor.  Scope is private to force use of the static accessor.
+     */
+    private CaliperSerializer() {
+        this.mapper = createMapper(new JsonFactory());
+
+        Map<DataFormat, ObjectMapper> mappers = new EnumMap<>(DataFormat.class);
+        ObjectMapper compact = createMapper(new JsonFactory())
+            .addMixIn(Envelope.class, HoistedContextMixIn.class)
+            .addMixIn(AbstractEvent.class, ContextOnceMixIn.class)
+            .addMixIn(AbstractEntity.class, ContextOnceMixIn.class);
+        compact.setConfig(compact.getSerializationConfig().withAttribute(JxnCoercibleSerializer.DEDUPLICATE, true));
+        mappers.put(DataFormat.CALIPER_JSON, compact);
+        mappers.put(DataFormat.CALIPER_JSONLD, mapper);
+        mappers.put(DataFormat.SMILE, createMapper(new SmileFactory()));
+        mappers.put(DataFormat.CBOR, createMapper(new CBORFactory()));
+        mappers.put(DataFormat.MESSAGEPACK, createMapper(new MessagePackFactory()));
+        this.mappers = Collections.unmodifiableMap(mappers);
+
+        Map<DataFormat, ObjectWriter> writers = new EnumMap<>(DataFormat.class);
+        Map<DataFormat, ObjectWriter> envelopeWriters = new EnumMap<>(DataFormat.class);
+        for (Map.Entry<DataFormat, ObjectMapper> entry : mappers.entrySet()) {
+            writers.put(entry.getKey(), entry.getValue().writer());
+            envelopeWriters.put(entry.getKey(), entry.getValue().writerFor(Envelope.class));
+        }
+        this.writers = Collections.unmodifiableMap(writers);
+        this.envelopeWriters = Collections.unmodifiableMap(envelopeWriters);
+
+        warm();
+    }
+
+    /**
+     * Configure a mapper over the given encoding.
+     * @param factory
+     * @return mapper
+     */
+    private static ObjectMapper createMapper(JsonFactory factory) {
+        SimpleFilterProvider provider = new SimpleFilterProvider(JxnFilters.filters())
+            .setFailOnUnknownId(true);
+
+        return new ObjectMapper(factory)
+            .setDateFormat(new ISO8601DateFormat())
+            .setSerializationInclusion(JsonInclude.Include.NON_EMPTY)
+            .setFilterProvider(provider)
+            .registerModules(new JodaModule(), new JxnCoercibleSimpleModule())
+            .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+    }
+
+    /**
+     * Compact profile: write @context through the context-once filter.
+     */
+    @JsonFilter("serializeContextOnce")
+    private static abstract class ContextOnceMixIn {
+    }
+
+    /**
+     * Compact profile: write the context shared by an envelope's data ahead of the data.
+     */
+    @JsonAppend(prepend = true, props = @JsonAppend.Prop(value = JxnEnvelopeContextWriter.class,
+        name = "@context", type = JsonldContext.class))
+    private static abstract class HoistedContextMixIn {
+    }
+
+    /**
+     * Lazy holder ensures the shared instance is created and warmed exactly once.
+     */
+    private static class Holder {
+        private static final CaliperSerializer INSTANCE = new CaliperSerializer();
+    }
+
+    /**
+     * Retrieve the shared serializer.
+     * @return serializer
+     */
+    public static CaliperSerializer getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Resolve and cache bean serializers for the core Caliper types in every data format's mapper,
+     * so that the first send in any format does not pay the introspection cost.
+     */
+    public void warm() {
+        for (Map.Entry<DataFormat, ObjectMapper> entry : mappers.entrySet()) {
+            for (Class<?> clazz : WARM_UP_CLASSES) {
+                if (!entry.getValue().canSerialize(clazz)) {
+                    log.warn("Unable to warm " + entry.getKey() + " serializer for " + clazz.getName());
+                }
+            }
+        }
+    }
+
+    /**
+     * Retrieve the shared ObjectMapper.  Callers must not reconfigure it.
+     * @return mapper
+     */
+    public ObjectMapper getMapper() {
+        return mapper;
+    }
+
+    /**
+     * Whether a mapper is registered for the data format.
+     * @param format
+     * @return true if the format can be written and read
+     */
+    public boolean isSupported(DataFormat format) {
+        return mappers.containsKey(format);
+    }
+
+    /**
+     * Retrieve the mapper for a data format.  Callers must not reconfigure it.
+     * @param format
+     * @return mapper
+     */
+    public ObjectMapper getMapper(DataFormat format) {
+        ObjectMapper formatMapper = mappers.get(format);
+        if (formatMapper == null) {
+            throw new IllegalArgumentException("Unsupported data format: " + format);
+        }
+        return formatMapper;
+    }
+
+    /**
+     * Decode a payload into a tree, as a receiver would.
+     * @param bytes
+     * @param format
+     * @return tree
+     * @throws IOException
+     */
+    public JsonNode readTree(byte[] bytes, DataFormat format) throws IOException {
+        return getMapper(format).readTree(bytes);
+    }
+
+    /**
+     * Retrieve the prebuilt ObjectWriter for a data format.
+     * @param format
+     * @return writer
+     */
+    public ObjectWriter getWriter(DataFormat format) {
+        return lookup(writers, format);
+    }
+
+    /**
+     * Serialize a value to a byte array.
+     * @param value
+     * @param format
+     * @return bytes
+     * @throws JsonProcessingException
+     */
+    public byte[] serialize(Object value, DataFormat format) throws JsonProcessingException {
+        return writerFor(value, format).writeValueAsBytes(value);
+    }
+
+    /**
+     * Serialize a value to a byte array, writing the nested entities already described to the
+     * endpoint as their IRIs and recording the rest in the payload's descriptions.
+     * @param value
+     * @param format
+     * @param described the payload's descriptions, or null to describe every entity
+     * @return bytes
+     * @throws JsonProcessingException
+     */
+    public byte[] serialize(Object value, DataFormat format, @Nullable PayloadDescriptions described)
+        throws JsonProcessingException {
+        return writerFor(value, format, described).writeValueAsBytes(value);
+    }
+
+    /**
+     * Serialize a value to a String.
+     * @param value
+     * @param format
+     * @return String
+     * @throws JsonProcessingException
+     */
+    public String serializeToString(Object value, DataFormat format) throws JsonProcessingException {
+        return writerFor(value, format).writeValueAsString(value);
+    }
+
+    /**
+     * Serialize a value to the provided stream.  The stream is not closed.
+     * @param value
+     * @param format
+     * @param out
+     * @throws IOException
+     */
+    public void serialize(Object value, DataFormat format, OutputStream out) throws IOException {
+        writerFor(value, format).writeValue(out, value);
+    }
+
+    /**
+     * Serialize a value to the provided stream, writing the nested entities already described to
+     * the endpoint as their IRIs and recording the rest in the payload's descriptions.  The stream
+     * is not closed.
+     * @param value
+     * @param format
+     * @param described the payload's descriptions, or null to describe every entity
+     * @param out
+     * @throws IOException
+     */
+    public void serialize(Object value, DataFormat format, @Nullable PayloadDescriptions described, OutputStream out)
+        throws IOException {
+        writerFor(value, format, described).writeValue(out, value);
+    }
+
+    /**
+     * Serialize a value to a read-only ByteBuffer.
+     * @param value
+     * @param format
+     * @return buffer
+     * @throws JsonProcessingException
+     */
+    public ByteBuffer serializeToByteBuffer(Object value, DataFormat format) throws JsonProcessingException {
+        return ByteBuffer.wrap(serialize(value, format)).asReadOnlyBuffer();
+    }
+
+    /**
+     * Select the envelope-typed writer when possible in order to skip root serializer lookup.
+     * @param value
+     * @param format
+     * @return writer
+     */
+    private ObjectWriter writerFor(Object value, DataFormat format) {
+        return (value instanceof Envelope) ? lookup(envelopeWriters, format) : lookup(writers, format);
+    }
+
+    /**
+     * Select a writer that passes the payload's descriptions, if any, to the serializers.
+     * @param value
+     * @param format
+     * @param described
+     * @return writer
+     */
+    private ObjectWriter writerFor(Object value, DataFormat format, @Nullable PayloadDescriptions described) {
+        ObjectWriter writer = writerFor(value, format);
+        return (described != null) ? writer.withAttribute(PayloadDescriptions.class, described) : writer;
+    }
+
+    /**
+     * Look up a writer, rejecting unsupported formats.
+     * @param map
+     * @param format
+     * @return writer
+     */
+    private static ObjectWriter lookup(Map<DataFormat, ObjectWriter> map, DataFormat format) {
+        ObjectWriter writer = map.get(format);
+        if (writer == null) {
+            throw new IllegalArgumentException("Unsupported data format: " + format);
+        }
+        return writer;
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.databind;
+
+import java.io.OutputStream;
+
+/**
+ * Sink that hashes the bytes written to it with 64-bit FNV-1a and counts them, so that an entity's
+ * JSON-LD description can be fingerprinted without being buffered.  A separator the generator
+ * writes ahead of the value is skipped, so that the hash does not depend on where the value sits.
+ */
+final class ContentHash extends OutputStream {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private long hash = FNV_OFFSET_BASIS;
+    private int length;
+    private boolean started;
+
+    @Override
+    public void write(int b) {
+        if (!started && isSeparator(b)) {
+            return;
+        }
+        started = true;
+        hash = (hash ^ (b & 0xff)) * FNV_PRIME;
+        length++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        int end = off + len;
+        while (!started && off < end && isSeparator(b[off])) {
+            off++;
+        }
+        if (off == end) {
+            return;
+        }
+        started = true;
+        long h = hash;
+        for (int i = off; i < end; i++) {
+            h = (h ^ (b[i] & 0xff)) * FNV_PRIME;
+        }
+        hash = h;
+        length += end - off;
+    }
+
+    /**
+     * Fold a nested value's hash into this one in place of its bytes, counting its full length.
+     * @param nested
+     */
+    void include(ContentHash nested) {
+        long h = hash;
+        for (int shift = 0; shift < 64; shift += 8) {
+            h = (h ^ ((nested.hash >>> shift) & 0xff)) * FNV_PRIME;
+        }
+        hash = h;
+        length += nested.length;
+        started = true;
+    }
+
+    /**
+     * @param b
+     * @return true if the byte separates a JSON value from the one or the field name before it
+     */
+    private static boolean isSeparator(int b) {
+        return b == ',' || b == ':';
+    }
+
+    /**
+     * Do two hashes fingerprint the same content?
+     * @param other
+     * @return true if the hashes and lengths match
+     */
+    boolean matches(ContentHash other) {
+        return hash == other.hash && length == other.length;
+    }
+
+    /**
+     * @return hash of the bytes written
+     */
+    long getHash() {
+        return hash;
+    }
+
+    /**
+     * @return number of bytes written
+     */
+    int getLength() {
+        return length;
+    }
+}
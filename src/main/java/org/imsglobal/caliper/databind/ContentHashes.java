@@ -0,0 +1,125 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.imsglobal.caliper.databind;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import org.imsglobal.caliper.config.DataFormat;
+import org.imsglobal.caliper.entities.CaliperEntity;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Content hashes of the entities in one payload, held by instance so that each entity is hashed
+ * only once.  Hashing an entity serializes it to JSON-LD a single time with the HASHING attribute
+ * set; every entity nested in it is hashed on the way and folded into its parent's hash in place
+ * of its bytes, so an entity already hashed is not serialized again.  Not thread-safe: one
+ * instance serves one serialization call.
+ */
+final class ContentHashes {
+    static final String HASHING = "caliper.hashing";
+
+    private final Map<Object, ContentHash> hashes = new IdentityHashMap<>();
+    private final Deque<ContentHash> frames = new ArrayDeque<>();
+    private final OutputStream sink = new OutputStream() {
+        @Override
+        public void write(int b) {
+            frames.peek().write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            frames.peek().write(b, off, len);
+        }
+    };
+
+    /**
+     * Get the hash of an entity's full JSON-LD description.
+     * @param entity
+     * @return content hash
+     * @throws IOException
+     */
+    ContentHash of(Object entity) throws IOException {
+        ContentHash hash = hashes.get(entity);
+        if (hash == null) {
+            ContentHash root = new ContentHash();
+            frames.push(root);
+            try {
+                CaliperSerializer.getInstance().getWriter(DataFormat.CALIPER_JSONLD)
+                    .withAttribute(HASHING, this)
+                    .writeValue(sink, entity);
+            } finally {
+                frames.clear();
+            }
+            hash = hashes.get(entity);
+            if (hash == null) {
+                hash = root;
+                hashes.put(entity, hash);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Write an entity during a hashing pass: in full into a frame of its own the first time it is
+     * met, as its IRI otherwise, folding its hash into the enclosing frame either way.
+     * @param entity
+     * @param jgen
+     * @param provider
+     * @param serializer the entity's bean serializer
+     * @throws IOException
+     */
+    void write(CaliperEntity entity, JsonGenerator jgen, SerializerProvider provider,
+               JsonSerializer<Object> serializer) throws IOException {
+        ContentHash known = hashes.get(entity);
+        jgen.flush();
+        frames.push(new ContentHash());
+        if (known != null) {
+            jgen.writeString(entity.getId());
+        } else {
+            serializer.serialize(entity, jgen, provider);
+        }
+        jgen.flush();
+        ContentHash hash = frames.pop();
+        if (known == null) {
+            known = hash;
+            hashes.put(entity, known);
+        }
+        frames.peek().include(known);
+    }
+
+    /**
+     * Get the hashes for the serialization call in progress.
+     * @param provider
+     * @return content hashes
+     */
+    static ContentHashes of(SerializerProvider provider) {
+        ContentHashes hashes = (ContentHashes) provider.getAttribute(ContentHashes.class);
+        if (hashes == null) {
+            hashes = new ContentHashes();
+            provider.setAttribute(ContentHashes.class, hashes);
+        }
+        return hashes;
+    }
+}
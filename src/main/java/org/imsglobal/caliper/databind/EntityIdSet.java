@@ -0,0 +1,98 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.databind;
+
+/**
+ * Open-addressed table of the entities written so far in one payload, keyed by id and holding the
+ * first entity written with each id.  Lookups use the id's cached hash and neither box nor
+ * allocate; only growing the table does.  Not thread-safe: one set serves one serialization call.
+ */
+final class EntityIdSet {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private String[] ids;
+    private Object[] entities;
+    private int size;
+
+    /**
+     * Constructor
+     */
+    EntityIdSet() {
+        this.ids = new String[INITIAL_CAPACITY];
+        this.entities = new Object[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Record an entity unless an entity with the same id has already been recorded.
+     * @param entity
+     * @param id
+     * @return the entity first recorded with this id, which may be this entity; null if the id is new
+     */
+    Object add(Object entity, String id) {
+        int mask = ids.length - 1;
+        int i = spread(id.hashCode()) & mask;
+        for (String e; (e = ids[i]) != null; i = (i + 1) & mask) {
+            if (e == id || e.equals(id)) {
+                return entities[i];
+            }
+        }
+        ids[i] = id;
+        entities[i] = entity;
+        if (++size * 2 > ids.length) {
+            grow();
+        }
+        return null;
+    }
+
+    /**
+     * Number of distinct ids recorded.
+     * @return size
+     */
+    int size() {
+        return size;
+    }
+
+    private void grow() {
+        String[] oldIds = ids;
+        Object[] oldEntities = entities;
+        ids = new String[oldIds.length * 2];
+        entities = new Object[oldIds.length * 2];
+        int mask = ids.length - 1;
+        for (int j = 0; j < oldIds.length; j++) {
+            if (oldIds[j] != null) {
+                int i = spread(oldIds[j].hashCode()) & mask;
+                while (ids[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                ids[i] = oldIds[j];
+                entities[i] = oldEntities[j];
+            }
+        }
+    }
+
+    /**
+     * Scatter hash bits so that linear probing copes with clustered hash codes.
+     * @param h
+     * @return spread hash
+     */
+    private static int spread(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
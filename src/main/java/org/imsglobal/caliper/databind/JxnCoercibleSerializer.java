@@ -20,14 +20,31 @@ package org.imsglobal.caliper.databind;
 
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
 import org.imsglobal.caliper.entities.CaliperCoercible;
+import org.imsglobal.caliper.entities.CaliperEntity;
+import org.imsglobal.caliper.thinning.PayloadDescriptions;
 
 import java.io.IOException;
 
-public class JxnCoercibleSerializer extends JsonSerializer<CaliperCoercible> {
+/**
+ * Writes a coerced entity as its IRI and otherwise delegates to the entity's bean serializer.  The
+ * delegate is resolved once, along with this serializer, so its property serializers are cached
+ * rather than looked up on every write.  When the DEDUPLICATE attribute is set, an entity nested in
+ * an event or entity is also written as its IRI if the same instance, or one with the same id and
+ * identical content, has already been written earlier in the same payload; a differing description
+ * that shares an id, such as a full one following an {id, type} stub, is written in full.  When a
+ * payload's PayloadDescriptions are passed with the call, a nested entity the endpoint has already
+ * been sent unchanged is written as its IRI as well.
+ */
+public class JxnCoercibleSerializer extends JsonSerializer<CaliperCoercible> implements ResolvableSerializer {
+    public static final String DEDUPLICATE = "caliper.deduplicate";
+
     private JsonSerializer<Object> defaultSerializer;
+    private boolean delegateResolved;
 
     /**
      * Constructor
@@ -44,16 +61,85 @@ public class JxnCoercibleSerializer extends JsonSerializer<CaliperCoercible> {
         this.defaultSerializer = defaultSerializer;
     }
 
+    /**
+     * Resolve the wrapped bean serializer, caching its property serializers.  Jackson resolves the
+     * wrapper but not the delegate it was built around; an unresolved delegate looks up the
+     * serializer for each property dynamically on every write.
+     * @param provider
+     * @throws JsonMappingException
+     */
+    @Override
+    public void resolve(SerializerProvider provider) throws JsonMappingException {
+        if (!delegateResolved && defaultSerializer instanceof ResolvableSerializer) {
+            ((ResolvableSerializer) defaultSerializer).resolve(provider);
+        }
+        delegateResolved = true;
+    }
+
     @Override
     public void serialize(CaliperCoercible value, JsonGenerator jgen, SerializerProvider provider)
         throws IOException, JsonProcessingException {
 
         //System.out.print("IS_COERCED: " + value.getClass().getSimpleName() + " " + value.isCoercedToId() + "\n");
 
-        if (value.isCoercedToId()) {
+        ContentHashes hashing = (ContentHashes) provider.getAttribute(ContentHashes.HASHING);
+        if (value.isCoercedToId() || isDescribed(value, jgen, provider)) {
             jgen.writeString(value.getId());
+        } else if (hashing != null && value instanceof CaliperEntity) {
+            hashing.write((CaliperEntity) value, jgen, provider, defaultSerializer);
         } else {
             defaultSerializer.serialize(value, jgen, provider);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Determine whether an entity can be written as its IRI because it has already been described:
+     * earlier in the payload when DEDUPLICATE is set, or in an earlier payload according to the
+     * PayloadDescriptions passed with the call.  Top-level items are always written in full.
+     * @param value
+     * @param jgen
+     * @param provider
+     * @return true if already described
+     * @throws IOException
+     */
+    private static boolean isDescribed(CaliperCoercible value, JsonGenerator jgen, SerializerProvider provider)
+        throws IOException {
+        if (!(value instanceof CaliperEntity)) {
+            return false;
+        }
+        PayloadDescriptions described = (PayloadDescriptions) provider.getAttribute(PayloadDescriptions.class);
+        boolean deduplicate = provider.getAttribute(DEDUPLICATE) != null;
+        if (described == null && !deduplicate) {
+            return false;
+        }
+
+        boolean nested = JxnContextFilter.isWithinItem(jgen.getOutputContext());
+        if (deduplicate) {
+            Object first = firstInPayload(value, provider);
+            if (first != null && nested && (first == value
+                || ContentHashes.of(provider).of(first).matches(ContentHashes.of(provider).of(value)))) {
+                return true;
+            }
+        }
+        if (described == null || !nested) {
+            return false;
+        }
+        ContentHash hash = ContentHashes.of(provider).of(value);
+        return described.isDescribed(value.getId(), hash.getHash(), hash.getLength());
+    }
+
+    /**
+     * Record an entity in the payload's set of written entities.
+     * @param value
+     * @param provider
+     * @return the entity first written with the same id in this payload, or null if there is none
+     */
+    private static Object firstInPayload(CaliperCoercible value, SerializerProvider provider) {
+        EntityIdSet described = (EntityIdSet) provider.getAttribute(EntityIdSet.class);
+        if (described == null) {
+            described = new EntityIdSet();
+            provider.setAttribute(EntityIdSet.class, described);
+        }
+        return described.add(value, value.getId());
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.databind;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import org.imsglobal.caliper.context.JsonldContext;
+import org.imsglobal.caliper.context.JsonldStringContext;
+import org.imsglobal.caliper.entities.CaliperEntity;
+import org.imsglobal.caliper.events.CaliperEvent;
+
+/**
+ * Writes @context once per payload.  A top-level event or entity keeps its context, falling back to
+ * the default Caliper context, unless the envelope has already written a context shared by all of
+ * its data.  Nested events and entities are written as SERIALIZE_WITHOUT_CONTEXT would write them.
+ */
+class JxnContextFilter extends SimpleBeanPropertyFilter {
+    static final String CONTEXT = "@context";
+    static final String HOISTED_CONTEXT = "caliper.hoistedContext";
+
+    @Override
+    public void serializeAsField(Object pojo, JsonGenerator jgen, SerializerProvider provider, PropertyWriter writer)
+        throws Exception {
+
+        if (!CONTEXT.equals(writer.getName())) {
+            writer.serializeAsField(pojo, jgen, provider);
+        } else if (isWithinItem(jgen.getOutputContext().getParent())) {
+            JxnFilters.SERIALIZE_WITHOUT_CONTEXT.filter().serializeAsField(pojo, jgen, provider, writer);
+        } else if (provider.getAttribute(HOISTED_CONTEXT) == null) {
+            JsonldContext context = contextOf(pojo);
+            jgen.writeFieldName(CONTEXT);
+            provider.defaultSerializeValue(context, jgen);
+        }
+    }
+
+    /**
+     * Determine whether an output context, or any context enclosing it, belongs to an event or entity.
+     * @param context
+     * @return true if inside an event or entity
+     */
+    static boolean isWithinItem(JsonStreamContext context) {
+        for (JsonStreamContext parent = context; parent != null; parent = parent.getParent()) {
+            Object value = parent.getCurrentValue();
+            if (value instanceof CaliperEvent || value instanceof CaliperEntity) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Resolve the context a top-level item is written with.
+     * @param item
+     * @return context, or null if the item is neither an event nor an entity
+     */
+    static JsonldContext contextOf(Object item) {
+        JsonldContext context = null;
+        if (item instanceof CaliperEvent) {
+            context = ((CaliperEvent) item).getContext();
+        } else if (item instanceof CaliperEntity) {
+            context = ((CaliperEntity) item).getContext();
+        } else {
+            return null;
+        }
+        return context != null ? context : JsonldStringContext.getDefault();
+    }
+
+    /**
+     * Contexts are the same if they are the same instance or name the same remote context.
+     * @param a
+     * @param b
+     * @return true if same
+     */
+    static boolean sameContext(JsonldContext a, JsonldContext b) {
+        if (a == b) {
+            return true;
+        }
+        return a instanceof JsonldStringContext && b instanceof JsonldStringContext
+            && ((JsonldStringContext) a).getId().equals(((JsonldStringContext) b).getId());
+    }
+}
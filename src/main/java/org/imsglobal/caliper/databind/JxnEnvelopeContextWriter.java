@@ -0,0 +1,87 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.databind;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.cfg.MapperConfig;
+import com.fasterxml.jackson.databind.introspect.AnnotatedClass;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.ser.VirtualBeanPropertyWriter;
+import com.fasterxml.jackson.databind.util.Annotations;
+import org.imsglobal.caliper.Envelope;
+import org.imsglobal.caliper.context.JsonldContext;
+
+import java.util.List;
+
+/**
+ * Virtual envelope property that writes the @context shared by every item in the envelope's data.
+ * When one is written the items omit their own; otherwise nothing is written and each top-level
+ * item keeps its context.
+ */
+class JxnEnvelopeContextWriter extends VirtualBeanPropertyWriter {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructor used by Jackson to create the prototype.
+     */
+    JxnEnvelopeContextWriter() {
+    }
+
+    /**
+     * Constructor
+     * @param definition
+     * @param annotations
+     * @param type
+     */
+    private JxnEnvelopeContextWriter(BeanPropertyDefinition definition, Annotations annotations, JavaType type) {
+        super(definition, annotations, type);
+    }
+
+    @Override
+    protected Object value(Object bean, JsonGenerator jgen, SerializerProvider provider) {
+        JsonldContext shared = sharedContext(((Envelope) bean).getData());
+        provider.setAttribute(JxnContextFilter.HOISTED_CONTEXT, shared);
+        return shared;
+    }
+
+    @Override
+    public VirtualBeanPropertyWriter withConfig(MapperConfig<?> config, AnnotatedClass declaringClass,
+                                                BeanPropertyDefinition propDef, JavaType type) {
+        return new JxnEnvelopeContextWriter(propDef, declaringClass.getAnnotations(), type);
+    }
+
+    /**
+     * Find the context shared by every item.
+     * @param data
+     * @return shared context or null
+     */
+    private static JsonldContext sharedContext(List<?> data) {
+        JsonldContext shared = null;
+        for (Object item : data) {
+            JsonldContext context = JxnContextFilter.contextOf(item);
+            if (context == null || (shared != null && !JxnContextFilter.sameContext(shared, context))) {
+                return null;
+            }
+            shared = context;
+        }
+        return shared;
+    }
+}
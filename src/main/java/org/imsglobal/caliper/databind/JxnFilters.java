@@ -27,7 +27,8 @@ import java.util.Map;
 public enum JxnFilters {
     SERIALIZE_ALL("serializeAll", SimpleBeanPropertyFilter.serializeAll()),
     SERIALIZE_ID_ONLY("filterOutAllExceptId", SimpleBeanPropertyFilter.filterOutAllExcept("id")),
-    SERIALIZE_WITHOUT_CONTEXT("serializeAllExceptContext", SimpleBeanPropertyFilter.serializeAllExcept("@context"));
+    SERIALIZE_WITHOUT_CONTEXT("serializeAllExceptContext", SimpleBeanPropertyFilter.serializeAllExcept("@context")),
+    SERIALIZE_CONTEXT_ONCE("serializeContextOnce", new JxnContextFilter());
 
     private final String id;
     private final SimpleBeanPropertyFilter filter;
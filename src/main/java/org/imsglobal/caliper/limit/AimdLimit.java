@@ -0,0 +1,150 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.limit;
+
+/**
+ * Additive increase, multiplicative decrease.  The limit grows by one after each successful send
+ * made while at least half the limit was in use, and is multiplied by backoffRatio after a drop
+ * or a send slower than timeout.
+ */
+public class AimdLimit implements LimitAlgorithm {
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long timeout;
+
+    /**
+     * Defaults.
+     */
+    public static final int INITIAL_LIMIT = 20;
+    public static final int MIN_LIMIT = 1;
+    public static final int MAX_LIMIT = 1000;
+    public static final double BACKOFF_RATIO = 0.9;
+    public static final long TIMEOUT = 5000L;
+
+    /**
+     * Constructor
+     * @param builder
+     */
+    private AimdLimit(Builder builder) {
+        this.minLimit = (builder.minLimit > 0) ? builder.minLimit : MIN_LIMIT;
+        this.maxLimit = (builder.maxLimit > 0) ? builder.maxLimit : MAX_LIMIT;
+        this.initialLimit = Limits.clamp((builder.initialLimit > 0) ? builder.initialLimit : INITIAL_LIMIT,
+            minLimit, maxLimit);
+        this.backoffRatio = (builder.backoffRatio > 0.0 && builder.backoffRatio < 1.0)
+            ? builder.backoffRatio : BACKOFF_RATIO;
+        this.timeout = (builder.timeout > 0L) ? builder.timeout : TIMEOUT;
+    }
+
+    @Override
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    @Override
+    public int update(int limit, long rtt, int inFlight, boolean dropped) {
+        if (dropped || rtt > timeout) {
+            return Limits.clamp((int) (limit * backoffRatio), minLimit, maxLimit);
+        }
+        if (inFlight * 2 >= limit) {
+            return Limits.clamp(limit + 1, minLimit, maxLimit);
+        }
+        return limit;
+    }
+
+    /**
+     * Builder class provides a fluid interface for setting limit properties.
+     */
+    public static class Builder {
+        private int initialLimit = 0;
+        private int minLimit = 0;
+        private int maxLimit = 0;
+        private double backoffRatio = 0.0;
+        private long timeout = 0L;
+
+        /**
+         * Constructor
+         */
+        public Builder() {
+
+        }
+
+        /**
+         * @param initialLimit
+         * @return builder
+         */
+        public Builder initialLimit(final int initialLimit) {
+            this.initialLimit = initialLimit;
+            return this;
+        }
+
+        /**
+         * @param minLimit
+         * @return builder
+         */
+        public Builder minLimit(final int minLimit) {
+            this.minLimit = minLimit;
+            return this;
+        }
+
+        /**
+         * @param maxLimit
+         * @return builder
+         */
+        public Builder maxLimit(final int maxLimit) {
+            this.maxLimit = maxLimit;
+            return this;
+        }
+
+        /**
+         * @param backoffRatio
+         * @return builder
+         */
+        public Builder backoffRatio(final double backoffRatio) {
+            this.backoffRatio = backoffRatio;
+            return this;
+        }
+
+        /**
+         * @param timeout
+         * @return builder
+         */
+        public Builder timeout(final long timeout) {
+            this.timeout = timeout;
+            return this;
+        }
+
+        /**
+         * Client invokes build method in order to create an immutable object.
+         * @return a new instance of AimdLimit.
+         */
+        public AimdLimit build() {
+            return new AimdLimit(this);
+        }
+    }
+
+    /**
+     * Static Factory method.
+     * @return new builder instance
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+}
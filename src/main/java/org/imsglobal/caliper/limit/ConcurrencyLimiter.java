@@ -0,0 +1,177 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.limit;
+
+import org.imsglobal.caliper.clients.SendResult;
+import org.imsglobal.caliper.statistics.Statistics;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounds a client's concurrent sends by a limit that a LimitAlgorithm adjusts from the round trip
+ * time of each completed send.  The current limit and every RTT sample are recorded in the
+ * client's Statistics as Concurrency Limit and RTT.
+ */
+public class ConcurrencyLimiter {
+    private final LimitAlgorithm algorithm;
+    private final Statistics statistics;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private int limit;
+    private int inFlight;
+
+    /**
+     * Constructor
+     * @param algorithm
+     * @param statistics
+     */
+    private ConcurrencyLimiter(LimitAlgorithm algorithm, Statistics statistics) {
+        this.algorithm = algorithm;
+        this.statistics = statistics;
+        this.limit = algorithm.getInitialLimit();
+    }
+
+    /**
+     * Start a send if the limit allows.
+     * @return false if the limit has been reached
+     */
+    public boolean tryAcquire() {
+        lock.lock();
+        try {
+            if (inFlight >= limit) {
+                return false;
+            }
+            inFlight++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Start a send, waiting until the limit allows.
+     */
+    public void acquire() {
+        lock.lock();
+        try {
+            while (inFlight >= limit) {
+                available.awaitUninterruptibly();
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Finish a send that never reached the endpoint, e.g. because it could not be serialized.
+     * The limit is left unchanged.
+     */
+    public void release() {
+        lock.lock();
+        try {
+            inFlight--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Finish a send and feed its outcome to the limit algorithm.
+     * @param rtt round trip time in milliseconds, or a negative value if not measured
+     * @param dropped true if the send timed out or the endpoint signalled overload
+     */
+    public void release(long rtt, boolean dropped) {
+        if (rtt < 0L && !dropped) {
+            release();
+            return;
+        }
+
+        int current;
+        lock.lock();
+        try {
+            int previous = limit;
+            limit = Math.max(1, algorithm.update(limit, Math.max(rtt, 0L), inFlight, dropped));
+            inFlight--;
+            current = limit;
+            if (limit > previous) {
+                available.signalAll();
+            } else {
+                available.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (rtt >= 0L) {
+            statistics.updateRtt(rtt);
+        }
+        statistics.updateConcurrencyLimit(current);
+    }
+
+    /**
+     * Finish a send, sampling its latency if it completed in a single attempt.  A failure the
+     * endpoint may recover from (no response, 408, 429 or 5xx) counts as a drop; a local failure
+     * leaves the limit unchanged.
+     * @param result
+     */
+    public void release(SendResult result) {
+        if (result.isLocal()) {
+            release();
+            return;
+        }
+        release(result.getAttempts() <= 1 ? result.getLatency() : -1L,
+            !result.isSuccessful() && result.isRetryable());
+    }
+
+    /**
+     * @return the current limit.
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of sends in flight.
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Factory method.
+     * @param algorithm
+     * @param statistics
+     * @return limiter
+     */
+    public static ConcurrencyLimiter create(LimitAlgorithm algorithm, Statistics statistics) {
+        return new ConcurrencyLimiter(algorithm, statistics);
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.limit;
+
+/**
+ * A limit that never changes.
+ */
+public final class FixedLimit implements LimitAlgorithm {
+    private final int limit;
+
+    /**
+     * Constructor
+     * @param limit
+     */
+    private FixedLimit(int limit) {
+        this.limit = limit;
+    }
+
+    @Override
+    public int getInitialLimit() {
+        return limit;
+    }
+
+    @Override
+    public int update(int limit, long rtt, int inFlight, boolean dropped) {
+        return this.limit;
+    }
+
+    /**
+     * Factory method.
+     * @param limit
+     * @return fixed limit
+     */
+    public static FixedLimit of(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        return new FixedLimit(limit);
+    }
+}
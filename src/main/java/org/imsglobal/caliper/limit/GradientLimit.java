@@ -0,0 +1,186 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.limit;
+
+/**
+ * Delay-gradient limit in the style of TCP Vegas.  A long-term average of the round trip time
+ * stands in for the no-load latency; when recent samples rise above it, queueing is building at
+ * the endpoint and the limit shrinks in proportion, otherwise it grows by a small queue allowance.
+ * Drops halve the limit.  Holds RTT state, so each client needs its own instance.
+ */
+public class GradientLimit implements LimitAlgorithm {
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final double tolerance;
+    private final double longAlpha;
+    private double longRtt = -1.0;
+    private double estimate = -1.0;
+
+    /**
+     * Defaults.
+     */
+    public static final int INITIAL_LIMIT = 20;
+    public static final int MIN_LIMIT = 1;
+    public static final int MAX_LIMIT = 1000;
+    public static final double SMOOTHING = 0.2;
+    public static final double TOLERANCE = 1.5;
+    public static final int LONG_WINDOW = 600;
+
+    /**
+     * Constructor
+     * @param builder
+     */
+    private GradientLimit(Builder builder) {
+        this.minLimit = (builder.minLimit > 0) ? builder.minLimit : MIN_LIMIT;
+        this.maxLimit = (builder.maxLimit > 0) ? builder.maxLimit : MAX_LIMIT;
+        this.initialLimit = Limits.clamp((builder.initialLimit > 0) ? builder.initialLimit : INITIAL_LIMIT,
+            minLimit, maxLimit);
+        this.smoothing = (builder.smoothing > 0.0 && builder.smoothing <= 1.0) ? builder.smoothing : SMOOTHING;
+        this.tolerance = (builder.tolerance >= 1.0) ? builder.tolerance : TOLERANCE;
+        this.longAlpha = 2.0 / (((builder.longWindow > 0) ? builder.longWindow : LONG_WINDOW) + 1);
+    }
+
+    @Override
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    @Override
+    public int update(int limit, long rtt, int inFlight, boolean dropped) {
+        if (estimate < 0.0) {
+            estimate = limit;
+        }
+        if (dropped) {
+            estimate = Math.max(minLimit, estimate / 2.0);
+            return Limits.clamp((int) estimate, minLimit, maxLimit);
+        }
+
+        double shortRtt = Math.max(1.0, rtt);
+        if (longRtt < 0.0) {
+            longRtt = shortRtt;
+        } else {
+            longRtt += longAlpha * (shortRtt - longRtt);
+            // Recover quickly if latency drops well below the baseline, e.g. after a collector restart.
+            if (longRtt / shortRtt > 2.0) {
+                longRtt *= 0.95;
+            }
+        }
+
+        // An idle client tells us nothing about the endpoint's capacity.
+        if (inFlight * 2 < estimate) {
+            return Limits.clamp((int) estimate, minLimit, maxLimit);
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / shortRtt));
+        double target = estimate * gradient + Math.sqrt(estimate);
+        estimate = Math.max(minLimit, Math.min(maxLimit, estimate * (1.0 - smoothing) + target * smoothing));
+        return Limits.clamp((int) estimate, minLimit, maxLimit);
+    }
+
+    /**
+     * Builder class provides a fluid interface for setting limit properties.
+     */
+    public static class Builder {
+        private int initialLimit = 0;
+        private int minLimit = 0;
+        private int maxLimit = 0;
+        private double smoothing = 0.0;
+        private double tolerance = 0.0;
+        private int longWindow = 0;
+
+        /**
+         * Constructor
+         */
+        public Builder() {
+
+        }
+
+        /**
+         * @param initialLimit
+         * @return builder
+         */
+        public Builder initialLimit(final int initialLimit) {
+            this.initialLimit = initialLimit;
+            return this;
+        }
+
+        /**
+         * @param minLimit
+         * @return builder
+         */
+        public Builder minLimit(final int minLimit) {
+            this.minLimit = minLimit;
+            return this;
+        }
+
+        /**
+         * @param maxLimit
+         * @return builder
+         */
+        public Builder maxLimit(final int maxLimit) {
+            this.maxLimit = maxLimit;
+            return this;
+        }
+
+        /**
+         * @param smoothing weight of each new target, between 0 and 1
+         * @return builder
+         */
+        public Builder smoothing(final double smoothing) {
+            this.smoothing = smoothing;
+            return this;
+        }
+
+        /**
+         * @param tolerance ratio of recent to baseline RTT accepted before the limit shrinks
+         * @return builder
+         */
+        public Builder tolerance(final double tolerance) {
+            this.tolerance = tolerance;
+            return this;
+        }
+
+        /**
+         * @param longWindow number of samples averaged into the baseline RTT
+         * @return builder
+         */
+        public Builder longWindow(final int longWindow) {
+            this.longWindow = longWindow;
+            return this;
+        }
+
+        /**
+         * Client invokes build method in order to create an immutable object.
+         * @return a new instance of GradientLimit.
+         */
+        public GradientLimit build() {
+            return new GradientLimit(this);
+        }
+    }
+
+    /**
+     * Static Factory method.
+     * @return new builder instance
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+}
@@ -0,0 +1,42 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.limit;
+
+/**
+ * Computes a client's concurrency limit from the round trip times and drops observed by the
+ * ConcurrencyLimiter.  Updates are made under the limiter's lock, so implementations need not be
+ * thread-safe, but an instance that keeps state must not be shared by several clients.
+ */
+public interface LimitAlgorithm {
+
+    /**
+     * @return the limit in effect before the first sample.
+     */
+    int getInitialLimit();
+
+    /**
+     * Compute the new limit after a send completes.
+     * @param limit the current limit
+     * @param rtt the send's round trip time in milliseconds
+     * @param inFlight the number of sends in flight when the send completed, including it
+     * @param dropped true if the send timed out or the endpoint signalled overload
+     * @return new limit
+     */
+    int update(int limit, long rtt, int inFlight, boolean dropped);
+}
@@ -0,0 +1,210 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.limit;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.imsglobal.caliper.CaliperSendable;
+import org.imsglobal.caliper.Envelope;
+import org.imsglobal.caliper.events.CaliperEvent;
+import org.imsglobal.caliper.events.CaliperEventType;
+import org.imsglobal.caliper.statistics.Statistics;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Applies a client's RateLimiterOptions.  Every send takes one request token, plus one event token
+ * and one token of its event type for each event in the envelope.  Tokens are reserved from all the
+ * applicable buckets together: a send either reserves all of them, waiting for the slowest bucket
+ * to refill, or none.  Rejected sends are counted as Rate Limited and every deferral is recorded, in
+ * milliseconds, as Rate Limit Delay in the client's Statistics.
+ */
+public class RateLimiter {
+    private final TokenBucket requests;
+    private final TokenBucket events;
+    private final Map<CaliperEventType, TokenBucket> eventTypes;
+    private final long maxDelay;
+    private final Statistics statistics;
+
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setNameFormat("caliper-rate-limit-%d").setDaemon(true).build());
+
+    /**
+     * Constructor
+     * @param options
+     * @param statistics
+     * @param clock nanosecond time source
+     */
+    RateLimiter(RateLimiterOptions options, Statistics statistics, LongSupplier clock) {
+        this.requests = bucket(options.getRequests(), clock);
+        this.events = bucket(options.getEvents(), clock);
+        this.eventTypes = new HashMap<>();
+        for (Map.Entry<CaliperEventType, RateLimiterOptions.Rate> entry : options.getEventTypes().entrySet()) {
+            eventTypes.put(entry.getKey(), bucket(entry.getValue(), clock));
+        }
+        this.maxDelay = TimeUnit.MILLISECONDS.toNanos(options.getMaxDelay());
+        this.statistics = statistics;
+    }
+
+    private static TokenBucket bucket(@Nullable RateLimiterOptions.Rate rate, LongSupplier clock) {
+        return (rate != null) ? new TokenBucket(rate.getPerSecond(), rate.getBurst(), clock) : null;
+    }
+
+    /**
+     * Reserve the tokens for a send, waiting at most the configured maxDelay.
+     * @param envelope the envelope, or null for a payload that only takes a request token
+     * @return milliseconds the caller must wait before sending, or -1 if the send is rejected
+     */
+    public long reserve(@Nullable Envelope envelope) {
+        return reserve(envelope, maxDelay);
+    }
+
+    /**
+     * Take the tokens for a send if they are available now.
+     * @param envelope
+     * @return false if the send is rejected
+     */
+    public boolean tryAcquire(@Nullable Envelope envelope) {
+        return reserve(envelope, 0L) == 0L;
+    }
+
+    /**
+     * Take the tokens for a send, blocking the caller for as long as needed.
+     * @param envelope
+     */
+    public void acquire(@Nullable Envelope envelope) {
+        long wait = reserve(envelope, Long.MAX_VALUE);
+        if (wait > 0L) {
+            Uninterruptibles.sleepUninterruptibly(wait, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Reserve tokens from every applicable bucket, refunding those already taken if any bucket
+     * cannot supply its share within maxWait.
+     * @param envelope
+     * @param maxWait nanoseconds
+     * @return milliseconds to wait, or -1
+     */
+    private long reserve(@Nullable Envelope envelope, long maxWait) {
+        List<TokenBucket> buckets = new ArrayList<>();
+        List<Integer> permits = new ArrayList<>();
+        collect(envelope, buckets, permits);
+
+        long wait = 0L;
+        for (int i = 0; i < buckets.size(); i++) {
+            long reserved = buckets.get(i).reserve(permits.get(i), maxWait);
+            if (reserved < 0L) {
+                for (int j = 0; j < i; j++) {
+                    buckets.get(j).refund(permits.get(j));
+                }
+                statistics.updateRateLimited(1);
+                return -1L;
+            }
+            wait = Math.max(wait, reserved);
+        }
+
+        if (wait == 0L) {
+            return 0L;
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(wait + 999_999L);
+        statistics.updateRateLimitDelay(millis);
+        return millis;
+    }
+
+    /**
+     * List the buckets a send draws on and the permits it takes from each.
+     * @param envelope
+     * @param buckets
+     * @param permits
+     */
+    private void collect(@Nullable Envelope envelope, List<TokenBucket> buckets, List<Integer> permits) {
+        if (requests != null) {
+            buckets.add(requests);
+            permits.add(1);
+        }
+        if (envelope == null || (events == null && eventTypes.isEmpty())) {
+            return;
+        }
+
+        int count = 0;
+        Map<TokenBucket, Integer> byType = new HashMap<>();
+        for (CaliperSendable item : envelope.getData()) {
+            if (item instanceof CaliperEvent) {
+                count++;
+                TokenBucket bucket = eventTypes.get(((CaliperEvent) item).getType());
+                if (bucket != null) {
+                    byType.merge(bucket, 1, Integer::sum);
+                }
+            }
+        }
+        if (events != null && count > 0) {
+            buckets.add(events);
+            permits.add(count);
+        }
+        for (Map.Entry<TokenBucket, Integer> entry : byType.entrySet()) {
+            buckets.add(entry.getKey());
+            permits.add(entry.getValue());
+        }
+    }
+
+    /**
+     * Start a send once its reserved tokens are due, without blocking the caller.
+     * @param send
+     * @param delay milliseconds
+     * @return future completed with the send's result
+     */
+    public static <T> CompletableFuture<T> schedule(final Supplier<CompletableFuture<T>> send, long delay) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        scheduler.schedule(() -> {
+            try {
+                send.get().whenComplete((result, error) -> {
+                    if (error != null) {
+                        future.completeExceptionally(error);
+                    } else {
+                        future.complete(result);
+                    }
+                });
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+        return future;
+    }
+
+    /**
+     * Static factory method.
+     * @param options
+     * @param statistics
+     * @return rate limiter
+     */
+    public static RateLimiter create(RateLimiterOptions options, Statistics statistics) {
+        return new RateLimiter(options, statistics, System::nanoTime);
+    }
+}
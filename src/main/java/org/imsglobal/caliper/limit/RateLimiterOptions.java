@@ -0,0 +1,213 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.limit;
+
+import com.google.common.collect.ImmutableMap;
+import org.imsglobal.caliper.events.CaliperEventType;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Rate limits applied by a client: a limit on requests, a limit on events across all types and
+ * separate limits for individual event types.  Each limit is a token bucket refilled at perSecond
+ * and holding at most burst tokens; an unset limit does not apply.  A burst of 0 defaults to one
+ * second's worth of tokens.  maxDelay bounds how long a non-blocking send may be deferred waiting
+ * for tokens before it is rejected.
+ */
+public class RateLimiterOptions {
+    private final Rate requests;
+    private final Rate events;
+    private final ImmutableMap<CaliperEventType, Rate> eventTypes;
+    private final long maxDelay;
+
+    /**
+     * Defaults.
+     */
+    public static final long MAX_DELAY = 1000L;
+
+    /**
+     * A refill rate and burst capacity.
+     */
+    public static class Rate {
+        private final double perSecond;
+        private final int burst;
+
+        private Rate(double perSecond, int burst) {
+            if (!(perSecond > 0.0)) {
+                throw new IllegalArgumentException("perSecond must be positive");
+            }
+            this.perSecond = perSecond;
+            this.burst = (burst > 0) ? burst : (int) Math.max(1L, (long) Math.ceil(perSecond));
+        }
+
+        public double getPerSecond() {
+            return perSecond;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        /**
+         * Create a token bucket for this rate.
+         * @return token bucket
+         */
+        TokenBucket newBucket() {
+            return TokenBucket.create(perSecond, burst);
+        }
+    }
+
+    /**
+     * Constructor
+     * @param builder
+     */
+    private RateLimiterOptions(Builder builder) {
+        this.requests = builder.requests;
+        this.events = builder.events;
+        this.eventTypes = ImmutableMap.copyOf(builder.eventTypes);
+        this.maxDelay = (builder.maxDelay > 0L) ? builder.maxDelay : MAX_DELAY;
+    }
+
+    /**
+     * @return the request limit, or null if requests are not limited
+     */
+    public Rate getRequests() {
+        return requests;
+    }
+
+    /**
+     * @return the limit on events of all types, or null if events are not limited
+     */
+    public Rate getEvents() {
+        return events;
+    }
+
+    /**
+     * @return limits by event type
+     */
+    public ImmutableMap<CaliperEventType, Rate> getEventTypes() {
+        return eventTypes;
+    }
+
+    /**
+     * @return the longest a non-blocking send may wait for tokens, in milliseconds
+     */
+    public long getMaxDelay() {
+        return maxDelay;
+    }
+
+    /**
+     * Builder class provides a fluid interface for setting rate limits.
+     */
+    public static class Builder {
+        private Rate requests;
+        private Rate events;
+        private Map<CaliperEventType, Rate> eventTypes = new LinkedHashMap<>();
+        private long maxDelay = 0L;
+
+        /**
+         * Constructor
+         */
+        public Builder() {
+
+        }
+
+        /**
+         * @param perSecond
+         * @param burst
+         * @return builder
+         */
+        public Builder requests(final double perSecond, final int burst) {
+            this.requests = new Rate(perSecond, burst);
+            return this;
+        }
+
+        /**
+         * @param perSecond
+         * @return builder
+         */
+        public Builder requests(final double perSecond) {
+            return requests(perSecond, 0);
+        }
+
+        /**
+         * @param perSecond
+         * @param burst
+         * @return builder
+         */
+        public Builder events(final double perSecond, final int burst) {
+            this.events = new Rate(perSecond, burst);
+            return this;
+        }
+
+        /**
+         * @param perSecond
+         * @return builder
+         */
+        public Builder events(final double perSecond) {
+            return events(perSecond, 0);
+        }
+
+        /**
+         * @param type
+         * @param perSecond
+         * @param burst
+         * @return builder
+         */
+        public Builder events(final CaliperEventType type, final double perSecond, final int burst) {
+            this.eventTypes.put(type, new Rate(perSecond, burst));
+            return this;
+        }
+
+        /**
+         * @param type
+         * @param perSecond
+         * @return builder
+         */
+        public Builder events(final CaliperEventType type, final double perSecond) {
+            return events(type, perSecond, 0);
+        }
+
+        /**
+         * @param maxDelay
+         * @return builder
+         */
+        public Builder maxDelay(final long maxDelay) {
+            this.maxDelay = maxDelay;
+            return this;
+        }
+
+        /**
+         * Client invokes build method in order to create an immutable object.
+         * @return a new instance of RateLimiterOptions.
+         */
+        public RateLimiterOptions build() {
+            return new RateLimiterOptions(this);
+        }
+    }
+
+    /**
+     * Static Factory method.
+     * @return new builder instance
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+}
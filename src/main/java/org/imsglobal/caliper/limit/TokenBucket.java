@@ -0,0 +1,115 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.limit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free token bucket, refilled at a fixed rate up to a burst capacity.  The bucket keeps a
+ * single timestamp, the time at which it was last empty, and permits are taken by advancing that
+ * timestamp with a compare-and-set, so concurrent callers never block one another.  A caller may
+ * reserve permits ahead of the refill and wait out the returned delay; a request larger than the
+ * burst is admitted once the bucket is full, after waiting for the shortfall.
+ */
+public class TokenBucket {
+    private final long interval;
+    private final long capacity;
+    private final LongSupplier clock;
+    private final AtomicLong emptyAt;
+
+    /**
+     * Constructor
+     * @param permitsPerSecond
+     * @param burst
+     * @param clock nanosecond time source
+     */
+    TokenBucket(double permitsPerSecond, int burst, LongSupplier clock) {
+        if (!(permitsPerSecond > 0.0)) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive");
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("burst must be positive");
+        }
+        this.interval = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.capacity = interval * burst;
+        this.clock = clock;
+        this.emptyAt = new AtomicLong(clock.getAsLong() - capacity);
+    }
+
+    /**
+     * Take permits, reserving them ahead of the refill if the bucket holds too few.
+     * @param permits
+     * @param maxWait longest acceptable delay, in nanoseconds
+     * @return nanoseconds the caller must wait before using the permits, or -1 if that would
+     * exceed maxWait, in which case nothing is taken
+     */
+    public long reserve(int permits, long maxWait) {
+        long cost = interval * permits;
+        while (true) {
+            long now = clock.getAsLong();
+            long current = emptyAt.get();
+            long next = Math.max(current, now - capacity) + cost;
+            long wait = Math.max(0L, next - now);
+            if (wait > maxWait) {
+                return -1L;
+            }
+            if (emptyAt.compareAndSet(current, next)) {
+                return wait;
+            }
+        }
+    }
+
+    /**
+     * Take permits if the bucket holds enough of them now.
+     * @param permits
+     * @return true if taken
+     */
+    public boolean tryAcquire(int permits) {
+        return reserve(permits, 0L) == 0L;
+    }
+
+    /**
+     * Return permits that were reserved but will not be used.
+     * @param permits
+     */
+    public void refund(int permits) {
+        emptyAt.addAndGet(-interval * permits);
+    }
+
+    /**
+     * Get the number of whole permits currently available.
+     * @return available permits
+     */
+    public long getAvailable() {
+        long elapsed = clock.getAsLong() - emptyAt.get();
+        return Math.max(0L, Math.min(elapsed, capacity) / interval);
+    }
+
+    /**
+     * Static factory method.
+     * @param permitsPerSecond
+     * @param burst the most permits the bucket holds
+     * @return token bucket
+     */
+    public static TokenBucket create(double permitsPerSecond, int burst) {
+        return new TokenBucket(permitsPerSecond, burst, System::nanoTime);
+    }
+}
@@ -0,0 +1,165 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.retry;
+
+import org.imsglobal.caliper.clients.SendResult;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retries transient failures (no response, 408, 429 and 5xx) with exponential backoff and full
+ * jitter: the delay before attempt n+1 is drawn uniformly from [0, min(maxDelay, baseDelay * 2^(n-1))].
+ * A Retry-After delay from the endpoint is honoured in place of the jittered delay, and the send
+ * is abandoned if it asks for longer than maxDelay.  Every retry draws on the policy's
+ * RetryBudget, which is shared by all clients configured with the same policy instance.
+ */
+public class ExponentialBackoffRetryPolicy implements RetryPolicy {
+    private final int maxAttempts;
+    private final long baseDelay;
+    private final long maxDelay;
+    private final RetryBudget budget;
+
+    /**
+     * Defaults.
+     */
+    public static final int MAX_ATTEMPTS = 3;
+    public static final long BASE_DELAY = 100L;
+    public static final long MAX_DELAY = 10000L;
+    public static final double BUDGET_RATIO = 0.1;
+    public static final int BUDGET_MAX_BALANCE = 10;
+
+    /**
+     * Constructor
+     * @param builder
+     */
+    private ExponentialBackoffRetryPolicy(Builder builder) {
+        this.maxAttempts = (builder.maxAttempts > 0) ? builder.maxAttempts : MAX_ATTEMPTS;
+        this.baseDelay = (builder.baseDelay > 0L) ? builder.baseDelay : BASE_DELAY;
+        this.maxDelay = (builder.maxDelay > 0L) ? builder.maxDelay : MAX_DELAY;
+        this.budget = (builder.budget != null) ? builder.budget : RetryBudget.create(BUDGET_RATIO, BUDGET_MAX_BALANCE);
+    }
+
+    /**
+     * @return the maximum number of attempts, including the first.
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * @return the retry budget.
+     */
+    public RetryBudget getBudget() {
+        return budget;
+    }
+
+    @Override
+    public void recordRequest() {
+        budget.deposit();
+    }
+
+    @Override
+    public long nextDelay(int attempt, SendResult result) {
+        if (result.isSuccessful() || !result.isRetryable() || attempt >= maxAttempts) {
+            return -1L;
+        }
+
+        long delay;
+        if (result.getRetryAfter() >= 0L) {
+            if (result.getRetryAfter() > maxDelay) {
+                return -1L;
+            }
+            delay = result.getRetryAfter();
+        } else {
+            long ceiling = Math.min(maxDelay, baseDelay << Math.min(attempt - 1, 30));
+            delay = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        }
+
+        return budget.tryWithdraw() ? delay : -1L;
+    }
+
+    /**
+     * Builder class provides a fluid interface for setting policy properties.
+     */
+    public static class Builder {
+        private int maxAttempts = 0;
+        private long baseDelay = 0L;
+        private long maxDelay = 0L;
+        private RetryBudget budget;
+
+        /**
+         * Constructor
+         */
+        public Builder() {
+
+        }
+
+        /**
+         * @param maxAttempts
+         * @return builder
+         */
+        public Builder maxAttempts(final int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * @param baseDelay
+         * @return builder
+         */
+        public Builder baseDelay(final long baseDelay) {
+            this.baseDelay = baseDelay;
+            return this;
+        }
+
+        /**
+         * @param maxDelay
+         * @return builder
+         */
+        public Builder maxDelay(final long maxDelay) {
+            this.maxDelay = maxDelay;
+            return this;
+        }
+
+        /**
+         * @param budget
+         * @return builder
+         */
+        public Builder budget(final RetryBudget budget) {
+            this.budget = budget;
+            return this;
+        }
+
+        /**
+         * Client invokes build method in order to create an immutable object.
+         * @return a new instance of ExponentialBackoffRetryPolicy.
+         */
+        public ExponentialBackoffRetryPolicy build() {
+            return new ExponentialBackoffRetryPolicy(this);
+        }
+    }
+
+    /**
+     * Static Factory method.
+     * @return new builder instance
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+}
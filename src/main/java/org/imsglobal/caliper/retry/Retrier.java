@@ -0,0 +1,102 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.retry;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.imsglobal.caliper.clients.SendResult;
+import org.imsglobal.caliper.statistics.Statistics;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Drives repeated attempts of a send according to a RetryPolicy.  Each attempt must report its
+ * outcome as a SendResult rather than by throwing.  Asynchronous retries are scheduled on a
+ * shared daemon thread so that no caller or I/O thread sleeps between attempts.
+ */
+public final class Retrier {
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setNameFormat("caliper-retry-%d").setDaemon(true).build());
+
+    /**
+     * Constructor.  Static methods only.
+     */
+    private Retrier() {
+
+    }
+
+    /**
+     * Run attempts on the calling thread, sleeping between them.
+     * @param policy
+     * @param attempt
+     * @param statistics
+     * @return the final result, carrying the number of attempts made
+     * @throws Exception if an attempt throws
+     */
+    public static SendResult call(RetryPolicy policy, Callable<SendResult> attempt, Statistics statistics)
+            throws Exception {
+        policy.recordRequest();
+        for (int n = 1; ; n++) {
+            SendResult result = attempt.call();
+            long delay = policy.nextDelay(n, result);
+            if (delay < 0L) {
+                return result.withAttempts(n);
+            }
+            statistics.updateRetried(1);
+            Thread.sleep(delay);
+        }
+    }
+
+    /**
+     * Run attempts without blocking, scheduling each retry after the policy's delay.
+     * @param policy
+     * @param attempt
+     * @param statistics
+     * @return future final result, carrying the number of attempts made
+     */
+    public static CompletableFuture<SendResult> run(RetryPolicy policy, Supplier<CompletableFuture<SendResult>> attempt,
+                                                    Statistics statistics) {
+        CompletableFuture<SendResult> future = new CompletableFuture<>();
+        policy.recordRequest();
+        attempt(1, policy, attempt, statistics, future);
+        return future;
+    }
+
+    private static void attempt(final int n, final RetryPolicy policy,
+                                final Supplier<CompletableFuture<SendResult>> attempt,
+                                final Statistics statistics, final CompletableFuture<SendResult> future) {
+        attempt.get().whenComplete((result, error) -> {
+            if (error != null) {
+                future.completeExceptionally(error);
+                return;
+            }
+            long delay = policy.nextDelay(n, result);
+            if (delay < 0L) {
+                future.complete(result.withAttempts(n));
+                return;
+            }
+            statistics.updateRetried(1);
+            scheduler.schedule(() -> attempt(n + 1, policy, attempt, statistics, future), delay, TimeUnit.MILLISECONDS);
+        });
+    }
+}
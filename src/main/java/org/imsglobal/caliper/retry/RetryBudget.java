@@ -0,0 +1,84 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.retry;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Caps retries at a fraction of first attempts so that retrying cannot multiply the load on an
+ * endpoint that is already failing.  Each first attempt deposits ratio credit, each retry
+ * withdraws one credit, and the balance never exceeds maxBalance.  The budget starts full so that
+ * a quiet client can still retry a few isolated failures.
+ */
+public class RetryBudget {
+    private final double ratio;
+    private final double maxBalance;
+    private double balance;
+
+    /**
+     * Constructor.  Scope is private to force use of the static factory method.
+     * @param ratio
+     * @param maxBalance
+     */
+    private RetryBudget(double ratio, double maxBalance) {
+        checkArgument(ratio >= 0.0, "ratio must not be negative");
+        checkArgument(maxBalance >= 1.0, "maxBalance must allow at least one retry");
+
+        this.ratio = ratio;
+        this.maxBalance = maxBalance;
+        this.balance = maxBalance;
+    }
+
+    /**
+     * Earn credit for a first attempt.
+     */
+    public synchronized void deposit() {
+        balance = Math.min(maxBalance, balance + ratio);
+    }
+
+    /**
+     * Spend one credit on a retry.
+     * @return false if the budget is exhausted
+     */
+    public synchronized boolean tryWithdraw() {
+        if (balance < 1.0) {
+            return false;
+        }
+        balance -= 1.0;
+        return true;
+    }
+
+    /**
+     * Get the number of retries currently affordable.
+     * @return balance
+     */
+    public synchronized double getBalance() {
+        return balance;
+    }
+
+    /**
+     * Factory method.
+     * @param ratio retries allowed per first attempt
+     * @param maxBalance retries that may be spent in a burst
+     * @return budget
+     */
+    public static RetryBudget create(double ratio, int maxBalance) {
+        return new RetryBudget(ratio, maxBalance);
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.retry;
+
+import org.imsglobal.caliper.clients.SendResult;
+
+/**
+ * Decides whether, and after what delay, a failed send is attempted again.  Retries reuse the
+ * payload bytes serialized for the first attempt.
+ */
+public interface RetryPolicy {
+
+    /**
+     * Policy that never retries.
+     */
+    RetryPolicy NONE = new RetryPolicy() {
+        @Override
+        public void recordRequest() {
+
+        }
+
+        @Override
+        public long nextDelay(int attempt, SendResult result) {
+            return -1L;
+        }
+    };
+
+    /**
+     * Record a first attempt.  Policies that enforce a retry budget earn credit here.
+     */
+    void recordRequest();
+
+    /**
+     * Get the delay before the next attempt.
+     * @param attempt the number of attempts made so far, starting at 1
+     * @param result the outcome of the latest attempt
+     * @return delay in milliseconds, or a negative value to stop retrying
+     */
+    long nextDelay(int attempt, SendResult result);
+}
@@ -0,0 +1,65 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.spool;
+
+import org.imsglobal.caliper.Envelope;
+import org.imsglobal.caliper.config.DataFormat;
+
+import java.io.Closeable;
+
+/**
+ * Durable, ordered store for Envelopes that cannot be transmitted immediately.  Envelopes are
+ * stored in serialized form.  A spool supports any number of appenders but a single consumer,
+ * which reads with peek and removes the head with acknowledge once it has been delivered.
+ */
+public interface EnvelopeSpool extends Closeable {
+
+    /**
+     * Serialize and append an Envelope to the spool, in the data format of the client that will
+     * replay it.
+     * @param envelope
+     * @param format
+     * @return true if the Envelope was stored; false if the spool is full or unavailable
+     */
+    boolean append(Envelope envelope, DataFormat format);
+
+    /**
+     * Append an already serialized Envelope to the spool.
+     * @param payload
+     * @return true if the payload was stored; false if the spool is full or unavailable
+     */
+    boolean append(byte[] payload);
+
+    /**
+     * Read the oldest unacknowledged payload without removing it.
+     * @return payload or null if the spool is empty
+     */
+    byte[] peek();
+
+    /**
+     * Remove the payload most recently returned by peek.
+     */
+    void acknowledge();
+
+    /**
+     * Check for unacknowledged payloads.
+     * @return true if the spool is empty
+     */
+    boolean isEmpty();
+}
@@ -0,0 +1,438 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.spool;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.imsglobal.caliper.Envelope;
+import org.imsglobal.caliper.config.DataFormat;
+import org.imsglobal.caliper.databind.CaliperSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead spool of serialized Envelopes backed by append-only, memory-mapped segment files.
+ *
+ * <p>Each record is laid out as a 4-byte payload length, a 4-byte CRC32 of the payload and the
+ * payload itself.  The length is written last so a torn append is never mistaken for a record.
+ * When the active segment cannot hold the next record a new segment is preallocated; segments are
+ * deleted once every record in them has been acknowledged.  The read position is kept in a small
+ * memory-mapped checkpoint file so that, after a restart, replay resumes from the first
+ * unacknowledged record.  Because segments are memory mapped, appended data survives a JVM crash
+ * as soon as the append returns; mapped pages are forced to the device on a timer rather than per
+ * append.</p>
+ */
+public class MappedEnvelopeSpool implements EnvelopeSpool {
+    private final SpoolOptions options;
+    private final CaliperSerializer serializer;
+    private final TreeMap<Long, File> segments = new TreeMap<>();
+    private final MappedByteBuffer checkpoint;
+    private final ScheduledExecutorService syncer;
+
+    private long writeSequence;
+    private MappedByteBuffer writeBuffer;
+    private int writePosition;
+
+    private long readSequence;
+    private ByteBuffer readBuffer;
+    private int readPosition;
+    private int pendingLength;
+
+    private boolean closed;
+
+    private static final int HEADER_SIZE = 8;
+    private static final int CHECKPOINT_SIZE = 24;
+    private static final long CHECKPOINT_MAGIC = 0x43616c6970657221L;
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final Pattern SEGMENT_FILE = Pattern.compile("segment-(\\d{20})\\.spool");
+
+    private static final Logger log = LoggerFactory.getLogger(MappedEnvelopeSpool.class);
+
+    /**
+     * Constructor.  Scope is private to force use of the static factory method.
+     * @param options
+     * @throws IOException
+     */
+    private MappedEnvelopeSpool(SpoolOptions options) throws IOException {
+        this.options = options;
+        this.serializer = CaliperSerializer.getInstance();
+
+        File directory = options.getDirectory();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create spool directory " + directory);
+        }
+
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                Matcher matcher = SEGMENT_FILE.matcher(file.getName());
+                if (matcher.matches()) {
+                    segments.put(Long.parseLong(matcher.group(1)), file);
+                }
+            }
+        }
+
+        this.checkpoint = map(new File(directory, CHECKPOINT_FILE), CHECKPOINT_SIZE);
+        recover();
+
+        this.syncer = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("caliper-spool-sync-%d")
+            .setDaemon(true)
+            .build());
+        this.syncer.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                sync();
+            }
+        }, options.getSyncInterval(), options.getSyncInterval(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Restore read and write positions from the checkpoint and the segment contents.
+     * @throws IOException
+     */
+    private void recover() throws IOException {
+        long sequence = checkpoint.getLong(0);
+        long position = checkpoint.getLong(8);
+        boolean valid = checkpoint.getLong(16) == (sequence ^ position ^ CHECKPOINT_MAGIC);
+
+        if (segments.isEmpty()) {
+            long first = valid ? sequence : 0L;
+            segments.put(first, segmentFile(first));
+        }
+
+        if (valid && segments.containsKey(sequence)) {
+            readSequence = sequence;
+            readPosition = (int) position;
+        } else {
+            readSequence = segments.firstKey();
+            readPosition = 0;
+        }
+
+        // Segments preceding the checkpoint were fully acknowledged before a restart.
+        while (segments.firstKey() < readSequence) {
+            delete(segments.firstKey());
+        }
+
+        writeSequence = segments.lastKey();
+        writeBuffer = map(segments.get(writeSequence), options.getSegmentSize());
+        writePosition = 0;
+        while (true) {
+            int length = validLength(writeBuffer, writePosition);
+            if (length <= 0) {
+                break;
+            }
+            writePosition += HEADER_SIZE + length;
+        }
+        terminate();
+
+        if (readSequence == writeSequence && readPosition > writePosition) {
+            readPosition = writePosition;
+        }
+        writeCheckpoint();
+    }
+
+    /**
+     * Serialize and append an Envelope.
+     * @param envelope
+     * @param format
+     * @return true if stored
+     */
+    @Override
+    public boolean append(Envelope envelope, DataFormat format) {
+        try {
+            return append(serializer.serialize(envelope, format));
+        } catch (JsonProcessingException e) {
+            log.warn("Unable to serialize envelope for spooling", e);
+            return false;
+        }
+    }
+
+    /**
+     * Append a serialized Envelope.  Rolls over to a new segment if the record does not fit.
+     * @param payload
+     * @return true if stored; false if closed, the payload exceeds a segment or the budget is spent
+     */
+    @Override
+    public synchronized boolean append(byte[] payload) {
+        int recordSize = HEADER_SIZE + payload.length;
+        if (closed || payload.length == 0 || recordSize > options.getSegmentSize()) {
+            return false;
+        }
+
+        if (writePosition + recordSize > options.getSegmentSize()) {
+            if ((long) (segments.size() + 1) * options.getSegmentSize() > options.getDiskBudget()) {
+                return false;
+            }
+            try {
+                rollover();
+            } catch (IOException e) {
+                log.warn("Unable to roll over spool segment", e);
+                return false;
+            }
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+
+        ByteBuffer slot = writeBuffer.duplicate();
+        slot.position(writePosition + HEADER_SIZE);
+        slot.put(payload);
+        writeBuffer.putInt(writePosition + 4, (int) crc.getValue());
+        writeBuffer.putInt(writePosition, payload.length);
+        writePosition += recordSize;
+        terminate();
+
+        return true;
+    }
+
+    /**
+     * Read the oldest unacknowledged payload, skipping to the next segment at the end of one.
+     * @return payload or null if empty
+     */
+    @Override
+    public synchronized byte[] peek() {
+        if (closed) {
+            return null;
+        }
+
+        while (true) {
+            ByteBuffer buffer = readBuffer();
+            int limit = (readSequence == writeSequence) ? writePosition : options.getSegmentSize();
+            int length = (readPosition < limit) ? validLength(buffer, readPosition) : 0;
+
+            if (length > 0) {
+                byte[] payload = new byte[length];
+                ByteBuffer record = buffer.duplicate();
+                record.position(readPosition + HEADER_SIZE);
+                record.get(payload);
+                pendingLength = length;
+                return payload;
+            }
+
+            if (readSequence >= writeSequence) {
+                return null;
+            }
+
+            // Every record in this segment has been acknowledged.
+            long finished = readSequence;
+            readSequence = segments.higherKey(finished);
+            readPosition = 0;
+            readBuffer = null;
+            pendingLength = 0;
+            delete(finished);
+            writeCheckpoint();
+        }
+    }
+
+    /**
+     * Advance past the payload most recently returned by peek.
+     */
+    @Override
+    public synchronized void acknowledge() {
+        if (pendingLength > 0) {
+            readPosition += HEADER_SIZE + pendingLength;
+            pendingLength = 0;
+            writeCheckpoint();
+        }
+    }
+
+    /**
+     * Check for unacknowledged payloads.
+     * @return true if empty
+     */
+    @Override
+    public synchronized boolean isEmpty() {
+        return readSequence == writeSequence && readPosition >= writePosition;
+    }
+
+    /**
+     * Get the number of bytes occupied by segment files.
+     * @return usage
+     */
+    public synchronized long getUsage() {
+        return (long) segments.size() * options.getSegmentSize();
+    }
+
+    /**
+     * Force mapped segment and checkpoint pages to the storage device.
+     */
+    public synchronized void sync() {
+        if (!closed) {
+            writeBuffer.force();
+            checkpoint.force();
+        }
+    }
+
+    /**
+     * Sync and stop the background flush.  The spool cannot be used once closed.
+     */
+    @Override
+    public void close() {
+        syncer.shutdownNow();
+        synchronized (this) {
+            sync();
+            closed = true;
+        }
+    }
+
+    /**
+     * Preallocate and map the next segment.
+     * @throws IOException
+     */
+    private void rollover() throws IOException {
+        writeBuffer.force();
+        long next = writeSequence + 1;
+        File file = segmentFile(next);
+        MappedByteBuffer buffer = map(file, options.getSegmentSize());
+
+        segments.put(next, file);
+        writeSequence = next;
+        writeBuffer = buffer;
+        writePosition = 0;
+        terminate();
+    }
+
+    /**
+     * Mark the end of data after the last record so readers never parse stale bytes.
+     */
+    private void terminate() {
+        if (writePosition + 4 <= options.getSegmentSize()) {
+            writeBuffer.putInt(writePosition, 0);
+        }
+    }
+
+    /**
+     * Get the buffer for the segment being read, mapping it if necessary.
+     * @return buffer
+     */
+    private ByteBuffer readBuffer() {
+        if (readSequence == writeSequence) {
+            return writeBuffer;
+        }
+        if (readBuffer == null) {
+            try {
+                readBuffer = map(segments.get(readSequence), options.getSegmentSize());
+            } catch (IOException e) {
+                log.warn("Unable to map spool segment " + readSequence + "; skipping", e);
+                readBuffer = ByteBuffer.allocate(options.getSegmentSize());
+            }
+        }
+        return readBuffer;
+    }
+
+    /**
+     * Validate the record at the position.
+     * @param buffer
+     * @param position
+     * @return payload length, or 0 if there is no intact record at the position
+     */
+    private int validLength(ByteBuffer buffer, int position) {
+        if (position + HEADER_SIZE > options.getSegmentSize()) {
+            return 0;
+        }
+        int length = buffer.getInt(position);
+        if (length <= 0 || position + HEADER_SIZE + length > options.getSegmentSize()) {
+            return 0;
+        }
+
+        CRC32 crc = new CRC32();
+        ByteBuffer record = buffer.duplicate();
+        record.position(position + HEADER_SIZE);
+        byte[] chunk = new byte[Math.min(length, 8192)];
+        int remaining = length;
+        while (remaining > 0) {
+            int n = Math.min(remaining, chunk.length);
+            record.get(chunk, 0, n);
+            crc.update(chunk, 0, n);
+            remaining -= n;
+        }
+
+        return ((int) crc.getValue() == buffer.getInt(position + 4)) ? length : 0;
+    }
+
+    /**
+     * Record the read position.  The checkpoint is a mapped page, so this is a memory write.
+     */
+    private void writeCheckpoint() {
+        checkpoint.putLong(0, readSequence);
+        checkpoint.putLong(8, readPosition);
+        checkpoint.putLong(16, readSequence ^ readPosition ^ CHECKPOINT_MAGIC);
+    }
+
+    /**
+     * Delete a fully acknowledged segment.
+     * @param sequence
+     */
+    private void delete(long sequence) {
+        File file = segments.remove(sequence);
+        if (file != null && !file.delete()) {
+            log.warn("Unable to delete spool segment " + file);
+        }
+    }
+
+    /**
+     * Resolve the file for a segment sequence number.
+     * @param sequence
+     * @return file
+     */
+    private File segmentFile(long sequence) {
+        return new File(options.getDirectory(), String.format("segment-%020d.spool", sequence));
+    }
+
+    /**
+     * Map a file read-write, extending it to the given size.
+     * @param file
+     * @param size
+     * @return mapped buffer
+     * @throws IOException
+     */
+    private static MappedByteBuffer map(File file, int size) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            if (raf.length() < size) {
+                raf.setLength(size);
+            }
+            return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    /**
+     * Factory method for opening a spool, recovering any segments left by a previous run.
+     * @param options
+     * @return spool
+     * @throws IOException
+     */
+    public static MappedEnvelopeSpool open(SpoolOptions options) throws IOException {
+        return new MappedEnvelopeSpool(options);
+    }
+}
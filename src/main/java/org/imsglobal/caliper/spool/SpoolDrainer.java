@@ -0,0 +1,194 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.spool;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.imsglobal.caliper.clients.CaliperClient;
+import org.imsglobal.caliper.clients.CaliperPayloadClient;
+import org.imsglobal.caliper.clients.SendResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Background consumer that replays spooled Envelopes, oldest first, through a client.  A payload
+ * is acknowledged only after the endpoint accepts it; on a transient failure the drainer backs off
+ * exponentially and retries the same payload, so order is preserved across an outage.  Payloads
+ * rejected with a non-retryable status are discarded and counted as dropped.  A payload the client
+ * itself refuses because it is at its concurrency or rate limit is retried after the poll interval.
+ * A spool has a single consumer, so at most one drainer is attached to a spool at a time; clients
+ * sharing a spool share the drainer of the first to attach until it stops.
+ */
+public class SpoolDrainer {
+    private final EnvelopeSpool spool;
+    private final CaliperPayloadClient client;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    /**
+     * Polling and backoff intervals in milliseconds.
+     */
+    public static final long POLL_INTERVAL = 250L;
+    public static final long MIN_BACKOFF = 1000L;
+    public static final long MAX_BACKOFF = 60000L;
+
+    private static final Map<EnvelopeSpool, SpoolDrainer> attached = new IdentityHashMap<>();
+
+    private static final Logger log = LoggerFactory.getLogger(SpoolDrainer.class);
+
+    /**
+     * Constructor.  Scope is private to force use of the static factory method.
+     * @param spool
+     * @param client
+     */
+    private SpoolDrainer(EnvelopeSpool spool, CaliperPayloadClient client) {
+        this.spool = spool;
+        this.client = client;
+        this.thread = new ThreadFactoryBuilder()
+            .setNameFormat("caliper-spool-drain-" + client.getId() + "-%d")
+            .setDaemon(true)
+            .build()
+            .newThread(new Runnable() {
+                @Override
+                public void run() {
+                    drain();
+                }
+            });
+    }
+
+    /**
+     * Drain loop.
+     */
+    private void drain() {
+        long backoff = MIN_BACKOFF;
+        try {
+            while (running) {
+                byte[] payload = spool.peek();
+                if (payload == null) {
+                    Thread.sleep(POLL_INTERVAL);
+                    continue;
+                }
+
+                SendResult result = client.sendPayloadAsync(payload).get();
+                if (result.isSuccessful()) {
+                    spool.acknowledge();
+                    client.getStatistics().updateReplayed(1);
+                    backoff = MIN_BACKOFF;
+                } else if (result.isRejected()) {
+                    Thread.sleep(POLL_INTERVAL);
+                } else if (!result.isRetryable()) {
+                    log.warn("Discarding spooled envelope rejected by " + client.getId() + ": " + result);
+                    spool.acknowledge();
+                    client.getStatistics().updateDropped(1);
+                } else {
+                    Thread.sleep(backoff);
+                    backoff = Math.min(backoff * 2, MAX_BACKOFF);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.error("Spool drainer for " + client.getId() + " stopped", e);
+        } finally {
+            detach();
+        }
+    }
+
+    /**
+     * Is the drainer thread alive?
+     * @return running
+     */
+    public boolean isRunning() {
+        return thread.isAlive();
+    }
+
+    /**
+     * Stop replaying.  Unacknowledged payloads remain in the spool.
+     */
+    public void stop() {
+        running = false;
+        thread.interrupt();
+        detach();
+    }
+
+    /**
+     * Release the spool so that another drainer may attach.
+     */
+    private void detach() {
+        synchronized (attached) {
+            attached.remove(spool, this);
+        }
+    }
+
+    /**
+     * Factory method that starts a drainer unless one is already attached to the spool.
+     * @param spool
+     * @param client
+     * @return SpoolDrainer, or null if the spool already has a drainer
+     */
+    public static SpoolDrainer attach(EnvelopeSpool spool, CaliperPayloadClient client) {
+        SpoolDrainer drainer;
+        synchronized (attached) {
+            if (attached.containsKey(spool)) {
+                log.debug("Spool already replayed by " + attached.get(spool).client.getId()
+                    + "; " + client.getId() + " shares its drainer");
+                return null;
+            }
+            drainer = new SpoolDrainer(spool, client);
+            attached.put(spool, drainer);
+        }
+        drainer.thread.start();
+        return drainer;
+    }
+
+    /**
+     * Factory method for a decorator that spools on behalf of its delegate: starts a drainer that
+     * replays through the delegate, unless the spool already has a drainer or the delegate cannot
+     * send serialized payloads.
+     * @param spool
+     * @param delegate
+     * @return SpoolDrainer, or null if none was started
+     */
+    public static SpoolDrainer attachDelegate(EnvelopeSpool spool, CaliperClient delegate) {
+        if (delegate instanceof CaliperPayloadClient) {
+            return attach(spool, (CaliperPayloadClient) delegate);
+        }
+        log.warn("Client " + delegate.getId() + " cannot replay spooled envelopes; attach a SpoolDrainer "
+            + "to the spool with a client that can");
+        return null;
+    }
+
+    /**
+     * Factory method that starts a drainer.
+     * @param spool
+     * @param client
+     * @return SpoolDrainer
+     * @throws IllegalStateException if the spool already has a drainer
+     */
+    public static SpoolDrainer start(EnvelopeSpool spool, CaliperPayloadClient client) {
+        SpoolDrainer drainer = attach(spool, client);
+        if (drainer == null) {
+            throw new IllegalStateException("Spool already has a drainer.");
+        }
+        return drainer;
+    }
+}
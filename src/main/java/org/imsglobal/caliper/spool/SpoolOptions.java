@@ -0,0 +1,160 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.spool;
+
+import org.imsglobal.caliper.validators.SensorValidator;
+
+import java.io.File;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Disk spool options.
+ */
+public class SpoolOptions {
+    private final File directory;
+    private final int segmentSize;
+    private final long diskBudget;
+    private final long syncInterval;
+
+    /**
+     * Default spool settings.  Segments are preallocated at segmentSize; diskBudget caps the
+     * total size of all segments.  Appends are never forced to disk individually; mapped pages
+     * are flushed every syncInterval milliseconds, on segment rollover and on close.
+     */
+    public static final int SEGMENT_SIZE = 16 * 1024 * 1024;
+    public static final long DISK_BUDGET = 256L * 1024 * 1024;
+    public static final long SYNC_INTERVAL = 1000L;
+
+    /**
+     * Constructor
+     * @param builder
+     */
+    private SpoolOptions(OptionsBuilder builder) {
+        checkArgument(builder.directory != null, "Spool directory must be specified.");
+
+        this.directory = builder.directory;
+        this.segmentSize = SensorValidator.chkPositiveIntValue(builder.segmentSize, SEGMENT_SIZE);
+        this.diskBudget = (builder.diskBudget > 0L) ? builder.diskBudget : DISK_BUDGET;
+        this.syncInterval = (builder.syncInterval > 0L) ? builder.syncInterval : SYNC_INTERVAL;
+
+        checkArgument(diskBudget >= segmentSize, "Spool disk budget must hold at least one segment.");
+    }
+
+    /**
+     * Get the spool directory.
+     * @return directory
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Get the size in bytes of each segment file.
+     * @return segment size
+     */
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    /**
+     * Get the maximum number of bytes all segment files may occupy.
+     * @return disk budget
+     */
+    public long getDiskBudget() {
+        return diskBudget;
+    }
+
+    /**
+     * Get the interval in milliseconds between flushes of mapped pages to disk.
+     * @return sync interval
+     */
+    public long getSyncInterval() {
+        return syncInterval;
+    }
+
+    /**
+     * Builder class provides a fluid interface for setting options properties.
+     */
+    public static class OptionsBuilder {
+        private File directory;
+        private int segmentSize = 0;
+        private long diskBudget = 0L;
+        private long syncInterval = 0L;
+
+        /**
+         * Constructor
+         */
+        public OptionsBuilder() {
+
+        }
+
+        /**
+         * @param directory
+         * @return builder
+         */
+        public OptionsBuilder directory(final File directory) {
+            this.directory = directory;
+            return this;
+        }
+
+        /**
+         * @param segmentSize
+         * @return builder
+         */
+        public OptionsBuilder segmentSize(final int segmentSize) {
+            this.segmentSize = segmentSize;
+            return this;
+        }
+
+        /**
+         * @param diskBudget
+         * @return builder
+         */
+        public OptionsBuilder diskBudget(final long diskBudget) {
+            this.diskBudget = diskBudget;
+            return this;
+        }
+
+        /**
+         * @param syncInterval
+         * @return builder
+         */
+        public OptionsBuilder syncInterval(final long syncInterval) {
+            this.syncInterval = syncInterval;
+            return this;
+        }
+
+        /**
+         * Client invokes build method in order to create an immutable object.
+         * @return a new instance of Options.
+         */
+        public SpoolOptions build() {
+            return new SpoolOptions(this);
+        }
+    }
+
+    /**
+     * Static Factory method.
+     * @return new builder instance
+     */
+    public static OptionsBuilder builder() {
+        return new OptionsBuilder();
+    }
+}
@@ -55,8 +55,14 @@ class AtomicDouble extends Number {
         return (float)get();
     }
 
-    public final double addAndGet(double newValue) {
-        return Double.longBitsToDouble(bits.addAndGet(doubleToLongBits(newValue)));
+    public final double addAndGet(double delta) {
+        while (true) {
+            long current = bits.get();
+            double next = Double.longBitsToDouble(current) + delta;
+            if (bits.compareAndSet(current, doubleToLongBits(next))) {
+                return next;
+            }
+        }
     }
 
     public final double getAndSet(double newValue) {
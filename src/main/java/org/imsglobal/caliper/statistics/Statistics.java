@@ -29,6 +29,44 @@ public class Statistics extends StatisticsMap {
     private static String SUCCESSFUL_KEY = "Successful";
     private static String FAILED_KEY = "Failed";
 
+    private static String BATCH_SIZE_KEY = "Batch Size";
+    private static String BATCH_FILL_RATIO_KEY = "Batch Fill Ratio";
+
+    private static String QUEUE_DEPTH_KEY = "Queue Depth";
+    private static String DROPPED_KEY = "Dropped";
+    private static String SPILLED_KEY = "Spilled";
+    private static String REPLAYED_KEY = "Replayed";
+
+    private static String POOL_LEASED_KEY = "Pool Leased";
+    private static String POOL_AVAILABLE_KEY = "Pool Available";
+    private static String POOL_PENDING_KEY = "Pool Pending";
+
+    private static String RAW_BYTES_KEY = "Raw Bytes";
+    private static String COMPRESSED_BYTES_KEY = "Compressed Bytes";
+
+    private static String ACTIVE_STREAMS_KEY = "Active Streams";
+
+    private static String RETRIED_KEY = "Retried";
+
+    private static String CIRCUIT_OPENED_KEY = "Circuit Opened";
+    private static String CIRCUIT_HALF_OPENED_KEY = "Circuit Half Opened";
+    private static String CIRCUIT_CLOSED_KEY = "Circuit Closed";
+    private static String SHORT_CIRCUITED_KEY = "Short Circuited";
+
+    private static String BUFFER_HITS_KEY = "Buffer Hits";
+    private static String BUFFER_MISSES_KEY = "Buffer Misses";
+    private static String BUFFER_LEAKS_KEY = "Buffer Leaks";
+
+    private static String CONCURRENCY_LIMIT_KEY = "Concurrency Limit";
+    private static String RTT_KEY = "RTT";
+
+    private static String RATE_LIMITED_KEY = "Rate Limited";
+    private static String RATE_LIMIT_DELAY_KEY = "Rate Limit Delay";
+
+    private static String DESCRIBED_HITS_KEY = "Described Hits";
+    private static String DESCRIBED_MISSES_KEY = "Described Misses";
+    private static String DESCRIBED_BYTES_SAVED_KEY = "Described Bytes Saved";
+
     public Statistic getDescribes() {
         return ensure(DESCRIBE_KEY);
     }
@@ -60,4 +98,220 @@ public class Statistics extends StatisticsMap {
     public void updateFailed(double val) {
         update(FAILED_KEY, val);
     }
-}
\ No newline at end of file
+
+    public Statistic getBatchSize() {
+        return ensure(BATCH_SIZE_KEY);
+    }
+
+    public void updateBatchSize(double val) {
+        update(BATCH_SIZE_KEY, val);
+    }
+
+    public Statistic getBatchFillRatio() {
+        return ensure(BATCH_FILL_RATIO_KEY);
+    }
+
+    public void updateBatchFillRatio(double val) {
+        update(BATCH_FILL_RATIO_KEY, val);
+    }
+
+    public Statistic getQueueDepth() {
+        return ensure(QUEUE_DEPTH_KEY);
+    }
+
+    public void updateQueueDepth(double val) {
+        update(QUEUE_DEPTH_KEY, val);
+    }
+
+    public Statistic getDropped() {
+        return ensure(DROPPED_KEY);
+    }
+
+    public void updateDropped(double val) {
+        update(DROPPED_KEY, val);
+    }
+
+    public Statistic getSpilled() {
+        return ensure(SPILLED_KEY);
+    }
+
+    public void updateSpilled(double val) {
+        update(SPILLED_KEY, val);
+    }
+
+    public Statistic getReplayed() {
+        return ensure(REPLAYED_KEY);
+    }
+
+    public void updateReplayed(double val) {
+        update(REPLAYED_KEY, val);
+    }
+
+    public Statistic getPoolLeased() {
+        return ensure(POOL_LEASED_KEY);
+    }
+
+    public void updatePoolLeased(double val) {
+        update(POOL_LEASED_KEY, val);
+    }
+
+    public Statistic getPoolAvailable() {
+        return ensure(POOL_AVAILABLE_KEY);
+    }
+
+    public void updatePoolAvailable(double val) {
+        update(POOL_AVAILABLE_KEY, val);
+    }
+
+    public Statistic getPoolPending() {
+        return ensure(POOL_PENDING_KEY);
+    }
+
+    public void updatePoolPending(double val) {
+        update(POOL_PENDING_KEY, val);
+    }
+
+    public Statistic getRawBytes() {
+        return ensure(RAW_BYTES_KEY);
+    }
+
+    public void updateRawBytes(double val) {
+        update(RAW_BYTES_KEY, val);
+    }
+
+    public Statistic getCompressedBytes() {
+        return ensure(COMPRESSED_BYTES_KEY);
+    }
+
+    public void updateCompressedBytes(double val) {
+        update(COMPRESSED_BYTES_KEY, val);
+    }
+
+    public Statistic getActiveStreams() {
+        return ensure(ACTIVE_STREAMS_KEY);
+    }
+
+    public void updateActiveStreams(double val) {
+        update(ACTIVE_STREAMS_KEY, val);
+    }
+
+    public Statistic getRetried() {
+        return ensure(RETRIED_KEY);
+    }
+
+    public void updateRetried(double val) {
+        update(RETRIED_KEY, val);
+    }
+
+    public Statistic getCircuitOpened() {
+        return ensure(CIRCUIT_OPENED_KEY);
+    }
+
+    public void updateCircuitOpened(double val) {
+        update(CIRCUIT_OPENED_KEY, val);
+    }
+
+    public Statistic getCircuitHalfOpened() {
+        return ensure(CIRCUIT_HALF_OPENED_KEY);
+    }
+
+    public void updateCircuitHalfOpened(double val) {
+        update(CIRCUIT_HALF_OPENED_KEY, val);
+    }
+
+    public Statistic getCircuitClosed() {
+        return ensure(CIRCUIT_CLOSED_KEY);
+    }
+
+    public void updateCircuitClosed(double val) {
+        update(CIRCUIT_CLOSED_KEY, val);
+    }
+
+    public Statistic getShortCircuited() {
+        return ensure(SHORT_CIRCUITED_KEY);
+    }
+
+    public void updateShortCircuited(double val) {
+        update(SHORT_CIRCUITED_KEY, val);
+    }
+
+    public Statistic getBufferHits() {
+        return ensure(BUFFER_HITS_KEY);
+    }
+
+    public void updateBufferHits(double val) {
+        update(BUFFER_HITS_KEY, val);
+    }
+
+    public Statistic getBufferMisses() {
+        return ensure(BUFFER_MISSES_KEY);
+    }
+
+    public void updateBufferMisses(double val) {
+        update(BUFFER_MISSES_KEY, val);
+    }
+
+    public Statistic getBufferLeaks() {
+        return ensure(BUFFER_LEAKS_KEY);
+    }
+
+    public void updateBufferLeaks(double val) {
+        update(BUFFER_LEAKS_KEY, val);
+    }
+
+    public Statistic getConcurrencyLimit() {
+        return ensure(CONCURRENCY_LIMIT_KEY);
+    }
+
+    public void updateConcurrencyLimit(double val) {
+        update(CONCURRENCY_LIMIT_KEY, val);
+    }
+
+    public Statistic getRtt() {
+        return ensure(RTT_KEY);
+    }
+
+    public void updateRtt(double val) {
+        update(RTT_KEY, val);
+    }
+
+    public Statistic getRateLimited() {
+        return ensure(RATE_LIMITED_KEY);
+    }
+
+    public void updateRateLimited(double val) {
+        update(RATE_LIMITED_KEY, val);
+    }
+
+    public Statistic getRateLimitDelay() {
+        return ensure(RATE_LIMIT_DELAY_KEY);
+    }
+
+    public void updateRateLimitDelay(double val) {
+        update(RATE_LIMIT_DELAY_KEY, val);
+    }
+
+    public Statistic getDescribedHits() {
+        return ensure(DESCRIBED_HITS_KEY);
+    }
+
+    public void updateDescribedHits(double val) {
+        update(DESCRIBED_HITS_KEY, val);
+    }
+
+    public Statistic getDescribedMisses() {
+        return ensure(DESCRIBED_MISSES_KEY);
+    }
+
+    public void updateDescribedMisses(double val) {
+        update(DESCRIBED_MISSES_KEY, val);
+    }
+
+    public Statistic getDescribedBytesSaved() {
+        return ensure(DESCRIBED_BYTES_SAVED_KEY);
+    }
+
+    public void updateDescribedBytesSaved(double val) {
+        update(DESCRIBED_BYTES_SAVED_KEY, val);
+    }
+}
@@ -0,0 +1,137 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.thinning;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.imsglobal.caliper.statistics.Statistics;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers the entities a client has sent its endpoint in full, keyed by id and a hash of the
+ * entity's content.  While an entry is live, a nested occurrence of the unchanged entity is
+ * written as its IRI, as if the application had coerced it to its id.  A changed entity misses and
+ * is described again.  A payload's new descriptions are kept in its PayloadDescriptions and only
+ * committed here once the endpoint has accepted the payload.  Entries expire a fixed time after
+ * they were written and are evicted least recently used first.
+ */
+public class DescribedEntityCache {
+    private final Cache<String, Long> entries;
+    private final Statistics statistics;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Constructor
+     * @param options
+     * @param statistics
+     * @param ticker
+     */
+    DescribedEntityCache(DescribedEntityCacheOptions options, Statistics statistics, Ticker ticker) {
+        this.entries = CacheBuilder.newBuilder()
+            .expireAfterWrite(options.getTtl(), TimeUnit.MILLISECONDS)
+            .maximumSize(options.getMaximumSize())
+            .ticker(ticker)
+            .build();
+        this.statistics = statistics;
+    }
+
+    /**
+     * Factory method
+     * @param options
+     * @param statistics
+     * @return cache
+     */
+    public static DescribedEntityCache create(DescribedEntityCacheOptions options, Statistics statistics) {
+        return new DescribedEntityCache(options, statistics, Ticker.systemTicker());
+    }
+
+    /**
+     * Start recording the entities a new payload describes.
+     * @return descriptions of the payload
+     */
+    public PayloadDescriptions newPayload() {
+        return new PayloadDescriptions(this);
+    }
+
+    /**
+     * Has the endpoint accepted an unchanged description of the entity?
+     * @param id
+     * @param contentHash
+     * @return true if a live entry matches
+     */
+    boolean contains(String id, long contentHash) {
+        Long described = entries.getIfPresent(id);
+        return described != null && described == contentHash;
+    }
+
+    /**
+     * Count an entity written as its IRI.
+     * @param id
+     * @param length the length of the entity's full description
+     */
+    void recordHit(String id, int length) {
+        hits.incrementAndGet();
+        statistics.updateDescribedHits(1);
+        statistics.updateDescribedBytesSaved(Math.max(0, length - id.length() - 2));
+    }
+
+    /**
+     * Count an entity described in full.
+     */
+    void recordMiss() {
+        misses.incrementAndGet();
+        statistics.updateDescribedMisses(1);
+    }
+
+    /**
+     * Remember the descriptions of an accepted payload.
+     * @param described content hashes keyed by id
+     */
+    void putAll(Map<String, Long> described) {
+        entries.putAll(described);
+    }
+
+    /**
+     * Forget every entity, so that each is described again.
+     */
+    public void invalidateAll() {
+        entries.invalidateAll();
+    }
+
+    /**
+     * @return the number of entities remembered
+     */
+    public long size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the fraction of lookups that found an unchanged, live entry
+     */
+    public double getHitRate() {
+        long hit = hits.get();
+        long total = hit + misses.get();
+        return (total == 0L) ? 0.0 : (double) hit / total;
+    }
+}
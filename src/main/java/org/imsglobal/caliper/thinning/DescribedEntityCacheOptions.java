@@ -0,0 +1,107 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.thinning;
+
+/**
+ * Bounds on the entities a client remembers having described to its endpoint.  An entry expires
+ * ttl milliseconds after the entity was last sent in full, so that a collector that forgets
+ * entities is described them again; beyond maximumSize the least recently used entries are evicted.
+ */
+public class DescribedEntityCacheOptions {
+    private final long ttl;
+    private final int maximumSize;
+
+    /**
+     * Defaults.
+     */
+    public static final long TTL = 300000L;
+    public static final int MAXIMUM_SIZE = 10000;
+
+    /**
+     * Constructor
+     * @param builder
+     */
+    private DescribedEntityCacheOptions(Builder builder) {
+        this.ttl = (builder.ttl > 0L) ? builder.ttl : TTL;
+        this.maximumSize = (builder.maximumSize > 0) ? builder.maximumSize : MAXIMUM_SIZE;
+    }
+
+    /**
+     * @return how long an entity counts as described after it was last sent in full, in milliseconds
+     */
+    public long getTtl() {
+        return ttl;
+    }
+
+    /**
+     * @return the most entities remembered
+     */
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Builder class provides a fluid interface for setting cache bounds.
+     */
+    public static class Builder {
+        private long ttl = 0L;
+        private int maximumSize = 0;
+
+        /**
+         * Constructor
+         */
+        public Builder() {
+
+        }
+
+        /**
+         * @param ttl
+         * @return builder
+         */
+        public Builder ttl(final long ttl) {
+            this.ttl = ttl;
+            return this;
+        }
+
+        /**
+         * @param maximumSize
+         * @return builder
+         */
+        public Builder maximumSize(final int maximumSize) {
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * Client invokes build method in order to create an immutable object.
+         * @return a new instance of DescribedEntityCacheOptions.
+         */
+        public DescribedEntityCacheOptions build() {
+            return new DescribedEntityCacheOptions(this);
+        }
+    }
+
+    /**
+     * Static Factory method.
+     * @return new builder instance
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+}
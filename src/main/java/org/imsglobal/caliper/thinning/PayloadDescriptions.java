@@ -0,0 +1,76 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.thinning;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The entities one payload describes in full.  A nested entity is written as its IRI if the
+ * endpoint has accepted an unchanged description of it, or if the payload already describes it
+ * unchanged earlier on.  The payload's own descriptions reach the DescribedEntityCache only when
+ * committed, once the endpoint has accepted the payload.  Not thread-safe: one instance serves
+ * one payload.
+ */
+public final class PayloadDescriptions {
+    private final DescribedEntityCache cache;
+    private final Map<String, Long> described = new HashMap<>();
+
+    /**
+     * Constructor
+     * @param cache
+     */
+    PayloadDescriptions(DescribedEntityCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Check whether an entity has already been described and, if not, record that this payload
+     * describes it.
+     * @param id
+     * @param contentHash
+     * @param length the length of the entity's full description
+     * @return true if the entity may be written as its IRI
+     */
+    public boolean isDescribed(String id, long contentHash, int length) {
+        Long earlier = described.get(id);
+        if ((earlier != null && earlier == contentHash) || cache.contains(id, contentHash)) {
+            cache.recordHit(id, length);
+            return true;
+        }
+
+        described.put(id, contentHash);
+        cache.recordMiss();
+        return false;
+    }
+
+    /**
+     * Remember this payload's descriptions in the cache.  Call once the endpoint has accepted it.
+     */
+    public void commit() {
+        cache.putAll(described);
+    }
+
+    /**
+     * @return the number of entities this payload describes in full
+     */
+    public int size() {
+        return described.size();
+    }
+}
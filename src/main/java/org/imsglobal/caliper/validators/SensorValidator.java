@@ -20,6 +20,8 @@ package org.imsglobal.caliper.validators;
 
 import com.google.common.base.Strings;
 import org.imsglobal.caliper.clients.CaliperClientOptions;
+import org.imsglobal.caliper.config.DataFormat;
+import org.imsglobal.caliper.databind.CaliperSerializer;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
@@ -51,6 +53,17 @@ public class SensorValidator {
         checkArgument(!(Strings.isNullOrEmpty(id)), className + " instance id property must be specified.");
     }
 
+    /**
+     * Check that the serializer can write the data format.
+     *
+     * @param dataFormat
+     * @throws IllegalArgumentException
+     */
+    public static void chkDataFormat(DataFormat dataFormat) throws IllegalArgumentException {
+        checkArgument(dataFormat == null || CaliperSerializer.getInstance().isSupported(dataFormat),
+            "Unsupported data format: %s", dataFormat);
+    }
+
     /**
      * Check options
      *
@@ -82,6 +95,17 @@ public class SensorValidator {
         return (builderValue > defaultValue) ? builderValue : defaultValue;
     }
 
+    /**
+     * Check user-supplied integer value; if not positive return the default config value.
+     * Unlike chkIntValue, a positive builder value smaller than the default is honored.
+     * @param builderValue
+     * @param defaultValue
+     * @return
+     */
+    public static int chkPositiveIntValue(int builderValue, int defaultValue) {
+        return (builderValue > 0) ? builderValue : defaultValue;
+    }
+
     /**
      * Check user-supplied integer value against default config value;
      * if null or empty return default config value.
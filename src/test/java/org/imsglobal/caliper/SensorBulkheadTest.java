@@ -0,0 +1,105 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper;
+
+import org.imsglobal.caliper.bulkhead.BulkheadOptions;
+import org.imsglobal.caliper.clients.FanOutResult;
+import org.imsglobal.caliper.clients.SendResult;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@Category(org.imsglobal.caliper.UnitTest.class)
+public class SensorBulkheadTest {
+
+    @Test
+    public void stalledClientDoesNotDelayOthers() throws Exception {
+        CountDownLatch stall = new CountDownLatch(1);
+        StubClient primary = new StubClient("primary", null);
+        StubClient secondary = new StubClient("secondary", stall);
+
+        Sensor sensor = Sensor.create("https://example.edu/sensors/1");
+        sensor.registerClient(primary);
+        sensor.registerClient(secondary, BulkheadOptions.builder().timeout(200L).build());
+
+        long start = System.currentTimeMillis();
+        FanOutResult result = sensor.send(TestUtils.createEnvelope(1));
+        long elapsed = System.currentTimeMillis() - start;
+        stall.countDown();
+
+        assertFalse(result.isSuccessful());
+        assertTrue(result.getResult("primary").isSuccessful());
+        assertTrue(result.getResult("secondary").getError() instanceof TimeoutException);
+        assertEquals(1, result.getFailures().size());
+        assertEquals(1, primary.sent.get());
+        assertTrue(elapsed < 5000L);
+    }
+
+    @Test
+    public void failingClientDoesNotSkipOthers() throws Exception {
+        Sensor sensor = Sensor.create("https://example.edu/sensors/1");
+        sensor.registerClient(new FailingClient("failing"));
+        StubClient healthy = new StubClient("healthy", null);
+        sensor.registerClient(healthy);
+
+        FanOutResult result = sensor.send(TestUtils.createEnvelope(1));
+
+        assertEquals(2, result.getResults().size());
+        assertTrue(result.getResult("healthy").isSuccessful());
+        assertFalse(result.getResult("failing").isSuccessful());
+        assertTrue(result.getResult("failing").getError() instanceof IllegalStateException);
+        assertEquals(1, healthy.sent.get());
+    }
+
+    @Test
+    public void fullBulkheadRejectsSend() throws Exception {
+        CountDownLatch stall = new CountDownLatch(1);
+        Sensor sensor = Sensor.create("https://example.edu/sensors/1");
+        sensor.registerClient(new StubClient("slow", stall),
+            BulkheadOptions.builder().threads(1).queueSize(1).timeout(50L).build());
+
+        Envelope envelope = TestUtils.createEnvelope(1);
+        sensor.send(envelope);
+        sensor.send(envelope);
+        SendResult rejected = sensor.send(envelope).getResult("slow");
+        stall.countDown();
+
+        assertFalse(rejected.isSuccessful());
+        assertTrue(rejected.getError() instanceof RejectedExecutionException);
+    }
+
+    private static class FailingClient extends StubClient {
+
+        FailingClient(String id) {
+            super(id, null);
+        }
+
+        @Override
+        public void send(Envelope envelope) {
+            throw new IllegalStateException("endpoint unavailable");
+        }
+    }
+}
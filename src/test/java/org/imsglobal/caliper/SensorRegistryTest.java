@@ -0,0 +1,137 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper;
+
+import org.imsglobal.caliper.clients.FanOutResult;
+import org.imsglobal.caliper.clients.FlushResult;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@Category(org.imsglobal.caliper.UnitTest.class)
+public class SensorRegistryTest {
+
+    @Test
+    public void sendsTolerateConcurrentRegistrationChanges() throws Exception {
+        final Sensor sensor = Sensor.create("https://example.edu/sensors/1");
+        sensor.registerClient(new StubClient("primary", null));
+        final Envelope envelope = TestUtils.createEnvelope(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> churn = executor.submit(() -> {
+                for (int i = 0; i < 500; i++) {
+                    sensor.registerClient(new StubClient("secondary-" + (i % 5), null));
+                    sensor.unregisterClient("secondary-" + ((i + 2) % 5));
+                }
+            });
+            Future<?> sends = executor.submit(() -> {
+                for (int i = 0; i < 500; i++) {
+                    FanOutResult result = sensor.send(envelope);
+                    assertTrue(result.getResult("primary").isSuccessful());
+                }
+            });
+            churn.get(30, TimeUnit.SECONDS);
+            sends.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void drainClientCompletesAfterOutstandingSends() throws Exception {
+        CountDownLatch stall = new CountDownLatch(1);
+        final StubClient client = new StubClient("warehouse", stall);
+        final Sensor sensor = Sensor.create("https://example.edu/sensors/1");
+        sensor.registerClient(client);
+
+        CompletableFuture<FanOutResult> inFlight = CompletableFuture.supplyAsync(
+            () -> sensor.send(TestUtils.createEnvelope(1)));
+        Thread.sleep(100L);
+
+        CompletableFuture<Void> drained = sensor.drainClient("warehouse");
+        assertNull(sensor.getClient("warehouse"));
+        assertFalse(drained.isDone());
+
+        stall.countDown();
+        drained.get(10, TimeUnit.SECONDS);
+        assertEquals(1, client.sent.get());
+        assertTrue(inFlight.get(10, TimeUnit.SECONDS).isSuccessful());
+    }
+
+    @Test
+    public void reregistrationHandsOffToReplacement() {
+        Sensor sensor = Sensor.create("https://example.edu/sensors/1");
+        StubClient original = new StubClient("collector", null);
+        StubClient replacement = new StubClient("collector", null);
+        sensor.registerClient(original);
+        sensor.registerClient(replacement);
+
+        sensor.send(TestUtils.createEnvelope(1));
+        assertSame(replacement, sensor.getClient("collector"));
+        assertEquals(1, sensor.getClients().size());
+        assertEquals(0, original.sent.get());
+        assertEquals(1, replacement.sent.get());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void clientSnapshotIsImmutable() {
+        Sensor sensor = Sensor.create("https://example.edu/sensors/1");
+        sensor.getClients().put("rogue", new StubClient("rogue", null));
+    }
+
+    @Test
+    public void closeWaitsForDispatchedSendsAndUnregisters() throws Exception {
+        final CountDownLatch stall = new CountDownLatch(1);
+        StubClient client = new StubClient("warehouse", stall);
+        final Sensor sensor = Sensor.create("https://example.edu/sensors/1");
+        sensor.registerClient(client);
+
+        CompletableFuture<FanOutResult> inFlight = CompletableFuture.supplyAsync(
+            () -> sensor.send(TestUtils.createEnvelope(1)));
+        Thread.sleep(100L);
+        CompletableFuture.runAsync(() -> {
+            try {
+                Thread.sleep(100L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            stall.countDown();
+        });
+
+        FlushResult result = sensor.close(Duration.ofSeconds(5));
+        assertEquals(1, client.sent.get());
+        assertTrue(result.isComplete());
+        assertTrue(sensor.getClients().isEmpty());
+        assertTrue(inFlight.get(5, TimeUnit.SECONDS).isSuccessful());
+    }
+}
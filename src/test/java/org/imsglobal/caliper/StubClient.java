@@ -0,0 +1,82 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper;
+
+import org.imsglobal.caliper.clients.CaliperClient;
+import org.imsglobal.caliper.clients.CaliperClientOptions;
+import org.imsglobal.caliper.clients.SendResult;
+import org.imsglobal.caliper.statistics.Statistics;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Client that records sends, optionally blocking each one until released.
+ */
+class StubClient implements CaliperClient {
+    private final String id;
+    private final CountDownLatch stall;
+    private final Statistics statistics = new Statistics();
+    final AtomicInteger sent = new AtomicInteger();
+
+    StubClient(String id, CountDownLatch stall) {
+        this.id = id;
+        this.stall = stall;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public CaliperClientOptions getOptions() {
+        return null;
+    }
+
+    @Override
+    public Statistics getStatistics() {
+        return statistics;
+    }
+
+    @Override
+    public void send(Envelope envelope) {
+        if (stall != null) {
+            try {
+                stall.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        sent.incrementAndGet();
+    }
+
+    @Override
+    public CompletableFuture<SendResult> sendAsync(Envelope envelope) {
+        send(envelope);
+        return CompletableFuture.completedFuture(SendResult.success(id, 200, 0L));
+    }
+
+    @Override
+    public boolean offer(Envelope envelope) {
+        send(envelope);
+        return true;
+    }
+}
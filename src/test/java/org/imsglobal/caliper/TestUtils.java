@@ -23,9 +23,27 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
 import com.fasterxml.jackson.databind.util.ISO8601DateFormat;
 import com.fasterxml.jackson.datatype.joda.JodaModule;
+import org.imsglobal.caliper.actions.Action;
+import org.imsglobal.caliper.config.Config;
+import org.imsglobal.caliper.context.JsonldStringContext;
 import org.imsglobal.caliper.databind.JxnCoercibleSimpleModule;
+import org.imsglobal.caliper.entities.agent.CourseSection;
+import org.imsglobal.caliper.entities.agent.Membership;
+import org.imsglobal.caliper.entities.agent.Person;
+import org.imsglobal.caliper.entities.agent.Role;
+import org.imsglobal.caliper.entities.agent.SoftwareApplication;
+import org.imsglobal.caliper.entities.agent.Status;
+import org.imsglobal.caliper.entities.resource.WebPage;
+import org.imsglobal.caliper.entities.session.Session;
+import org.imsglobal.caliper.events.NavigationEvent;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+import java.util.ArrayList;
+import java.util.List;
 
 public class TestUtils {
+    private static final String BASE_IRI = "https://example.edu";
 
     /**
      * Create Caliper-friendly ObjectMapper.
@@ -43,4 +61,74 @@ public class TestUtils {
 
         return mapper;
     }
-}
\ No newline at end of file
+
+    /**
+     * Build a fully described NavigationEvent.
+     * @param page
+     * @return event
+     */
+    public static NavigationEvent createNavigationEvent(int page) {
+        Person actor = Person.builder().id(BASE_IRI.concat("/users/554433")).build();
+
+        WebPage object = WebPage.builder()
+            .id(BASE_IRI.concat("/terms/201601/courses/7/sections/1/pages/" + (page + 1)))
+            .name("Learning Analytics Specifications")
+            .description("Overview of Learning Analytics Specifications with particular emphasis on IMS Caliper.")
+            .dateCreated(new DateTime(2016, 8, 1, 9, 0, 0, 0, DateTimeZone.UTC))
+            .build();
+
+        WebPage referrer = WebPage.builder()
+            .id(BASE_IRI.concat("/terms/201601/courses/7/sections/1/pages/" + page))
+            .build();
+
+        SoftwareApplication edApp = SoftwareApplication.builder().id(BASE_IRI).build();
+
+        CourseSection group = CourseSection.builder().id(BASE_IRI.concat("/terms/201601/courses/7/sections/1"))
+            .courseNumber("CPS 435-01")
+            .academicSession("Fall 2016")
+            .build();
+
+        Membership membership = Membership.builder()
+            .id(BASE_IRI.concat("/terms/201601/courses/7/sections/1/rosters/1"))
+            .member(actor)
+            .organization(CourseSection.builder().id(group.getId()).build())
+            .status(Status.ACTIVE)
+            .role(Role.LEARNER)
+            .dateCreated(new DateTime(2016, 8, 1, 6, 0, 0, 0, DateTimeZone.UTC))
+            .build();
+
+        Session session = Session.builder()
+            .id(BASE_IRI.concat("/sessions/1f6442a482de72ea6ad134943812bff564a76259"))
+            .startedAtTime(new DateTime(2016, 11, 15, 10, 0, 0, 0, DateTimeZone.UTC))
+            .build();
+
+        return NavigationEvent.builder()
+            .context(JsonldStringContext.getDefault())
+            .id("urn:uuid:ff9ec22a-fc59-4ae1-ae8d-2c9463ee2f8f")
+            .actor(actor)
+            .action(Action.NAVIGATED_TO)
+            .object(object)
+            .eventTime(new DateTime(2016, 11, 15, 10, 15, 0, 0, DateTimeZone.UTC))
+            .referrer(referrer)
+            .edApp(edApp)
+            .group(group)
+            .membership(membership)
+            .session(session)
+            .build();
+    }
+
+    /**
+     * Create an Envelope containing the given number of NavigationEvents.
+     * @param count
+     * @return envelope
+     */
+    public static Envelope createEnvelope(int count) {
+        List<CaliperSendable> data = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            data.add(createNavigationEvent(i + 1));
+        }
+
+        return new Envelope(BASE_IRI.concat("/sensors/1"),
+            new DateTime(2016, 11, 15, 11, 5, 1, 0, DateTimeZone.UTC), Config.DATA_VERSION, data);
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.buffer;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@Category(org.imsglobal.caliper.UnitTest.class)
+public class BufferPoolTest {
+
+    @Test
+    public void releasedBufferIsReused() {
+        BufferPool pool = BufferPool.create(1, false);
+
+        PooledOutputStream out = new PooledOutputStream(pool, 100);
+        out.write(new byte[100], 0, 100);
+        PooledBuffer first = out.toBuffer();
+        assertEquals(BufferPool.MIN_SIZE, first.array().length);
+        assertEquals(100, first.length());
+        first.release();
+
+        PooledBuffer second = new PooledOutputStream(pool, 200).toBuffer();
+        assertSame(first.array(), second.array());
+        assertEquals(1, pool.getStatistics().getBufferHits().getCount());
+        assertEquals(1, pool.getStatistics().getBufferMisses().getCount());
+    }
+
+    @Test
+    public void streamGrowsAcrossSizeClasses() {
+        BufferPool pool = BufferPool.create(1, false);
+        byte[] chunk = "0123456789".getBytes(StandardCharsets.UTF_8);
+
+        PooledOutputStream out = new PooledOutputStream(pool, 16);
+        for (int i = 0; i < 500; i++) {
+            out.write(chunk, 0, chunk.length);
+        }
+        PooledBuffer buffer = out.toBuffer();
+        assertEquals(5000, buffer.length());
+        assertEquals(8192, buffer.array().length);
+        assertArrayEquals(chunk, Arrays.copyOfRange(buffer.toByteArray(), 4990, 5000));
+        buffer.release();
+
+        // Smaller arrays released while growing are available again.
+        assertEquals(BufferPool.MIN_SIZE, new PooledOutputStream(pool, 16).toBuffer().array().length);
+        assertTrue(pool.getStatistics().getBufferHits().getCount() >= 1);
+    }
+
+    @Test
+    public void unpooledBufferIgnoresRelease() {
+        byte[] bytes = new byte[] {1, 2, 3};
+        PooledBuffer buffer = PooledBuffer.wrap(bytes);
+        buffer.release();
+        assertSame(bytes, buffer.toByteArray());
+    }
+
+    @Test
+    public void unreleasedBufferIsReportedAsLeak() throws Exception {
+        BufferPool pool = BufferPool.create(1, true);
+        leak(pool);
+
+        for (int i = 0; i < 50 && pool.getStatistics().getBufferLeaks().getCount() == 0; i++) {
+            System.gc();
+            Thread.sleep(20);
+            pool.reportLeaks();
+        }
+        assertEquals(1, pool.getStatistics().getBufferLeaks().getCount());
+    }
+
+    private static void leak(BufferPool pool) {
+        PooledOutputStream out = new PooledOutputStream(pool, 10);
+        out.write(42);
+        out.toBuffer();
+    }
+}
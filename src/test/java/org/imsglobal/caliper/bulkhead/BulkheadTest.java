@@ -0,0 +1,132 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.bulkhead;
+
+import org.imsglobal.caliper.concurrent.DispatchExecutors;
+import org.imsglobal.caliper.concurrent.ExecutorMode;
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@Category(org.imsglobal.caliper.UnitTest.class)
+public class BulkheadTest {
+
+    @Test
+    public void autoModeMatchesRunningJdk() {
+        Bulkhead bulkhead = Bulkhead.create("auto", BulkheadOptions.builder()
+            .executorMode(ExecutorMode.AUTO)
+            .build());
+        ExecutorMode expected = DispatchExecutors.isVirtualThreadSupported() ? ExecutorMode.VIRTUAL : ExecutorMode.PLATFORM;
+        assertEquals(expected, bulkhead.getMode());
+        bulkhead.shutdown();
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void virtualModeRequiresSupport() {
+        Assume.assumeTrue(!DispatchExecutors.isVirtualThreadSupported());
+        Bulkhead.create("virtual", BulkheadOptions.builder().executorMode(ExecutorMode.VIRTUAL).build());
+    }
+
+    @Test
+    public void limitsApplyInEveryMode() throws Exception {
+        checkLimits(ExecutorMode.PLATFORM);
+        if (DispatchExecutors.isVirtualThreadSupported()) {
+            checkLimits(ExecutorMode.VIRTUAL);
+        }
+    }
+
+    @Test
+    public void drainRefusesSendsNotYetStarted() throws Exception {
+        Bulkhead bulkhead = Bulkhead.create("draining", BulkheadOptions.builder().build());
+        CompletableFuture<Void> inFlight = new CompletableFuture<>();
+        bulkhead.track(() -> inFlight);
+
+        CompletableFuture<Void> drained = bulkhead.drain();
+        AtomicBoolean started = new AtomicBoolean();
+        CompletableFuture<Void> late = bulkhead.track(() -> {
+            started.set(true);
+            return new CompletableFuture<>();
+        });
+
+        assertFalse(started.get());
+        assertTrue(late.isCompletedExceptionally());
+        assertEquals(1, bulkhead.getOutstanding());
+        assertFalse(drained.isDone());
+
+        inFlight.complete(null);
+        drained.get(10, TimeUnit.SECONDS);
+        assertEquals(0, bulkhead.getOutstanding());
+    }
+
+    private void checkLimits(ExecutorMode mode) throws Exception {
+        final CountDownLatch started = new CountDownLatch(2);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger peak = new AtomicInteger();
+        Bulkhead bulkhead = Bulkhead.create(mode.name(), BulkheadOptions.builder()
+            .threads(2)
+            .queueSize(2)
+            .executorMode(mode)
+            .build());
+
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(bulkhead.submit(() -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                return 1;
+            }));
+        }
+
+        try {
+            futures.get(4).get(1, TimeUnit.SECONDS);
+            fail(mode + " bulkhead accepted more than threads + queueSize tasks");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        release.countDown();
+        for (int i = 0; i < 4; i++) {
+            assertEquals(1, (int) futures.get(i).get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(2, peak.get());
+        bulkhead.drain().get(10, TimeUnit.SECONDS);
+    }
+}
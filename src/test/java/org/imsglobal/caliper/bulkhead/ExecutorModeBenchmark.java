@@ -0,0 +1,95 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.bulkhead;
+
+import org.imsglobal.caliper.Envelope;
+import org.imsglobal.caliper.TestUtils;
+import org.imsglobal.caliper.clients.HttpClient;
+import org.imsglobal.caliper.clients.HttpClientOptions;
+import org.imsglobal.caliper.clients.StandInReceiver;
+import org.imsglobal.caliper.concurrent.DispatchExecutors;
+import org.imsglobal.caliper.concurrent.ExecutorMode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Compares blocking HttpClient sends dispatched on platform and virtual thread bulkheads against a
+ * receiver that holds each request for a fixed latency.  Not part of the unit test suite.  The JDK 21
+ * classes are only picked up from the multi-release jar, so on JDK 21 run it against the package:
+ *
+ *   mvn -DskipTests package dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *   java -cp target/caliper-java-VERSION.jar:target/test-classes:$(cat target/cp.txt)
+ *       org.imsglobal.caliper.bulkhead.ExecutorModeBenchmark
+ *
+ * Arguments: envelopes, receiver latency in ms, platform threads, virtual concurrency.
+ */
+public class ExecutorModeBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int envelopes = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        long latency = args.length > 1 ? Long.parseLong(args[1]) : 50L;
+        int platformThreads = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        int virtualConcurrency = args.length > 3 ? Integer.parseInt(args[3]) : 5000;
+
+        Envelope envelope = TestUtils.createEnvelope(1);
+        try (StandInReceiver receiver = StandInReceiver.start()) {
+            receiver.setDelay(latency);
+
+            run(receiver, envelope, envelopes, ExecutorMode.PLATFORM, platformThreads);
+            if (DispatchExecutors.isVirtualThreadSupported()) {
+                run(receiver, envelope, envelopes, ExecutorMode.VIRTUAL, virtualConcurrency);
+            } else {
+                System.out.println("VIRTUAL: skipped, requires JDK 21 (running " + System.getProperty("java.version") + ")");
+            }
+        }
+    }
+
+    private static void run(StandInReceiver receiver, final Envelope envelope, int envelopes,
+                            ExecutorMode mode, int concurrency) throws Exception {
+        final HttpClient client = HttpClient.create(mode.name(), HttpClientOptions.builder()
+            .apiKey("869e5ce5-214c-4e85-86c6-b99e8458a592")
+            .host(receiver.getHost())
+            .maxConnections(concurrency)
+            .maxConnectionsPerRoute(concurrency)
+            .build());
+        Bulkhead bulkhead = Bulkhead.create(mode.name(), BulkheadOptions.builder()
+            .threads(concurrency)
+            .queueSize(envelopes)
+            .executorMode(mode)
+            .build());
+
+        long start = System.nanoTime();
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>(envelopes);
+        for (int i = 0; i < envelopes; i++) {
+            futures.add(bulkhead.submit(() -> {
+                client.send(envelope);
+                return Boolean.TRUE;
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()])).join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%-8s concurrency=%-6d envelopes=%-6d %.2fs %.0f envelopes/s live threads=%d%n",
+            mode, concurrency, envelopes, seconds, envelopes / seconds, Thread.activeCount());
+        bulkhead.drain().join();
+        client.close();
+    }
+}
@@ -0,0 +1,139 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.clients;
+
+import org.imsglobal.caliper.Envelope;
+import org.imsglobal.caliper.TestUtils;
+import org.imsglobal.caliper.config.Config;
+import org.imsglobal.caliper.config.DataFormat;
+import org.imsglobal.caliper.databind.CaliperSerializer;
+import org.imsglobal.caliper.events.NavigationEvent;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@Category(org.imsglobal.caliper.UnitTest.class)
+public class BatchingClientTest {
+    private static final String SENSOR_ID = "https://example.edu/sensors/1";
+
+    private RecordingClient delegate;
+    private NavigationEvent event;
+
+    @Before
+    public void setup() {
+        delegate = new RecordingClient("default");
+        event = TestUtils.createNavigationEvent(1);
+    }
+
+    @Test
+    public void flushesWhenMaxEventsReached() throws Exception {
+        BatchingClient client = BatchingClient.create(delegate, BatchingClientOptions.builder()
+            .sensorId(SENSOR_ID).maxEvents(10).linger(60000L).build());
+
+        for (int i = 0; i < 25; i++) {
+            client.add(event);
+        }
+        assertEquals(2, delegate.getEnvelopes().size());
+        assertEquals(10, delegate.getEnvelopes().get(0).getData().size());
+        assertEquals(SENSOR_ID, delegate.getEnvelopes().get(0).getSensorId());
+
+        assertTrue(client.flush().get(1, TimeUnit.SECONDS).isSuccessful());
+        assertEquals(3, delegate.getEnvelopes().size());
+        assertEquals(5, delegate.getEnvelopes().get(2).getData().size());
+
+        assertEquals(3, client.getStatistics().getBatchFillRatio().getCount());
+        assertEquals(0.5, client.getStatistics().getBatchFillRatio().getLast(), 0.0001);
+        assertEquals(25.0, client.getStatistics().getBatchSize().getSum(), 0.0001);
+    }
+
+    @Test
+    public void flushesWhenLingerExpires() throws Exception {
+        BatchingClient client = BatchingClient.create(delegate, BatchingClientOptions.builder()
+            .sensorId(SENSOR_ID).maxEvents(100).linger(50L).build());
+
+        SendResult result = client.add(event).get(5, TimeUnit.SECONDS);
+        assertTrue(result.isSuccessful());
+        assertEquals(1, delegate.getEnvelopes().size());
+        assertEquals(1, delegate.getEnvelopes().get(0).getData().size());
+    }
+
+    @Test
+    public void flushesWhenMaxBytesReached() throws Exception {
+        int size = CaliperSerializer.getInstance().serialize(event, Config.DATA_FORMAT).length;
+        BatchingClient client = BatchingClient.create(delegate, BatchingClientOptions.builder()
+            .sensorId(SENSOR_ID).maxEvents(100).maxBytes(3 * size).linger(60000L).build());
+
+        for (int i = 0; i < 10; i++) {
+            client.add(event);
+        }
+        assertEquals(3, delegate.getEnvelopes().size());
+        for (Envelope envelope : delegate.getEnvelopes()) {
+            assertEquals(3, envelope.getData().size());
+        }
+    }
+
+    @Test
+    public void measuresInDelegateDataFormat() throws Exception {
+        int size = CaliperSerializer.getInstance().serialize(event, DataFormat.SMILE).length;
+        try (StandInReceiver receiver = StandInReceiver.start();
+             BatchingClient client = BatchingClient.create(HttpClient.create("smile", HttpClientOptions.builder()
+                 .apiKey("869e5ce5-214c-4e85-86c6-b99e8458a592")
+                 .host(receiver.getHost())
+                 .dataFormat(DataFormat.SMILE)
+                 .build()), BatchingClientOptions.builder()
+                 .sensorId(SENSOR_ID).maxEvents(100).maxBytes(3 * size).linger(60000L).build())) {
+
+            for (int i = 0; i < 7; i++) {
+                client.add(event);
+            }
+            client.flush(Duration.ofSeconds(5));
+
+            int events = 0;
+            int largest = 0;
+            for (int i = 0; i < receiver.getRequestCount(); i++) {
+                assertEquals(DataFormat.SMILE.getContentType(), receiver.getHeaders().get(i).getFirst("Content-Type"));
+                int batched = receiver.getEnvelope(i).get("data").size();
+                events += batched;
+                largest = Math.max(largest, batched);
+            }
+            assertEquals(7, events);
+            assertEquals(3, largest);
+        }
+    }
+
+    @Test
+    public void sendAsyncBatchesEnvelopeData() throws Exception {
+        BatchingClient client = BatchingClient.create(delegate, BatchingClientOptions.builder()
+            .sensorId(SENSOR_ID).maxEvents(4).linger(60000L).build());
+
+        client.sendAsync(TestUtils.createEnvelope(3));
+        assertEquals(0, delegate.getEnvelopes().size());
+
+        assertFalse(client.sendAsync(TestUtils.createEnvelope(3)).isDone());
+        assertEquals(1, delegate.getEnvelopes().size());
+        assertEquals(4, delegate.getEnvelopes().get(0).getData().size());
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.clients;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.imsglobal.caliper.Envelope;
+import org.imsglobal.caliper.TestUtils;
+import org.imsglobal.caliper.config.DataFormat;
+import org.imsglobal.caliper.databind.CaliperSerializer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@Category(org.imsglobal.caliper.UnitTest.class)
+public class BinaryDataFormatTest {
+    private StandInReceiver receiver;
+    private Envelope envelope;
+    private JsonNode expected;
+    private int jsonLength;
+
+    @Before
+    public void setup() throws Exception {
+        receiver = StandInReceiver.start();
+        envelope = TestUtils.createEnvelope(10);
+        byte[] json = CaliperSerializer.getInstance().serialize(envelope, DataFormat.CALIPER_JSONLD);
+        expected = CaliperSerializer.getInstance().readTree(json, DataFormat.CALIPER_JSONLD);
+        jsonLength = json.length;
+    }
+
+    @After
+    public void teardown() {
+        receiver.close();
+    }
+
+    @Test
+    public void binaryFormatsRoundTripThroughReceiver() throws Exception {
+        DataFormat[] formats = { DataFormat.SMILE, DataFormat.CBOR, DataFormat.MESSAGEPACK };
+        for (int i = 0; i < formats.length; i++) {
+            HttpClient client = HttpClient.create(formats[i].name(), HttpClientOptions.builder()
+                .apiKey("869e5ce5-214c-4e85-86c6-b99e8458a592")
+                .host(receiver.getHost())
+                .dataFormat(formats[i])
+                .build());
+            try {
+                client.send(envelope);
+            } finally {
+                client.close();
+            }
+
+            assertEquals(formats[i].getContentType(), receiver.getHeaders().get(i).getFirst("Content-Type"));
+            assertEquals(formats[i].name(), expected, receiver.getEnvelope(i));
+            assertTrue(formats[i].name(), receiver.getBodies().get(i).length < jsonLength);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unsupportedFormatIsRejectedByTheBuilder() {
+        HttpClientOptions.builder().dataFormat(DataFormat.XAPI_JSON);
+    }
+
+    @Test
+    public void contentTypeSelectsFormat() {
+        assertEquals(DataFormat.CBOR, DataFormat.forContentType("application/cbor"));
+        assertEquals(DataFormat.SMILE, DataFormat.forContentType("application/x-jackson-smile; charset=binary"));
+        assertEquals(DataFormat.CALIPER_JSONLD, DataFormat.forContentType("application/json"));
+        assertEquals(DataFormat.CALIPER_JSONLD, DataFormat.forContentType(null));
+    }
+}
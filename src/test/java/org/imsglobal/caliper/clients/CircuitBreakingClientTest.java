@@ -0,0 +1,272 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.clients;
+
+import org.imsglobal.caliper.Envelope;
+import org.imsglobal.caliper.TestUtils;
+import org.imsglobal.caliper.circuit.CircuitBreaker;
+import org.imsglobal.caliper.circuit.CircuitListener;
+import org.imsglobal.caliper.circuit.CircuitPermit;
+import org.imsglobal.caliper.circuit.CircuitState;
+import org.imsglobal.caliper.circuit.CircuitTransition;
+import org.imsglobal.caliper.spool.MappedEnvelopeSpool;
+import org.imsglobal.caliper.spool.SpoolOptions;
+import org.imsglobal.caliper.statistics.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@Category(org.imsglobal.caliper.UnitTest.class)
+public class CircuitBreakingClientTest {
+    private StandInReceiver receiver;
+    private HttpClient delegate;
+    private Envelope envelope;
+    private final List<CircuitTransition> transitions = new CopyOnWriteArrayList<>();
+    private final CircuitListener listener = new CircuitListener() {
+        @Override
+        public void onTransition(CircuitTransition transition) {
+            transitions.add(transition);
+        }
+    };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void setup() throws Exception {
+        receiver = StandInReceiver.start();
+        delegate = HttpClient.create("guarded", HttpClientOptions.builder()
+            .apiKey("869e5ce5-214c-4e85-86c6-b99e8458a592")
+            .host(receiver.getHost())
+            .build());
+        envelope = TestUtils.createEnvelope(1);
+    }
+
+    @After
+    public void teardown() {
+        delegate.close();
+        receiver.close();
+    }
+
+    private CircuitBreakingClient createClient(CircuitBreakingClientOptions.OptionsBuilder builder) {
+        return CircuitBreakingClient.create(delegate, builder.listener(listener).build());
+    }
+
+    @Test
+    public void opensAfterConsecutiveFailuresAndFailsFast() throws Exception {
+        receiver.setStatusCode(503);
+        CircuitBreakingClient client = createClient(CircuitBreakingClientOptions.builder().failureThreshold(3));
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(503, client.sendAsync(envelope).get(10, TimeUnit.SECONDS).getStatusCode());
+        }
+        assertEquals(CircuitState.OPEN, client.getState());
+
+        SendResult refused = client.sendAsync(envelope).get();
+        assertTrue(refused.getError() instanceof CircuitBreakingClient.CircuitOpenException);
+        assertFalse(client.offer(envelope));
+        assertEquals(3, receiver.getRequestCount());
+        assertEquals(1, client.getStatistics().getCircuitOpened().getCount());
+        assertEquals(2, client.getStatistics().getShortCircuited().getCount());
+        assertEquals(CircuitState.CLOSED, transitions.get(0).getFrom());
+        assertEquals(CircuitState.OPEN, transitions.get(0).getTo());
+    }
+
+    @Test
+    public void opensWhenErrorRateCrossesThreshold() throws Exception {
+        CircuitBreakingClient client = createClient(CircuitBreakingClientOptions.builder()
+            .failureThreshold(100)
+            .errorRateThreshold(0.5)
+            .minimumRequests(6));
+
+        for (int i = 0; i < 6; i++) {
+            receiver.script((i % 2 == 0) ? 200 : 500);
+            client.sendAsync(envelope).get(10, TimeUnit.SECONDS);
+        }
+
+        assertEquals(CircuitState.OPEN, client.getState());
+    }
+
+    @Test
+    public void clientErrorsDoNotOpenCircuit() throws Exception {
+        receiver.setStatusCode(400);
+        CircuitBreakingClient client = createClient(CircuitBreakingClientOptions.builder().failureThreshold(2));
+
+        for (int i = 0; i < 5; i++) {
+            client.sendAsync(envelope).get(10, TimeUnit.SECONDS);
+        }
+
+        assertEquals(CircuitState.CLOSED, client.getState());
+    }
+
+    @Test
+    public void halfOpenAdmitsLimitedProbesThenCloses() throws Exception {
+        receiver.setStatusCode(503);
+        CircuitBreakingClient client = createClient(CircuitBreakingClientOptions.builder()
+            .failureThreshold(1)
+            .openDuration(100L)
+            .halfOpenProbes(2));
+
+        client.sendAsync(envelope).get(10, TimeUnit.SECONDS);
+        assertEquals(CircuitState.OPEN, client.getState());
+
+        Thread.sleep(150L);
+        receiver.setStatusCode(200);
+        receiver.setDelay(200L);
+        assertEquals(CircuitState.HALF_OPEN, client.getState());
+
+        assertTrue(client.offer(envelope));
+        assertTrue(client.offer(envelope));
+        assertFalse(client.offer(envelope));
+
+        long deadline = System.currentTimeMillis() + 10000L;
+        while (client.getState() != CircuitState.CLOSED && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20L);
+        }
+        assertEquals(CircuitState.CLOSED, client.getState());
+        assertEquals(3, transitions.size());
+        assertEquals(1, client.getStatistics().getCircuitHalfOpened().getCount());
+        assertEquals(1, client.getStatistics().getCircuitClosed().getCount());
+    }
+
+    @Test
+    public void failedProbeReopens() throws Exception {
+        receiver.setStatusCode(503);
+        CircuitBreakingClient client = createClient(CircuitBreakingClientOptions.builder()
+            .failureThreshold(1)
+            .openDuration(100L));
+
+        client.sendAsync(envelope).get(10, TimeUnit.SECONDS);
+        Thread.sleep(150L);
+        client.sendAsync(envelope).get(10, TimeUnit.SECONDS);
+
+        assertEquals(CircuitState.OPEN, client.getState());
+        assertEquals(2, client.getStatistics().getCircuitOpened().getCount());
+    }
+
+    @Test
+    public void openCircuitDivertsToSpool() throws Exception {
+        MappedEnvelopeSpool spool = MappedEnvelopeSpool.open(SpoolOptions.builder()
+            .directory(folder.newFolder("spool"))
+            .build());
+        try {
+            receiver.setStatusCode(503);
+            CircuitBreakingClient client = createClient(CircuitBreakingClientOptions.builder()
+                .failureThreshold(1)
+                .spool(spool));
+            client.getDrainer().stop();
+
+            client.sendAsync(envelope).get(10, TimeUnit.SECONDS);
+            client.send(envelope);
+            assertTrue(client.offer(envelope));
+
+            assertEquals(1, receiver.getRequestCount());
+            assertEquals(2, client.getStatistics().getSpilled().getCount());
+            assertFalse(spool.isEmpty());
+        } finally {
+            spool.close();
+        }
+    }
+
+    @Test
+    public void sendReturnsWhenTheDelegateSpooled() throws Exception {
+        MappedEnvelopeSpool spool = MappedEnvelopeSpool.open(SpoolOptions.builder()
+            .directory(folder.newFolder("delegate-spool"))
+            .build());
+        HttpClient spooling = HttpClient.create("spooling", HttpClientOptions.builder()
+            .apiKey("869e5ce5-214c-4e85-86c6-b99e8458a592")
+            .host(receiver.getHost())
+            .spool(spool)
+            .build());
+        try {
+            receiver.setStatusCode(503);
+            CircuitBreakingClient client = CircuitBreakingClient.create(spooling,
+                CircuitBreakingClientOptions.builder().failureThreshold(100).build());
+
+            client.send(envelope);
+
+            assertEquals(1, spooling.getStatistics().getSpilled().getCount());
+        } finally {
+            spooling.close();
+            spool.close();
+        }
+    }
+
+    @Test
+    public void sendLogsRatherThanThrowsWhenNoResponseArrives() {
+        HttpClient unreachable = HttpClient.create("unreachable", HttpClientOptions.builder()
+            .apiKey("869e5ce5-214c-4e85-86c6-b99e8458a592")
+            .host("http://127.0.0.1:9")
+            .build());
+        try {
+            CircuitBreakingClient client = CircuitBreakingClient.create(unreachable,
+                CircuitBreakingClientOptions.builder().build());
+
+            client.send(envelope);
+
+            assertEquals(1, unreachable.getStatistics().getFailed().getCount());
+        } finally {
+            unreachable.close();
+        }
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void sendThrowsOnFailureStatus() {
+        receiver.setStatusCode(400);
+        createClient(CircuitBreakingClientOptions.builder()).send(envelope);
+    }
+
+    @Test
+    public void lateOutcomesDoNotDecideTheHalfOpenState() throws Exception {
+        CircuitBreaker breaker = CircuitBreaker.create("late", CircuitBreakingClientOptions.builder()
+            .failureThreshold(1)
+            .openDuration(50L)
+            .halfOpenProbes(1)
+            .build(), new Statistics());
+
+        CircuitPermit slowSuccess = breaker.tryAcquire();
+        CircuitPermit slowFailure = breaker.tryAcquire();
+        breaker.onFailure(breaker.tryAcquire());
+        assertEquals(CircuitState.OPEN, breaker.getState());
+
+        Thread.sleep(80L);
+        assertEquals(CircuitState.HALF_OPEN, breaker.getState());
+        CircuitPermit probe = breaker.tryAcquire();
+        assertTrue(probe.isProbe());
+        assertFalse(slowSuccess.isProbe());
+
+        breaker.onSuccess(slowSuccess);
+        breaker.onFailure(slowFailure);
+        assertEquals(CircuitState.HALF_OPEN, breaker.getState());
+
+        breaker.onSuccess(probe);
+        assertEquals(CircuitState.CLOSED, breaker.getState());
+    }
+}
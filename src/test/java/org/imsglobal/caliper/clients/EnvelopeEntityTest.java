@@ -0,0 +1,170 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.clients;
+
+import com.google.common.io.ByteStreams;
+import org.imsglobal.caliper.Envelope;
+import org.imsglobal.caliper.TestUtils;
+import org.imsglobal.caliper.codec.StandardCodec;
+import org.imsglobal.caliper.config.Config;
+import org.imsglobal.caliper.databind.CaliperSerializer;
+import org.imsglobal.caliper.retry.ExponentialBackoffRetryPolicy;
+import org.imsglobal.caliper.retry.RetryPolicy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@Category(org.imsglobal.caliper.UnitTest.class)
+public class EnvelopeEntityTest {
+    private StandInReceiver receiver;
+    private Envelope envelope;
+    private byte[] raw;
+
+    @Before
+    public void setup() throws Exception {
+        receiver = StandInReceiver.start();
+        envelope = TestUtils.createEnvelope(200);
+        raw = CaliperSerializer.getInstance().serialize(envelope, Config.DATA_FORMAT);
+    }
+
+    @After
+    public void teardown() {
+        receiver.close();
+    }
+
+    private HttpClient createClient(boolean gzip, RetryPolicy retryPolicy) {
+        return HttpClient.create("streaming", HttpClientOptions.builder()
+            .apiKey("869e5ce5-214c-4e85-86c6-b99e8458a592")
+            .host(receiver.getHost())
+            .streaming(true)
+            .contentEncoding(gzip ? StandardCodec.GZIP : null)
+            .retryPolicy(retryPolicy)
+            .build());
+    }
+
+    @Test
+    public void entityWritesWithoutClosingTarget() throws Exception {
+        EnvelopeEntity entity = EnvelopeEntity.create(envelope, CaliperSerializer.getInstance(),
+            Config.DATA_FORMAT, StandardCodec.GZIP);
+        final AtomicBoolean closed = new AtomicBoolean();
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void close() throws IOException {
+                closed.set(true);
+            }
+        };
+
+        entity.writeTo(out);
+
+        assertFalse(closed.get());
+        assertTrue(entity.isRepeatable());
+        assertEquals(raw.length, entity.getRawLength());
+        assertEquals(out.size(), entity.getEncodedLength());
+        assertArrayEquals(raw, ByteStreams.toByteArray(new GZIPInputStream(
+            new ByteArrayInputStream(out.toByteArray()))));
+    }
+
+    @Test
+    public void entityIsChunkedWithoutSerializingForLength() throws Exception {
+        EnvelopeEntity entity = EnvelopeEntity.create(envelope, CaliperSerializer.getInstance(),
+            Config.DATA_FORMAT, null);
+
+        assertTrue(entity.isChunked());
+        assertEquals(-1L, entity.getContentLength());
+        assertEquals(0L, entity.getRawLength());
+
+        final long[] written = new long[1];
+        entity.writeTo(new OutputStream() {
+            @Override
+            public void write(int b) {
+                written[0]++;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                written[0] += len;
+            }
+        });
+        assertEquals(raw.length, written[0]);
+    }
+
+    @Test
+    public void streamedSendIsChunked() {
+        HttpClient client = createClient(false, null);
+        try {
+            client.send(envelope);
+
+            assertArrayEquals(raw, receiver.getBodies().get(0));
+            assertEquals("chunked", receiver.getHeaders().get(0).getFirst("Transfer-Encoding"));
+            assertNull(receiver.getHeaders().get(0).getFirst("Content-Length"));
+            assertEquals(raw.length, client.getStatistics().getRawBytes().getSum(), 0.0);
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void retryingSendPostsPayloadSerializedOnce() {
+        receiver.script(503);
+        HttpClient client = createClient(false, ExponentialBackoffRetryPolicy.builder()
+            .maxAttempts(2)
+            .baseDelay(1L)
+            .build());
+        try {
+            client.send(envelope);
+
+            assertEquals(2, receiver.getRequestCount());
+            for (int i = 0; i < 2; i++) {
+                assertArrayEquals(raw, receiver.getBodies().get(i));
+                assertEquals(String.valueOf(raw.length), receiver.getHeaders().get(i).getFirst("Content-Length"));
+            }
+            assertEquals(1, client.getStatistics().getSuccessful().getCount());
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void streamedSendIsCompressed() {
+        HttpClient client = createClient(true, null);
+        try {
+            client.send(envelope);
+
+            assertArrayEquals(raw, receiver.getBodies().get(0));
+            assertEquals("gzip", receiver.getHeaders().get(0).getFirst("Content-Encoding"));
+            assertEquals(receiver.getWireBytes(), client.getStatistics().getCompressedBytes().getSum(), 0.0);
+        } finally {
+            client.close();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.clients;
+
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.Message;
+import org.apache.hc.core5.http.ProtocolVersion;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncServer;
+import org.apache.hc.core5.http.message.BasicHttpResponse;
+import org.apache.hc.core5.http.nio.AsyncRequestConsumer;
+import org.apache.hc.core5.http.nio.AsyncServerRequestHandler;
+import org.apache.hc.core5.http.nio.entity.BasicAsyncEntityConsumer;
+import org.apache.hc.core5.http.nio.support.BasicRequestConsumer;
+import org.apache.hc.core5.http.nio.support.BasicResponseProducer;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http.protocol.HttpCoreContext;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.http2.impl.nio.bootstrap.H2ServerBootstrap;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.ListenerEndpoint;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local cleartext HTTP/2 (h2c) stand-in for a Caliper endpoint.  Records request bodies, the
+ * protocol version, the connections used and the peak number of concurrently open streams.
+ */
+public class H2StandInReceiver implements AsyncServerRequestHandler<Message<HttpRequest, byte[]>>, AutoCloseable {
+    private final HttpAsyncServer server;
+    private final ScheduledExecutorService responder = Executors.newSingleThreadScheduledExecutor();
+    private final List<byte[]> bodies = new CopyOnWriteArrayList<>();
+    private final List<HttpRequest> requests = new CopyOnWriteArrayList<>();
+    private final Set<ProtocolVersion> versions = ConcurrentHashMap.newKeySet();
+    private final Set<SocketAddress> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger open = new AtomicInteger();
+    private final AtomicInteger maxOpen = new AtomicInteger();
+    private final int port;
+    private volatile int statusCode = 200;
+    private volatile long delay = 0L;
+
+    private H2StandInReceiver() throws Exception {
+        this.server = H2ServerBootstrap.bootstrap()
+            .setVersionPolicy(HttpVersionPolicy.FORCE_HTTP_2)
+            .register("*", this)
+            .create();
+        this.server.start();
+        ListenerEndpoint endpoint = server.listen(new InetSocketAddress("127.0.0.1", 0), URIScheme.HTTP).get();
+        this.port = ((InetSocketAddress) endpoint.getAddress()).getPort();
+    }
+
+    public static H2StandInReceiver start() throws Exception {
+        return new H2StandInReceiver();
+    }
+
+    public String getHost() {
+        return "http://127.0.0.1:" + port + "/";
+    }
+
+    public void setStatusCode(int statusCode) {
+        this.statusCode = statusCode;
+    }
+
+    public void setDelay(long delay) {
+        this.delay = delay;
+    }
+
+    public List<byte[]> getBodies() {
+        return bodies;
+    }
+
+    public List<HttpRequest> getRequests() {
+        return requests;
+    }
+
+    public Set<ProtocolVersion> getVersions() {
+        return versions;
+    }
+
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    public int getMaxConcurrentStreams() {
+        return maxOpen.get();
+    }
+
+    @Override
+    public AsyncRequestConsumer<Message<HttpRequest, byte[]>> prepare(HttpRequest request, EntityDetails entityDetails,
+                                                                      HttpContext context) {
+        return new BasicRequestConsumer<>(new BasicAsyncEntityConsumer());
+    }
+
+    @Override
+    public void handle(Message<HttpRequest, byte[]> message, final ResponseTrigger trigger,
+                       final HttpContext context) throws HttpException, IOException {
+        HttpCoreContext coreContext = HttpCoreContext.adapt(context);
+        versions.add(coreContext.getProtocolVersion());
+        connections.add(coreContext.getEndpointDetails().getRemoteAddress());
+        bodies.add(message.getBody() != null ? message.getBody() : new byte[0]);
+        requests.add(message.getHead());
+
+        int current = open.incrementAndGet();
+        maxOpen.accumulateAndGet(current, Math::max);
+
+        responder.schedule(new Runnable() {
+            @Override
+            public void run() {
+                open.decrementAndGet();
+                try {
+                    trigger.submitResponse(new BasicResponseProducer(new BasicHttpResponse(statusCode)), context);
+                } catch (HttpException | IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        server.close(CloseMode.IMMEDIATE);
+        responder.shutdownNow();
+    }
+}
@@ -0,0 +1,193 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.clients;
+
+import com.google.common.io.ByteStreams;
+import org.apache.hc.core5.http.HttpVersion;
+import org.imsglobal.caliper.Envelope;
+import org.imsglobal.caliper.TestUtils;
+import org.imsglobal.caliper.codec.StandardCodec;
+import org.imsglobal.caliper.config.Config;
+import org.imsglobal.caliper.databind.CaliperSerializer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@Category(org.imsglobal.caliper.UnitTest.class)
+public class Http2ClientTest {
+    private H2StandInReceiver receiver;
+    private Envelope envelope;
+
+    @Before
+    public void setup() throws Exception {
+        receiver = H2StandInReceiver.start();
+        envelope = TestUtils.createEnvelope(1);
+    }
+
+    @After
+    public void teardown() {
+        receiver.close();
+    }
+
+    private Http2Client createClient(int maxInFlight) {
+        return Http2Client.create("h2", HttpClientOptions.builder()
+            .apiKey("869e5ce5-214c-4e85-86c6-b99e8458a592")
+            .host(receiver.getHost())
+            .maxInFlight(maxInFlight)
+            .build());
+    }
+
+    @Test
+    public void sendPostsOverHttp2() throws Exception {
+        Http2Client client = createClient(0);
+        try {
+            client.send(envelope);
+
+            assertEquals(1, receiver.getBodies().size());
+            assertArrayEquals(CaliperSerializer.getInstance().serialize(envelope, Config.DATA_FORMAT),
+                receiver.getBodies().get(0));
+            assertTrue(receiver.getVersions().contains(HttpVersion.HTTP_2));
+            assertEquals(1, client.getStatistics().getSuccessful().getCount());
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void encodedPayloadIsPostedWithItsContentEncoding() throws Exception {
+        Http2Client client = Http2Client.create("h2", HttpClientOptions.builder()
+            .apiKey("869e5ce5-214c-4e85-86c6-b99e8458a592")
+            .host(receiver.getHost())
+            .contentEncoding(StandardCodec.GZIP)
+            .compressionThreshold(1)
+            .build());
+        try {
+            client.send(envelope);
+
+            assertEquals("gzip", receiver.getRequests().get(0).getFirstHeader("Content-Encoding").getValue());
+            assertEquals(client.getOptions().getContentType(),
+                receiver.getRequests().get(0).getFirstHeader("Content-Type").getValue());
+            try (InputStream in = StandardCodec.GZIP.decode(new ByteArrayInputStream(receiver.getBodies().get(0)))) {
+                assertArrayEquals(CaliperSerializer.getInstance().serialize(envelope, Config.DATA_FORMAT),
+                    ByteStreams.toByteArray(in));
+            }
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void sendLogsRatherThanThrowsWhenNoResponseArrives() throws Exception {
+        Http2Client client = createClient(0);
+        receiver.close();
+        try {
+            client.send(envelope);
+
+            assertEquals(1, client.getStatistics().getFailed().getCount());
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void sendThrowsOnFailureStatus() throws Exception {
+        Http2Client client = createClient(0);
+        receiver.setStatusCode(500);
+        try {
+            client.send(envelope);
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void concurrentSendsAreMultiplexedOverOneConnection() throws Exception {
+        Http2Client client = createClient(0);
+        try {
+            // Establish the connection, then open many streams on it
+            client.send(envelope);
+            receiver.setDelay(200L);
+
+            List<CompletableFuture<SendResult>> futures = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                futures.add(client.sendAsync(envelope));
+            }
+            for (CompletableFuture<SendResult> future : futures) {
+                assertTrue(future.get(10, TimeUnit.SECONDS).isSuccessful());
+            }
+
+            assertEquals(51, receiver.getBodies().size());
+            assertEquals(1, receiver.getConnectionCount());
+            assertTrue(receiver.getMaxConcurrentStreams() > 1);
+            assertTrue(client.getStatistics().getActiveStreams().getMax() > 1);
+            assertEquals(0, client.getActiveStreams());
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void maxInFlightBoundsOpenStreams() throws Exception {
+        receiver.setDelay(200L);
+        Http2Client client = createClient(4);
+        try {
+            List<CompletableFuture<SendResult>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(client.sendAsync(envelope));
+            }
+            assertFalse(client.offer(envelope));
+            assertFalse(client.sendAsync(envelope).get().isSuccessful());
+
+            for (CompletableFuture<SendResult> future : futures) {
+                assertTrue(future.get(10, TimeUnit.SECONDS).isSuccessful());
+            }
+            assertTrue(receiver.getMaxConcurrentStreams() <= 4);
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void failedStatusIsReported() throws Exception {
+        receiver.setStatusCode(503);
+        Http2Client client = createClient(0);
+        try {
+            SendResult result = client.sendAsync(envelope).get(10, TimeUnit.SECONDS);
+            assertFalse(result.isSuccessful());
+            assertEquals(503, result.getStatusCode());
+            assertTrue(result.isRetryable());
+            assertEquals(1, client.getStatistics().getFailed().getCount());
+        } finally {
+            client.close();
+        }
+    }
+}
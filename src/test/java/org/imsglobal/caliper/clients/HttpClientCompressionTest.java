@@ -0,0 +1,138 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.clients;
+
+import org.imsglobal.caliper.Envelope;
+import org.imsglobal.caliper.TestUtils;
+import org.imsglobal.caliper.codec.DictionaryCodec;
+import org.imsglobal.caliper.codec.StandardCodec;
+import org.imsglobal.caliper.config.Config;
+import org.imsglobal.caliper.databind.CaliperSerializer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@Category(org.imsglobal.caliper.UnitTest.class)
+public class HttpClientCompressionTest {
+    private StandInReceiver receiver;
+    private HttpClient client;
+
+    @Before
+    public void setup() throws Exception {
+        receiver = StandInReceiver.start();
+        HttpClientOptions opts = HttpClientOptions.builder()
+            .apiKey("869e5ce5-214c-4e85-86c6-b99e8458a592")
+            .host(receiver.getHost())
+            .contentEncoding(StandardCodec.GZIP)
+            .compressionThreshold(2048)
+            .build();
+        client = HttpClient.create("gzip", opts);
+    }
+
+    @After
+    public void teardown() {
+        client.close();
+        receiver.close();
+    }
+
+    @Test
+    public void batchedEnvelopeIsCompressed() throws Exception {
+        Envelope envelope = TestUtils.createEnvelope(100);
+        byte[] raw = CaliperSerializer.getInstance().serialize(envelope, Config.DATA_FORMAT);
+
+        client.send(envelope);
+
+        assertEquals("gzip", receiver.getHeaders().get(0).getFirst("Content-Encoding"));
+        assertArrayEquals(raw, receiver.getBodies().get(0));
+        assertTrue(receiver.getWireBytes() * 10 < raw.length);
+        assertEquals(raw.length, client.getStatistics().getRawBytes().getSum(), 0.0);
+        assertEquals(receiver.getWireBytes(), client.getStatistics().getCompressedBytes().getSum(), 0.0);
+    }
+
+    @Test
+    public void smallEnvelopeIsSentUnencoded() throws Exception {
+        Envelope envelope = TestUtils.createEnvelope(1);
+
+        assertTrue(client.sendAsync(envelope).get(10, TimeUnit.SECONDS).isSuccessful());
+
+        assertNull(receiver.getHeaders().get(0).getFirst("Content-Encoding"));
+        assertEquals(client.getStatistics().getRawBytes().getSum(),
+            client.getStatistics().getCompressedBytes().getSum(), 0.0);
+    }
+
+    @Test
+    public void serializedPayloadIsCompressed() throws Exception {
+        byte[] raw = CaliperSerializer.getInstance().serialize(TestUtils.createEnvelope(100), Config.DATA_FORMAT);
+
+        assertTrue(client.sendPayloadAsync(raw).get(10, TimeUnit.SECONDS).isSuccessful());
+
+        assertEquals("gzip", receiver.getHeaders().get(0).getFirst("Content-Encoding"));
+        assertArrayEquals(raw, receiver.getBodies().get(0));
+    }
+
+    @Test
+    public void dictionaryEncodingIsNegotiatedWithReceiver() throws Exception {
+        DictionaryCodec codec = DictionaryCodec.create();
+        receiver.accept(codec);
+        HttpClient dictionaryClient = HttpClient.create("dictionary", HttpClientOptions.builder()
+            .apiKey("869e5ce5-214c-4e85-86c6-b99e8458a592")
+            .host(receiver.getHost())
+            .contentEncoding(codec)
+            .compressionThreshold(1)
+            .build());
+
+        try {
+            Envelope envelope = TestUtils.createEnvelope(1);
+            byte[] raw = CaliperSerializer.getInstance().serialize(envelope, Config.DATA_FORMAT);
+
+            assertTrue(dictionaryClient.sendAsync(envelope).get(10, TimeUnit.SECONDS).isSuccessful());
+
+            assertEquals(codec.getContentEncoding(), receiver.getHeaders().get(0).getFirst("Content-Encoding"));
+            assertArrayEquals(raw, receiver.getBodies().get(0));
+            assertTrue(receiver.getWireBytes() * 3 <= raw.length);
+        } finally {
+            dictionaryClient.close();
+        }
+    }
+
+    @Test
+    public void unknownDictionaryIsRejected() throws Exception {
+        HttpClient dictionaryClient = HttpClient.create("dictionary", HttpClientOptions.builder()
+            .apiKey("869e5ce5-214c-4e85-86c6-b99e8458a592")
+            .host(receiver.getHost())
+            .contentEncoding(DictionaryCodec.create())
+            .compressionThreshold(1)
+            .build());
+
+        try {
+            SendResult result = dictionaryClient.sendAsync(TestUtils.createEnvelope(1)).get(10, TimeUnit.SECONDS);
+            assertEquals(415, result.getStatusCode());
+        } finally {
+            dictionaryClient.close();
+        }
+    }
+}
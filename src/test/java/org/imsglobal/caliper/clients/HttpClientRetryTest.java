@@ -0,0 +1,158 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.clients;
+
+import org.imsglobal.caliper.Envelope;
+import org.imsglobal.caliper.TestUtils;
+import org.imsglobal.caliper.retry.ExponentialBackoffRetryPolicy;
+import org.imsglobal.caliper.retry.RetryBudget;
+import org.imsglobal.caliper.retry.RetryPolicy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@Category(org.imsglobal.caliper.UnitTest.class)
+public class HttpClientRetryTest {
+    private StandInReceiver receiver;
+    private Envelope envelope;
+    private HttpClient client;
+
+    @Before
+    public void setup() throws Exception {
+        receiver = StandInReceiver.start();
+        envelope = TestUtils.createEnvelope(1);
+    }
+
+    @After
+    public void teardown() {
+        if (client != null) {
+            client.close();
+        }
+        receiver.close();
+    }
+
+    private HttpClient createClient(RetryPolicy policy) {
+        client = HttpClient.create("retry", HttpClientOptions.builder()
+            .apiKey("869e5ce5-214c-4e85-86c6-b99e8458a592")
+            .host(receiver.getHost())
+            .retryPolicy(policy)
+            .build());
+        return client;
+    }
+
+    private static RetryPolicy policy() {
+        return ExponentialBackoffRetryPolicy.builder()
+            .maxAttempts(3)
+            .baseDelay(10L)
+            .budget(RetryBudget.create(0.1, 10))
+            .build();
+    }
+
+    @Test
+    public void sendAsyncRetriesTransientFailureWithSamePayload() throws Exception {
+        receiver.script(503, 500);
+        createClient(policy());
+
+        SendResult result = client.sendAsync(envelope).get(10, TimeUnit.SECONDS);
+
+        assertTrue(result.isSuccessful());
+        assertEquals(3, result.getAttempts());
+        assertEquals(3, receiver.getRequestCount());
+        assertArrayEquals(receiver.getBodies().get(0), receiver.getBodies().get(2));
+        assertEquals(2, client.getStatistics().getRetried().getCount());
+        assertEquals(1, client.getStatistics().getSuccessful().getCount());
+        assertEquals(0, client.getInFlight());
+    }
+
+    @Test
+    public void payloadBytesAreRecordedOncePerSend() throws Exception {
+        receiver.script(503, 500);
+        createClient(policy());
+
+        assertTrue(client.sendAsync(envelope).get(10, TimeUnit.SECONDS).isSuccessful());
+        receiver.script(503);
+        client.send(envelope);
+
+        assertEquals(2, client.getStatistics().getRawBytes().getCount());
+        assertEquals(2, client.getStatistics().getCompressedBytes().getCount());
+        assertEquals(2 * receiver.getBodies().get(0).length, client.getStatistics().getCompressedBytes().getSum(), 0.0);
+    }
+
+    @Test
+    public void sendRetriesTransientFailure() {
+        receiver.script(429);
+        createClient(policy());
+
+        client.send(envelope);
+
+        assertEquals(2, receiver.getRequestCount());
+        assertEquals(1, client.getStatistics().getSuccessful().getCount());
+        assertEquals(0, client.getStatistics().getFailed().getCount());
+    }
+
+    @Test
+    public void clientErrorIsNotRetried() throws Exception {
+        receiver.setStatusCode(400);
+        createClient(policy());
+
+        SendResult result = client.sendAsync(envelope).get(10, TimeUnit.SECONDS);
+
+        assertFalse(result.isSuccessful());
+        assertEquals(1, result.getAttempts());
+        assertEquals(1, receiver.getRequestCount());
+    }
+
+    @Test
+    public void retryAfterIsHonoured() throws Exception {
+        receiver.script(503);
+        receiver.setResponseHeader("Retry-After", "1");
+        createClient(policy());
+
+        long start = System.currentTimeMillis();
+        SendResult result = client.sendAsync(envelope).get(10, TimeUnit.SECONDS);
+
+        assertTrue(result.isSuccessful());
+        assertTrue(System.currentTimeMillis() - start >= 1000L);
+    }
+
+    @Test
+    public void retryBudgetStopsAmplification() throws Exception {
+        receiver.setStatusCode(503);
+        createClient(ExponentialBackoffRetryPolicy.builder()
+            .maxAttempts(5)
+            .baseDelay(1L)
+            .budget(RetryBudget.create(0.0, 2))
+            .build());
+
+        for (int i = 0; i < 5; i++) {
+            assertFalse(client.sendAsync(envelope).get(10, TimeUnit.SECONDS).isSuccessful());
+        }
+
+        assertEquals(7, receiver.getRequestCount());
+        assertEquals(2, client.getStatistics().getRetried().getCount());
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.clients;
+
+import org.imsglobal.caliper.Envelope;
+import org.imsglobal.caliper.Sensor;
+import org.imsglobal.caliper.TestUtils;
+import org.imsglobal.caliper.limit.AimdLimit;
+import org.imsglobal.caliper.limit.LimitAlgorithm;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+@Category(org.imsglobal.caliper.UnitTest.class)
+public class HttpClientSendAsyncTest {
+    private StandInReceiver receiver;
+    private Envelope envelope;
+
+    @Before
+    public void setup() throws Exception {
+        receiver = StandInReceiver.start();
+        envelope = TestUtils.createEnvelope(1);
+    }
+
+    @After
+    public void teardown() {
+        receiver.close();
+    }
+
+    private HttpClient createClient(String id, int maxInFlight) {
+        HttpClientOptions opts = HttpClientOptions.builder()
+            .apiKey("869e5ce5-214c-4e85-86c6-b99e8458a592")
+            .host(receiver.getHost())
+            .maxInFlight(maxInFlight)
+            .build();
+        return HttpClient.create(id, opts);
+    }
+
+    @Test
+    public void sendAsyncCompletesWithSuccess() throws Exception {
+        HttpClient client = createClient("async", 0);
+
+        List<CompletableFuture<SendResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(client.sendAsync(envelope));
+        }
+        for (CompletableFuture<SendResult> future : futures) {
+            SendResult result = future.get(10, TimeUnit.SECONDS);
+            assertTrue(result.isSuccessful());
+            assertEquals(200, result.getStatusCode());
+        }
+
+        assertEquals(20, receiver.getRequestCount());
+        assertEquals(20, client.getStatistics().getSuccessful().getCount());
+        assertEquals(0, client.getInFlight());
+    }
+
+    @Test
+    public void sendAsyncReportsHttpFailure() throws Exception {
+        receiver.setStatusCode(500);
+        HttpClient client = createClient("async", 0);
+
+        SendResult result = client.sendAsync(envelope).get(10, TimeUnit.SECONDS);
+        assertFalse(result.isSuccessful());
+        assertEquals(500, result.getStatusCode());
+        assertEquals(1, client.getStatistics().getFailed().getCount());
+    }
+
+    @Test
+    public void sendAsyncRejectsBeyondInFlightLimit() throws Exception {
+        receiver.setDelay(500L);
+        HttpClient client = createClient("async", 1);
+
+        CompletableFuture<SendResult> first = client.sendAsync(envelope);
+        SendResult rejected = client.sendAsync(envelope).get(1, TimeUnit.SECONDS);
+        assertFalse(rejected.isSuccessful());
+        assertTrue(rejected.getError() instanceof RejectedExecutionException);
+
+        assertTrue(first.get(10, TimeUnit.SECONDS).isSuccessful());
+    }
+
+    @Test
+    public void sensorSendAsyncFansOutToAllClients() throws Exception {
+        Sensor sensor = Sensor.create("https://example.edu/sensors/1");
+        sensor.registerClient(createClient("primary", 0));
+        sensor.registerClient(createClient("secondary", 0));
+
+        List<SendResult> results = sensor.sendAsync(envelope).get(10, TimeUnit.SECONDS);
+        assertEquals(2, results.size());
+        for (SendResult result : results) {
+            assertTrue(result.isSuccessful());
+        }
+        assertEquals(2, receiver.getRequestCount());
+    }
+
+    @Test
+    public void clientsSharingOptionsBuildTheirOwnLimit() {
+        List<LimitAlgorithm> built = new ArrayList<>();
+        HttpClientOptions opts = HttpClientOptions.builder()
+            .apiKey("869e5ce5-214c-4e85-86c6-b99e8458a592")
+            .host(receiver.getHost())
+            .limitAlgorithm(() -> {
+                LimitAlgorithm limit = AimdLimit.builder().build();
+                built.add(limit);
+                return limit;
+            })
+            .build();
+        HttpClient first = HttpClient.create("first", opts);
+        HttpClient second = HttpClient.create("second", opts);
+        try {
+            assertEquals(2, built.size());
+            assertNotSame(built.get(0), built.get(1));
+        } finally {
+            first.close();
+            second.close();
+        }
+    }
+}
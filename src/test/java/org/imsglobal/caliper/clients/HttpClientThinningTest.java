@@ -0,0 +1,81 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.clients;
+
+import org.imsglobal.caliper.TestUtils;
+import org.imsglobal.caliper.thinning.DescribedEntityCacheOptions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@Category(org.imsglobal.caliper.UnitTest.class)
+public class HttpClientThinningTest {
+    private StandInReceiver receiver;
+    private HttpClient client;
+
+    @Before
+    public void setup() throws Exception {
+        receiver = StandInReceiver.start();
+        client = HttpClient.create("thinning", HttpClientOptions.builder()
+            .apiKey("869e5ce5-214c-4e85-86c6-b99e8458a592")
+            .host(receiver.getHost())
+            .describedEntities(DescribedEntityCacheOptions.builder().build())
+            .build());
+    }
+
+    @After
+    public void teardown() {
+        client.close();
+        receiver.close();
+    }
+
+    @Test
+    public void thinsEntitiesTheEndpointHasSeen() throws Exception {
+        assertFalse(client.acceptsSharedPayloads());
+
+        client.send(TestUtils.createEnvelope(1));
+        client.send(TestUtils.createEnvelope(1));
+
+        assertTrue(receiver.getEnvelope(0).get("data").get(0).get("actor").isObject());
+        assertEquals("https://example.edu/users/554433",
+            receiver.getEnvelope(1).get("data").get(0).get("actor").asText());
+        assertTrue(client.getStatistics().getDescribedBytesSaved().getSum() > 0.0);
+    }
+
+    @Test
+    public void remembersOnlyEntitiesTheEndpointAccepted() throws Exception {
+        receiver.setStatusCode(500);
+        assertFalse(client.sendAsync(TestUtils.createEnvelope(1)).join().isSuccessful());
+        assertEquals(0, client.getDescribedEntities().size());
+
+        receiver.setStatusCode(200);
+        client.send(TestUtils.createEnvelope(1));
+        client.send(TestUtils.createEnvelope(1));
+
+        assertEquals(3, receiver.getRequestCount());
+        assertTrue(receiver.getEnvelope(1).get("data").get(0).get("actor").isObject());
+        assertEquals("https://example.edu/users/554433",
+            receiver.getEnvelope(2).get("data").get(0).get("actor").asText());
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.clients;
+
+import org.apache.http.pool.PoolStats;
+import org.imsglobal.caliper.Envelope;
+import org.imsglobal.caliper.TestUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@Category(org.imsglobal.caliper.UnitTest.class)
+public class HttpTransportTest {
+    private StandInReceiver receiver;
+    private HttpClient client;
+    private Envelope envelope;
+
+    @Before
+    public void setup() throws Exception {
+        receiver = StandInReceiver.start();
+        envelope = TestUtils.createEnvelope(1);
+        HttpClientOptions opts = HttpClientOptions.builder()
+            .apiKey("869e5ce5-214c-4e85-86c6-b99e8458a592")
+            .host(receiver.getHost())
+            .maxConnections(4)
+            .maxConnectionsPerRoute(2)
+            .build();
+        client = HttpClient.create("pooled", opts);
+    }
+
+    @After
+    public void teardown() {
+        client.close();
+        receiver.close();
+    }
+
+    @Test
+    public void sendReturnsConnectionToPool() {
+        for (int i = 0; i < 5; i++) {
+            client.send(envelope);
+        }
+
+        PoolStats stats = client.getTransport().getPoolStats();
+        assertEquals(0, stats.getLeased());
+        assertEquals(1, stats.getAvailable());
+        assertEquals(4, stats.getMax());
+        assertEquals(5, client.getStatistics().getSuccessful().getCount());
+    }
+
+    @Test
+    public void sendAsyncRespectsPerRouteLimit() throws Exception {
+        List<CompletableFuture<SendResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(client.sendAsync(envelope));
+        }
+        for (CompletableFuture<SendResult> future : futures) {
+            assertTrue(future.get(10, TimeUnit.SECONDS).isSuccessful());
+        }
+
+        PoolStats stats = client.getTransport().getAsyncPoolStats();
+        assertEquals(0, stats.getLeased());
+        assertTrue(stats.getAvailable() <= 2);
+    }
+
+    @Test
+    public void blockingSendStartsNoReactor() {
+        client.send(envelope);
+
+        assertFalse(client.getTransport().isAsyncStarted());
+    }
+
+    @Test
+    public void reactorThreadsDoNotHoldTheJvmOpen() throws Exception {
+        assertTrue(client.sendAsync(envelope).get(10, TimeUnit.SECONDS).isSuccessful());
+
+        assertTrue(client.getTransport().isAsyncStarted());
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("caliper-http-")) {
+                assertTrue(thread.getName(), thread.isDaemon());
+            }
+        }
+    }
+
+    @Test
+    public void housekeepingRecordsPoolStatistics() {
+        client.send(envelope);
+        client.getTransport().housekeep();
+
+        assertEquals(1, client.getStatistics().getPoolLeased().getCount());
+        assertEquals(0.0, client.getStatistics().getPoolLeased().getMax(), 0.0);
+        assertTrue(client.getStatistics().getPoolAvailable().getMax() >= 1.0);
+    }
+}
@@ -0,0 +1,266 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.clients;
+
+import org.imsglobal.caliper.Envelope;
+import org.imsglobal.caliper.Sensor;
+import org.imsglobal.caliper.TestUtils;
+import org.imsglobal.caliper.config.DataFormat;
+import org.imsglobal.caliper.config.OverflowPolicy;
+import org.imsglobal.caliper.spool.EnvelopeSpool;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@Category(org.imsglobal.caliper.UnitTest.class)
+public class QueueingClientTest {
+    private GatedClient delegate;
+    private Envelope envelope;
+
+    /**
+     * Client whose sends complete only when the test releases them.
+     */
+    private static class GatedClient extends RecordingClient {
+        private final List<CompletableFuture<SendResult>> pending = new CopyOnWriteArrayList<>();
+
+        private GatedClient(String id) {
+            super(id);
+        }
+
+        @Override
+        public CompletableFuture<SendResult> sendAsync(Envelope envelope) {
+            CompletableFuture<SendResult> future = new CompletableFuture<>();
+            pending.add(future);
+            send(envelope);
+            return future;
+        }
+
+        private void releaseAll() {
+            for (CompletableFuture<SendResult> future : pending) {
+                future.complete(SendResult.success(getId(), 200, 0L));
+            }
+        }
+    }
+
+    @Before
+    public void setup() {
+        delegate = new GatedClient("default");
+        envelope = TestUtils.createEnvelope(1);
+    }
+
+    private QueueingClient createClient(OverflowPolicy policy, EnvelopeSpool spool) throws Exception {
+        QueueingClient client = QueueingClient.create(delegate, QueueingClientOptions.builder()
+            .capacity(2)
+            .maxConcurrency(1)
+            .overflowPolicy(policy)
+            .offerTimeout(50L)
+            .spool(spool)
+            .build());
+
+        // Park one envelope in the delegate so the queue itself can fill.
+        client.send(envelope);
+        long deadline = System.currentTimeMillis() + 5000L;
+        while (delegate.getEnvelopes().isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5L);
+        }
+        assertEquals(1, delegate.getEnvelopes().size());
+        return client;
+    }
+
+    @Test
+    public void dropNewestDiscardsOverflow() throws Exception {
+        QueueingClient client = createClient(OverflowPolicy.DROP_NEWEST, null);
+        client.send(envelope);
+        client.send(envelope);
+        SendResult dropped = client.sendAsync(envelope).get(1, TimeUnit.SECONDS);
+
+        assertFalse(dropped.isSuccessful());
+        assertEquals(2, client.getDepth());
+        assertEquals(1, client.getStatistics().getDropped().getCount());
+        assertEquals(2.0, client.getStatistics().getQueueDepth().getLast(), 0.0);
+    }
+
+    @Test
+    public void dropOldestEvictsHead() throws Exception {
+        QueueingClient client = createClient(OverflowPolicy.DROP_OLDEST, null);
+        CompletableFuture<SendResult> oldest = client.sendAsync(envelope);
+        client.send(envelope);
+        CompletableFuture<SendResult> newest = client.sendAsync(envelope);
+
+        assertFalse(oldest.get(1, TimeUnit.SECONDS).isSuccessful());
+        assertFalse(newest.isDone());
+        assertEquals(1, client.getStatistics().getDropped().getCount());
+    }
+
+    @Test
+    public void blockWithTimeoutDropsAfterWaiting() throws Exception {
+        QueueingClient client = createClient(OverflowPolicy.BLOCK_WITH_TIMEOUT, null);
+        client.send(envelope);
+        client.send(envelope);
+
+        long start = System.currentTimeMillis();
+        assertFalse(client.sendAsync(envelope).get(1, TimeUnit.SECONDS).isSuccessful());
+        assertTrue(System.currentTimeMillis() - start >= 40L);
+    }
+
+    @Test
+    public void spillToDiskHandsOverflowToSpool() throws Exception {
+        final List<Envelope> spooled = new CopyOnWriteArrayList<>();
+        QueueingClient client = createClient(OverflowPolicy.SPILL_TO_DISK, new EnvelopeSpool() {
+            @Override
+            public boolean append(Envelope envelope, DataFormat format) {
+                return spooled.add(envelope);
+            }
+
+            @Override
+            public boolean append(byte[] payload) {
+                return false;
+            }
+
+            @Override
+            public byte[] peek() {
+                return null;
+            }
+
+            @Override
+            public void acknowledge() {
+            }
+
+            @Override
+            public boolean isEmpty() {
+                return spooled.isEmpty();
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        client.send(envelope);
+        client.send(envelope);
+        client.send(envelope);
+
+        assertEquals(1, spooled.size());
+        assertEquals(1, client.getStatistics().getSpilled().getCount());
+        assertEquals(0, client.getStatistics().getDropped().getCount());
+    }
+
+    @Test
+    public void offerReturnsFalseWhenFull() throws Exception {
+        QueueingClient client = createClient(OverflowPolicy.BLOCK, null);
+        Sensor sensor = Sensor.create("https://example.edu/sensors/1");
+        sensor.registerClient(client);
+
+        assertTrue(sensor.offer(envelope).isEmpty());
+        assertTrue(sensor.offer(envelope).isEmpty());
+        assertEquals(Collections.singletonList(client), sensor.offer(envelope));
+        assertEquals(0, client.getStatistics().getDropped().getCount());
+
+        delegate.releaseAll();
+    }
+
+    @Test
+    public void queuedEnvelopesDrainToDelegate() throws Exception {
+        QueueingClient client = createClient(OverflowPolicy.BLOCK, null);
+        CompletableFuture<SendResult> queued = client.sendAsync(envelope);
+
+        delegate.releaseAll();
+        long deadline = System.currentTimeMillis() + 5000L;
+        while (delegate.getEnvelopes().size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5L);
+        }
+        delegate.releaseAll();
+
+        assertTrue(queued.get(5, TimeUnit.SECONDS).isSuccessful());
+        assertEquals(0, client.getDepth());
+    }
+
+    @Test
+    public void flushWaitsForQueuedEnvelopes() throws Exception {
+        QueueingClient client = createClient(OverflowPolicy.BLOCK, null);
+        client.send(envelope);
+        client.send(envelope);
+
+        AtomicReference<FlushResult> result = new AtomicReference<>();
+        Thread flusher = new Thread(() -> result.set(client.flush(Duration.ofSeconds(5))));
+        flusher.start();
+
+        // Release the delegate only once flush has taken its starting totals and waits for the sends.
+        long deadline = System.currentTimeMillis() + 5000L;
+        while (flusher.getState() != Thread.State.TIMED_WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5L);
+        }
+        while (flusher.isAlive()) {
+            delegate.releaseAll();
+            flusher.join(5L);
+        }
+
+        assertEquals(3, delegate.getEnvelopes().size());
+        assertEquals(3L, result.get().getFlushed());
+        assertTrue(result.get().isComplete());
+        assertEquals(0, client.getDepth());
+    }
+
+    @Test
+    public void closeDropsWhatIsLeft() throws Exception {
+        QueueingClient client = createClient(OverflowPolicy.BLOCK, null);
+        client.send(envelope);
+        client.send(envelope);
+
+        FlushResult result = client.close(Duration.ofMillis(50L));
+
+        assertEquals(0L, result.getFlushed());
+        assertEquals(3L, result.getDropped());
+        assertEquals(2, client.getStatistics().getDropped().getCount());
+        assertFalse(client.offer(envelope));
+    }
+
+    @Test
+    public void closeAbandonsBlockedPut() throws Exception {
+        final QueueingClient client = createClient(OverflowPolicy.BLOCK, null);
+        client.send(envelope);
+        client.send(envelope);
+
+        final CompletableFuture<CompletableFuture<SendResult>> blocked = new CompletableFuture<>();
+        Thread producer = new Thread(() -> blocked.complete(client.sendAsync(envelope)));
+        producer.start();
+        long deadline = System.currentTimeMillis() + 5000L;
+        while (producer.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5L);
+        }
+
+        client.close(Duration.ofMillis(50L));
+        producer.join(5000L);
+
+        assertFalse(blocked.get(1, TimeUnit.SECONDS).get(1, TimeUnit.SECONDS).isSuccessful());
+        assertEquals(0, client.getDepth());
+        assertEquals(3, client.getStatistics().getDropped().getCount());
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.clients;
+
+import org.imsglobal.caliper.Envelope;
+import org.imsglobal.caliper.statistics.Statistics;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-memory client that records every Envelope it is asked to send.
+ */
+public class RecordingClient implements CaliperClient {
+    private final String id;
+    private final Statistics statistics = new Statistics();
+    private final List<Envelope> envelopes = new CopyOnWriteArrayList<>();
+
+    public RecordingClient(String id) {
+        this.id = id;
+    }
+
+    public List<Envelope> getEnvelopes() {
+        return envelopes;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public CaliperClientOptions getOptions() {
+        return null;
+    }
+
+    @Override
+    public Statistics getStatistics() {
+        return statistics;
+    }
+
+    @Override
+    public void send(Envelope envelope) {
+        envelopes.add(envelope);
+        statistics.updateMeasures(1);
+        statistics.updateSuccessful(1);
+    }
+
+    @Override
+    public CompletableFuture<SendResult> sendAsync(Envelope envelope) {
+        send(envelope);
+        return CompletableFuture.completedFuture(SendResult.success(id, 200, 0L));
+    }
+
+    @Override
+    public boolean offer(Envelope envelope) {
+        send(envelope);
+        return true;
+    }
+}
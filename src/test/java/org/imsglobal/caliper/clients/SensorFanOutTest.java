@@ -0,0 +1,103 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.clients;
+
+import org.imsglobal.caliper.Envelope;
+import org.imsglobal.caliper.Sensor;
+import org.imsglobal.caliper.TestUtils;
+import org.imsglobal.caliper.codec.StandardCodec;
+import org.imsglobal.caliper.config.DataFormat;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@Category(org.imsglobal.caliper.UnitTest.class)
+public class SensorFanOutTest {
+    private StandInReceiver receiver;
+    private Envelope envelope;
+
+    @Before
+    public void setup() throws Exception {
+        receiver = StandInReceiver.start();
+        envelope = TestUtils.createEnvelope(3);
+    }
+
+    @After
+    public void teardown() {
+        receiver.close();
+    }
+
+    private HttpClient createClient(String id, HttpClientOptions.OptionsBuilder builder) {
+        return HttpClient.create(id, builder
+            .apiKey("869e5ce5-214c-4e85-86c6-b99e8458a592")
+            .host(receiver.getHost())
+            .build());
+    }
+
+    @Test
+    public void clientsSharingDataFormatPostIdenticalBytes() throws Exception {
+        Sensor sensor = Sensor.create("https://example.edu/sensors/1");
+        sensor.registerClient(createClient("collector", HttpClientOptions.builder()));
+        sensor.registerClient(createClient("warehouse", HttpClientOptions.builder()));
+        sensor.registerClient(createClient("audit", HttpClientOptions.builder()
+            .contentEncoding(StandardCodec.GZIP)
+            .compressionThreshold(1)));
+
+        sensor.send(envelope);
+
+        byte[] expected = SerializedEnvelope.create(envelope, DataFormat.CALIPER_JSONLD,
+            sensor.getSerializer()).bytes();
+        List<byte[]> bodies = receiver.getBodies();
+        assertEquals(3, bodies.size());
+        for (byte[] body : bodies) {
+            assertArrayEquals(expected, body);
+        }
+    }
+
+    @Test
+    public void sendAsyncFansOutAcrossDataFormats() throws Exception {
+        Sensor sensor = Sensor.create("https://example.edu/sensors/1");
+        sensor.registerClient(createClient("jsonld-1", HttpClientOptions.builder()));
+        sensor.registerClient(createClient("jsonld-2", HttpClientOptions.builder()));
+        sensor.registerClient(createClient("json", HttpClientOptions.builder()
+            .dataFormat(DataFormat.CALIPER_JSON)));
+
+        List<SendResult> results = sensor.sendAsync(envelope).get(10, TimeUnit.SECONDS);
+        assertEquals(3, results.size());
+        for (SendResult result : results) {
+            assertTrue(result.isSuccessful());
+        }
+        assertEquals(3, receiver.getRequestCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void mismatchedDataFormatIsRejected() throws Exception {
+        HttpClient client = createClient("json", HttpClientOptions.builder().dataFormat(DataFormat.CALIPER_JSON));
+        client.encode(SerializedEnvelope.create(envelope, DataFormat.CALIPER_JSONLD,
+            Sensor.create("https://example.edu/sensors/1").getSerializer()));
+    }
+}
@@ -0,0 +1,192 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.clients;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.io.ByteStreams;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.imsglobal.caliper.codec.PayloadCodec;
+import org.imsglobal.caliper.codec.StandardCodec;
+import org.imsglobal.caliper.config.DataFormat;
+import org.imsglobal.caliper.databind.CaliperSerializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for a Caliper endpoint.  Records every request body, decoded according to its
+ * Content-Encoding, and responds with a configurable status code.
+ */
+public class StandInReceiver implements HttpHandler, AutoCloseable {
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final List<byte[]> bodies = new CopyOnWriteArrayList<>();
+    private final List<Headers> headers = new CopyOnWriteArrayList<>();
+    private final Map<String, PayloadCodec> codecs = new ConcurrentHashMap<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicLong wireBytes = new AtomicLong();
+    private final ConcurrentLinkedQueue<Integer> scripted = new ConcurrentLinkedQueue<>();
+    private final Map<String, String> responseHeaders = new ConcurrentHashMap<>();
+    private volatile int statusCode = 200;
+    private volatile long delay = 0L;
+
+    private StandInReceiver() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.executor = Executors.newCachedThreadPool();
+        for (StandardCodec codec : StandardCodec.values()) {
+            accept(codec);
+        }
+        this.server.createContext("/", this);
+        this.server.setExecutor(executor);
+        this.server.start();
+    }
+
+    public static StandInReceiver start() throws IOException {
+        return new StandInReceiver();
+    }
+
+    public String getHost() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    public void setStatusCode(int statusCode) {
+        this.statusCode = statusCode;
+    }
+
+    /**
+     * Answer the next requests with the given status codes before reverting to the default.
+     * @param statusCodes
+     */
+    public void script(int... statusCodes) {
+        for (int code : statusCodes) {
+            scripted.add(code);
+        }
+    }
+
+    public void setResponseHeader(String name, String value) {
+        responseHeaders.put(name, value);
+    }
+
+    public void setDelay(long delay) {
+        this.delay = delay;
+    }
+
+    public void accept(PayloadCodec codec) {
+        codecs.put(codec.getContentEncoding(), codec);
+    }
+
+    public long getWireBytes() {
+        return wireBytes.get();
+    }
+
+    public int getRequestCount() {
+        return requests.get();
+    }
+
+    public List<byte[]> getBodies() {
+        return bodies;
+    }
+
+    public List<Headers> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Decode a recorded body according to its Content-Type, as a relay would.
+     * @param index
+     * @return tree
+     * @throws IOException
+     */
+    public JsonNode getEnvelope(int index) throws IOException {
+        DataFormat format = DataFormat.forContentType(headers.get(index).getFirst("Content-Type"));
+        return CaliperSerializer.getInstance().readTree(bodies.get(index), format);
+    }
+
+    /**
+     * Read the request body and undo its Content-Encoding.
+     * @param exchange
+     * @return body, or null if the Content-Encoding is not accepted
+     * @throws IOException
+     */
+    private byte[] decode(HttpExchange exchange) throws IOException {
+        byte[] wire;
+        try (InputStream in = exchange.getRequestBody()) {
+            wire = ByteStreams.toByteArray(in);
+        }
+        wireBytes.addAndGet(wire.length);
+
+        String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+        if (encoding == null) {
+            return wire;
+        }
+        PayloadCodec codec = codecs.get(encoding);
+        if (codec == null) {
+            return null;
+        }
+        try (InputStream in = codec.decode(new ByteArrayInputStream(wire))) {
+            return ByteStreams.toByteArray(in);
+        }
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            byte[] body = decode(exchange);
+            if (body == null) {
+                exchange.sendResponseHeaders(415, -1);
+                return;
+            }
+            bodies.add(body);
+            headers.add(exchange.getRequestHeaders());
+            requests.incrementAndGet();
+            if (delay > 0) {
+                Thread.sleep(delay);
+            }
+            for (Map.Entry<String, String> header : responseHeaders.entrySet()) {
+                exchange.getResponseHeaders().set(header.getKey(), header.getValue());
+            }
+            Integer next = scripted.poll();
+            exchange.sendResponseHeaders(next != null ? next : statusCode, -1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
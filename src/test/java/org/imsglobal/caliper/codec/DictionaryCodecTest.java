@@ -0,0 +1,67 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.codec;
+
+import com.google.common.collect.ImmutableList;
+import org.imsglobal.caliper.TestUtils;
+import org.imsglobal.caliper.config.Config;
+import org.imsglobal.caliper.databind.CaliperSerializer;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+@Category(org.imsglobal.caliper.UnitTest.class)
+public class DictionaryCodecTest {
+
+    @Test
+    public void dictionaryFitsDeflateWindow() {
+        CaliperDictionary dictionary = CaliperDictionary.builder().build();
+        assertTrue(dictionary.size() <= CaliperDictionary.MAX_SIZE);
+        assertEquals(DictionaryCodec.CONTENT_ENCODING_PREFIX + dictionary.getId(),
+            DictionaryCodec.create(dictionary).getContentEncoding());
+    }
+
+    @Test
+    public void corpusChangesDictionaryId() {
+        CaliperDictionary base = CaliperDictionary.builder().build();
+        CaliperDictionary extended = CaliperDictionary.builder()
+            .corpus(ImmutableList.of("https://example.edu/terms/201801/courses/7/sections/1"))
+            .build();
+        assertNotEquals(base.getId(), extended.getId());
+    }
+
+    @Test
+    public void singleEventEnvelopeCompressesSeveralFold() throws Exception {
+        byte[] raw = CaliperSerializer.getInstance().serialize(TestUtils.createEnvelope(1), Config.DATA_FORMAT);
+        DictionaryCodec codec = DictionaryCodec.create(CaliperDictionary.builder()
+            .corpus(ImmutableList.of("https://example.edu/terms/201801/courses/7/sections/1", "https://example.edu"))
+            .build());
+
+        EncodedPayload dictionary = EncodedPayload.encode(raw, codec, 1);
+        EncodedPayload gzip = EncodedPayload.encode(raw, StandardCodec.GZIP, 1);
+
+        assertArrayEquals(raw, dictionary.decode());
+        assertTrue(dictionary.getBody().length < gzip.getBody().length);
+        assertTrue(dictionary.getBody().length * 3 <= raw.length);
+    }
+}
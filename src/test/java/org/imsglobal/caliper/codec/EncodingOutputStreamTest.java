@@ -0,0 +1,78 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.codec;
+
+import com.google.common.base.Strings;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@Category(org.imsglobal.caliper.UnitTest.class)
+public class EncodingOutputStreamTest {
+    private static final byte[] SMALL = "{\"id\":\"urn:uuid:1\"}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] LARGE = Strings.repeat("{\"type\":\"NavigationEvent\"},", 200)
+        .getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void payloadBelowThresholdIsNotEncoded() throws Exception {
+        EncodingOutputStream out = new EncodingOutputStream(StandardCodec.GZIP, 1024);
+        out.write(SMALL);
+        out.close();
+
+        EncodedPayload payload = out.toPayload();
+        assertFalse(payload.isEncoded());
+        assertNull(payload.getContentEncoding());
+        assertArrayEquals(SMALL, payload.getBody());
+    }
+
+    @Test
+    public void payloadReachingThresholdIsEncodedWhileStreaming() throws Exception {
+        for (StandardCodec codec : StandardCodec.values()) {
+            EncodingOutputStream out = new EncodingOutputStream(codec, 1024);
+            for (int i = 0; i < LARGE.length; i += 100) {
+                out.write(LARGE, i, Math.min(100, LARGE.length - i));
+            }
+            out.close();
+
+            EncodedPayload payload = out.toPayload();
+            assertTrue(payload.isEncoded());
+            assertEquals(codec.getContentEncoding(), payload.getContentEncoding());
+            assertEquals(LARGE.length, payload.getRawLength());
+            assertTrue(payload.getBody().length * 10 < LARGE.length);
+            assertArrayEquals(LARGE, payload.decode());
+        }
+    }
+
+    @Test
+    public void encodeAppliesThresholdToSerializedPayload() throws Exception {
+        assertFalse(EncodedPayload.encode(SMALL, StandardCodec.DEFLATE, 1024).isEncoded());
+        assertFalse(EncodedPayload.encode(LARGE, null, 1024).isEncoded());
+
+        EncodedPayload payload = EncodedPayload.encode(LARGE, StandardCodec.DEFLATE, 1024);
+        assertTrue(payload.isEncoded());
+        assertArrayEquals(LARGE, payload.decode());
+    }
+}
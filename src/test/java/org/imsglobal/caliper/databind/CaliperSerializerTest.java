@@ -0,0 +1,243 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.databind;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import org.imsglobal.caliper.CaliperSendable;
+import org.imsglobal.caliper.Envelope;
+import org.imsglobal.caliper.TestUtils;
+import org.imsglobal.caliper.actions.Action;
+import org.imsglobal.caliper.config.Config;
+import org.imsglobal.caliper.config.DataFormat;
+import org.imsglobal.caliper.context.JsonldStringContext;
+import org.imsglobal.caliper.entities.agent.CourseSection;
+import org.imsglobal.caliper.entities.agent.Person;
+import org.imsglobal.caliper.entities.agent.SoftwareApplication;
+import org.imsglobal.caliper.entities.resource.WebPage;
+import org.imsglobal.caliper.events.NavigationEvent;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.skyscreamer.jsonassert.JSONAssert;
+import org.skyscreamer.jsonassert.JSONCompareMode;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@Category(org.imsglobal.caliper.UnitTest.class)
+public class CaliperSerializerTest {
+    private CaliperSerializer serializer;
+    private Envelope envelope;
+
+    @Before
+    public void setup() {
+        serializer = CaliperSerializer.getInstance();
+        envelope = TestUtils.createEnvelope(3);
+    }
+
+    @Test
+    public void sharedInstanceIsReused() {
+        assertSame(serializer, CaliperSerializer.getInstance());
+        assertSame(serializer.getWriter(DataFormat.CALIPER_JSONLD), serializer.getWriter(DataFormat.CALIPER_JSONLD));
+    }
+
+    @Test
+    public void serializesLikeReferenceMapper() throws Exception {
+        ObjectMapper mapper = TestUtils.createCaliperObjectMapper();
+        String expected = mapper.writeValueAsString(envelope);
+
+        String json = serializer.serializeToString(envelope, DataFormat.CALIPER_JSONLD);
+        JSONAssert.assertEquals(expected, json, JSONCompareMode.STRICT);
+    }
+
+    @Test
+    public void entryPointsProduceIdenticalBytes() throws Exception {
+        byte[] bytes = serializer.serialize(envelope, DataFormat.CALIPER_JSONLD);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        serializer.serialize(envelope, DataFormat.CALIPER_JSONLD, out);
+        assertArrayEquals(bytes, out.toByteArray());
+
+        ByteBuffer buffer = serializer.serializeToByteBuffer(envelope, DataFormat.CALIPER_JSONLD);
+        byte[] copy = new byte[buffer.remaining()];
+        buffer.get(copy);
+        assertArrayEquals(bytes, copy);
+
+        assertEquals(new String(bytes, StandardCharsets.UTF_8),
+            serializer.serializeToString(envelope, DataFormat.CALIPER_JSONLD));
+    }
+
+    @Test
+    public void resolvesTheCoercibleDelegateOnce() throws Exception {
+        final int[] resolved = new int[1];
+        JsonSerializer<Object> delegate = new ResolvingSerializer(resolved);
+        JxnCoercibleSerializer coercible = new JxnCoercibleSerializer(delegate);
+        SerializerProvider provider = serializer.getMapper().getSerializerProviderInstance();
+
+        coercible.resolve(provider);
+        coercible.resolve(provider);
+
+        assertEquals(1, resolved[0]);
+    }
+
+    /**
+     * Bean serializer stand-in counting its resolutions.
+     */
+    private static class ResolvingSerializer extends JsonSerializer<Object> implements ResolvableSerializer {
+        private final int[] resolved;
+
+        private ResolvingSerializer(int[] resolved) {
+            this.resolved = resolved;
+        }
+
+        @Override
+        public void resolve(SerializerProvider provider) {
+            resolved[0]++;
+        }
+
+        @Override
+        public void serialize(Object value, JsonGenerator gen, SerializerProvider provider) {
+        }
+    }
+
+    @Test
+    public void writesCoercedEntitiesAsIris() throws Exception {
+        Person actor = Person.builder().id("https://example.edu/users/554433").coercedToId(true).build();
+        SoftwareApplication edApp = SoftwareApplication.builder().id("https://example.edu").build();
+        String json = serializer.serializeToString(new Object[] { actor, edApp }, DataFormat.CALIPER_JSON);
+
+        JSONAssert.assertEquals("[\"https://example.edu/users/554433\","
+            + "{\"id\":\"https://example.edu\",\"type\":\"SoftwareApplication\"}]", json, JSONCompareMode.LENIENT);
+    }
+
+    @Test
+    public void compactProfileHoistsSharedContext() throws Exception {
+        JsonNode compact = serializer.getMapper().readTree(serializer.serialize(envelope, DataFormat.CALIPER_JSON));
+
+        assertEquals(Config.JSONLD_EXTERNAL_CALIPER_CONTEXT, compact.get("@context").asText());
+        assertEquals(3, compact.get("data").size());
+        for (JsonNode event : compact.get("data")) {
+            assertFalse(event.has("@context"));
+        }
+    }
+
+    @Test
+    public void compactProfileDescribesEachEntityOnce() throws Exception {
+        JsonNode compact = serializer.getMapper().readTree(serializer.serialize(envelope, DataFormat.CALIPER_JSON));
+        JsonNode full = serializer.getMapper().readTree(serializer.serialize(envelope, DataFormat.CALIPER_JSONLD));
+
+        JsonNode first = compact.get("data").get(0);
+        assertEquals(full.get("data").get(0).get("group"), first.get("group"));
+        assertEquals("https://example.edu/users/554433", first.get("membership").get("member").asText());
+
+        JsonNode second = compact.get("data").get(1);
+        assertEquals("https://example.edu/users/554433", second.get("actor").asText());
+        assertEquals("https://example.edu", second.get("edApp").asText());
+        assertEquals(full.get("data").get(1).get("referrer"), second.get("referrer"));
+        assertEquals(full.get("data").get(1).get("object"), second.get("object"));
+
+        JsonNode alone = serializer.getMapper().readTree(serializer.serialize(envelope.getData().get(1),
+            DataFormat.CALIPER_JSON));
+        assertTrue(alone.get("actor").isObject());
+    }
+
+    @Test
+    public void compactProfileWritesFullDescriptionAfterStub() throws Exception {
+        String sectionId = "https://example.edu/terms/201601/courses/7/sections/1";
+        NavigationEvent event = NavigationEvent.builder()
+            .context(JsonldStringContext.getDefault())
+            .id("urn:uuid:ff9ec22a-fc59-4ae1-ae8d-2c9463ee2f8f")
+            .actor(Person.builder().id("https://example.edu/users/554433").build())
+            .action(Action.NAVIGATED_TO)
+            .object(WebPage.builder()
+                .id(sectionId + "/pages/2")
+                .isPartOf(CourseSection.builder().id(sectionId).build())
+                .build())
+            .eventTime(new DateTime(2016, 11, 15, 10, 15, 0, 0, DateTimeZone.UTC))
+            .group(CourseSection.builder().id(sectionId).courseNumber("CPS 435-01").build())
+            .build();
+        Envelope stubFirst = new Envelope("https://example.edu/sensors/1", new DateTime(DateTimeZone.UTC),
+            Config.DATA_VERSION, Arrays.<CaliperSendable>asList(event));
+
+        JsonNode compact = serializer.getMapper().readTree(serializer.serialize(stubFirst, DataFormat.CALIPER_JSON));
+        JsonNode data = compact.get("data").get(0);
+
+        assertEquals(sectionId, data.get("object").get("isPartOf").get("id").asText());
+        assertEquals("CPS 435-01", data.get("group").get("courseNumber").asText());
+    }
+
+    @Test
+    public void compactProfileWritesContextOnTopLevelItemsOnly() throws Exception {
+        Envelope mixed = new Envelope("https://example.edu/sensors/1", new DateTime(DateTimeZone.UTC),
+            Config.DATA_VERSION, Arrays.<CaliperSendable>asList(
+                createDescribedEvent(JsonldStringContext.getDefault()),
+                createDescribedEvent(JsonldStringContext.create("https://example.edu/ctx/caliper-ext"))));
+        JsonNode compact = serializer.getMapper().readTree(serializer.serialize(mixed, DataFormat.CALIPER_JSON));
+
+        assertFalse(compact.has("@context"));
+        assertEquals(Config.JSONLD_EXTERNAL_CALIPER_CONTEXT, compact.get("data").get(0).get("@context").asText());
+        assertEquals("https://example.edu/ctx/caliper-ext", compact.get("data").get(1).get("@context").asText());
+        for (JsonNode event : compact.get("data")) {
+            assertFalse(event.get("actor").has("@context"));
+            assertFalse(event.get("object").has("@context"));
+            assertFalse(event.get("object").has("extensions"));
+        }
+    }
+
+    /**
+     * Build an event whose nested entities carry their own context.
+     * @param context
+     * @return event
+     */
+    private static NavigationEvent createDescribedEvent(JsonldStringContext context) {
+        return NavigationEvent.builder()
+            .context(context)
+            .id("urn:uuid:ff9ec22a-fc59-4ae1-ae8d-2c9463ee2f8f")
+            .actor(Person.builder().context(context).id("https://example.edu/users/554433").build())
+            .action(Action.NAVIGATED_TO)
+            .object(WebPage.builder()
+                .context(context)
+                .id("https://example.edu/terms/201601/courses/7/sections/1/pages/2")
+                .extensions(new HashMap<String, Object>())
+                .build())
+            .eventTime(new DateTime(2016, 11, 15, 10, 15, 0, 0, DateTimeZone.UTC))
+            .build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnsupportedFormat() throws Exception {
+        serializer.serialize(envelope, DataFormat.XAPI_JSON);
+    }
+}
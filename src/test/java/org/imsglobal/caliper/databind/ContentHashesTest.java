@@ -0,0 +1,59 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.databind;
+
+import org.imsglobal.caliper.TestUtils;
+import org.imsglobal.caliper.entities.agent.Membership;
+import org.imsglobal.caliper.events.NavigationEvent;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@Category(org.imsglobal.caliper.UnitTest.class)
+public class ContentHashesTest {
+
+    @Test
+    public void nestedEntityHashesAsItWouldAlone() throws Exception {
+        NavigationEvent event = TestUtils.createNavigationEvent(1);
+        Membership membership = event.getMembership();
+
+        ContentHashes hashes = new ContentHashes();
+        ContentHash whole = hashes.of(event);
+        ContentHash nested = hashes.of(membership);
+
+        assertTrue(nested.matches(new ContentHashes().of(membership)));
+        assertTrue(hashes.of(membership.getMember()).matches(new ContentHashes().of(event.getActor())));
+        assertSame(whole, hashes.of(event));
+        assertSame(nested, hashes.of(membership));
+    }
+
+    @Test
+    public void nestedChangeChangesTheEnclosingHash() throws Exception {
+        NavigationEvent first = TestUtils.createNavigationEvent(1);
+        NavigationEvent copy = TestUtils.createNavigationEvent(1);
+        NavigationEvent changed = TestUtils.createNavigationEvent(2);
+
+        ContentHash hash = new ContentHashes().of(first);
+        assertTrue(hash.matches(new ContentHashes().of(copy)));
+        assertFalse(hash.matches(new ContentHashes().of(changed)));
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.databind;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.imsglobal.caliper.Envelope;
+import org.imsglobal.caliper.TestUtils;
+import org.imsglobal.caliper.config.DataFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares bytes on the wire and encode/decode cost of the compact and binary data formats against
+ * JSON-LD.  Decoding reads the body into a tree, which is what a receiver that does not bind Caliper
+ * types would do.  Not part of the unit test suite; run with:
+ *
+ *   mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *   java -cp target/classes:target/test-classes:$(cat target/cp.txt)
+ *       org.imsglobal.caliper.databind.DataFormatBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataFormatBenchmark {
+
+    @Param({"CALIPER_JSONLD", "CALIPER_JSON", "SMILE", "CBOR", "MESSAGEPACK"})
+    private DataFormat format;
+
+    @Param({"1", "50"})
+    private int events;
+
+    private Envelope envelope;
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private byte[] body;
+
+    @Setup
+    public void setup() throws Exception {
+        envelope = TestUtils.createEnvelope(events);
+        writer = CaliperSerializer.getInstance().getWriter(format).forType(Envelope.class);
+        reader = CaliperSerializer.getInstance().getMapper(format).readerFor(JsonNode.class);
+        body = writer.writeValueAsBytes(envelope);
+    }
+
+    @Benchmark
+    public byte[] encode() throws Exception {
+        return writer.writeValueAsBytes(envelope);
+    }
+
+    @Benchmark
+    public JsonNode decode() throws Exception {
+        return reader.readValue(body);
+    }
+
+    public static void main(String[] args) throws Exception {
+        for (int events : new int[] { 1, 50 }) {
+            Envelope envelope = TestUtils.createEnvelope(events);
+            for (DataFormat format : new DataFormat[] {
+                    DataFormat.CALIPER_JSONLD, DataFormat.CALIPER_JSON, DataFormat.SMILE, DataFormat.CBOR,
+                    DataFormat.MESSAGEPACK }) {
+                int length = CaliperSerializer.getInstance().serialize(envelope, format).length;
+                System.out.printf("%-14s %3d events: %7d bytes%n", format, events, length);
+            }
+        }
+
+        new Runner(new OptionsBuilder()
+            .include(DataFormatBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.databind;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+@Category(org.imsglobal.caliper.UnitTest.class)
+public class EntityIdSetTest {
+
+    @Test
+    public void returnsFirstEntityRecordedWithId() {
+        EntityIdSet set = new EntityIdSet();
+        Object person = new Object();
+
+        assertNull(set.add(person, "https://example.edu/users/554433"));
+        assertSame(person, set.add(person, "https://example.edu/users/554433"));
+        assertSame(person, set.add(new Object(), new String("https://example.edu/users/554433")));
+        assertNull(set.add(new Object(), "https://example.edu/users/112233"));
+        assertEquals(2, set.size());
+    }
+
+    @Test
+    public void growsPastInitialCapacity() {
+        EntityIdSet set = new EntityIdSet();
+        Object[] entities = new Object[1000];
+        for (int i = 0; i < entities.length; i++) {
+            entities[i] = new Object();
+            assertNull(set.add(entities[i], "https://example.edu/pages/" + i));
+        }
+        for (int i = 0; i < entities.length; i++) {
+            assertSame(entities[i], set.add(new Object(), "https://example.edu/pages/" + i));
+        }
+        assertEquals(entities.length, set.size());
+    }
+}
@@ -0,0 +1,135 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.limit;
+
+import org.imsglobal.caliper.clients.SendResult;
+import org.imsglobal.caliper.statistics.Statistics;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@Category(org.imsglobal.caliper.UnitTest.class)
+public class ConcurrencyLimiterTest {
+
+    @Test
+    public void fixedLimitBoundsInFlight() {
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.create(FixedLimit.of(2), new Statistics());
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+
+        limiter.release(10L, false);
+        assertTrue(limiter.tryAcquire());
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    public void aimdGrowsWhenBusyAndBacksOffOnDrop() {
+        Statistics statistics = new Statistics();
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.create(AimdLimit.builder()
+            .initialLimit(10)
+            .backoffRatio(0.5)
+            .build(), statistics);
+
+        for (int i = 0; i < 5; i++) {
+            fill(limiter);
+            limiter.release(20L, false);
+            drain(limiter);
+        }
+        assertEquals(15, limiter.getLimit());
+
+        assertTrue(limiter.tryAcquire());
+        limiter.release(20L, true);
+        assertEquals(7, limiter.getLimit());
+
+        assertEquals(7.0, statistics.getConcurrencyLimit().getMin(), 0.0);
+        assertEquals(15.0, statistics.getConcurrencyLimit().getMax(), 0.0);
+        assertEquals(6, statistics.getRtt().getCount());
+    }
+
+    @Test
+    public void localFailuresLeaveLimitUnchanged() {
+        Statistics statistics = new Statistics();
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.create(AimdLimit.builder()
+            .initialLimit(10)
+            .backoffRatio(0.5)
+            .build(), statistics);
+
+        assertTrue(limiter.tryAcquire());
+        limiter.release(SendResult.failure("test", 0, 5L, new RejectedExecutionException("full")));
+        assertTrue(limiter.tryAcquire());
+        limiter.release(SendResult.failure("test", 0, 5L, new IOException("reset")));
+
+        assertEquals(5, limiter.getLimit());
+        assertEquals(1, statistics.getRtt().getCount());
+    }
+
+    @Test
+    public void gradientFollowsLatency() {
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.create(GradientLimit.builder()
+            .initialLimit(20)
+            .build(), new Statistics());
+
+        // Steady latency under load: the limit grows.
+        for (int i = 0; i < 50; i++) {
+            fill(limiter);
+            limiter.release(20L, false);
+            drain(limiter);
+        }
+        int grown = limiter.getLimit();
+        assertTrue(grown > 20);
+
+        // Queueing at the endpoint quadruples latency: the limit shrinks.
+        for (int i = 0; i < 20; i++) {
+            fill(limiter);
+            limiter.release(80L, false);
+            drain(limiter);
+        }
+        assertTrue(limiter.getLimit() < grown);
+    }
+
+    @Test
+    public void idleClientDoesNotGrowLimit() {
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.create(AimdLimit.builder().initialLimit(10).build(),
+            new Statistics());
+        for (int i = 0; i < 20; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(20L, false);
+        }
+        assertEquals(10, limiter.getLimit());
+    }
+
+    private static void fill(ConcurrencyLimiter limiter) {
+        while (limiter.tryAcquire()) {
+            // Occupy every permit.
+        }
+    }
+
+    private static void drain(ConcurrencyLimiter limiter) {
+        while (limiter.getInFlight() > 0) {
+            limiter.release();
+        }
+    }
+}
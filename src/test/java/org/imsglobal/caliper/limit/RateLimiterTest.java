@@ -0,0 +1,100 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.limit;
+
+import org.imsglobal.caliper.Envelope;
+import org.imsglobal.caliper.TestUtils;
+import org.imsglobal.caliper.events.EventType;
+import org.imsglobal.caliper.statistics.Statistics;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@Category(org.imsglobal.caliper.UnitTest.class)
+public class RateLimiterTest {
+    private final AtomicLong now = new AtomicLong(TimeUnit.SECONDS.toNanos(100));
+
+    @Test
+    public void bucketAllowsBurstThenRefills() {
+        TokenBucket bucket = new TokenBucket(10.0, 5, now::get);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(bucket.tryAcquire(1));
+        }
+        assertFalse(bucket.tryAcquire(1));
+
+        advance(100L);
+        assertTrue(bucket.tryAcquire(1));
+        assertFalse(bucket.tryAcquire(1));
+
+        advance(10000L);
+        assertEquals(5L, bucket.getAvailable());
+    }
+
+    @Test
+    public void bucketReservesAheadWithinMaxWait() {
+        TokenBucket bucket = new TokenBucket(10.0, 1, now::get);
+        assertEquals(0L, bucket.reserve(1, 0L));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), bucket.reserve(1, Long.MAX_VALUE));
+        assertEquals(-1L, bucket.reserve(1, TimeUnit.MILLISECONDS.toNanos(150)));
+
+        bucket.refund(1);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), bucket.reserve(1, TimeUnit.MILLISECONDS.toNanos(150)));
+    }
+
+    @Test
+    public void limitsEventsByType() {
+        Statistics statistics = new Statistics();
+        RateLimiter limiter = new RateLimiter(RateLimiterOptions.builder()
+            .requests(100.0)
+            .events(EventType.NAVIGATION, 4.0, 4)
+            .maxDelay(500L)
+            .build(), statistics, now::get);
+        Envelope envelope = TestUtils.createEnvelope(3);
+
+        assertEquals(0L, limiter.reserve(envelope));
+        assertEquals(500L, limiter.reserve(envelope));
+        assertEquals(-1L, limiter.reserve(envelope));
+        assertFalse(limiter.tryAcquire(envelope));
+        assertTrue(limiter.tryAcquire(null));
+
+        assertEquals(2L, statistics.getRateLimited().getCount());
+        assertEquals(1L, statistics.getRateLimitDelay().getCount());
+    }
+
+    @Test
+    public void rejectionRefundsOtherBuckets() {
+        RateLimiter limiter = new RateLimiter(RateLimiterOptions.builder()
+            .requests(1.0, 1)
+            .events(1.0, 2)
+            .build(), new Statistics(), now::get);
+
+        assertFalse(limiter.tryAcquire(TestUtils.createEnvelope(3)));
+        assertTrue(limiter.tryAcquire(TestUtils.createEnvelope(2)));
+    }
+
+    private void advance(long millis) {
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.retry;
+
+import com.fasterxml.jackson.core.JsonGenerationException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.imsglobal.caliper.clients.SendResult;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.IOException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@Category(org.imsglobal.caliper.UnitTest.class)
+public class ExponentialBackoffRetryPolicyTest {
+    private static final IOException ERROR = new IOException("failed");
+
+    private static SendResult failure(int statusCode) {
+        return SendResult.failure("test", statusCode, 0L, ERROR);
+    }
+
+    @Test
+    public void classifiesStatusCodes() {
+        RetryPolicy policy = ExponentialBackoffRetryPolicy.builder().build();
+
+        assertTrue(policy.nextDelay(1, failure(503)) >= 0L);
+        assertTrue(policy.nextDelay(1, failure(429)) >= 0L);
+        assertTrue(policy.nextDelay(1, failure(0)) >= 0L);
+        assertEquals(-1L, policy.nextDelay(1, failure(400)));
+        assertEquals(-1L, policy.nextDelay(1, failure(404)));
+        assertEquals(-1L, policy.nextDelay(1, SendResult.success("test", 200, 0L)));
+    }
+
+    @Test
+    public void doesNotRetryLocalFailures() {
+        RetryPolicy policy = ExponentialBackoffRetryPolicy.builder().build();
+        SendResult rejected = SendResult.failure("test", 0, 0L, new RejectedExecutionException("full"));
+        SendResult unserializable = SendResult.failure("test", 0, 0L,
+            new CompletionException(new JsonGenerationException("bad", (JsonGenerator) null)));
+
+        assertTrue(rejected.isRejected());
+        assertFalse(unserializable.isRejected());
+        assertTrue(unserializable.isLocal());
+        assertFalse(failure(0).isLocal());
+        assertEquals(-1L, policy.nextDelay(1, rejected));
+        assertEquals(-1L, policy.nextDelay(1, unserializable));
+    }
+
+    @Test
+    public void retriesNoResponseOnlyForIoFailures() {
+        RetryPolicy policy = ExponentialBackoffRetryPolicy.builder().build();
+        SendResult timedOut = SendResult.failure("test", 0, 0L,
+            new CompletionException(new ConnectTimeoutException("connect timed out")));
+        SendResult noResponse = SendResult.failure("test", 0, 0L, new NoHttpResponseException("no response"));
+        SendResult invalid = SendResult.failure("test", 0, 0L, new IllegalArgumentException("bad"));
+        SendResult broken = SendResult.failure("test", 0, 0L, new CompletionException(new NullPointerException()));
+        SendResult interrupted = SendResult.failure("test", 0, 0L,
+            new IOException(new InterruptedException()));
+
+        assertTrue(timedOut.isRetryable());
+        assertTrue(noResponse.isRetryable());
+        assertFalse(invalid.isRetryable());
+        assertFalse(broken.isRetryable());
+        assertFalse(interrupted.isRetryable());
+        assertTrue(invalid.isLocal());
+        assertEquals(-1L, policy.nextDelay(1, invalid));
+        assertEquals(-1L, policy.nextDelay(1, interrupted));
+    }
+
+    @Test
+    public void stopsAfterMaxAttempts() {
+        RetryPolicy policy = ExponentialBackoffRetryPolicy.builder().maxAttempts(2).build();
+
+        assertTrue(policy.nextDelay(1, failure(503)) >= 0L);
+        assertEquals(-1L, policy.nextDelay(2, failure(503)));
+    }
+
+    @Test
+    public void delayIsJitteredWithinExponentialCeiling() {
+        RetryPolicy policy = ExponentialBackoffRetryPolicy.builder()
+            .maxAttempts(10)
+            .baseDelay(100L)
+            .maxDelay(1000L)
+            .budget(RetryBudget.create(1.0, 1000))
+            .build();
+
+        for (int i = 0; i < 100; i++) {
+            long first = policy.nextDelay(1, failure(503));
+            long third = policy.nextDelay(3, failure(503));
+            long eighth = policy.nextDelay(8, failure(503));
+            assertTrue(first >= 0L && first <= 100L);
+            assertTrue(third >= 0L && third <= 400L);
+            assertTrue(eighth >= 0L && eighth <= 1000L);
+        }
+    }
+
+    @Test
+    public void honoursRetryAfter() {
+        RetryPolicy policy = ExponentialBackoffRetryPolicy.builder().maxDelay(5000L).build();
+
+        assertEquals(2000L, policy.nextDelay(1, SendResult.failure("test", 503, 0L, ERROR,
+            SendResult.parseRetryAfter("2"))));
+        assertEquals(-1L, policy.nextDelay(1, SendResult.failure("test", 503, 0L, ERROR,
+            SendResult.parseRetryAfter("60"))));
+    }
+
+    @Test
+    public void budgetLimitsRetries() {
+        RetryBudget budget = RetryBudget.create(0.5, 2);
+        RetryPolicy policy = ExponentialBackoffRetryPolicy.builder().budget(budget).build();
+
+        assertTrue(policy.nextDelay(1, failure(503)) >= 0L);
+        assertTrue(policy.nextDelay(1, failure(503)) >= 0L);
+        assertEquals(-1L, policy.nextDelay(1, failure(503)));
+
+        policy.recordRequest();
+        assertEquals(-1L, policy.nextDelay(1, failure(503)));
+        policy.recordRequest();
+        assertTrue(policy.nextDelay(1, failure(503)) >= 0L);
+        assertFalse(budget.tryWithdraw());
+    }
+
+    @Test
+    public void parsesRetryAfter() {
+        assertEquals(-1L, SendResult.parseRetryAfter(null));
+        assertEquals(-1L, SendResult.parseRetryAfter("soon"));
+        assertEquals(120000L, SendResult.parseRetryAfter(" 120 "));
+        assertEquals(0L, SendResult.parseRetryAfter("Wed, 21 Oct 2015 07:28:00 GMT"));
+    }
+}
@@ -0,0 +1,255 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.spool;
+
+import org.imsglobal.caliper.Envelope;
+import org.imsglobal.caliper.TestUtils;
+import org.imsglobal.caliper.clients.HttpClient;
+import org.imsglobal.caliper.clients.HttpClientOptions;
+import org.imsglobal.caliper.clients.QueueingClient;
+import org.imsglobal.caliper.clients.QueueingClientOptions;
+import org.imsglobal.caliper.clients.SendResult;
+import org.imsglobal.caliper.clients.StandInReceiver;
+import org.imsglobal.caliper.config.DataFormat;
+import org.imsglobal.caliper.config.OverflowPolicy;
+import org.imsglobal.caliper.databind.CaliperSerializer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@Category(org.imsglobal.caliper.UnitTest.class)
+public class MappedEnvelopeSpoolTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MappedEnvelopeSpool open(File directory, int segmentSize, long diskBudget) throws Exception {
+        return MappedEnvelopeSpool.open(SpoolOptions.builder()
+            .directory(directory)
+            .segmentSize(segmentSize)
+            .diskBudget(diskBudget)
+            .build());
+    }
+
+    private static byte[] payload(int i) {
+        return ("{\"sequence\":" + i + ",\"padding\":\"0123456789012345678901234567890123456789\"}")
+            .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void replaysInAppendOrder() throws Exception {
+        MappedEnvelopeSpool spool = open(folder.newFolder(), 0, 0L);
+        assertTrue(spool.isEmpty());
+        assertNull(spool.peek());
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(spool.append(payload(i)));
+        }
+        for (int i = 0; i < 10; i++) {
+            assertArrayEquals(payload(i), spool.peek());
+            assertArrayEquals("peek is idempotent until acknowledged", payload(i), spool.peek());
+            spool.acknowledge();
+        }
+        assertTrue(spool.isEmpty());
+        spool.close();
+    }
+
+    @Test
+    public void rollsOverAndDeletesAcknowledgedSegments() throws Exception {
+        File directory = folder.newFolder();
+        MappedEnvelopeSpool spool = open(directory, 512, 64 * 512);
+
+        for (int i = 0; i < 40; i++) {
+            assertTrue(spool.append(payload(i)));
+        }
+        assertTrue(spool.getUsage() > 512);
+
+        for (int i = 0; i < 40; i++) {
+            assertArrayEquals(payload(i), spool.peek());
+            spool.acknowledge();
+        }
+        assertNull(spool.peek());
+        assertEquals(512, spool.getUsage());
+        spool.close();
+    }
+
+    @Test
+    public void refusesAppendsBeyondDiskBudget() throws Exception {
+        MappedEnvelopeSpool spool = open(folder.newFolder(), 512, 1024);
+
+        int stored = 0;
+        while (spool.append(payload(stored))) {
+            stored++;
+        }
+        assertTrue(stored > 0);
+        assertEquals(1024, spool.getUsage());
+
+        spool.peek();
+        spool.acknowledge();
+        assertFalse("budget is only released when a whole segment is acknowledged", spool.append(payload(0)));
+        spool.close();
+    }
+
+    @Test
+    public void resumesFromCheckpointAfterReopen() throws Exception {
+        File directory = folder.newFolder();
+        MappedEnvelopeSpool spool = open(directory, 512, 64 * 512);
+        for (int i = 0; i < 20; i++) {
+            spool.append(payload(i));
+        }
+        for (int i = 0; i < 12; i++) {
+            spool.peek();
+            spool.acknowledge();
+        }
+        spool.close();
+
+        MappedEnvelopeSpool reopened = open(directory, 512, 64 * 512);
+        for (int i = 12; i < 20; i++) {
+            assertArrayEquals(payload(i), reopened.peek());
+            reopened.acknowledge();
+        }
+        assertTrue(reopened.isEmpty());
+
+        assertTrue(reopened.append(payload(20)));
+        assertArrayEquals(payload(20), reopened.peek());
+        reopened.close();
+    }
+
+    @Test
+    public void spoolsEnvelopesInTheClientsDataFormat() throws Exception {
+        MappedEnvelopeSpool spool = open(folder.newFolder(), 0, 0L);
+        try {
+            HttpClient delegate = HttpClient.create("smile", HttpClientOptions.builder()
+                .apiKey("869e5ce5-214c-4e85-86c6-b99e8458a592")
+                .host("http://localhost:1/")
+                .dataFormat(DataFormat.SMILE)
+                .build());
+            QueueingClient client = QueueingClient.create(delegate, QueueingClientOptions.builder()
+                .spool(spool)
+                .build());
+            assertEquals(DataFormat.SMILE, client.getDataFormat());
+            client.close();
+
+            Envelope envelope = TestUtils.createEnvelope(1);
+            assertTrue(client.sendAsync(envelope).get(10, TimeUnit.SECONDS).isSpooled());
+            assertArrayEquals(CaliperSerializer.getInstance().serialize(envelope, DataFormat.SMILE), spool.peek());
+        } finally {
+            spool.close();
+        }
+    }
+
+    @Test
+    public void drainerReplaysOnceEndpointRecovers() throws Exception {
+        MappedEnvelopeSpool spool = open(folder.newFolder(), 0, 0L);
+        try (StandInReceiver receiver = StandInReceiver.start()) {
+            receiver.setStatusCode(503);
+
+            HttpClient client = HttpClient.create("spooled", HttpClientOptions.builder()
+                .apiKey("869e5ce5-214c-4e85-86c6-b99e8458a592")
+                .host(receiver.getHost())
+                .spool(spool)
+                .build());
+
+            SendResult result = client.sendAsync(TestUtils.createEnvelope(1)).get(10, TimeUnit.SECONDS);
+            assertFalse(result.isSuccessful());
+            assertEquals(1, client.getStatistics().getSpilled().getCount());
+
+            receiver.setStatusCode(200);
+            long deadline = System.currentTimeMillis() + 10000L;
+            while (!spool.isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50L);
+            }
+            assertTrue(spool.isEmpty());
+            assertEquals(1, client.getStatistics().getReplayed().getCount());
+            assertArrayEquals(receiver.getBodies().get(0), receiver.getBodies().get(receiver.getBodies().size() - 1));
+
+            client.getDrainer().stop();
+        } finally {
+            spool.close();
+        }
+    }
+
+    @Test
+    public void clientsSharingASpoolShareOneDrainer() throws Exception {
+        MappedEnvelopeSpool spool = open(folder.newFolder(), 0, 0L);
+        try (StandInReceiver receiver = StandInReceiver.start()) {
+            HttpClientOptions options = HttpClientOptions.builder()
+                .apiKey("869e5ce5-214c-4e85-86c6-b99e8458a592")
+                .host(receiver.getHost())
+                .spool(spool)
+                .build();
+            HttpClient first = HttpClient.create("first", options);
+            HttpClient second = HttpClient.create("second", options);
+
+            assertNotNull(first.getDrainer());
+            assertNull(second.getDrainer());
+            assertNull(SpoolDrainer.attach(spool, second));
+
+            first.close();
+            SpoolDrainer takeover = SpoolDrainer.attach(spool, second);
+            assertNotNull(takeover);
+            takeover.stop();
+            second.close();
+        } finally {
+            spool.close();
+        }
+    }
+
+    @Test
+    public void queueingClientReplaysSpilledEnvelopes() throws Exception {
+        MappedEnvelopeSpool spool = open(folder.newFolder(), 0, 0L);
+        try (StandInReceiver receiver = StandInReceiver.start()) {
+            HttpClient delegate = HttpClient.create("queued", HttpClientOptions.builder()
+                .apiKey("869e5ce5-214c-4e85-86c6-b99e8458a592")
+                .host(receiver.getHost())
+                .build());
+            assertTrue(spool.append(TestUtils.createEnvelope(1), delegate.getDataFormat()));
+
+            QueueingClient client = QueueingClient.create(delegate, QueueingClientOptions.builder()
+                .overflowPolicy(OverflowPolicy.SPILL_TO_DISK)
+                .spool(spool)
+                .build());
+            assertNotNull(client.getDrainer());
+
+            long deadline = System.currentTimeMillis() + 10000L;
+            while (!spool.isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50L);
+            }
+            assertTrue(spool.isEmpty());
+            assertEquals(1, receiver.getRequestCount());
+            assertEquals(1, delegate.getStatistics().getReplayed().getCount());
+
+            client.close();
+        } finally {
+            spool.close();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/**
+ * This file is part of IMS Caliper Analytics™ and is licensed to
+ * IMS Global Learning Consortium, Inc. (http://www.imsglobal.org)
+ * under one or more contributor license agreements.  See the NOTICE
+ * file distributed with this work for additional information.
+ *
+ * IMS Caliper is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, version 3 of the License.
+ *
+ * IMS Caliper is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.imsglobal.caliper.thinning;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.base.Ticker;
+import org.imsglobal.caliper.Envelope;
+import org.imsglobal.caliper.TestUtils;
+import org.imsglobal.caliper.config.DataFormat;
+import org.imsglobal.caliper.databind.CaliperSerializer;
+import org.imsglobal.caliper.statistics.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@Category(org.imsglobal.caliper.UnitTest.class)
+public class DescribedEntityCacheTest {
+    private static final String ACTOR = "https://example.edu/users/554433";
+
+    private final AtomicLong now = new AtomicLong();
+    private Statistics statistics;
+    private DescribedEntityCache cache;
+
+    @Before
+    public void setup() {
+        statistics = new Statistics();
+        cache = new DescribedEntityCache(DescribedEntityCacheOptions.builder().ttl(1000L).build(), statistics,
+            new Ticker() {
+                @Override
+                public long read() {
+                    return now.get();
+                }
+            });
+    }
+
+    @Test
+    public void unchangedEntityHitsUntilItExpires() {
+        assertFalse(describe(ACTOR, 42L));
+        assertTrue(describe(ACTOR, 42L));
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000L));
+        assertFalse(describe(ACTOR, 42L));
+        assertTrue(describe(ACTOR, 42L));
+    }
+
+    @Test
+    public void changedEntityIsDescribedAgain() {
+        assertFalse(describe(ACTOR, 42L));
+        assertFalse(describe(ACTOR, 43L));
+        assertTrue(describe(ACTOR, 43L));
+
+        cache.invalidateAll();
+        assertFalse(describe(ACTOR, 43L));
+    }
+
+    @Test
+    public void remembersDescriptionsOnlyOnceCommitted() {
+        PayloadDescriptions first = cache.newPayload();
+        assertFalse(first.isDescribed(ACTOR, 42L, 60));
+        assertTrue(first.isDescribed(ACTOR, 42L, 60));
+        assertEquals(0, cache.size());
+
+        PayloadDescriptions concurrent = cache.newPayload();
+        assertFalse(concurrent.isDescribed(ACTOR, 42L, 60));
+
+        first.commit();
+        assertTrue(cache.newPayload().isDescribed(ACTOR, 42L, 60));
+    }
+
+    @Test
+    public void publishesHitRateAndBytesSaved() {
+        describe(ACTOR, 42L);
+        describe(ACTOR, 42L);
+        describe(ACTOR, 42L);
+        describe("https://example.edu", 7L);
+
+        assertEquals(0.5, cache.getHitRate(), 0.0);
+        assertEquals(2, statistics.getDescribedHits().getCount());
+        assertEquals(2, statistics.getDescribedMisses().getCount());
+        assertEquals(2 * (60 - ACTOR.length() - 2), statistics.getDescribedBytesSaved().getSum(), 0.0);
+    }
+
+    @Test
+    public void boundsTheEntitiesRemembered() {
+        DescribedEntityCache small = DescribedEntityCache.create(
+            DescribedEntityCacheOptions.builder().maximumSize(10).build(), statistics);
+        PayloadDescriptions payload = small.newPayload();
+        for (int i = 0; i < 100; i++) {
+            payload.isDescribed("https://example.edu/pages/" + i, i, 60);
+        }
+        payload.commit();
+        assertTrue(small.size() <= 10);
+    }
+
+    @Test
+    public void thinsEntitiesDescribedInEarlierEnvelopes() throws Exception {
+        CaliperSerializer serializer = CaliperSerializer.getInstance();
+        Envelope envelope = TestUtils.createEnvelope(1);
+
+        PayloadDescriptions described = cache.newPayload();
+        JsonNode first = serializer.readTree(serializer.serialize(envelope, DataFormat.CALIPER_JSONLD, described),
+            DataFormat.CALIPER_JSONLD).get("data").get(0);
+        assertTrue(first.get("actor").isObject());
+        assertEquals(ACTOR, first.get("membership").get("member").asText());
+
+        JsonNode unacknowledged = serializer.readTree(serializer.serialize(envelope, DataFormat.CALIPER_JSONLD,
+            cache.newPayload()), DataFormat.CALIPER_JSONLD).get("data").get(0);
+        assertTrue(unacknowledged.get("actor").isObject());
+
+        described.commit();
+        JsonNode second = serializer.readTree(serializer.serialize(envelope, DataFormat.CALIPER_JSONLD,
+            cache.newPayload()), DataFormat.CALIPER_JSONLD).get("data").get(0);
+        assertEquals(ACTOR, second.get("actor").asText());
+        assertEquals("https://example.edu", second.get("edApp").asText());
+        assertTrue(second.has("@context"));
+
+        JsonNode changed = serializer.readTree(serializer.serialize(TestUtils.createEnvelope(2),
+            DataFormat.CALIPER_JSONLD, cache.newPayload()), DataFormat.CALIPER_JSONLD).get("data").get(1);
+        assertTrue(changed.get("object").isObject());
+        assertEquals(ACTOR, changed.get("actor").asText());
+    }
+
+    /**
+     * Look an entity up in a payload of its own, committed straight away.
+     * @param id
+     * @param contentHash
+     * @return true if already described
+     */
+    private boolean describe(String id, long contentHash) {
+        PayloadDescriptions payload = cache.newPayload();
+        boolean described = payload.isDescribed(id, contentHash, 60);
+        payload.commit();
+        return described;
+    }
+}